@@ -0,0 +1,115 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load generator, run as a single source file (JDK only):
+ * {@code java scripts/HttpLoadGenerator.java <url> [concurrency] [warmup] [duration] [protocol]}.
+ * Each of {@code concurrency} threads sends the next GET as soon as the previous one answered.
+ * {@code protocol} is {@code http1} (keep-alive connections, the default), {@code http1-close}
+ * (a new connection per request) or {@code h2c} (HTTP/2 after an upgrade, requests multiplexed
+ * over one connection). Nothing is recorded during {@code warmup}; afterwards every
+ * latency is kept, so percentiles are exact. Prints one line: {@code rps=... p50Ms=... p99Ms=...
+ * p999Ms=... errors=...}.
+ */
+public class HttpLoadGenerator {
+
+	public static void main(final String[] args) throws Exception {
+		if (args.length < 1) {
+			System.err.println("usage: java HttpLoadGenerator.java <url> [concurrency=64] [warmup=PT20S] [duration=PT60S] "
+					+ "[http1|http1-close|h2c]");
+			System.exit(2);
+		}
+		final URI uri = URI.create(args[0]);
+		final int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+		final Duration warmup = args.length > 2 ? Duration.parse(args[2]) : Duration.ofSeconds(20);
+		final Duration duration = args.length > 3 ? Duration.parse(args[3]) : Duration.ofSeconds(60);
+		final String protocol = args.length > 4 ? args[4] : "http1";
+		// read once, when the client classes load
+		System.setProperty("jdk.httpclient.allowRestrictedHeaders", "connection");
+
+		final ExecutorService clientExecutor = Executors.newFixedThreadPool(4);
+		final HttpClient client = HttpClient.newBuilder()
+				.version("h2c".equals(protocol) ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+				.executor(clientExecutor)
+				.connectTimeout(Duration.ofSeconds(5))
+				.build();
+		final HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(uri)
+				.timeout(Duration.ofSeconds(10))
+				.GET();
+		if ("http1-close".equals(protocol))
+			requestBuilder.header("Connection", "close");
+		final HttpRequest request = requestBuilder.build();
+
+		// with h2c, the other requests then share the connection this one upgraded
+		client.send(request, HttpResponse.BodyHandlers.discarding());
+
+		final long measureFrom = System.nanoTime() + warmup.toNanos();
+		final long measureTo = measureFrom + duration.toNanos();
+		final AtomicLong errors = new AtomicLong();
+		final long[][] latencies = new long[concurrency][];
+		final int[] counts = new int[concurrency];
+		final CountDownLatch done = new CountDownLatch(concurrency);
+		for (int i = 0; i < concurrency; i++) {
+			final int worker = i;
+			final Thread thread = new Thread(() -> {
+				long[] recorded = new long[1 << 16];
+				int count = 0;
+				for (long startedAt = System.nanoTime(); startedAt < measureTo; startedAt = System.nanoTime()) {
+					boolean ok;
+					try {
+						ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() / 100 == 2;
+					}
+					catch (Exception e) {
+						ok = false;
+					}
+					final long endedAt = System.nanoTime();
+					if (startedAt < measureFrom || endedAt > measureTo)
+						continue;
+					if (!ok) {
+						errors.incrementAndGet();
+						continue;
+					}
+					if (count == recorded.length)
+						recorded = Arrays.copyOf(recorded, count << 1);
+					recorded[count++] = endedAt - startedAt;
+				}
+				latencies[worker] = recorded;
+				counts[worker] = count;
+				done.countDown();
+			}, "load-" + i);
+			thread.setDaemon(true);
+			thread.start();
+		}
+		done.await();
+		clientExecutor.shutdown();
+
+		final long[] all = new long[Arrays.stream(counts).sum()];
+		for (int i = 0, offset = 0; i < concurrency; offset += counts[i], i++)
+			System.arraycopy(latencies[i], 0, all, offset, counts[i]);
+		Arrays.sort(all);
+		System.out.printf("rps=%.0f p50Ms=%.2f p99Ms=%.2f p999Ms=%.2f errors=%d%n",
+				all.length / (duration.toNanos() / 1e9),
+				percentileMillis(all, 0.50),
+				percentileMillis(all, 0.99),
+				percentileMillis(all, 0.999),
+				errors.get());
+	}
+
+	private static double percentileMillis(final long[] sorted, final double percentile) {
+		if (sorted.length == 0)
+			return Double.NaN;
+		final int index = (int) Math.ceil(percentile * sorted.length) - 1;
+		return sorted[Math.max(index, 0)] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+}
+
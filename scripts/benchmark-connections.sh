@@ -0,0 +1,107 @@
+#!/usr/bin/env bash
+#
+# Compares how callers connect to the service: a new HTTP/1.1 connection per request, HTTP/1.1
+# keep-alive, and h2c (HTTP/2 over cleartext, multiplexed). Builds the service on one embedded
+# server, starts it with the prod profile and server.http2.enabled=true, and load-tests
+# GET /api/payments/{id} once per mode with scripts/HttpLoadGenerator.java. Prints RPS, latency
+# percentiles, the connections the server accepted during the run and the most that were open
+# at once.
+#
+#   scripts/benchmark-connections.sh [server]        (tomcat, undertow or jetty; default: tomcat)
+#
+# Environment: CONCURRENCY (64), WARMUP (PT10S), DURATION (PT30S), PORT (8400), PAYMENT_ID (1),
+# MVN (mvn), JAVA_OPTS (-Xms512m -Xmx512m), OUT_DIR (jar and logs; ${TMPDIR:-/tmp}/payment-service-
+# benchmark). The build is a clean build, so target/ is replaced. Linux only: connections are
+# counted from /proc/net (accepted ones host-wide, so keep other traffic off the host).
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+SERVER="${1:-tomcat}"
+CONCURRENCY="${CONCURRENCY:-64}"
+WARMUP="${WARMUP:-PT10S}"
+DURATION="${DURATION:-PT30S}"
+PORT="${PORT:-8400}"
+PAYMENT_ID="${PAYMENT_ID:-1}"
+MVN="${MVN:-mvn}"
+JAVA_OPTS="${JAVA_OPTS:--Xms512m -Xmx512m}"
+OUT_DIR="${OUT_DIR:-${TMPDIR:-/tmp}/payment-service-benchmark}"
+BASE_URL="http://localhost:${PORT}/payment-service"
+
+passive_opens() {
+	awk '/^Tcp:/ { if (!column) { for (i = 1; i <= NF; i++) if ($i == "PassiveOpens") column = i } else { print $column; exit } }' \
+		/proc/net/snmp
+}
+
+# established connections whose local port is the server's
+established() {
+	local port_hex
+	port_hex=$(printf ':%04X' "$PORT")
+	cat /proc/net/tcp /proc/net/tcp6 2>/dev/null \
+		| awk -v port="$port_hex" '$4 == "01" && substr($2, length($2) - 4) == port' \
+		| wc -l
+}
+
+mkdir -p "$OUT_DIR"
+pid=""
+sampler=""
+trap '[ -n "$sampler" ] && kill "$sampler" 2>/dev/null; [ -n "$pid" ] && kill "$pid" 2>/dev/null || true' EXIT
+
+echo "==> ${SERVER}: building"
+"$MVN" -B -q -P"${SERVER}" -DskipTests clean package
+jar="${OUT_DIR}/payment-service-${SERVER}.jar"
+cp target/payment-service-v*.jar "$jar"
+
+echo "==> ${SERVER}: starting with h2c"
+# shellcheck disable=SC2086
+java $JAVA_OPTS -jar "$jar" \
+	--spring.profiles.active=prod \
+	--server.port="$PORT" \
+	--server.http2.enabled=true \
+	--eureka.client.enabled=false \
+	--spring.zipkin.enabled=false \
+	--app.inbound-limit.enabled=false \
+	--logging.file.name="${OUT_DIR}/payment-service-${SERVER}-connections.log" \
+	> "${OUT_DIR}/payment-service-${SERVER}-connections.out" 2>&1 &
+pid=$!
+for _ in $(seq 1 120); do
+	curl -fs "${BASE_URL}/actuator/health" > /dev/null 2>&1 && break
+	sleep 1
+done
+curl -fs "${BASE_URL}/actuator/health" > /dev/null
+
+results=()
+for mode in http1-close http1 h2c; do
+	echo "==> ${mode}: ${CONCURRENCY} concurrent requests, warm-up ${WARMUP}, measuring ${DURATION}"
+	peak_file="${OUT_DIR}/peak-${mode}"
+	echo 0 > "$peak_file"
+	(
+		peak=0
+		while true; do
+			current=$(established)
+			if [ "$current" -gt "$peak" ]; then
+				peak=$current
+				echo "$peak" > "$peak_file"
+			fi
+			sleep 0.5
+		done
+	) &
+	sampler=$!
+	opens_before=$(passive_opens)
+	result=$(java scripts/HttpLoadGenerator.java "${BASE_URL}/api/payments/${PAYMENT_ID}" \
+		"$CONCURRENCY" "$WARMUP" "$DURATION" "$mode")
+	opens_after=$(passive_opens)
+	kill "$sampler"
+	wait "$sampler" 2>/dev/null || true
+	sampler=""
+	results+=("$(printf '%-11s %s accepted=%d peakOpen=%s' "$mode" "$result" \
+		$((opens_after - opens_before)) "$(cat "$peak_file")")")
+done
+
+kill "$pid"
+wait "$pid" 2>/dev/null || true
+pid=""
+
+echo
+printf '%s\n' "${results[@]}"
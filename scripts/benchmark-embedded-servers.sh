@@ -0,0 +1,75 @@
+#!/usr/bin/env bash
+#
+# Builds the service on each embedded server (Maven profiles tomcat, undertow, jetty), starts it
+# with the prod profile and its thread settings, and load-tests GET /api/payments/{id} with
+# scripts/HttpLoadGenerator.java. Prints RPS, p50/p99/p99.9 latency and the process RSS.
+#
+#   scripts/benchmark-embedded-servers.sh [server...]        (default: tomcat undertow jetty)
+#
+# Environment: CONCURRENCY (64), WARMUP (PT20S), DURATION (PT60S), PORT (8400), PAYMENT_ID (1),
+# MVN (mvn), JAVA_OPTS (-Xms512m -Xmx512m), OUT_DIR (jars and logs; ${TMPDIR:-/tmp}/payment-service-
+# benchmark). Builds are clean builds, so target/ is replaced. Inbound limits are switched off so
+# the numbers are the server's, not the rate limiter's. Linux only (RSS read from /proc).
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+CONCURRENCY="${CONCURRENCY:-64}"
+WARMUP="${WARMUP:-PT20S}"
+DURATION="${DURATION:-PT60S}"
+PORT="${PORT:-8400}"
+PAYMENT_ID="${PAYMENT_ID:-1}"
+MVN="${MVN:-mvn}"
+JAVA_OPTS="${JAVA_OPTS:--Xms512m -Xmx512m}"
+OUT_DIR="${OUT_DIR:-${TMPDIR:-/tmp}/payment-service-benchmark}"
+BASE_URL="http://localhost:${PORT}/payment-service"
+
+if [ "$#" -gt 0 ]; then
+	servers=("$@")
+else
+	servers=(tomcat undertow jetty)
+fi
+
+mkdir -p "$OUT_DIR"
+pid=""
+trap '[ -n "$pid" ] && kill "$pid" 2>/dev/null || true' EXIT
+
+results=()
+for server in "${servers[@]}"; do
+	echo "==> ${server}: building"
+	# clean: an already repackaged jar would be kept as is, with the previous server in it
+	"$MVN" -B -q -P"${server}" -DskipTests clean package
+	jar="${OUT_DIR}/payment-service-${server}.jar"
+	cp target/payment-service-v*.jar "$jar"
+
+	echo "==> ${server}: starting"
+	# shellcheck disable=SC2086
+	java $JAVA_OPTS -jar "$jar" \
+		--spring.profiles.active=prod \
+		--server.port="$PORT" \
+		--eureka.client.enabled=false \
+		--spring.zipkin.enabled=false \
+		--app.inbound-limit.enabled=false \
+		--logging.file.name="${OUT_DIR}/payment-service-${server}.log" \
+		> "${OUT_DIR}/payment-service-${server}.out" 2>&1 &
+	pid=$!
+	for _ in $(seq 1 120); do
+		curl -fs "${BASE_URL}/actuator/health" > /dev/null 2>&1 && break
+		sleep 1
+	done
+	curl -fs "${BASE_URL}/actuator/health" > /dev/null
+
+	echo "==> ${server}: ${CONCURRENCY} connections, warm-up ${WARMUP}, measuring ${DURATION}"
+	result=$(java scripts/HttpLoadGenerator.java "${BASE_URL}/api/payments/${PAYMENT_ID}" \
+		"$CONCURRENCY" "$WARMUP" "$DURATION")
+	rss_kb=$(awk '/^VmRSS:/ { print $2 }' "/proc/${pid}/status")
+	results+=("$(printf '%-9s %s rssMb=%d' "$server" "$result" $((rss_kb / 1024)))")
+
+	kill "$pid"
+	wait "$pid" 2>/dev/null || true
+	pid=""
+done
+
+echo
+printf '%s\n' "${results[@]}"
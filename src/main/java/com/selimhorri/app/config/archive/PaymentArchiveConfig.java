@@ -0,0 +1,22 @@
+package com.selimhorri.app.config.archive;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(PaymentArchiveProperties.class)
+public class PaymentArchiveConfig {
+	
+	
+	
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,45 @@
+package com.selimhorri.app.config.archive;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.archive")
+@Data
+public class PaymentArchiveProperties {
+	
+	private boolean enabled = true;
+	
+	/**
+	 * COMPLETED payments created longer ago than this are moved to payments_archive.
+	 */
+	private Duration minAge = Duration.ofDays(30);
+	
+	/**
+	 * Rows moved per transaction, to keep lock time and undo size small.
+	 */
+	private int batchSize = 500;
+	
+	/**
+	 * Upper bound of batches per run, so a large backlog is drained over several runs.
+	 */
+	private int maxBatchesPerRun = 100;
+	
+	/**
+	 * Delay between runs, in ISO-8601 form (PT15M) as it also drives the @Scheduled trigger.
+	 */
+	private Duration interval = Duration.ofMinutes(15);
+	
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,53 @@
+package com.selimhorri.app.config.async;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.RequiredArgsConstructor;
+
+@Configuration
+@EnableConfigurationProperties(AsyncRequestProperties.class)
+@RequiredArgsConstructor
+public class AsyncRequestConfig implements WebMvcConfigurer {
+	
+	private final AsyncRequestProperties properties;
+	
+	@Bean
+	public ThreadPoolTaskExecutor paymentRequestExecutor() {
+		final var executor = new ThreadPoolTaskExecutor();
+		executor.setThreadNamePrefix("payment-request-");
+		executor.setCorePoolSize(this.properties.getPoolSize());
+		executor.setMaxPoolSize(this.properties.getPoolSize());
+		executor.setQueueCapacity(this.properties.getQueueCapacity());
+		return executor;
+	}
+	
+	@Bean
+	public AsyncRequestExecutor asyncRequestExecutor(final ThreadPoolTaskExecutor paymentRequestExecutor, 
+			final MeterRegistry meterRegistry) {
+		// pool size, active threads, queued and completed tasks
+		new ExecutorServiceMetrics(paymentRequestExecutor.getThreadPoolExecutor(), "payments.requests", Tags.empty())
+				.bindTo(meterRegistry);
+		return new AsyncRequestExecutor(paymentRequestExecutor, this.properties, meterRegistry);
+	}
+	
+	/**
+	 * Backstop only: {@link AsyncRequestExecutor} answers its requests at {@code timeout}. Streams
+	 * and long polls set their own timeouts.
+	 */
+	@Override
+	public void configureAsyncSupport(final AsyncSupportConfigurer configurer) {
+		configurer.setDefaultTimeout(this.properties.getTimeout().toMillis() + 1000);
+	}
+	
+	
+	
+}
+
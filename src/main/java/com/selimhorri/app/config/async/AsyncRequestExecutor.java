@@ -0,0 +1,80 @@
+package com.selimhorri.app.config.async;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+
+import com.selimhorri.app.exception.wrapper.RequestRejectedException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Runs request handling off the container thread, which returns to the pool as soon as the
+ * handler has handed back the {@link CompletableFuture}. The executor is bounded: a full queue
+ * answers 503 right away, and so does a request still unanswered after the timeout. A timed-out
+ * request that hasn't started yet never runs; one already running is left to finish, since
+ * interrupting a thread in the middle of a JDBC call can break its connection.
+ */
+public class AsyncRequestExecutor {
+	
+	private final AsyncTaskExecutor executor;
+	private final AsyncRequestProperties properties;
+	private final Counter rejectedCounter;
+	private final Counter timeoutCounter;
+	
+	public AsyncRequestExecutor(final AsyncTaskExecutor executor, 
+			final AsyncRequestProperties properties, 
+			final MeterRegistry meterRegistry) {
+		this.executor = executor;
+		this.properties = properties;
+		this.rejectedCounter = Counter.builder("payments.requests.rejected")
+				.description("Read requests refused because the request executor's queue was full")
+				.register(meterRegistry);
+		this.timeoutCounter = Counter.builder("payments.requests.timeouts")
+				.description("Read requests answered with 503 after the request timeout")
+				.register(meterRegistry);
+	}
+	
+	public <T> CompletableFuture<T> supply(final Supplier<T> call) {
+		
+		if (!this.properties.isEnabled())
+			return CompletableFuture.completedFuture(call.get());
+		
+		final CompletableFuture<T> result = new CompletableFuture<>();
+		final Future<?> task;
+		try {
+			task = this.executor.submit(() -> {
+				try {
+					result.complete(call.get());
+				}
+				catch (RuntimeException | Error e) {
+					result.completeExceptionally(e);
+				}
+			});
+		}
+		catch (TaskRejectedException e) {
+			this.rejectedCounter.increment();
+			throw new RequestRejectedException("Too many requests in progress", 
+					HttpStatus.SERVICE_UNAVAILABLE, this.properties.getRetryAfter());
+		}
+		return result.orTimeout(this.properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS)
+				.exceptionally(e -> {
+					if (!(e instanceof TimeoutException))
+						throw new CompletionException(e);
+					task.cancel(false);
+					this.timeoutCounter.increment();
+					throw new RequestRejectedException("Request timed out", 
+							HttpStatus.SERVICE_UNAVAILABLE, this.properties.getRetryAfter());
+				});
+	}
+	
+}
+
@@ -0,0 +1,36 @@
+package com.selimhorri.app.config.async;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.async-request")
+@Data
+public class AsyncRequestProperties {
+	
+	/**
+	 * When off, read requests run on the container thread, as before.
+	 */
+	private boolean enabled = true;
+	
+	/**
+	 * Threads running read requests; more than the connection pool only adds waiters for a connection.
+	 */
+	private int poolSize = 20;
+	
+	/**
+	 * Read requests waiting for a thread; further requests get 503 with Retry-After.
+	 */
+	private int queueCapacity = 200;
+	
+	/**
+	 * Time a read request may take, queueing included, before it is answered with 503.
+	 */
+	private Duration timeout = Duration.ofSeconds(10);
+	
+	private Duration retryAfter = Duration.ofSeconds(1);
+	
+}
+
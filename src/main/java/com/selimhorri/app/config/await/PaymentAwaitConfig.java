@@ -0,0 +1,13 @@
+package com.selimhorri.app.config.await;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(PaymentAwaitProperties.class)
+public class PaymentAwaitConfig {
+	
+	
+	
+}
+
@@ -0,0 +1,31 @@
+package com.selimhorri.app.config.await;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.payment-await")
+@Data
+public class PaymentAwaitProperties {
+	
+	private boolean enabled = true;
+	
+	/**
+	 * Wait used when the request has no {@code timeout} parameter.
+	 */
+	private Duration defaultTimeout = Duration.ofSeconds(30);
+	
+	/**
+	 * Longest wait a client may ask for; kept below proxy/load balancer idle timeouts.
+	 */
+	private Duration maxTimeout = Duration.ofSeconds(60);
+	
+	/**
+	 * Parked requests per instance; further requests get 503 with Retry-After.
+	 */
+	private int maxWaiters = 10000;
+	
+}
+
@@ -0,0 +1,13 @@
+package com.selimhorri.app.config.bulkimport;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(PaymentImportProperties.class)
+public class PaymentImportConfig {
+	
+	
+	
+}
+
@@ -0,0 +1,37 @@
+package com.selimhorri.app.config.bulkimport;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.payment-import")
+@Data
+public class PaymentImportProperties {
+	
+	/**
+	 * Rows sent to the database per JDBC batch.
+	 */
+	private int batchSize = 500;
+	
+	/**
+	 * Rows committed per transaction; also the most rows held in memory during an import.
+	 */
+	private int commitInterval = 5000;
+	
+	/**
+	 * Rejected rows listed in the report; further ones are only counted.
+	 */
+	private int maxReportedErrors = 100;
+	
+	/**
+	 * When set, the application imports this CSV or NDJSON file at startup and exits.
+	 */
+	private String file;
+	
+	/**
+	 * Format of {@code file} (csv or ndjson); by default taken from its extension.
+	 */
+	private String format;
+	
+}
+
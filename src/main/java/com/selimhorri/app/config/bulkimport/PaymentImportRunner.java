@@ -0,0 +1,55 @@
+package com.selimhorri.app.config.bulkimport;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import com.selimhorri.app.dto.PaymentImportReport;
+import com.selimhorri.app.service.PaymentImportService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Command-line import: {@code java -jar payment-service.jar --app.payment-import.file=payments.csv
+ * --spring.main.web-application-type=none}. Imports the file, logs the report and exits with
+ * status 0, or 1 when rows were rejected.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.payment-import", name = "file")
+@Slf4j
+@RequiredArgsConstructor
+public class PaymentImportRunner implements ApplicationRunner {
+	
+	private final PaymentImportService paymentImportService;
+	private final PaymentImportProperties properties;
+	private final ConfigurableApplicationContext context;
+	
+	@Override
+	public void run(final ApplicationArguments args) throws Exception {
+		
+		final Path file = Path.of(this.properties.getFile());
+		final String fileName = file.getFileName().toString();
+		final PaymentImportService.Format format = PaymentImportService.Format.of(this.properties.getFormat() != null 
+				? this.properties.getFormat() : fileName.substring(fileName.lastIndexOf('.') + 1));
+		
+		final PaymentImportReport report;
+		try (InputStream input = Files.newInputStream(file)) {
+			report = this.paymentImportService.importPayments(input, format);
+		}
+		report.getErrors().forEach(error -> log.warn("*** {}:{}: {} *", fileName, error.getLine(), error.getMessage()));
+		log.info("*** Imported {} payments from {}, rejected {} rows *", report.getImported(), file, report.getRejected());
+		
+		final int exitCode = report.getRejected() == 0 ? 0 : 1;
+		System.exit(SpringApplication.exit(this.context, () -> exitCode));
+	}
+	
+}
+
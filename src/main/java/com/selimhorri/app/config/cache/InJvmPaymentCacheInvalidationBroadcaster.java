@@ -0,0 +1,25 @@
+package com.selimhorri.app.config.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers invalidations to the subscribers of this JVM only: enough for a single instance, and
+ * for tests that wire several caches to one broadcaster to stand for several instances.
+ */
+public class InJvmPaymentCacheInvalidationBroadcaster implements PaymentCacheInvalidationBroadcaster {
+	
+	private final List<Consumer<Integer>> subscribers = new CopyOnWriteArrayList<>();
+	
+	@Override
+	public void broadcast(final Integer paymentId) {
+		this.subscribers.forEach(subscriber -> subscriber.accept(paymentId));
+	}
+	
+	@Override
+	public void subscribe(final Consumer<Integer> onInvalidation) {
+		this.subscribers.add(onInvalidation);
+	}
+	
+}
@@ -0,0 +1,23 @@
+package com.selimhorri.app.config.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(PaymentCacheProperties.class)
+public class PaymentCacheConfig {
+	
+	/**
+	 * Replaced by any other broadcaster bean, e.g. one over the platform's message bus.
+	 */
+	@Bean
+	@ConditionalOnMissingBean(PaymentCacheInvalidationBroadcaster.class)
+	public PaymentCacheInvalidationBroadcaster paymentCacheInvalidationBroadcaster() {
+		return new InJvmPaymentCacheInvalidationBroadcaster();
+	}
+	
+	
+	
+}
@@ -0,0 +1,14 @@
+package com.selimhorri.app.config.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries payment cache invalidations to every instance (including this one), so their
+ * {@link PaymentNearCache}s drop a payment that changed anywhere.
+ */
+public interface PaymentCacheInvalidationBroadcaster {
+	
+	void broadcast(final Integer paymentId);
+	void subscribe(final Consumer<Integer> onInvalidation);
+	
+}
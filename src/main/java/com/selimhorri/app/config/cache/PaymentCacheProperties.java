@@ -0,0 +1,29 @@
+package com.selimhorri.app.config.cache;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.payment-cache")
+@Data
+public class PaymentCacheProperties {
+	
+	/**
+	 * Off by default: with several instances, enable it only together with a
+	 * {@link PaymentCacheInvalidationBroadcaster} that reaches all of them.
+	 */
+	private boolean enabled = false;
+	
+	/**
+	 * Cached responses (one per paymentId and expand variant).
+	 */
+	private long maximumSize = 10000;
+	
+	/**
+	 * Upper bound on staleness should an invalidation be lost.
+	 */
+	private Duration ttl = Duration.ofSeconds(30);
+	
+}
@@ -0,0 +1,98 @@
+package com.selimhorri.app.config.cache;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.PaymentDto;
+import com.selimhorri.app.event.PaymentChangedEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Size- and TTL-bounded cache of {@code findById} responses, already mapped and enriched, keyed by
+ * paymentId and expand variant. Callers get a copy, so they may modify it.
+ * <p>
+ * A payment is dropped once a change to it commits, here and, through the
+ * {@link PaymentCacheInvalidationBroadcaster}, on the other instances. A load racing with that
+ * invalidation can't leave the old state behind: Caffeine holds the invalidation until the load of
+ * the same key completes, then removes what it loaded.
+ */
+@Component
+public class PaymentNearCache {
+	
+	private final Cache<Long, PaymentDto> cache;
+	private final PaymentCacheInvalidationBroadcaster broadcaster;
+	
+	public PaymentNearCache(final PaymentCacheProperties properties, 
+			final PaymentCacheInvalidationBroadcaster broadcaster, 
+			final MeterRegistry meterRegistry) {
+		this.broadcaster = broadcaster;
+		if (!properties.isEnabled()) {
+			this.cache = null;
+			return;
+		}
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(properties.getMaximumSize())
+				.expireAfterWrite(properties.getTtl())
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, this.cache, "payments");
+		broadcaster.subscribe(this::invalidateLocally);
+	}
+	
+	public PaymentDto get(final Integer paymentId, final boolean expandOrder, final Supplier<PaymentDto> loader) {
+		if (this.cache == null)
+			return loader.get();
+		return copy(this.cache.get(key(paymentId, expandOrder), key -> loader.get()));
+	}
+	
+	/**
+	 * Covers {@code save}, {@code update} and {@code deleteById}, as well as write-behind flushes.
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onPaymentChanged(final PaymentChangedEvent event) {
+		if (this.cache == null)
+			return;
+		// dropped here first: a broadcaster over a message bus delivers asynchronously
+		this.invalidateLocally(event.getPaymentId());
+		this.broadcaster.broadcast(event.getPaymentId());
+	}
+	
+	public long size() {
+		return this.cache == null ? 0 : this.cache.estimatedSize();
+	}
+	
+	private void invalidateLocally(final Integer paymentId) {
+		this.cache.invalidateAll(List.of(key(paymentId, false), key(paymentId, true)));
+	}
+	
+	private static Long key(final Integer paymentId, final boolean expandOrder) {
+		return ((long) paymentId << 1) | (expandOrder ? 1 : 0);
+	}
+	
+	private static PaymentDto copy(final PaymentDto paymentDto) {
+		final OrderDto orderDto = paymentDto.getOrderDto();
+		return PaymentDto.builder()
+				.paymentId(paymentDto.getPaymentId())
+				.isPayed(paymentDto.getIsPayed())
+				.paymentStatus(paymentDto.getPaymentStatus())
+				.orderDto(orderDto == null ? null : OrderDto.builder()
+						.orderId(orderDto.getOrderId())
+						.orderDate(orderDto.getOrderDate())
+						.orderDesc(orderDto.getOrderDesc())
+						.orderFee(orderDto.getOrderFee())
+						.build())
+				.build();
+	}
+	
+	
+	
+}
+
@@ -1,17 +1,66 @@
 package com.selimhorri.app.config.client;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.OkHttp3ClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.client.RestTemplate;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
 @Configuration
+@EnableConfigurationProperties({ HedgingProperties.class, OrderServiceClientProperties.class })
 public class ClientConfig {
 	
 	@LoadBalanced
 	@Bean
-	public RestTemplate restTemplateBean() {
-		return new RestTemplate();
+	public RestTemplate restTemplateBean(final ClientHttpRequestFactory orderServiceRequestFactory) {
+		return new RestTemplate(orderServiceRequestFactory);
+	}
+	
+	/**
+	 * A bean, so the OkHttp connection pool is closed on shutdown.
+	 */
+	@Bean
+	public ClientHttpRequestFactory orderServiceRequestFactory(final OrderServiceClientProperties properties) {
+		if (!properties.isEnabled())
+			return new SimpleClientHttpRequestFactory();
+		final OkHttpClient client = new OkHttpClient.Builder()
+				.protocols(properties.isH2c() ? List.of(Protocol.H2_PRIOR_KNOWLEDGE) : List.of(Protocol.HTTP_1_1))
+				.connectionPool(new ConnectionPool(properties.getMaxIdleConnections(), 
+						properties.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS))
+				.connectTimeout(properties.getConnectTimeout())
+				.readTimeout(properties.getReadTimeout())
+				// retries are the hedging executor's and the load balancer's call
+				.retryOnConnectionFailure(false)
+				.build();
+		return new OkHttp3ClientHttpRequestFactory(client);
+	}
+	
+	@Bean
+	public ThreadPoolTaskExecutor orderServiceExecutor(final HedgingProperties properties) {
+		final var executor = new ThreadPoolTaskExecutor();
+		executor.setThreadNamePrefix("order-service-");
+		executor.setCorePoolSize(properties.getPoolSize());
+		executor.setMaxPoolSize(properties.getPoolSize());
+		executor.setQueueCapacity(properties.getQueueCapacity());
+		return executor;
+	}
+	
+	@Bean
+	public HedgedRequestExecutor orderServiceHedgedRequestExecutor(final ThreadPoolTaskExecutor orderServiceExecutor, 
+			final HedgingProperties properties, final MeterRegistry meterRegistry) {
+		return new HedgedRequestExecutor("order.service", orderServiceExecutor, properties, meterRegistry);
 	}
 	
 	
@@ -0,0 +1,38 @@
+package com.selimhorri.app.config.client;
+
+/**
+ * Token bucket earning {@code ratio} tokens per request, one token per hedge, so hedges stay a
+ * bounded fraction of the traffic even when a whole ORDER-SERVICE cluster is slow.
+ */
+final class HedgeBudget {
+	
+	private final double ratio;
+	private final double maxTokens;
+	private double tokens;
+	
+	HedgeBudget(final double ratio, final int maxBurst) {
+		this.ratio = ratio;
+		this.maxTokens = maxBurst;
+	}
+	
+	synchronized void deposit() {
+		this.tokens = Math.min(this.maxTokens, this.tokens + this.ratio);
+	}
+	
+	synchronized boolean tryWithdraw() {
+		if (this.tokens < 1)
+			return false;
+		this.tokens -= 1;
+		return true;
+	}
+	
+}
+
+
+
+
+
+
+
+
+
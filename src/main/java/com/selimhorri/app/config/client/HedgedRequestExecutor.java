@@ -0,0 +1,195 @@
+package com.selimhorri.app.config.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs an idempotent remote call and, if it hasn't answered within the configured latency
+ * percentile, sends the same call again. The load balancer picks again for the second
+ * attempt, and the primary still in flight counts against its instance, so the hedge normally
+ * lands elsewhere; the first successful answer wins and the other attempt is cancelled.
+ * Hedges are capped by a {@link HedgeBudget}.
+ */
+@Slf4j
+public class HedgedRequestExecutor {
+	
+	private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+	
+	private final AsyncListenableTaskExecutor executor;
+	private final HedgingProperties properties;
+	private final HedgeBudget budget;
+	private final Timer timer;
+	private final Counter hedgesSent;
+	private final Counter hedgeWins;
+	private final Counter hedgesThrottled;
+	
+	private volatile long hedgeDelayNanos;
+	private volatile long hedgeDelayComputedAt;
+	
+	public HedgedRequestExecutor(final String name, final AsyncListenableTaskExecutor executor, 
+			final HedgingProperties properties, final MeterRegistry meterRegistry) {
+		this.executor = executor;
+		this.properties = properties;
+		this.budget = new HedgeBudget(properties.getBudgetRatio(), properties.getMaxBurst());
+		this.timer = Timer.builder(name + ".requests")
+				.description("Latency of each remote call attempt, hedges included")
+				.publishPercentiles(properties.getPercentile())
+				.register(meterRegistry);
+		this.hedgesSent = Counter.builder(name + ".hedge.requests")
+				.description("Hedge requests sent after the primary exceeded the hedge delay")
+				.register(meterRegistry);
+		this.hedgeWins = Counter.builder(name + ".hedge.wins")
+				.description("Hedge requests that answered before the primary")
+				.register(meterRegistry);
+		this.hedgesThrottled = Counter.builder(name + ".hedge.throttled")
+				.description("Hedges not sent because the hedge budget was exhausted")
+				.register(meterRegistry);
+		this.hedgeDelayNanos = properties.getInitialDelay().toNanos();
+		this.hedgeDelayComputedAt = System.nanoTime();
+	}
+	
+	public <T> T execute(final Supplier<T> call) {
+		
+		if (!this.properties.isEnabled())
+			return this.timed(call);
+		
+		this.budget.deposit();
+		final ListenableFuture<T> primary;
+		try {
+			primary = this.executor.submitListenable(() -> this.timed(call));
+		}
+		catch (TaskRejectedException e) {
+			return this.timed(call);
+		}
+		
+		try {
+			return primary.get(this.hedgeDelayNanos(), TimeUnit.NANOSECONDS);
+		}
+		catch (TimeoutException e) {
+			// slower than the hedge delay, try a hedge below
+		}
+		catch (ExecutionException e) {
+			throw propagate(e.getCause());
+		}
+		catch (InterruptedException e) {
+			primary.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for remote call", e);
+		}
+		
+		if (!this.budget.tryWithdraw()) {
+			this.hedgesThrottled.increment();
+			return join(primary.completable());
+		}
+		final ListenableFuture<T> hedge;
+		try {
+			hedge = this.executor.submitListenable(() -> this.timed(call));
+		}
+		catch (TaskRejectedException e) {
+			return join(primary.completable());
+		}
+		this.hedgesSent.increment();
+		
+		final CompletableFuture<T> winner = new CompletableFuture<>();
+		final AtomicBoolean answered = new AtomicBoolean();
+		final AtomicInteger pending = new AtomicInteger(2);
+		race(primary, winner, answered, pending, null);
+		race(hedge, winner, answered, pending, this.hedgeWins);
+		try {
+			return join(winner);
+		}
+		finally {
+			primary.cancel(true);
+			hedge.cancel(true);
+		}
+	}
+	
+	private <T> T timed(final Supplier<T> call) {
+		final long start = System.nanoTime();
+		try {
+			return call.get();
+		}
+		finally {
+			this.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+	
+	private long hedgeDelayNanos() {
+		final long now = System.nanoTime();
+		if (now - this.hedgeDelayComputedAt < DELAY_REFRESH_NANOS)
+			return this.hedgeDelayNanos;
+		
+		long delay = this.properties.getInitialDelay().toNanos();
+		if (this.timer.count() >= this.properties.getMinSamples())
+			for (final ValueAtPercentile percentile : this.timer.takeSnapshot().percentileValues())
+				if (percentile.percentile() == this.properties.getPercentile())
+					delay = Math.max(this.properties.getMinDelay().toNanos(), (long) percentile.value(TimeUnit.NANOSECONDS));
+		this.hedgeDelayNanos = delay;
+		this.hedgeDelayComputedAt = now;
+		return delay;
+	}
+	
+	/**
+	 * First successful attempt completes {@code winner}; it only fails once both attempts failed.
+	 */
+	private static <T> void race(final ListenableFuture<T> attempt, final CompletableFuture<T> winner, 
+			final AtomicBoolean answered, final AtomicInteger pending, final Counter wins) {
+		attempt.addCallback(
+				result -> {
+					if (!answered.compareAndSet(false, true))
+						return;
+					if (wins != null)
+						wins.increment();
+					winner.complete(result);
+				}, 
+				e -> {
+					if (pending.decrementAndGet() == 0)
+						winner.completeExceptionally(e);
+				});
+	}
+	
+	private static <T> T join(final CompletableFuture<T> future) {
+		try {
+			return future.join();
+		}
+		catch (CompletionException e) {
+			throw propagate(e.getCause());
+		}
+	}
+	
+	private static RuntimeException propagate(final Throwable cause) {
+		if (cause instanceof RuntimeException)
+			return (RuntimeException) cause;
+		if (cause instanceof Error)
+			throw (Error) cause;
+		return new IllegalStateException(cause);
+	}
+	
+	
+	
+}
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,50 @@
+package com.selimhorri.app.config.client;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.order-service.hedging")
+@Data
+public class HedgingProperties {
+	
+	private boolean enabled = false;
+	
+	/**
+	 * Latency percentile of ORDER-SERVICE calls after which a hedge request is sent.
+	 */
+	private double percentile = 0.95;
+	
+	/**
+	 * Hedge delay until enough calls have been timed to trust the percentile.
+	 */
+	private Duration initialDelay = Duration.ofMillis(100);
+	
+	private Duration minDelay = Duration.ofMillis(10);
+	
+	private long minSamples = 100;
+	
+	/**
+	 * Hedges allowed per request (0.1 = at most 10% extra load), with a burst of {@code maxBurst}.
+	 */
+	private double budgetRatio = 0.1;
+	
+	private int maxBurst = 10;
+	
+	private int poolSize = 16;
+	
+	private int queueCapacity = 100;
+	
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,39 @@
+package com.selimhorri.app.config.client;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.order-service.client")
+@Data
+public class OrderServiceClientProperties {
+	
+	/**
+	 * OkHttp with a pool of long-lived connections; the JDK's HttpURLConnection when disabled.
+	 */
+	private boolean enabled = false;
+	
+	/**
+	 * HTTP/2 over cleartext with prior knowledge: calls to an instance are multiplexed over one
+	 * connection. Every ORDER-SERVICE instance must accept h2c.
+	 */
+	private boolean h2c = false;
+	
+	/**
+	 * Idle HTTP/1.1 connections kept per pool, across instances.
+	 */
+	private int maxIdleConnections = 50;
+	
+	/**
+	 * Time an idle connection is kept; below the server's keep-alive timeout, so the client closes first.
+	 */
+	private Duration keepAlive = Duration.ofSeconds(50);
+	
+	private Duration connectTimeout = Duration.ofSeconds(2);
+	
+	private Duration readTimeout = Duration.ofSeconds(10);
+	
+}
+
@@ -0,0 +1,81 @@
+package com.selimhorri.app.config.client.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load signals of one instance: a time-decayed EWMA of response latency, requests in flight
+ * and the consecutive failures feeding outlier ejection.
+ */
+final class InstanceStats {
+	
+	private final long decayNanos;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	
+	private double latencyNanos;
+	private long lastSampleAt;
+	private int consecutiveFailures;
+	private long ejectedUntil;
+	
+	InstanceStats(final long initialLatencyNanos, final long decayNanos, final long now) {
+		this.decayNanos = decayNanos;
+		this.latencyNanos = initialLatencyNanos;
+		this.lastSampleAt = now;
+		this.ejectedUntil = now;
+	}
+	
+	void requestStarted() {
+		this.inFlight.incrementAndGet();
+	}
+	
+	/**
+	 * Returns true when this failure ejects the instance.
+	 */
+	synchronized boolean requestCompleted(final long latencyNanos, final boolean failed, final long now, 
+			final int failureThreshold, final long ejectionNanos) {
+		this.inFlight.decrementAndGet();
+		
+		// the longer since the last sample, the less the old average counts
+		final double weight = Math.exp(-(double) Math.max(0, now - this.lastSampleAt) / this.decayNanos);
+		this.latencyNanos = this.latencyNanos * weight + latencyNanos * (1 - weight);
+		this.lastSampleAt = now;
+		
+		if (!failed) {
+			this.consecutiveFailures = 0;
+			return false;
+		}
+		if (++this.consecutiveFailures < failureThreshold || this.isEjected(now))
+			return false;
+		this.consecutiveFailures = 0;
+		this.ejectedUntil = now + ejectionNanos;
+		return true;
+	}
+	
+	/**
+	 * Expected cost of one more request: latency weighted by the queue it would join.
+	 */
+	synchronized double score() {
+		return this.latencyNanos * (this.inFlight.get() + 1);
+	}
+	
+	synchronized boolean isEjected(final long now) {
+		return now - this.ejectedUntil < 0;
+	}
+	
+	synchronized double latencyNanos() {
+		return this.latencyNanos;
+	}
+	
+	int inFlight() {
+		return this.inFlight.get();
+	}
+	
+}
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,168 @@
+package com.selimhorri.app.config.client.loadbalancer;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.http.client.ClientHttpResponse;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Power-of-two-choices over the non-ejected instances: two random candidates, the one with the
+ * lower EWMA latency x (in-flight + 1) wins. Being its own {@link LoadBalancerLifecycle}, it
+ * observes every request it routed, so a slow or failing instance loses traffic within seconds.
+ */
+@Slf4j
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer, 
+		LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+	
+	// the blocking client calls onStartRequest and onComplete on the request thread
+	private static final ThreadLocal<Long> REQUEST_START = new ThreadLocal<>();
+	
+	private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+	private final String serviceId;
+	private final LoadBalancingProperties properties;
+	private final LongSupplier nanoClock;
+	private final Map<String, InstanceStats> stats = new ConcurrentHashMap<>();
+	
+	public LatencyAwareLoadBalancer(final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider, 
+			final String serviceId, final LoadBalancingProperties properties) {
+		this(serviceInstanceListSupplierProvider, serviceId, properties, System::nanoTime);
+	}
+	
+	LatencyAwareLoadBalancer(final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider, 
+			final String serviceId, final LoadBalancingProperties properties, final LongSupplier nanoClock) {
+		this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+		this.serviceId = serviceId;
+		this.properties = properties;
+		this.nanoClock = nanoClock;
+	}
+	
+	@Override
+	public Mono<Response<ServiceInstance>> choose(final Request request) {
+		final ServiceInstanceListSupplier supplier = this.serviceInstanceListSupplierProvider
+				.getIfAvailable(NoopServiceInstanceListSupplier::new);
+		return supplier.get(request)
+				.next()
+				.map(this::choose);
+	}
+	
+	Response<ServiceInstance> choose(final List<ServiceInstance> instances) {
+		if (instances.isEmpty()) {
+			log.warn("*** No instances available for service: {} *", this.serviceId);
+			return new EmptyResponse();
+		}
+		
+		final List<ServiceInstance> candidates = this.available(instances);
+		if (candidates.size() == 1)
+			return new DefaultResponse(candidates.get(0));
+		
+		final ThreadLocalRandom random = ThreadLocalRandom.current();
+		final int first = random.nextInt(candidates.size());
+		final int second = (first + 1 + random.nextInt(candidates.size() - 1)) % candidates.size();
+		final ServiceInstance a = candidates.get(first);
+		final ServiceInstance b = candidates.get(second);
+		return new DefaultResponse(this.stats(a).score() <= this.stats(b).score() ? a : b);
+	}
+	
+	@Override
+	public void onStart(final Request<Object> request) {
+		// instance not chosen yet
+	}
+	
+	@Override
+	public void onStartRequest(final Request<Object> request, final Response<ServiceInstance> lbResponse) {
+		if (!lbResponse.hasServer())
+			return;
+		this.stats(lbResponse.getServer()).requestStarted();
+		REQUEST_START.set(this.nanoClock.getAsLong());
+	}
+	
+	@Override
+	public void onComplete(final CompletionContext<Object, ServiceInstance, Object> completionContext) {
+		final Long start = REQUEST_START.get();
+		final Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+		if (start == null || lbResponse == null || !lbResponse.hasServer())
+			return;
+		REQUEST_START.remove();
+		
+		final long now = this.nanoClock.getAsLong();
+		final ServiceInstance instance = lbResponse.getServer();
+		final boolean failed = completionContext.status() == CompletionContext.Status.FAILED 
+				|| isServerError(completionContext.getClientResponse());
+		if (this.stats(instance).requestCompleted(now - start, failed, now, 
+				this.properties.getConsecutiveFailures(), this.properties.getEjectionTime().toNanos()))
+			log.warn("*** Ejected {} instance {} for {} after {} consecutive failures *", this.serviceId, 
+					key(instance), this.properties.getEjectionTime(), this.properties.getConsecutiveFailures());
+	}
+	
+	/**
+	 * Instances not ejected; ejected ones are only skipped while that keeps at least
+	 * {@code 100 - maxEjectionPercent}% of the instances, and never down to none.
+	 */
+	private List<ServiceInstance> available(final List<ServiceInstance> instances) {
+		
+		// drop stats of instances that left the registry
+		if (this.stats.size() > instances.size())
+			this.stats.keySet().retainAll(instances.stream()
+					.map(LatencyAwareLoadBalancer::key)
+					.collect(Collectors.toSet()));
+		
+		final long now = this.nanoClock.getAsLong();
+		final List<ServiceInstance> available = instances.stream()
+				.filter(instance -> !this.stats(instance).isEjected(now))
+				.collect(Collectors.toList());
+		final int maxEjected = instances.size() * this.properties.getMaxEjectionPercent() / 100;
+		return available.isEmpty() || instances.size() - available.size() > maxEjected ? instances : available;
+	}
+	
+	InstanceStats stats(final ServiceInstance instance) {
+		return this.stats.computeIfAbsent(key(instance), k -> new InstanceStats(
+				this.properties.getInitialLatency().toNanos(), 
+				this.properties.getDecayTime().toNanos(), 
+				this.nanoClock.getAsLong()));
+	}
+	
+	private static String key(final ServiceInstance instance) {
+		return instance.getHost() + ":" + instance.getPort();
+	}
+	
+	private static boolean isServerError(final Object clientResponse) {
+		try {
+			return clientResponse instanceof ClientHttpResponse 
+					&& ((ClientHttpResponse) clientResponse).getRawStatusCode() >= 500;
+		}
+		catch (final IOException e) {
+			return true;
+		}
+	}
+	
+	
+	
+}
+
+
+
+
+
+
+
+
+
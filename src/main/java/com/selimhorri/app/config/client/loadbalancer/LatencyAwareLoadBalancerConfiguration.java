@@ -0,0 +1,33 @@
+package com.selimhorri.app.config.client.loadbalancer;
+
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Per-client configuration, instantiated in each load balancer child context. Deliberately not
+ * a {@code @Configuration}, so component scanning doesn't register it in the main context.
+ */
+public class LatencyAwareLoadBalancerConfiguration {
+	
+	// concrete return type: the bean is looked up as a load balancer and as a lifecycle
+	@Bean
+	public LatencyAwareLoadBalancer latencyAwareLoadBalancer(final Environment environment, 
+			final LoadBalancerClientFactory loadBalancerClientFactory, final LoadBalancingProperties properties) {
+		final String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+		return new LatencyAwareLoadBalancer(
+				loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class), 
+				serviceId, properties);
+	}
+	
+}
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,50 @@
+package com.selimhorri.app.config.client.loadbalancer;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.loadbalancer")
+@Data
+public class LoadBalancingProperties {
+	
+	/**
+	 * Latency-aware balancing for every load-balanced client; round-robin when disabled.
+	 */
+	private boolean enabled = true;
+	
+	/**
+	 * Time for an old latency sample to lose ~63% of its weight in the EWMA.
+	 */
+	private Duration decayTime = Duration.ofSeconds(10);
+	
+	/**
+	 * Latency assumed for an instance before its first response.
+	 */
+	private Duration initialLatency = Duration.ofMillis(50);
+	
+	/**
+	 * Consecutive failures (I/O errors or 5xx) after which an instance is ejected.
+	 */
+	private int consecutiveFailures = 5;
+	
+	private Duration ejectionTime = Duration.ofSeconds(30);
+	
+	/**
+	 * Never eject more than this share of the instances.
+	 */
+	private int maxEjectionPercent = 50;
+	
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,63 @@
+package com.selimhorri.app.config.datasource;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+@Configuration
+@EnableConfigurationProperties(DataSourceProxyProperties.class)
+@ConditionalOnProperty(prefix = "app.datasource.proxy", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class DataSourceProxyConfig {
+	
+	@Bean
+	public static BeanPostProcessor dataSourceProxyBeanPostProcessor(
+			final ObjectProvider<MeterRegistry> meterRegistry, 
+			final ObjectProvider<DataSourceProxyProperties> properties) {
+		return new DataSourceProxyBeanPostProcessor(meterRegistry, properties);
+	}
+	
+	/**
+	 * Wraps every DataSource bean so statements are timed before reaching the pool.
+	 * The proxy still unwraps to the underlying HikariDataSource, so the Hikari pool
+	 * metrics bound by Spring Boot (usage, pending threads, acquire time) keep working.
+	 */
+	@RequiredArgsConstructor
+	static class DataSourceProxyBeanPostProcessor implements BeanPostProcessor {
+		
+		private final ObjectProvider<MeterRegistry> meterRegistry;
+		private final ObjectProvider<DataSourceProxyProperties> properties;
+		
+		@Override
+		public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+			if (!(bean instanceof DataSource) || bean instanceof ProxyDataSource)
+				return bean;
+			return ProxyDataSourceBuilder.create(beanName, (DataSource) bean)
+					.listener(new QueryMetricsListener(this.meterRegistry.getObject(), this.properties.getObject()))
+					.build();
+		}
+		
+	}
+	
+	
+	
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,33 @@
+package com.selimhorri.app.config.datasource;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.datasource.proxy")
+@Data
+public class DataSourceProxyProperties {
+	
+	/**
+	 * Wrap the application DataSource with the timing proxy.
+	 */
+	private boolean enabled = true;
+	
+	/**
+	 * Statements slower than this are logged at WARN with their bind-parameter count.
+	 */
+	private Duration slowQueryThreshold = Duration.ofMillis(200);
+	
+}
+
+
+
+
+
+
+
+
+
+
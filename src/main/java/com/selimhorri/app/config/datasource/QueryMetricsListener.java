@@ -0,0 +1,83 @@
+package com.selimhorri.app.config.datasource;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+
+/**
+ * Times every JDBC statement going through the proxied DataSource, tagged by
+ * statement type, and logs the ones above the configured slow-query threshold.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class QueryMetricsListener implements QueryExecutionListener {
+	
+	public static final String METRIC_NAME = "jdbc.statements";
+	
+	private static final String START_NANOS = QueryMetricsListener.class.getName() + ".startNanos";
+	
+	private final MeterRegistry meterRegistry;
+	private final DataSourceProxyProperties properties;
+	
+	@Override
+	public void beforeQuery(final ExecutionInfo execInfo, final List<QueryInfo> queryInfoList) {
+		execInfo.addCustomValue(START_NANOS, System.nanoTime());
+	}
+	
+	@Override
+	public void afterQuery(final ExecutionInfo execInfo, final List<QueryInfo> queryInfoList) {
+		
+		final Long startNanos = execInfo.getCustomValue(START_NANOS, Long.class);
+		final long elapsedNanos = startNanos != null
+				? System.nanoTime() - startNanos
+				: TimeUnit.MILLISECONDS.toNanos(execInfo.getElapsedTime());
+		final String query = queryInfoList.isEmpty() ? "" : queryInfoList.get(0).getQuery();
+		final String type = QueryUtils.getQueryType(query).name().toLowerCase();
+		
+		Timer.builder(METRIC_NAME)
+				.description("Execution time of JDBC statements")
+				.tag("datasource", String.valueOf(execInfo.getDataSourceName()))
+				.tag("type", type)
+				.tag("batch", String.valueOf(execInfo.isBatch()))
+				.tag("outcome", execInfo.isSuccess() ? "success" : "error")
+				.register(this.meterRegistry)
+				.record(elapsedNanos, TimeUnit.NANOSECONDS);
+		
+		if (elapsedNanos >= this.properties.getSlowQueryThreshold().toNanos())
+			log.warn("*** Slow {} statement: {} ms, bind parameters: {}, batch size: {}, sql: {} *",
+					type,
+					TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+					bindParameterCount(queryInfoList),
+					execInfo.isBatch() ? execInfo.getBatchSize() : 1,
+					query);
+	}
+	
+	private static int bindParameterCount(final List<QueryInfo> queryInfoList) {
+		return queryInfoList.stream()
+				.flatMap(q -> q.getParametersList().stream())
+				.findFirst()
+				.map(List::size)
+				.orElse(0);
+	}
+	
+	
+	
+}
+
+
+
+
+
+
+
+
+
+
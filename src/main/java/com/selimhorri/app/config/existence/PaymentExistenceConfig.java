@@ -0,0 +1,12 @@
+package com.selimhorri.app.config.existence;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(PaymentExistenceProperties.class)
+public class PaymentExistenceConfig {
+	
+	
+	
+}
@@ -0,0 +1,170 @@
+package com.selimhorri.app.config.existence;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.selimhorri.app.event.PaymentChangedEvent;
+import com.selimhorri.app.event.PaymentsImportedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Existence index over the paymentIds of {@code payments} and {@code payments_archive}, so lookups
+ * of ids that were never created are answered without a query. Rebuilt from both tables at startup
+ * and every {@code rebuild-interval}; payments this instance creates or imports are added once they
+ * commit.
+ * <p>
+ * Only ids up to the highest one seen by the rebuild before the last (its watermark) are ever
+ * ruled out. Ids are assigned in increasing order, so a payment created since, by this or another
+ * instance, is above the watermark and goes to the database. An insert that got its id before that
+ * rebuild read the watermark but committed only after its scan is in the last rebuild's scan, a
+ * whole {@code rebuild-interval} later, as long as no transaction creating payments stays open that
+ * long. The first rebuild therefore rules nothing out; the filter takes effect from the second one.
+ * Deleted payments stay in the filter until the next rebuild, which only costs the query the filter
+ * would have saved.
+ */
+@Component
+@DependsOnDatabaseInitialization
+@Slf4j
+public class PaymentExistenceFilter {
+	
+	private static final String BOUNDS_QUERY = "SELECT COUNT(*), COALESCE(MAX(payment_id), 0) FROM payments "
+			+ "UNION ALL SELECT COUNT(*), COALESCE(MAX(payment_id), 0) FROM payments_archive";
+	private static final String LOAD_QUERY = "SELECT payment_id FROM payments "
+			+ "UNION ALL SELECT payment_id FROM payments_archive";
+	
+	private final PaymentExistenceProperties properties;
+	private final JdbcTemplate jdbcTemplate;
+	private final Counter ruledOutCounter;
+	private final Object writeMonitor = new Object();
+	private volatile Snapshot current;
+	// highest id seen by the last rebuild, the watermark of the next one
+	private int lastSeenMax;
+	// the filter being rebuilt, which must see the payments created meanwhile as well
+	private PaymentIdBloomFilter rebuilding;
+	
+	public PaymentExistenceFilter(final PaymentExistenceProperties properties, 
+			final DataSource dataSource, 
+			final MeterRegistry meterRegistry) {
+		this.properties = properties;
+		this.jdbcTemplate = dataSource == null ? null : new JdbcTemplate(dataSource);
+		if (this.jdbcTemplate != null)
+			this.jdbcTemplate.setFetchSize(properties.getLoadFetchSize());
+		this.ruledOutCounter = Counter.builder("payments.existence.ruled.out")
+				.description("Payment lookups answered as not found without a query")
+				.register(meterRegistry);
+		Gauge.builder("payments.existence.memory", this, filter -> {
+					final Snapshot snapshot = filter.current;
+					return snapshot == null ? 0 : snapshot.filter.memoryBytes();
+				})
+				.description("Heap held by the payment existence filter")
+				.baseUnit("bytes")
+				.register(meterRegistry);
+	}
+	
+	/**
+	 * {@code true} only for ids no payment ever had, as of the last rebuild. {@code false} is no
+	 * promise that the payment exists.
+	 */
+	public boolean isDefinitelyAbsent(final Integer paymentId) {
+		final Snapshot snapshot = this.current;
+		if (snapshot == null || paymentId == null || paymentId > snapshot.watermark 
+				|| snapshot.filter.mightContain(paymentId))
+			return false;
+		this.ruledOutCounter.increment();
+		return true;
+	}
+	
+	@PostConstruct
+	void load() {
+		if (this.properties.isEnabled())
+			this.rebuild();
+	}
+	
+	@Scheduled(initialDelayString = "${app.payment-existence.rebuild-interval:PT10M}", 
+			fixedDelayString = "${app.payment-existence.rebuild-interval:PT10M}")
+	public void rebuild() {
+		if (!this.properties.isEnabled())
+			return;
+		final long startedAt = System.nanoTime();
+		
+		// read first: the next rebuild then only rules out ids assigned before this one started
+		final long[] bounds = new long[2];
+		this.jdbcTemplate.query(BOUNDS_QUERY, rs -> {
+			bounds[0] += rs.getLong(1);
+			bounds[1] = Math.max(bounds[1], rs.getLong(2));
+		});
+		final PaymentIdBloomFilter filter = new PaymentIdBloomFilter(
+				Math.max(this.properties.getExpectedInsertions(), bounds[0]), this.properties.getFalsePositiveRate());
+		synchronized (this.writeMonitor) {
+			this.rebuilding = filter;
+		}
+		try {
+			this.jdbcTemplate.query(LOAD_QUERY, rs -> {
+				filter.add(rs.getInt(1));
+			});
+			synchronized (this.writeMonitor) {
+				this.current = new Snapshot(filter, this.lastSeenMax);
+			}
+			this.lastSeenMax = (int) bounds[1];
+		}
+		finally {
+			synchronized (this.writeMonitor) {
+				this.rebuilding = null;
+			}
+		}
+		log.info("*** Payment existence filter rebuilt: {} payments up to id {}, ruling out ids up to {}, in {} ms, {} bytes *", 
+				bounds[0], bounds[1], this.current.watermark, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), 
+				filter.memoryBytes());
+	}
+	
+	/**
+	 * Deletes change nothing: the filter can't drop an id.
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onPaymentChanged(final PaymentChangedEvent event) {
+		if (event.getChangeType() == PaymentChangedEvent.ChangeType.DELETED || event.getPaymentId() == null)
+			return;
+		synchronized (this.writeMonitor) {
+			if (this.current != null)
+				this.current.filter.add(event.getPaymentId());
+			if (this.rebuilding != null)
+				this.rebuilding.add(event.getPaymentId());
+		}
+	}
+	
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onPaymentsImported(final PaymentsImportedEvent event) {
+		synchronized (this.writeMonitor) {
+			for (final PaymentChangedEvent payment : event.getPayments()) {
+				if (this.current != null)
+					this.current.filter.add(payment.getPaymentId());
+				if (this.rebuilding != null)
+					this.rebuilding.add(payment.getPaymentId());
+			}
+		}
+	}
+	
+	@RequiredArgsConstructor
+	private static final class Snapshot {
+		
+		private final PaymentIdBloomFilter filter;
+		private final int watermark;
+		
+	}
+	
+	
+	
+}
@@ -0,0 +1,39 @@
+package com.selimhorri.app.config.existence;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.payment-existence")
+@Data
+public class PaymentExistenceProperties {
+	
+	/**
+	 * About 1.2 MB of heap per million payments at the default false-positive rate.
+	 */
+	private boolean enabled = true;
+	
+	/**
+	 * Lower bound on the filter's size; it is sized for the rows found at each rebuild, if more.
+	 */
+	private int expectedInsertions = 1000000;
+	
+	/**
+	 * Share of unknown ids the filter can't rule out, which still cost a query.
+	 */
+	private double falsePositiveRate = 0.01;
+	
+	/**
+	 * Delay between rebuilds, in ISO-8601 form (PT10M) as it also drives the @Scheduled trigger.
+	 * Rebuilds drop deleted payments and resize the filter to the table.
+	 */
+	private String rebuildInterval = "PT10M";
+	
+	/**
+	 * Rows per round trip while the filter is rebuilt.
+	 */
+	private int loadFetchSize = 5000;
+	
+}
@@ -0,0 +1,78 @@
+package com.selimhorri.app.config.existence;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over {@code int} ids, backed by an {@link AtomicLongArray} of bits. The bit positions
+ * of an id come from double hashing of one 64-bit mix of it, so {@link #mightContain} neither boxes
+ * nor allocates. {@code false} is definite; {@code true} is wrong for about the configured share of
+ * absent ids while no more than the expected ids were added.
+ * <p>
+ * Thread-safe: bits are set with a compare-and-set and never cleared, so concurrent adds don't
+ * lose each other and a reader sees an id once its {@link #add} returned.
+ */
+public final class PaymentIdBloomFilter {
+	
+	private static final long PHI = 0x9E3779B97F4A7C15L;
+	private static final double LN2 = Math.log(2);
+	
+	private final AtomicLongArray bits;
+	private final long bitCount;
+	private final int hashCount;
+	
+	public PaymentIdBloomFilter(final long expectedInsertions, final double falsePositiveRate) {
+		final long n = Math.max(1, expectedInsertions);
+		final long words = Math.max(1, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (LN2 * LN2) / Long.SIZE));
+		if (words > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Bloom filter too large for " + expectedInsertions + " ids");
+		this.bits = new AtomicLongArray((int) words);
+		this.bitCount = words * Long.SIZE;
+		this.hashCount = Math.max(1, (int) Math.round((double) this.bitCount / n * LN2));
+	}
+	
+	public void add(final int id) {
+		final long hash = mix(id);
+		final long step = Long.rotateLeft(hash, 32) | 1;
+		for (int i = 0; i < this.hashCount; i++) {
+			final long bit = ((hash + i * step) & Long.MAX_VALUE) % this.bitCount;
+			final int word = (int) (bit >>> 6);
+			final long mask = 1L << bit;
+			for (long current = this.bits.get(word); (current & mask) == 0; current = this.bits.get(word))
+				if (this.bits.compareAndSet(word, current, current | mask))
+					break;
+		}
+	}
+	
+	public boolean mightContain(final int id) {
+		final long hash = mix(id);
+		final long step = Long.rotateLeft(hash, 32) | 1;
+		for (int i = 0; i < this.hashCount; i++) {
+			final long bit = ((hash + i * step) & Long.MAX_VALUE) % this.bitCount;
+			if ((this.bits.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+				return false;
+		}
+		return true;
+	}
+	
+	public long memoryBytes() {
+		return (long) this.bits.length() * Long.BYTES;
+	}
+	
+	int hashCount() {
+		return this.hashCount;
+	}
+	
+	/**
+	 * The finalizer of MurmurHash3's 64-bit variant, over the golden-ratio multiple of the id.
+	 */
+	private static long mix(final int id) {
+		long h = id * PHI;
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	}
+	
+}
@@ -0,0 +1,128 @@
+package com.selimhorri.app.config.index;
+
+/**
+ * Open-addressing {@code int -> long} hash map with linear probing and backward-shift deletion
+ * (no tombstones), backed by a single {@code long[]}: slot {@code i} holds the key at {@code 2i}
+ * (with bit 32 set, so {@code 0} marks a free slot) and the value at {@code 2i + 1}. Keys and values
+ * are never boxed and {@link #get} doesn't allocate.
+ * <p>
+ * Not thread-safe. {@link #get} reads the table array once and probes at most its capacity, so
+ * under a concurrent write it may return a wrong value but never fails or loops: callers can run
+ * it under an optimistic read and retry if the read turns out invalid.
+ */
+public final class IntLongHashMap {
+	
+	private static final long OCCUPIED = 1L << 32;
+	private static final long PHI = 0x9E3779B97F4A7C15L;
+	private static final int MIN_CAPACITY = 16;
+	private static final float LOAD_FACTOR = 0.75f;
+	
+	private long[] table;
+	private int size;
+	
+	public IntLongHashMap(final int expectedSize) {
+		this.table = new long[capacityFor(expectedSize) << 1];
+	}
+	
+	public long get(final int key, final long missingValue) {
+		final long[] table = this.table;
+		final int capacity = table.length >>> 1;
+		final long storedKey = storedKey(key);
+		for (int slot = slot(key, capacity), probes = 0; probes < capacity; slot = (slot + 1) & (capacity - 1), probes++) {
+			final long k = table[slot << 1];
+			if (k == storedKey)
+				return table[(slot << 1) + 1];
+			if (k == 0)
+				return missingValue;
+		}
+		return missingValue;
+	}
+	
+	public void put(final int key, final long value) {
+		final int capacity = this.table.length >>> 1;
+		final long storedKey = storedKey(key);
+		int slot = slot(key, capacity);
+		for (long k; (k = this.table[slot << 1]) != 0; slot = (slot + 1) & (capacity - 1)) {
+			if (k == storedKey) {
+				this.table[(slot << 1) + 1] = value;
+				return;
+			}
+		}
+		this.table[slot << 1] = storedKey;
+		this.table[(slot << 1) + 1] = value;
+		if (++this.size > capacity * LOAD_FACTOR)
+			this.resize(capacity << 1);
+	}
+	
+	public boolean remove(final int key) {
+		final int capacity = this.table.length >>> 1;
+		final int mask = capacity - 1;
+		final long storedKey = storedKey(key);
+		int gap = slot(key, capacity);
+		for (long k; (k = this.table[gap << 1]) != storedKey; gap = (gap + 1) & mask) {
+			if (k == 0)
+				return false;
+		}
+		// shift back later entries of the probe run whose home slot doesn't lie after the gap
+		for (int slot = (gap + 1) & mask; this.table[slot << 1] != 0; slot = (slot + 1) & mask) {
+			final int home = slot((int) this.table[slot << 1], capacity);
+			if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+				this.table[gap << 1] = this.table[slot << 1];
+				this.table[(gap << 1) + 1] = this.table[(slot << 1) + 1];
+				gap = slot;
+			}
+		}
+		this.table[gap << 1] = 0;
+		this.table[(gap << 1) + 1] = 0;
+		this.size--;
+		return true;
+	}
+	
+	public int size() {
+		return this.size;
+	}
+	
+	public int capacity() {
+		return this.table.length >>> 1;
+	}
+	
+	/**
+	 * Heap held by the table array, including its header.
+	 */
+	public long memoryBytes() {
+		return 16L + 8L * this.table.length;
+	}
+	
+	private void resize(final int capacity) {
+		final long[] previous = this.table;
+		final long[] resized = new long[capacity << 1];
+		for (int i = 0; i < previous.length; i += 2) {
+			if (previous[i] == 0)
+				continue;
+			int slot = slot((int) previous[i], capacity);
+			while (resized[slot << 1] != 0)
+				slot = (slot + 1) & (capacity - 1);
+			resized[slot << 1] = previous[i];
+			resized[(slot << 1) + 1] = previous[i + 1];
+		}
+		this.table = resized;
+	}
+	
+	private static long storedKey(final int key) {
+		return (key & 0xFFFFFFFFL) | OCCUPIED;
+	}
+	
+	/**
+	 * Fibonacci hashing: the top bits of {@code key * 2^64/phi}, so sequential ids spread evenly.
+	 */
+	private static int slot(final int key, final int capacity) {
+		return (int) ((key * PHI) >>> (Long.numberOfLeadingZeros(capacity) + 1));
+	}
+	
+	private static int capacityFor(final int expectedSize) {
+		final int needed = (int) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR);
+		return Math.max(MIN_CAPACITY, Integer.highestOneBit(needed - 1) << 1);
+	}
+	
+}
+
@@ -0,0 +1,12 @@
+package com.selimhorri.app.config.index;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(PaymentIndexProperties.class)
+public class PaymentIndexConfig {
+	
+	
+	
+}
@@ -0,0 +1,29 @@
+package com.selimhorri.app.config.index;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.selimhorri.app.dto.PaymentIndexStats;
+import com.selimhorri.app.service.PaymentIndexService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@code GET /actuator/paymentindex} reports the entries and heap use of the orderId index.
+ */
+@Component
+@Endpoint(id = "paymentindex")
+@ConditionalOnProperty(prefix = "app.payment-index", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class PaymentIndexEndpoint {
+	
+	private final PaymentIndexService paymentIndexService;
+	
+	@ReadOperation
+	public PaymentIndexStats stats() {
+		return this.paymentIndexService.getStats();
+	}
+	
+}
@@ -0,0 +1,26 @@
+package com.selimhorri.app.config.index;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.payment-index")
+@Data
+public class PaymentIndexProperties {
+	
+	/**
+	 * Off by default: each instance holds the whole orderId index in its heap.
+	 */
+	private boolean enabled = false;
+	
+	/**
+	 * Initial table size, to skip resizes while loading.
+	 */
+	private int expectedSize = 100000;
+	
+	/**
+	 * Rows per round trip while the index is loaded.
+	 */
+	private int loadFetchSize = 5000;
+	
+}
@@ -0,0 +1,37 @@
+package com.selimhorri.app.config.jpa;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.auditing.DateTimeProvider;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+
+@Configuration
+@EnableJpaAuditing(dateTimeProviderRef = "auditingDateTimeProviderBean")
+public class JpaAuditingConfig {
+	
+	/**
+	 * Audit timestamps truncated to the TIMESTAMP column precision, so an entity
+	 * still in the persistence context compares equal to its stored row (search cursors).
+	 */
+	@Bean
+	public DateTimeProvider auditingDateTimeProviderBean() {
+		return () -> Optional.of(Instant.now().truncatedTo(ChronoUnit.MICROS));
+	}
+	
+	
+	
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,41 @@
+package com.selimhorri.app.config.limit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import lombok.RequiredArgsConstructor;
+
+@Configuration
+@EnableConfigurationProperties(InboundLimitProperties.class)
+@ConditionalOnProperty(prefix = "app.inbound-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class InboundLimitConfig implements WebMvcConfigurer {
+	
+	private final BulkheadRegistry bulkheadRegistry;
+	private final RateLimiterRegistry rateLimiterRegistry;
+	private final InboundLimitProperties properties;
+	
+	@Override
+	public void addInterceptors(final InterceptorRegistry registry) {
+		registry.addInterceptor(new InboundLimitInterceptor(this.bulkheadRegistry, this.rateLimiterRegistry, this.properties))
+				.addPathPatterns("/api/**");
+	}
+	
+	
+	
+}
+
+
+
+
+
+
+
+
+
+
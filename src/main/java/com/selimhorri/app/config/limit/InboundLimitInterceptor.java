@@ -0,0 +1,124 @@
+package com.selimhorri.app.config.limit;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import com.selimhorri.app.exception.wrapper.RequestRejectedException;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+
+/**
+ * Sheds load before a handler runs: a per-client rate limiter first, then a semaphore
+ * bulkhead per endpoint, so an expensive endpoint can only hold a bounded share of the
+ * request threads. Endpoints without resilience4j settings are not limited.
+ */
+public class InboundLimitInterceptor implements AsyncHandlerInterceptor {
+	
+	private static final String BULKHEAD_ATTRIBUTE = InboundLimitInterceptor.class.getName() + ".bulkhead";
+	
+	private final BulkheadRegistry bulkheadRegistry;
+	private final RateLimiterRegistry rateLimiterRegistry;
+	private final InboundLimitProperties properties;
+	private final Map<String, RateLimiter> clientRateLimiters;
+	private final Pattern trustedProxies;
+	
+	public InboundLimitInterceptor(final BulkheadRegistry bulkheadRegistry, 
+			final RateLimiterRegistry rateLimiterRegistry, 
+			final InboundLimitProperties properties) {
+		this.bulkheadRegistry = bulkheadRegistry;
+		this.rateLimiterRegistry = rateLimiterRegistry;
+		this.properties = properties;
+		this.trustedProxies = properties.getTrustedProxies().isBlank() ? null : Pattern.compile(properties.getTrustedProxies());
+		// client limiters are kept out of the registry so clients don't become metric tags
+		this.clientRateLimiters = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, RateLimiter> eldest) {
+				return this.size() > properties.getMaxTrackedClients();
+			}
+		});
+	}
+	
+	@Override
+	public boolean preHandle(final HttpServletRequest request, final HttpServletResponse response, 
+			final Object handler) {
+		
+		// an async dispatch still holds the permit taken by the initial dispatch
+		if (request.getDispatcherType() == DispatcherType.ASYNC || !(handler instanceof HandlerMethod))
+			return true;
+		
+		// qualified by controller: the same method name on another controller gets limits of its own
+		final HandlerMethod handlerMethod = (HandlerMethod) handler;
+		final String endpoint = handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+		this.rateLimiter(endpoint, this.clientId(request))
+				.filter(rateLimiter -> !rateLimiter.acquirePermission())
+				.ifPresent(rateLimiter -> {
+					throw new RequestRejectedException(String.format("Rate limit exceeded for %s", endpoint), 
+							HttpStatus.TOO_MANY_REQUESTS, 
+							rateLimiter.getRateLimiterConfig().getLimitRefreshPeriod());
+				});
+		
+		final Optional<Bulkhead> bulkhead = this.bulkheadRegistry.find(endpoint);
+		if (bulkhead.isPresent()) {
+			if (!bulkhead.get().tryAcquirePermission())
+				throw new RequestRejectedException(String.format("Too many concurrent %s requests", endpoint), 
+						HttpStatus.SERVICE_UNAVAILABLE, this.properties.getBulkheadRetryAfter());
+			request.setAttribute(BULKHEAD_ATTRIBUTE, bulkhead.get());
+		}
+		return true;
+	}
+	
+	@Override
+	public void afterCompletion(final HttpServletRequest request, final HttpServletResponse response, 
+			final Object handler, final Exception ex) {
+		final Object bulkhead = request.getAttribute(BULKHEAD_ATTRIBUTE);
+		if (bulkhead != null) {
+			request.removeAttribute(BULKHEAD_ATTRIBUTE);
+			((Bulkhead) bulkhead).onComplete();
+		}
+	}
+	
+	private Optional<RateLimiter> rateLimiter(final String endpoint, final String clientId) {
+		return this.rateLimiterRegistry.getConfiguration(endpoint)
+				.map(config -> this.clientRateLimiters.computeIfAbsent(endpoint + "|" + clientId, 
+						name -> RateLimiter.of(name, config)));
+	}
+	
+	/**
+	 * The client id header is only taken from trusted proxies: any other caller could send a new
+	 * value per request, getting a fresh limiter each time and evicting those of real clients.
+	 */
+	private String clientId(final HttpServletRequest request) {
+		final String remoteAddr = request.getRemoteAddr();
+		if (this.trustedProxies == null || !this.trustedProxies.matcher(remoteAddr).matches())
+			return remoteAddr;
+		final String clientId = request.getHeader(this.properties.getClientIdHeader());
+		return clientId == null || clientId.isBlank() ? remoteAddr : clientId;
+	}
+	
+	
+	
+}
+
+
+
+
+
+
+
+
+
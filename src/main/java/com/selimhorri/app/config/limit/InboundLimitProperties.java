@@ -0,0 +1,52 @@
+package com.selimhorri.app.config.limit;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Limits themselves are resilience4j settings keyed by {@code <Controller>.<method>} (e.g.
+ * {@code PaymentResource.findAll}, bracketed in YAML to keep the dot): a
+ * {@code resilience4j.bulkhead.instances} bulkhead shared by all clients, and a
+ * {@code resilience4j.ratelimiter.configs} template for one limiter per client.
+ */
+@ConfigurationProperties(prefix = "app.inbound-limit")
+@Data
+public class InboundLimitProperties {
+	
+	private boolean enabled = true;
+	
+	/**
+	 * Header identifying the calling client, set by a trusted proxy; the remote address is used otherwise.
+	 */
+	private String clientIdHeader = "X-Client-Id";
+	
+	/**
+	 * Regular expression matching the remote addresses (e.g. the gateway) whose client id header is
+	 * trusted. Empty trusts none, so a caller can't pick a fresh rate limiter per request.
+	 */
+	private String trustedProxies = "";
+	
+	/**
+	 * Per-client rate limiters kept, least recently used ones are dropped beyond this.
+	 */
+	private int maxTrackedClients = 10_000;
+	
+	/**
+	 * Retry-After sent when a bulkhead is full.
+	 */
+	private Duration bulkheadRetryAfter = Duration.ofSeconds(1);
+	
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,35 @@
+package com.selimhorri.app.config.logging;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@EnableConfigurationProperties(RequestLoggingProperties.class)
+@ConditionalOnProperty(prefix = "app.logging.request", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RequestLoggingConfig {
+	
+	@Bean
+	public FilterRegistrationBean<RequestLoggingFilter> requestLoggingFilterBean(final RequestLoggingProperties properties) {
+		final var registration = new FilterRegistrationBean<>(new RequestLoggingFilter(properties));
+		// after the Sleuth tracing filter, so request events carry the trace id in the MDC
+		registration.setOrder(Ordered.LOWEST_PRECEDENCE - 10);
+		return registration;
+	}
+	
+	
+	
+}
+
+
+
+
+
+
+
+
+
+
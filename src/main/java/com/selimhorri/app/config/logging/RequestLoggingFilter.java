@@ -0,0 +1,96 @@
+package com.selimhorri.app.config.logging;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Emits one structured log event per request instead of per-layer log lines.
+ * Only a sampled fraction of ordinary requests is logged; slow requests and
+ * server errors are always logged.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class RequestLoggingFilter extends OncePerRequestFilter {
+	
+	private final RequestLoggingProperties properties;
+	
+	@Override
+	protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response, 
+			final FilterChain filterChain) throws ServletException, IOException {
+		
+		final long startNanos = System.nanoTime();
+		try {
+			filterChain.doFilter(request, response);
+		}
+		finally {
+			if (request.isAsyncStarted())
+				request.getAsyncContext().addListener(new AsyncListener() {
+					
+					@Override
+					public void onComplete(final AsyncEvent event) {
+						logRequest(request, response, startNanos);
+					}
+					
+					@Override
+					public void onTimeout(final AsyncEvent event) {}
+					
+					@Override
+					public void onError(final AsyncEvent event) {}
+					
+					@Override
+					public void onStartAsync(final AsyncEvent event) {}
+					
+				});
+			else
+				logRequest(request, response, startNanos);
+		}
+	}
+	
+	private void logRequest(final HttpServletRequest request, final HttpServletResponse response, final long startNanos) {
+		
+		final long elapsedNanos = System.nanoTime() - startNanos;
+		final int status = response.getStatus();
+		final String reason;
+		if (status >= 500)
+			reason = "error";
+		else if (elapsedNanos >= this.properties.getSlowThreshold().toNanos())
+			reason = "slow";
+		else if (ThreadLocalRandom.current().nextDouble() < this.properties.getSampleRate())
+			reason = "sampled";
+		else
+			return;
+		
+		log.info("request method={} uri={} status={} durationMs={} reason={}",
+				request.getMethod(),
+				request.getRequestURI(),
+				status,
+				TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+				reason);
+	}
+	
+	
+	
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,35 @@
+package com.selimhorri.app.config.logging;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.logging.request")
+@Data
+public class RequestLoggingProperties {
+	
+	private boolean enabled = true;
+	
+	/**
+	 * Fraction of ordinary requests that get a request log event, between 0 and 1.
+	 */
+	private double sampleRate = 0.01;
+	
+	/**
+	 * Requests slower than this are always logged, regardless of sampling.
+	 */
+	private Duration slowThreshold = Duration.ofMillis(500);
+	
+}
+
+
+
+
+
+
+
+
+
+
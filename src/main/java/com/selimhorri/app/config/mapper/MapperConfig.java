@@ -3,19 +3,31 @@ package com.selimhorri.app.config.mapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.selimhorri.app.dto.PaymentDto;
 
 @Configuration
 public class MapperConfig {
 	
+	public static final String PAYMENT_FIELDS_FILTER = "paymentFieldsFilter";
+	
 	@Bean
 	public ObjectMapper objectMapperBean() {
 		return new JsonMapper()
-				.enable(SerializationFeature.INDENT_OUTPUT);
+				.enable(SerializationFeature.INDENT_OUTPUT)
+				.addMixIn(PaymentDto.class, PaymentFieldsFilterMixIn.class)
+				.setFilterProvider(new SimpleFilterProvider()
+						.setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
 	}
 	
+	@JsonFilter(PAYMENT_FIELDS_FILTER)
+	interface PaymentFieldsFilterMixIn {}
+	
 	
 	
 }
@@ -0,0 +1,44 @@
+package com.selimhorri.app.config.reconciliation;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableConfigurationProperties(ReconciliationProperties.class)
+public class ReconciliationConfig {
+	
+	@Bean
+	@ConditionalOnProperty(prefix = "app.reconciliation", name = "enabled", havingValue = "true", matchIfMissing = true)
+	public ThreadPoolTaskExecutor reconciliationExecutor(final ReconciliationProperties properties) {
+		final var executor = new ThreadPoolTaskExecutor();
+		executor.setThreadNamePrefix("reconciliation-");
+		executor.setCorePoolSize(properties.getParallelism());
+		executor.setMaxPoolSize(properties.getParallelism());
+		// the job keeps at most `parallelism` chunks in flight; the queue only absorbs the moment
+		// between a chunk releasing its slot and its worker thread returning to the pool
+		executor.setQueueCapacity(properties.getParallelism());
+		return executor;
+	}
+	
+	/**
+	 * Runs the job itself, which waits on its chunks for hours: kept off the shared task scheduler,
+	 * whose threads the other scheduled jobs need. One thread and no queue, so a second run is rejected.
+	 */
+	@Bean
+	@ConditionalOnProperty(prefix = "app.reconciliation", name = "enabled", havingValue = "true", matchIfMissing = true)
+	public ThreadPoolTaskExecutor reconciliationRunExecutor() {
+		final var executor = new ThreadPoolTaskExecutor();
+		executor.setThreadNamePrefix("reconciliation-run-");
+		executor.setCorePoolSize(1);
+		executor.setMaxPoolSize(1);
+		executor.setQueueCapacity(0);
+		return executor;
+	}
+	
+	
+	
+}
+
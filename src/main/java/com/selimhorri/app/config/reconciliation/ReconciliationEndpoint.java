@@ -0,0 +1,39 @@
+package com.selimhorri.app.config.reconciliation;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.selimhorri.app.dto.ReconciliationProgress;
+import com.selimhorri.app.service.ReconciliationService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@code GET /actuator/reconciliation} reports the progress and throughput of the latest run;
+ * {@code POST /actuator/reconciliation} starts (or resumes) a run in the background.
+ */
+@Component
+@Endpoint(id = "reconciliation")
+@ConditionalOnProperty(prefix = "app.reconciliation", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class ReconciliationEndpoint {
+	
+	private final ReconciliationService reconciliationService;
+	
+	@ReadOperation
+	public ReconciliationProgress progress() {
+		return this.reconciliationService.getProgress();
+	}
+	
+	@WriteOperation
+	public ReconciliationProgress start() {
+		// a run already in progress is left alone; its progress is returned either way
+		this.reconciliationService.startReconciliation();
+		return this.reconciliationService.getProgress();
+	}
+	
+}
+
@@ -0,0 +1,52 @@
+package com.selimhorri.app.config.reconciliation;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.reconciliation")
+@Data
+public class ReconciliationProperties {
+	
+	private boolean enabled = true;
+	
+	/**
+	 * Width of the payment id range checked (and checkpointed) as one unit.
+	 */
+	private int chunkSize = 1000;
+	
+	/**
+	 * Chunks processed concurrently; each holds at most one DB connection at a time and
+	 * makes one ORDER-SERVICE call per distinct order.
+	 */
+	private int parallelism = 4;
+	
+	/**
+	 * A run stops scheduling new chunks after this many failed ones (e.g. ORDER-SERVICE down);
+	 * failed chunks are not checkpointed and are retried when the run is resumed.
+	 */
+	private int maxFailedChunks = 10;
+	
+	/**
+	 * Cron expression of the daily run; an interrupted run is resumed by the next trigger.
+	 */
+	private String cron = "0 0 3 * * *";
+	
+	/**
+	 * Lifetime of the database lease held by the instance running the reconciliation, renewed
+	 * every third of it while chunks are in flight; the run of an instance that dies is resumed by
+	 * the first trigger after its lease expires.
+	 */
+	private Duration leaseDuration = Duration.ofMinutes(2);
+	
+	/**
+	 * The lease is kept at least this long after it was claimed, even when the run finishes
+	 * earlier, so replicas whose cron fires a little later skip the trigger instead of starting
+	 * another run.
+	 */
+	private Duration minRunInterval = Duration.ofMinutes(10);
+	
+}
+
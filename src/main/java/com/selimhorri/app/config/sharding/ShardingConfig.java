@@ -0,0 +1,104 @@
+package com.selimhorri.app.config.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.selimhorri.app.repository.ShardedPaymentRepository;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+@Slf4j
+public class ShardingConfig {
+	
+	// features reading or writing payments on the primary datasource only, with their defaults
+	private static final Map<String, Boolean> PRIMARY_DATASOURCE_FEATURES = Map.of(
+			"app.archive.enabled", true, 
+			"app.order-snapshot.enabled", true, 
+			"app.reconciliation.enabled", true, 
+			"app.payment-write-behind.enabled", false, 
+			"app.payment-index.enabled", false, 
+			"app.payment-existence.enabled", true);
+	
+	/**
+	 * Always defined, so {@code PaymentServiceImpl} can ask it whether payments are sharded. The
+	 * shard pools publish {@code hikaricp.*} metrics as {@code payment-shard-<index>}.
+	 * <p>
+	 * Refuses to start sharded with a feature still working on the primary datasource: it wouldn't
+	 * see the sharded payments, and e.g. the existence filter would answer 404 for them.
+	 */
+	@Bean(destroyMethod = "close")
+	public ShardedPaymentRepository shardedPaymentRepository(final ShardingProperties properties, 
+			final Environment environment, 
+			final MeterRegistry meterRegistry) {
+		if (!properties.isEnabled())
+			return new ShardedPaymentRepository(List.of(), null, properties.getIdBlockSize());
+		final List<String> conflicting = PRIMARY_DATASOURCE_FEATURES.entrySet().stream()
+				.filter(feature -> environment.getProperty(feature.getKey(), Boolean.class, feature.getValue()))
+				.map(Map.Entry::getKey)
+				.sorted()
+				.collect(Collectors.toUnmodifiableList());
+		if (!conflicting.isEmpty())
+			throw new IllegalStateException(String.format(
+					"app.sharding.enabled requires features working on the primary datasource to be disabled: %s", 
+					conflicting.stream()
+							.map(property -> property + "=false")
+							.collect(Collectors.joining(", "))));
+		if (properties.getShards().isEmpty() || properties.getShards().size() > ShardedPaymentRepository.MAX_SHARDS)
+			throw new IllegalStateException(String.format("app.sharding.shards must list 1 to %d datasources", 
+					ShardedPaymentRepository.MAX_SHARDS));
+		
+		final List<DataSource> dataSources = new ArrayList<>();
+		for (int index = 0; index < properties.getShards().size(); index++) {
+			final ShardingProperties.Shard shard = properties.getShards().get(index);
+			final HikariDataSource dataSource = DataSourceBuilder.create()
+					.type(HikariDataSource.class)
+					.url(shard.getUrl())
+					.username(shard.getUsername())
+					.password(shard.getPassword())
+					.build();
+			dataSource.setPoolName("payment-shard-" + index);
+			dataSource.setMaximumPoolSize(shard.getMaximumPoolSize());
+			dataSource.setMetricRegistry(meterRegistry);
+			final MigrateResult migration = Flyway.configure()
+					.dataSource(dataSource)
+					.load()
+					.migrate();
+			// the demo payments of V2 don't follow the sharded id scheme
+			if (migration.migrations.stream().anyMatch(applied -> "2".equals(applied.version)))
+				new JdbcTemplate(dataSource).update("DELETE FROM payments");
+			dataSources.add(dataSource);
+		}
+		log.info("*** Payments sharded by orderId across {} datasources *", dataSources.size());
+		
+		final var executor = new ThreadPoolTaskExecutor();
+		executor.setThreadNamePrefix("payment-shard-");
+		executor.setCorePoolSize(properties.getScatterPoolSize());
+		executor.setMaxPoolSize(properties.getScatterPoolSize());
+		executor.setQueueCapacity(properties.getScatterQueueCapacity());
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		executor.initialize();
+		return new ShardedPaymentRepository(dataSources, executor, properties.getIdBlockSize());
+	}
+	
+	
+	
+}
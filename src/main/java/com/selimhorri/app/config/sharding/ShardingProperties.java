@@ -0,0 +1,53 @@
+package com.selimhorri.app.config.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.sharding")
+@Data
+public class ShardingProperties {
+	
+	/**
+	 * Off by default: payments live in the primary datasource's {@code payments} table.
+	 */
+	private boolean enabled = false;
+	
+	/**
+	 * Shard datasources, each migrated by Flyway at startup. A payment's id carries the index of
+	 * its shard in this list, so shards may be appended (up to 16) but never removed or reordered.
+	 */
+	private List<Shard> shards = new ArrayList<>();
+	
+	/**
+	 * Threads querying shards in parallel for scatter-gather reads.
+	 */
+	private int scatterPoolSize = 8;
+	
+	/**
+	 * Shard queries waiting for a thread; beyond it the caller queries the shard itself.
+	 */
+	private int scatterQueueCapacity = 100;
+	
+	/**
+	 * Ids reserved from a shard's sequence per round trip, per instance.
+	 */
+	private int idBlockSize = 100;
+	
+	@Data
+	public static class Shard {
+		
+		private String url;
+		
+		private String username;
+		
+		private String password;
+		
+		private int maximumPoolSize = 10;
+		
+	}
+	
+}
@@ -0,0 +1,22 @@
+package com.selimhorri.app.config.snapshot;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(OrderSnapshotProperties.class)
+public class OrderSnapshotConfig {
+	
+	
+	
+}
+
+
+
+
+
+
+
+
+
+
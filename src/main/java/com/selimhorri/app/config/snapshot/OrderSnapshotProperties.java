@@ -0,0 +1,57 @@
+package com.selimhorri.app.config.snapshot;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.order-snapshot")
+@Data
+public class OrderSnapshotProperties {
+	
+	private boolean enabled = true;
+	
+	/**
+	 * Payments read per batch; each distinct order in the batch costs one ORDER-SERVICE call.
+	 */
+	private int batchSize = 200;
+	
+	/**
+	 * Upper bound of batches per run, so a large backlog is drained over several runs.
+	 */
+	private int maxBatchesPerRun = 50;
+	
+	/**
+	 * Delay between backfill runs (ISO-8601). Once every payment has a snapshot a run is a
+	 * single indexed query; it only picks up payments saved while ORDER-SERVICE was unavailable.
+	 */
+	private Duration backfillInterval = Duration.ofMinutes(5);
+	
+	private final Refresh refresh = new Refresh();
+	
+	@Data
+	public static class Refresh {
+		
+		private boolean enabled = false;
+		
+		/**
+		 * Snapshots taken longer ago than this are fetched again.
+		 */
+		private Duration maxAge = Duration.ofDays(7);
+		
+		private Duration interval = Duration.ofHours(6);
+		
+	}
+	
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,28 @@
+package com.selimhorri.app.config.stream;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableConfigurationProperties(PaymentStreamProperties.class)
+public class PaymentStreamConfig {
+	
+	@Bean
+	@ConditionalOnProperty(prefix = "app.payment-stream", name = "enabled", havingValue = "true", matchIfMissing = true)
+	public ThreadPoolTaskExecutor paymentStreamExecutor(final PaymentStreamProperties properties) {
+		final var executor = new ThreadPoolTaskExecutor();
+		executor.setThreadNamePrefix("payment-stream-");
+		executor.setCorePoolSize(properties.getSenderPoolSize());
+		executor.setMaxPoolSize(properties.getSenderPoolSize());
+		// each subscriber has at most one pending send task, so this never rejects
+		executor.setQueueCapacity(properties.getMaxSubscribers());
+		return executor;
+	}
+	
+	
+	
+}
+
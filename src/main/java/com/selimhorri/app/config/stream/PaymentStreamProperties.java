@@ -0,0 +1,42 @@
+package com.selimhorri.app.config.stream;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.payment-stream")
+@Data
+public class PaymentStreamProperties {
+	
+	private boolean enabled = true;
+	
+	/**
+	 * Events buffered per subscriber; a subscriber whose buffer is full is disconnected
+	 * (EventSource clients reconnect and receive the current state again).
+	 */
+	private int bufferSize = 32;
+	
+	/**
+	 * Open streams per instance; further subscriptions get 503 with Retry-After.
+	 */
+	private int maxSubscribers = 2000;
+	
+	/**
+	 * Threads writing events to subscribers, so a stalled client never blocks the committing thread.
+	 */
+	private int senderPoolSize = 8;
+	
+	/**
+	 * Comment sent to idle streams, so proxies keep them open and dead clients are detected.
+	 */
+	private Duration heartbeatInterval = Duration.ofSeconds(15);
+	
+	/**
+	 * Lifetime of a stream; EventSource reconnects transparently when it ends.
+	 */
+	private Duration timeout = Duration.ofMinutes(30);
+	
+}
+
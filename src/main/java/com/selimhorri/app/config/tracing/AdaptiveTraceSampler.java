@@ -0,0 +1,46 @@
+package com.selimhorri.app.config.tracing;
+
+import brave.sampler.Sampler;
+
+/**
+ * Samples new traces at a rate between {@code min-rate} and {@code baseline-rate}, set by
+ * {@link #adjust} so the spans reported stay within {@code max-spans-per-second}. As with Brave's
+ * boundary sampler, the decision depends only on the trace id, so it is the same on every instance.
+ */
+public class AdaptiveTraceSampler extends Sampler {
+	
+	private static final long PRECISION = 1_000_000;
+	
+	private final TraceSamplingProperties properties;
+	private volatile double rate;
+	
+	public AdaptiveTraceSampler(final TraceSamplingProperties properties) {
+		this.properties = properties;
+		this.rate = properties.getBaselineRate();
+	}
+	
+	@Override
+	public boolean isSampled(final long traceId) {
+		return (traceId & Long.MAX_VALUE) % PRECISION < (long) (this.rate * PRECISION);
+	}
+	
+	public double getRate() {
+		return this.rate;
+	}
+	
+	/**
+	 * Sets the rate for the next interval from the spans per second reported meanwhile: those of
+	 * sampled traces, which scale with the rate, and those of traces kept for latency or errors,
+	 * which come off the budget first. The rate moves by at most a factor of 2 per call, so a
+	 * short burst doesn't swing it. Returns the new rate.
+	 */
+	double adjust(final double sampledSpansPerSecond, final double keptSpansPerSecond) {
+		final double current = this.rate;
+		final double room = Math.max(0, this.properties.getMaxSpansPerSecond() - keptSpansPerSecond);
+		final double target = sampledSpansPerSecond > 0 ? current * room / sampledSpansPerSecond : current * 2;
+		final double damped = Math.max(current / 2, Math.min(current * 2, target));
+		this.rate = Math.max(this.properties.getMinRate(), Math.min(this.properties.getBaselineRate(), damped));
+		return this.rate;
+	}
+	
+}
@@ -0,0 +1,172 @@
+package com.selimhorri.app.config.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import zipkin2.Span;
+import zipkin2.reporter.Reporter;
+import zipkin2.reporter.brave.ZipkinSpanHandler;
+
+/**
+ * Reports the traces that weren't sampled up front but turn out slow or failed. Their spans are
+ * buffered per local root until the root span ends: if it took at least {@code latency-threshold},
+ * or any span failed, the whole trace is sent to Zipkin, otherwise it is dropped.
+ * <p>
+ * Only server errors count as failures: Brave also tags 4xx responses as errors, and the lookups
+ * of unknown payments alone would keep most traces. Spans ending after their root (e.g. of work
+ * left running asynchronously) are not reported and are discarded after {@code max-trace-duration}.
+ * Every {@code adjust-interval}, the spans reported are handed to {@link AdaptiveTraceSampler}.
+ */
+@Slf4j
+public class TailSamplingSpanHandler extends SpanHandler {
+	
+	private final TraceSamplingProperties properties;
+	private final AdaptiveTraceSampler sampler;
+	// reports unsampled spans too, unlike Sleuth's handler, which reports the sampled ones
+	private final SpanHandler reporting;
+	private final ConcurrentMap<Long, BufferedTrace> traces = new ConcurrentHashMap<>();
+	private final LongAdder sampledSpans = new LongAdder();
+	private final LongAdder keptSpans = new LongAdder();
+	private final Counter slowTraces;
+	private final Counter failedTraces;
+	private final Counter droppedSpans;
+	private long lastAdjustedAt = System.nanoTime();
+	
+	public TailSamplingSpanHandler(final TraceSamplingProperties properties, 
+			final AdaptiveTraceSampler sampler, 
+			final Reporter<Span> reporter, 
+			final MeterRegistry meterRegistry) {
+		this.properties = properties;
+		this.sampler = sampler;
+		this.reporting = reporter == null ? null : ZipkinSpanHandler.newBuilder(reporter)
+				.alwaysReportSpans(true)
+				.build();
+		this.slowTraces = keptTraces(meterRegistry, "slow");
+		this.failedTraces = keptTraces(meterRegistry, "error");
+		this.droppedSpans = Counter.builder("tracing.tail.dropped.spans")
+				.description("Spans of unsampled traces not buffered, over max-buffered-traces or max-spans-per-trace")
+				.register(meterRegistry);
+		Gauge.builder("tracing.sampler.rate", sampler, AdaptiveTraceSampler::getRate)
+				.description("Fraction of new traces sampled up front")
+				.register(meterRegistry);
+		Gauge.builder("tracing.tail.buffered.traces", this.traces, ConcurrentMap::size)
+				.description("Unsampled traces waiting for their local root span to end")
+				.register(meterRegistry);
+	}
+	
+	/**
+	 * {@code false} without a Zipkin reporter, in which case nothing is buffered.
+	 */
+	public boolean canReport() {
+		return this.reporting != null;
+	}
+	
+	@Override
+	public boolean end(final TraceContext context, final MutableSpan span, final Cause cause) {
+		if (cause != Cause.FINISHED)
+			return true;
+		if (Boolean.TRUE.equals(context.sampled())) {
+			this.sampledSpans.increment();
+			return true;
+		}
+		if (this.reporting == null)
+			return true;
+		
+		final BufferedTrace trace = this.traces.computeIfAbsent(context.localRootId(), 
+				localRootId -> this.traces.size() < this.properties.getMaxBufferedTraces() ? new BufferedTrace() : null);
+		if (trace == null || !trace.add(context, span, this.properties.getMaxSpansPerTrace()))
+			this.droppedSpans.increment();
+		if (trace != null && context.spanId() == context.localRootId()) {
+			this.traces.remove(context.localRootId(), trace);
+			this.decide(trace, span);
+		}
+		return true;
+	}
+	
+	/**
+	 * Adjusts the sampling rate to the spans reported since the last call and discards the traces
+	 * buffered for longer than {@code max-trace-duration}.
+	 */
+	@Scheduled(initialDelayString = "${app.trace-sampling.adjust-interval:PT10S}", 
+			fixedDelayString = "${app.trace-sampling.adjust-interval:PT10S}")
+	public void adjustRate() {
+		final long now = System.nanoTime();
+		final double seconds = Math.max(1, TimeUnit.NANOSECONDS.toMillis(now - this.lastAdjustedAt)) / 1000.0;
+		this.lastAdjustedAt = now;
+		final double sampledPerSecond = this.sampledSpans.sumThenReset() / seconds;
+		final double keptPerSecond = this.keptSpans.sumThenReset() / seconds;
+		final double rate = this.sampler.adjust(sampledPerSecond, keptPerSecond);
+		final long maxAge = this.properties.getMaxTraceDuration().toNanos();
+		this.traces.values().removeIf(trace -> now - trace.bufferedAt > maxAge);
+		log.debug("*** Trace sampling rate {}: {} sampled and {} kept spans/s, {} traces buffered *", 
+				rate, sampledPerSecond, keptPerSecond, this.traces.size());
+	}
+	
+	private void decide(final BufferedTrace trace, final MutableSpan localRoot) {
+		final boolean slow = localRoot.startTimestamp() != 0 && localRoot.finishTimestamp() - localRoot.startTimestamp()
+				>= TimeUnit.NANOSECONDS.toMicros(this.properties.getLatencyThreshold().toNanos());
+		final boolean failed;
+		final List<TraceContext> contexts;
+		final List<MutableSpan> spans;
+		synchronized (trace) {
+			failed = trace.failed;
+			if (!slow && !failed)
+				return;
+			contexts = new ArrayList<>(trace.contexts);
+			spans = new ArrayList<>(trace.spans);
+		}
+		(failed ? this.failedTraces : this.slowTraces).increment();
+		for (int i = 0; i < spans.size(); i++)
+			this.reporting.end(contexts.get(i), spans.get(i), Cause.FINISHED);
+		this.keptSpans.add(spans.size());
+	}
+	
+	static boolean isFailed(final MutableSpan span) {
+		if (span.error() != null)
+			return true;
+		final String error = span.tag("error");
+		return error != null && !(error.length() == 3 && error.charAt(0) == '4');
+	}
+	
+	private static Counter keptTraces(final MeterRegistry meterRegistry, final String reason) {
+		return Counter.builder("tracing.tail.kept.traces")
+				.description("Unsampled traces reported for being slow or failed")
+				.tag("reason", reason)
+				.register(meterRegistry);
+	}
+	
+	private static final class BufferedTrace {
+		
+		private final long bufferedAt = System.nanoTime();
+		private final List<TraceContext> contexts = new ArrayList<>();
+		private final List<MutableSpan> spans = new ArrayList<>();
+		private boolean failed;
+		
+		/**
+		 * Returns {@code false} when the span was dropped, the trace holding {@code maxSpans} already.
+		 */
+		synchronized boolean add(final TraceContext context, final MutableSpan span, final int maxSpans) {
+			this.failed |= isFailed(span);
+			if (this.spans.size() >= maxSpans)
+				return false;
+			this.contexts.add(context);
+			this.spans.add(span);
+			return true;
+		}
+		
+	}
+	
+}
@@ -0,0 +1,59 @@
+package com.selimhorri.app.config.tracing;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import brave.TracingCustomizer;
+import io.micrometer.core.instrument.MeterRegistry;
+import zipkin2.Span;
+import zipkin2.reporter.Reporter;
+
+/**
+ * Replaces Sleuth's fixed-probability sampler: {@link AdaptiveTraceSampler} samples a share of
+ * new traces kept within the span budget, and {@link TailSamplingSpanHandler} reports the other
+ * traces that turn out slow or failed. Without a Zipkin reporter only the sampler applies.
+ */
+@Configuration
+@EnableConfigurationProperties(TraceSamplingProperties.class)
+@ConditionalOnProperty(prefix = "app.trace-sampling", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TraceSamplingConfig {
+	
+	/**
+	 * Sleuth backs off its own sampler when one is defined.
+	 */
+	@Bean
+	public AdaptiveTraceSampler adaptiveTraceSampler(final TraceSamplingProperties properties) {
+		return new AdaptiveTraceSampler(properties);
+	}
+	
+	@Bean
+	public TailSamplingSpanHandler tailSamplingSpanHandler(final TraceSamplingProperties properties, 
+			final AdaptiveTraceSampler adaptiveTraceSampler, 
+			final ObjectProvider<Reporter<Span>> reporters, 
+			final MeterRegistry meterRegistry) {
+		final List<Reporter<Span>> available = reporters.orderedStream().collect(Collectors.toList());
+		final Reporter<Span> reporter = available.isEmpty() ? null 
+				: available.size() == 1 ? available.get(0) 
+				: span -> available.forEach(each -> each.report(span));
+		return new TailSamplingSpanHandler(properties, adaptiveTraceSampler, reporter, meterRegistry);
+	}
+	
+	/**
+	 * Unsampled traces are recorded locally, so the tail rules can look at their spans. They still
+	 * propagate as unsampled, so services downstream only report the traces sampled up front.
+	 */
+	@Bean
+	public TracingCustomizer alwaysSampleLocalCustomizer(final TailSamplingSpanHandler tailSamplingSpanHandler) {
+		return builder -> {
+			if (tailSamplingSpanHandler.canReport())
+				builder.alwaysSampleLocal();
+		};
+	}
+	
+}
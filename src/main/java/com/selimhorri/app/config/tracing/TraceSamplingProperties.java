@@ -0,0 +1,55 @@
+package com.selimhorri.app.config.tracing;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.trace-sampling")
+@Data
+public class TraceSamplingProperties {
+	
+	private boolean enabled = true;
+	
+	/**
+	 * Fraction of new traces sampled up front, between 0 and 1; also the highest rate the budget may set.
+	 */
+	private double baselineRate = 0.01;
+	
+	/**
+	 * Lowest rate the budget may set; above 0, so the rate can grow back.
+	 */
+	private double minRate = 0.0001;
+	
+	/**
+	 * Traces whose local root span takes at least this long are always reported, regardless of sampling.
+	 */
+	private Duration latencyThreshold = Duration.ofMillis(500);
+	
+	/**
+	 * Spans per second this instance reports to Zipkin; slow and failed traces come off it first.
+	 */
+	private int maxSpansPerSecond = 100;
+	
+	/**
+	 * How often the sampling rate is adjusted to the budget.
+	 */
+	private Duration adjustInterval = Duration.ofSeconds(10);
+	
+	/**
+	 * Unsampled traces held in memory until their local root span ends; spans of further traces are dropped.
+	 */
+	private int maxBufferedTraces = 10000;
+	
+	/**
+	 * Spans held per unsampled trace; the rest are dropped, though an error among them still keeps the trace.
+	 */
+	private int maxSpansPerTrace = 200;
+	
+	/**
+	 * Buffered traces whose local root span hasn't ended after this long are discarded.
+	 */
+	private Duration maxTraceDuration = Duration.ofMinutes(1);
+	
+}
@@ -0,0 +1,42 @@
+package com.selimhorri.app.config.warmup;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.warm-up")
+@Data
+public class WarmUpProperties {
+	
+	private boolean enabled = true;
+	
+	/**
+	 * Longest the instance stays out of rotation; it is put in rotation then even if warm-up hasn't finished.
+	 */
+	private Duration budget = Duration.ofSeconds(30);
+	
+	/**
+	 * Synthetic read requests run through PaymentResource, enough for the hot paths to be JIT-compiled.
+	 */
+	private int requests = 10000;
+	
+	/**
+	 * Most recent payments read (with expand=order too if they have an order snapshot), which also
+	 * fills the near cache.
+	 */
+	private int hotPayments = 500;
+	
+	/**
+	 * Database connections opened at once, at most the pool size.
+	 */
+	private int databaseConnections = 10;
+	
+	/**
+	 * ORDER-SERVICE calls, each for a distinct order of the hot payments, to open the client connections.
+	 */
+	private int orderServiceCalls = 4;
+	
+}
+
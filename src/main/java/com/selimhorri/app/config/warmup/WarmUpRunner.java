@@ -0,0 +1,229 @@
+package com.selimhorri.app.config.warmup;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.selimhorri.app.dto.PaymentDto;
+import com.selimhorri.app.dto.PaymentSearchCriteria;
+import com.selimhorri.app.resource.PaymentResource;
+import com.selimhorri.app.service.OrderService;
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Warms a new instance up before it takes traffic: opens database and ORDER-SERVICE connections,
+ * reads the most recent payments (filling the near cache) and runs synthetic reads through
+ * {@link PaymentResource} and the Jackson mapper until the hot paths are compiled.
+ * <p>
+ * Runners run after the web server and Eureka registration have started but before the
+ * application is ready, so readiness stays {@code REFUSING_TRAFFIC} meanwhile; the instance
+ * registers as {@code STARTING} ({@code eureka.instance.initial-status}) and is switched to
+ * {@code UP} here, once warm-up finishes or {@code budget} runs out. Only web instances warm up.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class WarmUpRunner implements ApplicationRunner {
+	
+	private static final String HOT_PAYMENTS_QUERY = "SELECT payment_id, order_id, order_snapshot_at IS NOT NULL "
+			+ "FROM payments ORDER BY payment_id DESC LIMIT ?";
+	private static final int IDS_PER_MULTI_GET = 20;
+	
+	private final WarmUpProperties properties;
+	private final ApplicationContext context;
+	private final PaymentResource paymentResource;
+	private final OrderService orderService;
+	private final ObjectMapper objectMapper;
+	private final DataSource dataSource;
+	private final JdbcTemplate jdbcTemplate;
+	private final ObjectProvider<ApplicationInfoManager> applicationInfoManager;
+	
+	public WarmUpRunner(final WarmUpProperties properties, 
+			final ApplicationContext context, 
+			final PaymentResource paymentResource, 
+			final OrderService orderService, 
+			final ObjectMapper objectMapper, 
+			final DataSource dataSource, 
+			final ObjectProvider<ApplicationInfoManager> applicationInfoManager) {
+		this.properties = properties;
+		this.context = context;
+		this.paymentResource = paymentResource;
+		this.orderService = orderService;
+		this.objectMapper = objectMapper;
+		this.dataSource = dataSource;
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.applicationInfoManager = applicationInfoManager;
+	}
+	
+	@Override
+	public void run(final ApplicationArguments args) {
+		try {
+			if (this.properties.isEnabled() && this.context instanceof WebServerApplicationContext)
+				this.warmUpWithinBudget();
+		}
+		finally {
+			// left alone if an operator took the instance out of service meanwhile
+			this.applicationInfoManager.ifAvailable(manager -> {
+				if (manager.getInfo().getStatus() == InstanceStatus.STARTING)
+					manager.setInstanceStatus(InstanceStatus.UP);
+			});
+		}
+	}
+	
+	void warmUpWithinBudget() {
+		final long startedAt = System.nanoTime();
+		final AtomicBoolean stop = new AtomicBoolean();
+		final CompletableFuture<Integer> warmUp = new CompletableFuture<>();
+		final Thread thread = new Thread(() -> {
+			try {
+				warmUp.complete(this.warmUp(stop));
+			}
+			catch (RuntimeException e) {
+				warmUp.completeExceptionally(e);
+			}
+		}, "payment-warm-up");
+		thread.setDaemon(true);
+		thread.start();
+		try {
+			final int requests = warmUp.get(this.properties.getBudget().toMillis(), TimeUnit.MILLISECONDS);
+			log.info("*** Warm-up finished in {} ms: {} requests *", 
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), requests);
+		}
+		catch (TimeoutException e) {
+			stop.set(true);
+			log.warn("*** Warm-up budget of {} exhausted, taking traffic anyway *", this.properties.getBudget());
+		}
+		catch (ExecutionException e) {
+			log.warn("*** Warm-up failed, taking traffic anyway: {} *", e.getCause().getMessage());
+		}
+		catch (InterruptedException e) {
+			stop.set(true);
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Returns the synthetic requests run. Individual failures (e.g. ORDER-SERVICE being down) are
+	 * ignored: the paths are warm all the same.
+	 */
+	int warmUp(final AtomicBoolean stop) {
+		
+		this.openDatabaseConnections();
+		final List<int[]> hotPayments = this.jdbcTemplate.query(HOT_PAYMENTS_QUERY, 
+				(rs, rowNum) -> new int[] { rs.getInt(1), rs.getInt(2), rs.getBoolean(3) ? 1 : 0 }, 
+				this.properties.getHotPayments());
+		if (hotPayments.isEmpty())
+			return 0;
+		
+		hotPayments.stream()
+				.map(payment -> payment[1])
+				.distinct()
+				.limit(this.properties.getOrderServiceCalls())
+				.forEach(orderId -> this.ignoringFailure(() -> this.orderService.findById(orderId)));
+		
+		final List<String> hotIds = hotPayments.stream()
+				.map(payment -> String.valueOf(payment[0]))
+				.collect(Collectors.toList());
+		int requests = 0;
+		for (; requests < this.properties.getRequests() && !stop.get(); requests++) {
+			final String paymentId = hotIds.get(requests % hotIds.size());
+			// every other round reads expand=order, only of payments whose order snapshot serves it: without
+			// one each read would call ORDER-SERVICE, beyond order-service-calls (the norm after an import)
+			final boolean hasOrderSnapshot = hotPayments.get(requests % hotIds.size())[2] == 1;
+			final Set<String> expand = (requests / hotIds.size()) % 2 == 1 && hasOrderSnapshot 
+					? Set.of(PaymentResource.EXPAND_ORDER) : null;
+			this.ignoringFailure(() -> this.objectMapper.readValue(this.serialize(() ->
+					this.paymentResource.findById(paymentId, expand).join().getBody()), PaymentDto.class));
+			if (requests % 10 == 0) {
+				final int from = requests / 10 * IDS_PER_MULTI_GET % hotIds.size();
+				final List<Integer> ids = hotIds.subList(from, Math.min(from + IDS_PER_MULTI_GET, hotIds.size()))
+						.stream()
+						.map(Integer::valueOf)
+						.collect(Collectors.toList());
+				this.ignoringFailure(() -> this.serialize(() ->
+						this.paymentResource.findAllById(ids, null).join().getBody()));
+			}
+			if (requests % 100 == 0)
+				this.ignoringFailure(() -> this.serialize(() ->
+						this.paymentResource.search(new PaymentSearchCriteria(), null).join().getBody()));
+		}
+		return requests;
+	}
+	
+	/**
+	 * Holds that many connections at once, so the pool opens them now rather than on first use.
+	 */
+	private void openDatabaseConnections() {
+		int count = this.properties.getDatabaseConnections();
+		final List<Connection> connections = new ArrayList<>(count);
+		try {
+			if (this.dataSource.isWrapperFor(HikariDataSource.class))
+				count = Math.min(count, this.dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize());
+			for (int i = 0; i < count; i++)
+				connections.add(this.dataSource.getConnection());
+		}
+		catch (SQLException e) {
+			log.debug("*** Warm-up opened {} database connections: {} *", connections.size(), e.getMessage());
+		}
+		finally {
+			for (final Connection connection : connections) {
+				try {
+					connection.close();
+				}
+				catch (SQLException e) {
+					log.debug("*** Could not return a warm-up connection: {} *", e.getMessage());
+				}
+			}
+		}
+	}
+	
+	private byte[] serialize(final Supplier<Object> response) throws JsonProcessingException {
+		return this.objectMapper.writeValueAsBytes(response.get());
+	}
+	
+	private void ignoringFailure(final WarmUpCall call) {
+		try {
+			call.run();
+		}
+		catch (Exception e) {
+			log.trace("*** Warm-up request failed: {} *", e.getMessage());
+		}
+	}
+	
+	@FunctionalInterface
+	private interface WarmUpCall {
+		
+		void run() throws Exception;
+		
+	}
+	
+	
+	
+}
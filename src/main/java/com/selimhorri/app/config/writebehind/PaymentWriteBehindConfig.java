@@ -0,0 +1,28 @@
+package com.selimhorri.app.config.writebehind;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableConfigurationProperties(PaymentWriteBehindProperties.class)
+public class PaymentWriteBehindConfig {
+	
+	@Bean
+	@ConditionalOnProperty(prefix = "app.payment-write-behind", name = "enabled", havingValue = "true")
+	public ThreadPoolTaskExecutor paymentWriteBehindExecutor() {
+		final var executor = new ThreadPoolTaskExecutor();
+		executor.setThreadNamePrefix("payment-write-behind-");
+		executor.setCorePoolSize(1);
+		executor.setMaxPoolSize(1);
+		// flushes are serialized anyway; one queued flush picks up everything buffered meanwhile
+		executor.setQueueCapacity(1);
+		return executor;
+	}
+	
+	
+	
+}
+
@@ -0,0 +1,44 @@
+package com.selimhorri.app.config.writebehind;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.payment-write-behind")
+@Data
+public class PaymentWriteBehindProperties {
+	
+	/**
+	 * Off by default: {@code PUT /api/payments} writes synchronously.
+	 */
+	private boolean enabled = false;
+	
+	/**
+	 * How long an update may wait in the buffer before it is written.
+	 */
+	private Duration flushInterval = Duration.ofMillis(50);
+	
+	/**
+	 * Payments per flush transaction; a full batch is flushed without waiting for the interval.
+	 */
+	private int maxBatchSize = 200;
+	
+	/**
+	 * Payments with a buffered update; updates of further payments get 503 with Retry-After.
+	 */
+	private int maxPending = 10000;
+	
+	/**
+	 * Answer only once the update is committed (200), instead of once it is buffered (202).
+	 */
+	private boolean flushOnAck = false;
+	
+	/**
+	 * Longest a flush-on-ack update waits for its flush.
+	 */
+	private Duration ackTimeout = Duration.ofSeconds(5);
+	
+}
+
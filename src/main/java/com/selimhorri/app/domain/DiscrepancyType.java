@@ -0,0 +1,21 @@
+package com.selimhorri.app.domain;
+
+public enum DiscrepancyType {
+	
+	/**
+	 * ORDER-SERVICE answered 404 for the payment's orderId.
+	 */
+	ORDER_NOT_FOUND,
+	
+	/**
+	 * {@code isPayed} is true but the payment is not COMPLETED.
+	 */
+	PAYED_NOT_COMPLETED,
+	
+	/**
+	 * The payment is COMPLETED but {@code isPayed} is not true.
+	 */
+	COMPLETED_NOT_PAYED;
+	
+}
+
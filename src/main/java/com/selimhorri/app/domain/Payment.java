@@ -1,6 +1,8 @@
 package com.selimhorri.app.domain;
 
 import java.io.Serializable;
+import java.time.Instant;
+import java.time.LocalDateTime;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -43,6 +45,22 @@ public final class Payment extends AbstractMappedEntity implements Serializable
 	@Column(name = "payment_status")
 	private PaymentStatus paymentStatus;
 	
+	/*
+	 * Snapshot of the order taken when the payment is created, so reads don't call ORDER-SERVICE.
+	 */
+	
+	@Column(name = "order_date")
+	private LocalDateTime orderDate;
+	
+	@Column(name = "order_desc")
+	private String orderDesc;
+	
+	@Column(name = "order_fee")
+	private Double orderFee;
+	
+	@Column(name = "order_snapshot_at")
+	private Instant orderSnapshotAt;
+	
 }
 
 
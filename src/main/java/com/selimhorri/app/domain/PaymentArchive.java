@@ -0,0 +1,80 @@
+package com.selimhorri.app.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.Immutable;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Read-only copy of a COMPLETED payment moved out of the hot {@code payments} table.
+ */
+@Entity
+@Immutable
+@Table(name = "payments_archive")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public final class PaymentArchive implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	@Id
+	@Column(name = "payment_id", unique = true, nullable = false, updatable = false)
+	private Integer paymentId;
+	
+	@Column(name = "order_id")
+	private Integer orderId;
+	
+	@Column(name = "is_payed")
+	private Boolean isPayed;
+	
+	@Enumerated(EnumType.STRING)
+	@Column(name = "payment_status")
+	private PaymentStatus paymentStatus;
+	
+	@Column(name = "created_at")
+	private Instant createdAt;
+	
+	@Column(name = "updated_at")
+	private Instant updatedAt;
+	
+	@Column(name = "archived_at")
+	private Instant archivedAt;
+	
+	@Column(name = "order_date")
+	private LocalDateTime orderDate;
+	
+	@Column(name = "order_desc")
+	private String orderDesc;
+	
+	@Column(name = "order_fee")
+	private Double orderFee;
+	
+	@Column(name = "order_snapshot_at")
+	private Instant orderSnapshotAt;
+	
+}
+
+
+
+
+
+
+
+
+
+
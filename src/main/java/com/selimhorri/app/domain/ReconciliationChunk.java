@@ -0,0 +1,53 @@
+package com.selimhorri.app.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Checkpoint of a reconciled id range {@code [chunkStart, chunkStart + chunkSize)}, written in the
+ * same transaction as the range's discrepancies.
+ */
+@Entity
+@Table(name = "reconciliation_chunks")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public final class ReconciliationChunk implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "chunk_id", unique = true, nullable = false, updatable = false)
+	private Integer chunkId;
+	
+	@Column(name = "run_id", nullable = false)
+	private Integer runId;
+	
+	@Column(name = "chunk_start", nullable = false)
+	private Integer chunkStart;
+	
+	@Column(name = "payments_checked", nullable = false)
+	private Integer paymentsChecked;
+	
+	@Column(name = "discrepancies_found", nullable = false)
+	private Integer discrepanciesFound;
+	
+	@Column(name = "completed_at", nullable = false)
+	private Instant completedAt;
+	
+}
+
@@ -0,0 +1,55 @@
+package com.selimhorri.app.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "reconciliation_discrepancies")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public final class ReconciliationDiscrepancy implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "discrepancy_id", unique = true, nullable = false, updatable = false)
+	private Integer discrepancyId;
+	
+	@Column(name = "run_id", nullable = false)
+	private Integer runId;
+	
+	@Column(name = "payment_id", nullable = false)
+	private Integer paymentId;
+	
+	@Column(name = "order_id")
+	private Integer orderId;
+	
+	@Enumerated(EnumType.STRING)
+	@Column(name = "discrepancy_type", nullable = false)
+	private DiscrepancyType discrepancyType;
+	
+	@Column(name = "detail")
+	private String detail;
+	
+	@Column(name = "detected_at", nullable = false)
+	private Instant detectedAt;
+	
+}
+
@@ -0,0 +1,40 @@
+package com.selimhorri.app.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Shared by every instance: only the {@code owner} of an unexpired lease processes reconciliation
+ * chunks, whichever instance the cron or the endpoint triggered.
+ */
+@Entity
+@Table(name = "reconciliation_lease")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public final class ReconciliationLease implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	@Id
+	@Column(name = "lease_name", unique = true, nullable = false, updatable = false)
+	private String leaseName;
+	
+	@Column(name = "owner")
+	private String owner;
+	
+	@Column(name = "lease_until", nullable = false)
+	private Instant leaseUntil;
+	
+}
@@ -0,0 +1,62 @@
+package com.selimhorri.app.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One payment/order reconciliation pass over the id range {@code [1, maxPaymentId]}, fixed when
+ * the run starts. A run that is not COMPLETED is resumed by the next trigger.
+ */
+@Entity
+@Table(name = "reconciliation_runs")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public final class ReconciliationRun implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "run_id", unique = true, nullable = false, updatable = false)
+	private Integer runId;
+	
+	@Enumerated(EnumType.STRING)
+	@Column(name = "run_status", nullable = false)
+	private ReconciliationRunStatus runStatus;
+	
+	@Column(name = "max_payment_id", nullable = false, updatable = false)
+	private Integer maxPaymentId;
+	
+	@Column(name = "chunk_size", nullable = false, updatable = false)
+	private Integer chunkSize;
+	
+	@Column(name = "payments_checked")
+	private Long paymentsChecked;
+	
+	@Column(name = "discrepancies_found")
+	private Long discrepanciesFound;
+	
+	@Column(name = "started_at", nullable = false, updatable = false)
+	private Instant startedAt;
+	
+	@Column(name = "finished_at")
+	private Instant finishedAt;
+	
+}
+
@@ -0,0 +1,59 @@
+package com.selimhorri.app.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import com.selimhorri.app.domain.Payment;
+import com.selimhorri.app.exception.wrapper.InvalidRequestException;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Position of the last row of a search page in {@code (createdAt, paymentId)} order,
+ * exchanged with clients as an opaque URL-safe token.
+ */
+@AllArgsConstructor
+@Data
+public final class PaymentCursor {
+	
+	private static final String SEPARATOR = "|";
+	
+	private final Instant createdAt;
+	private final Integer paymentId;
+	
+	public static PaymentCursor of(final Payment payment) {
+		return new PaymentCursor(payment.getCreatedAt(), payment.getPaymentId());
+	}
+	
+	public String encode() {
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString((this.createdAt + SEPARATOR + this.paymentId).getBytes(StandardCharsets.UTF_8));
+	}
+	
+	public static PaymentCursor decode(final String cursor) {
+		try {
+			final String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			final int separator = decoded.lastIndexOf(SEPARATOR);
+			return new PaymentCursor(
+					Instant.parse(decoded.substring(0, separator)),
+					Integer.parseInt(decoded.substring(separator + 1)));
+		}
+		catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+			throw new InvalidRequestException("Invalid cursor", e);
+		}
+	}
+	
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,46 @@
+package com.selimhorri.app.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a bulk import: rows committed, rows rejected, and why the first ones were rejected.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class PaymentImportReport implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private Long imported;
+	private Long rejected;
+	
+	/**
+	 * The first {@code app.payment-import.max-reported-errors} rejected rows.
+	 */
+	private List<RowError> errors;
+	
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@Data
+	public static class RowError implements Serializable {
+		
+		private static final long serialVersionUID = 1L;
+		
+		/**
+		 * 1-based line of the input; the CSV header is line 1.
+		 */
+		private Long line;
+		private String message;
+		
+	}
+	
+}
+
@@ -0,0 +1,32 @@
+package com.selimhorri.app.dto;
+
+import java.io.Serializable;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Size and heap use of the in-memory orderId index, as reported by the {@code paymentindex} actuator endpoint.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class PaymentIndexStats implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private Integer orders;
+	private Integer payments;
+	private Integer capacity;
+	private Long memoryBytes;
+	
+	/**
+	 * {@code memoryBytes} scaled to one million indexed payments at the current load.
+	 */
+	private Long memoryBytesPerMillion;
+	private Long loadMillis;
+	
+}
@@ -0,0 +1,59 @@
+package com.selimhorri.app.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.List;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+import com.selimhorri.app.domain.PaymentStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class PaymentSearchCriteria implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private PaymentStatus paymentStatus;
+	private Boolean isPayed;
+	private List<Integer> orderIds;
+	
+	/**
+	 * Inclusive lower bound on createdAt, ISO-8601 instant.
+	 */
+	private Instant createdFrom;
+	
+	/**
+	 * Exclusive upper bound on createdAt, ISO-8601 instant.
+	 */
+	private Instant createdTo;
+	
+	/**
+	 * Opaque {@code nextCursor} returned by the previous page.
+	 */
+	private String cursor;
+	
+	@Min(value = 1, message = "Limit must be at least 1")
+	@Max(value = 500, message = "Limit must be at most 500")
+	@Builder.Default
+	private Integer limit = 50;
+	
+}
+
+
+
+
+
+
+
+
+
+
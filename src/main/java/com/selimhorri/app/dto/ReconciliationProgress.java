@@ -0,0 +1,53 @@
+package com.selimhorri.app.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonFormat.Shape;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.datatype.jsr310.ser.InstantSerializer;
+import com.selimhorri.app.domain.ReconciliationRunStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Progress of the latest reconciliation run, as reported by the {@code reconciliation} actuator endpoint.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class ReconciliationProgress implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private Integer runId;
+	private ReconciliationRunStatus runStatus;
+	
+	@JsonSerialize(using = InstantSerializer.class)
+	@JsonFormat(shape = Shape.STRING)
+	private Instant startedAt;
+	
+	@JsonSerialize(using = InstantSerializer.class)
+	@JsonFormat(shape = Shape.STRING)
+	private Instant finishedAt;
+	
+	private Integer maxPaymentId;
+	private Integer totalChunks;
+	private Integer completedChunks;
+	private Integer failedChunks;
+	private Long paymentsChecked;
+	private Long discrepanciesFound;
+	
+	/**
+	 * Payments checked per second by the execution running in this instance (a resumed run only
+	 * counts the chunks it processed itself); null when the figure comes from the database.
+	 */
+	private Double paymentsPerSecond;
+	
+}
+
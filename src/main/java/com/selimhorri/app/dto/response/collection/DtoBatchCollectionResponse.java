@@ -0,0 +1,36 @@
+package com.selimhorri.app.dto.response.collection;
+
+import java.util.Collection;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class DtoBatchCollectionResponse<T> {
+	
+	/**
+	 * Found items, in the order they were requested.
+	 */
+	private Collection<T> collection;
+	
+	/**
+	 * Requested ids that don't exist.
+	 */
+	private Collection<Integer> missingIds;
+	
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,65 @@
+package com.selimhorri.app.event;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonFormat.Shape;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.datatype.jsr310.ser.InstantSerializer;
+import com.selimhorri.app.domain.PaymentStatus;
+import com.selimhorri.app.dto.PaymentDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by {@code PaymentServiceImpl} for every write; listeners that need the change to be
+ * visible to readers receive it after commit.
+ */
+@AllArgsConstructor
+@Data
+public final class PaymentChangedEvent implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	public enum ChangeType {
+		
+		/**
+		 * State at subscription time, not a change; sent first to stream subscribers of a paymentId.
+		 */
+		CURRENT, 
+		CREATED, 
+		UPDATED, 
+		DELETED;
+		
+	}
+	
+	private final ChangeType changeType;
+	private final Integer paymentId;
+	private final Integer orderId;
+	private final PaymentStatus paymentStatus;
+	private final Boolean isPayed;
+	
+	@JsonSerialize(using = InstantSerializer.class)
+	@JsonFormat(shape = Shape.STRING)
+	private final Instant occurredAt;
+	
+	public static PaymentChangedEvent of(final ChangeType changeType, final PaymentDto paymentDto) {
+		return new PaymentChangedEvent(changeType, 
+				paymentDto.getPaymentId(), 
+				paymentDto.getOrderDto() == null ? null : paymentDto.getOrderDto().getOrderId(), 
+				paymentDto.getPaymentStatus(), 
+				paymentDto.getIsPayed(), 
+				Instant.now());
+	}
+	
+	/**
+	 * @param orderId of the deleted payment, null if it was not found
+	 */
+	public static PaymentChangedEvent deleted(final Integer paymentId, final Integer orderId) {
+		return new PaymentChangedEvent(ChangeType.DELETED, paymentId, orderId, null, null, Instant.now());
+	}
+	
+}
+
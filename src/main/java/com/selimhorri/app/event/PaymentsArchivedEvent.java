@@ -0,0 +1,23 @@
+package com.selimhorri.app.event;
+
+import java.io.Serializable;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by {@code PaymentArchiveServiceImpl} once per archived batch. Archived payments still
+ * exist (they are read from {@code payments_archive}), so this is not a {@code DELETED}
+ * {@link PaymentChangedEvent}: only the orderId index, which covers {@code payments} alone,
+ * handles it, after commit.
+ */
+@AllArgsConstructor
+@Data
+public final class PaymentsArchivedEvent implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final List<Integer> paymentIds;
+	
+}
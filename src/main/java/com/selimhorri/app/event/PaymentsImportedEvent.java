@@ -0,0 +1,27 @@
+package com.selimhorri.app.event;
+
+import java.io.Serializable;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by {@code PaymentImportServiceImpl} once per imported chunk, in place of a
+ * {@code CREATED} {@link PaymentChangedEvent} per payment, so a chunk of thousands of rows costs
+ * each listener one call. Only the listeners that must know every payment (the existence filter and
+ * the orderId index) handle it, after commit; stream subscribers and waiters don't see imports.
+ */
+@AllArgsConstructor
+@Data
+public final class PaymentsImportedEvent implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * One {@code CREATED} change per imported payment, in insertion order.
+	 */
+	private final List<PaymentChangedEvent> payments;
+	
+}
+
@@ -3,6 +3,7 @@ package com.selimhorri.app.exception;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -12,7 +13,9 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
 import com.selimhorri.app.exception.payload.ExceptionMsg;
+import com.selimhorri.app.exception.wrapper.InvalidRequestException;
 import com.selimhorri.app.exception.wrapper.PaymentNotFoundException;
+import com.selimhorri.app.exception.wrapper.RequestRejectedException;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,6 +27,7 @@ public class ApiExceptionHandler {
 	
 	@ExceptionHandler(value = {
 		MethodArgumentNotValidException.class,
+		BindException.class,
 		HttpMessageNotReadableException.class,
 	})
 	public <T extends BindException> ResponseEntity<ExceptionMsg> handleValidationException(final T e) {
@@ -41,8 +45,8 @@ public class ApiExceptionHandler {
 	}
 	
 	@ExceptionHandler(value = {
+		InvalidRequestException.class,
 		IllegalStateException.class,
-		PaymentNotFoundException.class,
 	})
 	public <T extends RuntimeException> ResponseEntity<ExceptionMsg> handleApiRequestException(final T e) {
 		
@@ -58,6 +62,37 @@ public class ApiExceptionHandler {
 					.build(), badRequest);
 	}
 	
+	/**
+	 * Not logged and without a timestamp (the Date header has it): lookups of unknown ids are routine.
+	 */
+	@ExceptionHandler(value = PaymentNotFoundException.class)
+	public ResponseEntity<ExceptionMsg> handlePaymentNotFoundException(final PaymentNotFoundException e) {
+		
+		final var notFound = HttpStatus.NOT_FOUND;
+		
+		return new ResponseEntity<>(
+				ExceptionMsg.builder()
+					.msg("#### " + e.getMessage() + "! ####")
+					.httpStatus(notFound)
+					.build(), notFound);
+	}
+	
+	@ExceptionHandler(value = RequestRejectedException.class)
+	public ResponseEntity<ExceptionMsg> handleRequestRejectedException(final RequestRejectedException e) {
+		
+		log.debug("**ApiExceptionHandler controller, handle rejected request*\n");
+		final long retryAfterSeconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+		
+		return ResponseEntity.status(e.getHttpStatus())
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+				.body(ExceptionMsg.builder()
+					.msg("#### " + e.getMessage() + "! ####")
+					.httpStatus(e.getHttpStatus())
+					.timestamp(ZonedDateTime
+							.now(ZoneId.systemDefault()))
+					.build());
+	}
+	
 	
 	
 }
@@ -26,6 +26,7 @@ public final class ExceptionMsg  implements Serializable {
 	
 	private static final long serialVersionUID = 1L;
 	
+	@JsonInclude(value = Include.NON_NULL)
 	@JsonSerialize(using = ZonedDateTimeSerializer.class)
 	@JsonFormat(shape = Shape.STRING, pattern = AppConstant.ZONED_DATE_TIME_FORMAT)
 	private final ZonedDateTime timestamp;
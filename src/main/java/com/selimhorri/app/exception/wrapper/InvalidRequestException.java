@@ -0,0 +1,33 @@
+package com.selimhorri.app.exception.wrapper;
+
+/**
+ * A request the client got wrong (a malformed cursor, an unsupported parameter value), answered
+ * with {@code 400}. Thrown on purpose so that other {@code IllegalArgumentException}s, which are
+ * bugs, still surface as server errors with their stack trace. Stackless for the same reason as
+ * {@link PaymentNotFoundException}.
+ */
+public class InvalidRequestException extends RuntimeException {
+	
+	private static final long serialVersionUID = 1L;
+	
+	public InvalidRequestException(String message, Throwable cause) {
+		super(message, cause, false, false);
+	}
+	
+	public InvalidRequestException(String message) {
+		super(message, null, false, false);
+	}
+	
+	
+	
+}
+
+
+
+
+
+
+
+
+
+
@@ -1,23 +1,27 @@
 package com.selimhorri.app.exception.wrapper;
 
+/**
+ * Stackless: lookups of unknown ids are routine (scrapers, stale clients), and the trace of a
+ * not-found says nothing the message doesn't.
+ */
 public class PaymentNotFoundException extends RuntimeException {
 	
 	private static final long serialVersionUID = 1L;
 	
 	public PaymentNotFoundException() {
-		super();
+		super(null, null, false, false);
 	}
 	
 	public PaymentNotFoundException(String message, Throwable cause) {
-		super(message, cause);
+		super(message, cause, false, false);
 	}
 	
 	public PaymentNotFoundException(String message) {
-		super(message);
+		super(message, null, false, false);
 	}
 	
 	public PaymentNotFoundException(Throwable cause) {
-		super(cause);
+		super(cause == null ? null : cause.toString(), cause, false, false);
 	}
 	
 	
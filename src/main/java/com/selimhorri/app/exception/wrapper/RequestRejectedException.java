@@ -0,0 +1,37 @@
+package com.selimhorri.app.exception.wrapper;
+
+import java.time.Duration;
+
+import org.springframework.http.HttpStatus;
+
+import lombok.Getter;
+
+/**
+ * Request shed by an inbound bulkhead or rate limiter. Stackless, as rejections are
+ * meant to be cheap and happen in bursts.
+ */
+@Getter
+public class RequestRejectedException extends RuntimeException {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final HttpStatus httpStatus;
+	private final Duration retryAfter;
+	
+	public RequestRejectedException(final String message, final HttpStatus httpStatus, final Duration retryAfter) {
+		super(message, null, false, false);
+		this.httpStatus = httpStatus;
+		this.retryAfter = retryAfter;
+	}
+	
+}
+
+
+
+
+
+
+
+
+
+
@@ -1,6 +1,7 @@
 package com.selimhorri.app.helper;
 
 import com.selimhorri.app.domain.Payment;
+import com.selimhorri.app.domain.PaymentArchive;
 import com.selimhorri.app.dto.OrderDto;
 import com.selimhorri.app.dto.PaymentDto;
 
@@ -14,6 +15,24 @@ public interface PaymentMappingHelper {
 				.orderDto(
 						OrderDto.builder()
 							.orderId(payment.getOrderId())
+							.orderDate(payment.getOrderDate())
+							.orderDesc(payment.getOrderDesc())
+							.orderFee(payment.getOrderFee())
+							.build())
+				.build();
+	}
+	
+	public static PaymentDto map(final PaymentArchive paymentArchive) {
+		return PaymentDto.builder()
+				.paymentId(paymentArchive.getPaymentId())
+				.isPayed(paymentArchive.getIsPayed())
+				.paymentStatus(paymentArchive.getPaymentStatus())
+				.orderDto(
+						OrderDto.builder()
+							.orderId(paymentArchive.getOrderId())
+							.orderDate(paymentArchive.getOrderDate())
+							.orderDesc(paymentArchive.getOrderDesc())
+							.orderFee(paymentArchive.getOrderFee())
 							.build())
 				.build();
 	}
@@ -0,0 +1,25 @@
+package com.selimhorri.app.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.selimhorri.app.domain.PaymentArchive;
+
+public interface PaymentArchiveRepository extends JpaRepository<PaymentArchive, Integer> {
+	
+	@Modifying
+	@Query(nativeQuery = true, value = "INSERT INTO payments_archive "
+			+ "(payment_id, order_id, is_payed, payment_status, created_at, updated_at, archived_at, "
+			+ "order_date, order_desc, order_fee, order_snapshot_at) "
+			+ "SELECT payment_id, order_id, is_payed, payment_status, created_at, updated_at, :archivedAt, "
+			+ "order_date, order_desc, order_fee, order_snapshot_at "
+			+ "FROM payments WHERE payment_id IN (:paymentIds) AND payment_status = 'COMPLETED'")
+	int copyCompletedFromPayments(@Param("paymentIds") final Collection<Integer> paymentIds, 
+			@Param("archivedAt") final Instant archivedAt);
+	
+}
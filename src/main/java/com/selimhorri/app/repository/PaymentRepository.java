@@ -1,11 +1,63 @@
 package com.selimhorri.app.repository;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import javax.persistence.LockModeType;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.selimhorri.app.domain.Payment;
+import com.selimhorri.app.domain.PaymentStatus;
 
-public interface PaymentRepository extends JpaRepository<Payment, Integer> {
+public interface PaymentRepository extends JpaRepository<Payment, Integer>, PaymentSearchRepository {
+	
+	/**
+	 * Locks the rows found until the transaction ends, so they can't change between being copied and
+	 * being deleted by the archive job.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT p.paymentId FROM Payment p "
+			+ "WHERE p.paymentStatus = :paymentStatus AND p.createdAt < :createdBefore ORDER BY p.paymentId")
+	List<Integer> findIdsByStatusCreatedBefore(@Param("paymentStatus") final PaymentStatus paymentStatus, 
+			@Param("createdBefore") final Instant createdBefore, final Pageable pageable);
+	
+	@Modifying
+	@Query("DELETE FROM Payment p WHERE p.paymentId IN :paymentIds AND p.paymentStatus = :paymentStatus")
+	int deleteByIdInAndStatus(@Param("paymentIds") final Collection<Integer> paymentIds, 
+			@Param("paymentStatus") final PaymentStatus paymentStatus);
+	
+	@Query("SELECT MAX(p.paymentId) FROM Payment p")
+	Integer findMaxPaymentId();
+	
+	@Query("SELECT p FROM Payment p WHERE p.paymentId >= :fromId AND p.paymentId < :toId ORDER BY p.paymentId")
+	List<Payment> findByIdRange(@Param("fromId") final Integer fromId, @Param("toId") final Integer toId);
+	
+	@Query("SELECT p FROM Payment p WHERE p.orderSnapshotAt IS NULL AND p.paymentId > :afterId ORDER BY p.paymentId")
+	List<Payment> findWithoutOrderSnapshot(@Param("afterId") final Integer afterId, final Pageable pageable);
+	
+	@Query("SELECT p FROM Payment p "
+			+ "WHERE p.orderSnapshotAt < :snapshotBefore AND p.paymentId > :afterId ORDER BY p.paymentId")
+	List<Payment> findWithOrderSnapshotBefore(@Param("snapshotBefore") final Instant snapshotBefore, 
+			@Param("afterId") final Integer afterId, final Pageable pageable);
 	
+	@Modifying
+	@Query("UPDATE Payment p SET p.orderDate = :orderDate, p.orderDesc = :orderDesc, p.orderFee = :orderFee, "
+			+ "p.orderSnapshotAt = :snapshotAt WHERE p.orderId = :orderId")
+	int updateOrderSnapshot(@Param("orderId") final Integer orderId, 
+			@Param("orderDate") final LocalDateTime orderDate, 
+			@Param("orderDesc") final String orderDesc, 
+			@Param("orderFee") final Double orderFee, 
+			@Param("snapshotAt") final Instant snapshotAt);
 	
+	Optional<Payment> findFirstByOrderIdOrderByPaymentIdDesc(final Integer orderId);
 	
 }
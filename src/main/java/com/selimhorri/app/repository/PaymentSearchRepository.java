@@ -0,0 +1,18 @@
+package com.selimhorri.app.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.selimhorri.app.domain.Payment;
+
+public interface PaymentSearchRepository {
+	
+	/**
+	 * Like {@code JpaSpecificationExecutor#findAll(Specification, Pageable)} but
+	 * without the count query, for keyset (cursor) pagination.
+	 */
+	List<Payment> findAll(final Specification<Payment> specification, final Sort sort, final int limit);
+	
+}
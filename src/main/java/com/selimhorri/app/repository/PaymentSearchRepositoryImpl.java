@@ -0,0 +1,39 @@
+package com.selimhorri.app.repository;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import com.selimhorri.app.domain.Payment;
+
+class PaymentSearchRepositoryImpl implements PaymentSearchRepository {
+	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	@Override
+	public List<Payment> findAll(final Specification<Payment> specification, final Sort sort, final int limit) {
+		
+		final var cb = this.entityManager.getCriteriaBuilder();
+		final var query = cb.createQuery(Payment.class);
+		final var root = query.from(Payment.class);
+		
+		if (specification != null) {
+			final var predicate = specification.toPredicate(root, query, cb);
+			if (predicate != null)
+				query.where(predicate);
+		}
+		query.select(root)
+				.orderBy(QueryUtils.toOrders(sort, root, cb));
+		
+		return this.entityManager.createQuery(query)
+				.setMaxResults(limit)
+				.getResultList();
+	}
+	
+}
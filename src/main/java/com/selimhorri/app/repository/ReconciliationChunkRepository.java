@@ -0,0 +1,23 @@
+package com.selimhorri.app.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.selimhorri.app.domain.ReconciliationChunk;
+
+public interface ReconciliationChunkRepository extends JpaRepository<ReconciliationChunk, Integer> {
+	
+	@Query("SELECT c.chunkStart FROM ReconciliationChunk c WHERE c.runId = :runId")
+	List<Integer> findChunkStartsByRunId(@Param("runId") final Integer runId);
+	
+	@Query("SELECT COALESCE(SUM(c.paymentsChecked), 0) FROM ReconciliationChunk c WHERE c.runId = :runId")
+	long sumPaymentsCheckedByRunId(@Param("runId") final Integer runId);
+	
+	@Query("SELECT COALESCE(SUM(c.discrepanciesFound), 0) FROM ReconciliationChunk c WHERE c.runId = :runId")
+	long sumDiscrepanciesFoundByRunId(@Param("runId") final Integer runId);
+	
+}
+
@@ -0,0 +1,33 @@
+package com.selimhorri.app.repository;
+
+import java.time.Instant;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.selimhorri.app.domain.ReconciliationLease;
+
+public interface ReconciliationLeaseRepository extends JpaRepository<ReconciliationLease, String> {
+	
+	/**
+	 * Takes the lease if it has expired (or is already held by {@code owner}); a single conditional
+	 * update, so of several instances racing for it exactly one gets 1 back.
+	 */
+	@Modifying
+	@Query("UPDATE ReconciliationLease l SET l.owner = :owner, l.leaseUntil = :leaseUntil "
+			+ "WHERE l.leaseName = :leaseName AND (l.leaseUntil <= :now OR l.owner = :owner)")
+	int claim(@Param("leaseName") final String leaseName, @Param("owner") final String owner, 
+			@Param("now") final Instant now, @Param("leaseUntil") final Instant leaseUntil);
+	
+	/**
+	 * Moves the expiry of a lease still held by {@code owner}; 0 once another instance took it over.
+	 */
+	@Modifying
+	@Query("UPDATE ReconciliationLease l SET l.leaseUntil = :leaseUntil "
+			+ "WHERE l.leaseName = :leaseName AND l.owner = :owner")
+	int extend(@Param("leaseName") final String leaseName, @Param("owner") final String owner, 
+			@Param("leaseUntil") final Instant leaseUntil);
+	
+}
@@ -0,0 +1,14 @@
+package com.selimhorri.app.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.selimhorri.app.domain.ReconciliationRun;
+
+public interface ReconciliationRunRepository extends JpaRepository<ReconciliationRun, Integer> {
+	
+	Optional<ReconciliationRun> findFirstByOrderByRunIdDesc();
+	
+}
+
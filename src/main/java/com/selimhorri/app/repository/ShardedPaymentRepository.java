@@ -0,0 +1,323 @@
+package com.selimhorri.app.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.selimhorri.app.domain.Payment;
+import com.selimhorri.app.domain.PaymentStatus;
+import com.selimhorri.app.dto.PaymentCursor;
+import com.selimhorri.app.dto.PaymentSearchCriteria;
+
+/**
+ * Payments spread over several datasources, each with the full Flyway schema, over plain JDBC.
+ * A new payment goes to the shard picked by a hash of its orderId; its id is
+ * {@code (n << 4) | shard}, with {@code n} taken from that shard's {@code payment_id_sequence} in
+ * blocks. Ids are therefore unique across shards and instances, and a payment is found from its
+ * id alone, even once shards have been appended. Each shard holds up to 2^27 payments.
+ * <p>
+ * Reads that can't be routed (all payments, searches, ids on several shards) query the shards in
+ * parallel and merge the results. Payments stay on their shard when an update changes their order.
+ * Without shards ({@code app.sharding.enabled=false}) {@link #isEnabled()} is {@code false} and
+ * nothing else may be called.
+ */
+public class ShardedPaymentRepository {
+	
+	public static final int MAX_SHARDS = 16;
+	static final int SHARD_BITS = 4;
+	private static final long MAX_SEQUENCE = 1L << (Integer.SIZE - 1 - SHARD_BITS);
+	
+	private static final String COLUMNS = "payment_id, order_id, is_payed, payment_status, created_at, updated_at, "
+			+ "order_date, order_desc, order_fee, order_snapshot_at";
+	private static final String SELECT = "SELECT " + COLUMNS + " FROM payments";
+	private static final String INSERT = "INSERT INTO payments (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	private static final String UPDATE = "UPDATE payments SET order_id = ?, is_payed = ?, payment_status = ?, "
+			+ "updated_at = ?, order_date = ?, order_desc = ?, order_fee = ?, order_snapshot_at = ? WHERE payment_id = ?";
+	private static final String DELETE = "DELETE FROM payments WHERE payment_id = ?";
+	private static final String RESERVE_IDS = "UPDATE payment_id_sequence SET next_val = next_val + ?";
+	private static final String RESERVED_IDS_END = "SELECT next_val FROM payment_id_sequence";
+	private static final Comparator<Payment> SEARCH_ORDER = Comparator.comparing(Payment::getCreatedAt)
+			.thenComparing(Payment::getPaymentId);
+	
+	private final List<Shard> shards;
+	private final List<DataSource> dataSources;
+	private final ThreadPoolTaskExecutor executor;
+	
+	public ShardedPaymentRepository(final List<DataSource> dataSources, 
+			final ThreadPoolTaskExecutor executor, 
+			final int idBlockSize) {
+		this.dataSources = List.copyOf(dataSources);
+		this.executor = executor;
+		final List<Shard> shards = new ArrayList<>();
+		for (int index = 0; index < dataSources.size(); index++)
+			shards.add(new Shard(index, dataSources.get(index), idBlockSize));
+		this.shards = Collections.unmodifiableList(shards);
+	}
+	
+	public boolean isEnabled() {
+		return !this.shards.isEmpty();
+	}
+	
+	public List<Payment> findAll() {
+		return this.scatter(this.shards, shard -> shard.jdbcTemplate.query(SELECT, ShardedPaymentRepository::map));
+	}
+	
+	public Optional<Payment> findById(final Integer paymentId) {
+		final Shard shard = this.shardOfPayment(paymentId);
+		return shard == null ? Optional.empty()
+				: shard.jdbcTemplate.query(SELECT + " WHERE payment_id = ?", ShardedPaymentRepository::map, paymentId)
+						.stream()
+						.findFirst();
+	}
+	
+	/**
+	 * Ids that don't exist are left out. Each shard is queried once, with its ids in one IN-list.
+	 */
+	public List<Payment> findAllById(final Collection<Integer> paymentIds) {
+		final Map<Shard, List<Integer>> idsByShard = paymentIds.stream()
+				.filter(paymentId -> this.shardOfPayment(paymentId) != null)
+				.collect(Collectors.groupingBy(this::shardOfPayment));
+		return this.scatter(new ArrayList<>(idsByShard.keySet()), shard -> {
+			final List<Integer> ids = idsByShard.get(shard);
+			return shard.jdbcTemplate.query(SELECT + " WHERE payment_id IN (" + placeholders(ids.size()) + ")", 
+					ShardedPaymentRepository::map, ids.toArray());
+		});
+	}
+	
+	/**
+	 * The first {@code limit} matches after {@code cursor} in {@code (createdAt, paymentId)} order:
+	 * each shard returns its own first {@code limit}, and those are merged.
+	 */
+	public List<Payment> search(final PaymentSearchCriteria criteria, final PaymentCursor cursor, final int limit) {
+		final StringBuilder sql = new StringBuilder(SELECT).append(" WHERE 1 = 1");
+		final List<Object> args = new ArrayList<>();
+		if (criteria.getPaymentStatus() != null) {
+			sql.append(" AND payment_status = ?");
+			args.add(criteria.getPaymentStatus().name());
+		}
+		if (criteria.getIsPayed() != null) {
+			sql.append(" AND is_payed = ?");
+			args.add(criteria.getIsPayed());
+		}
+		if (criteria.getOrderIds() != null && !criteria.getOrderIds().isEmpty()) {
+			sql.append(" AND order_id IN (").append(placeholders(criteria.getOrderIds().size())).append(")");
+			args.addAll(criteria.getOrderIds());
+		}
+		if (criteria.getCreatedFrom() != null) {
+			sql.append(" AND created_at >= ?");
+			args.add(Timestamp.from(criteria.getCreatedFrom()));
+		}
+		if (criteria.getCreatedTo() != null) {
+			sql.append(" AND created_at < ?");
+			args.add(Timestamp.from(criteria.getCreatedTo()));
+		}
+		if (cursor != null) {
+			sql.append(" AND (created_at > ? OR (created_at = ? AND payment_id > ?))");
+			args.add(Timestamp.from(cursor.getCreatedAt()));
+			args.add(Timestamp.from(cursor.getCreatedAt()));
+			args.add(cursor.getPaymentId());
+		}
+		sql.append(" ORDER BY created_at, payment_id LIMIT ?");
+		args.add(limit);
+		
+		return this.scatter(this.shards, shard -> shard.jdbcTemplate.query(sql.toString(), 
+						ShardedPaymentRepository::map, args.toArray()))
+				.stream()
+				.sorted(SEARCH_ORDER)
+				.limit(limit)
+				.collect(Collectors.toList());
+	}
+	
+	/**
+	 * Inserts a payment without an id on the shard of its order. Like a JPA merge, a payment whose
+	 * id doesn't exist is inserted as a new one.
+	 */
+	public Payment save(final Payment payment) {
+		final Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+		if (payment.getPaymentId() != null) {
+			final Shard shard = this.shardOfPayment(payment.getPaymentId());
+			if (shard != null && shard.jdbcTemplate.update(UPDATE, payment.getOrderId(), payment.getIsPayed(), 
+					name(payment.getPaymentStatus()), Timestamp.from(now), orderDate(payment), 
+					payment.getOrderDesc(), payment.getOrderFee(), timestamp(payment.getOrderSnapshotAt()), 
+					payment.getPaymentId()) > 0)
+				return this.findById(payment.getPaymentId()).orElseThrow();
+		}
+		
+		final Shard shard = this.shards.get(shardIndexOfOrder(payment.getOrderId(), this.shards.size()));
+		final Payment saved = Payment.builder()
+				.paymentId(shard.nextId())
+				.orderId(payment.getOrderId())
+				.isPayed(payment.getIsPayed())
+				.paymentStatus(payment.getPaymentStatus())
+				.orderDate(payment.getOrderDate())
+				.orderDesc(payment.getOrderDesc())
+				.orderFee(payment.getOrderFee())
+				.orderSnapshotAt(payment.getOrderSnapshotAt())
+				.build();
+		saved.setCreatedAt(now);
+		saved.setUpdatedAt(now);
+		shard.jdbcTemplate.update(INSERT, saved.getPaymentId(), saved.getOrderId(), saved.getIsPayed(), 
+				name(saved.getPaymentStatus()), Timestamp.from(now), Timestamp.from(now), orderDate(saved), 
+				saved.getOrderDesc(), saved.getOrderFee(), timestamp(saved.getOrderSnapshotAt()));
+		return saved;
+	}
+	
+	public void deleteById(final Integer paymentId) {
+		final Shard shard = this.shardOfPayment(paymentId);
+		if (shard != null)
+			shard.jdbcTemplate.update(DELETE, paymentId);
+	}
+	
+	public void close() {
+		if (this.executor != null)
+			this.executor.shutdown();
+		this.dataSources.stream()
+				.filter(AutoCloseable.class::isInstance)
+				.forEach(dataSource -> {
+					try {
+						((AutoCloseable) dataSource).close();
+					}
+					catch (Exception e) {
+						// shutting down: nothing left to do about it
+					}
+				});
+	}
+	
+	static int shardIndexOfOrder(final Integer orderId, final int shardCount) {
+		if (orderId == null)
+			return 0;
+		// murmur3 finalizer: consecutive orderIds spread over all shards
+		int h = orderId;
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		h *= 0xC2B2AE35;
+		h ^= h >>> 16;
+		return Math.floorMod(h, shardCount);
+	}
+	
+	private Shard shardOfPayment(final Integer paymentId) {
+		if (paymentId == null || paymentId <= 0)
+			return null;
+		final int index = paymentId & (MAX_SHARDS - 1);
+		return index < this.shards.size() ? this.shards.get(index) : null;
+	}
+	
+	/**
+	 * Runs the query on each shard, in parallel when there are several, and concatenates the results.
+	 */
+	private List<Payment> scatter(final List<Shard> targets, final Function<Shard, List<Payment>> query) {
+		if (targets.size() <= 1)
+			return targets.isEmpty() ? new ArrayList<>() : new ArrayList<>(query.apply(targets.get(0)));
+		final TaskExecutor taskExecutor = this.executor;
+		final List<CompletableFuture<List<Payment>>> results = targets.stream()
+				.map(shard -> CompletableFuture.supplyAsync(() -> query.apply(shard), taskExecutor))
+				.collect(Collectors.toList());
+		final List<Payment> gathered = new ArrayList<>();
+		try {
+			results.forEach(result -> gathered.addAll(result.join()));
+		}
+		catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw e;
+		}
+		return gathered;
+	}
+	
+	private static Payment map(final ResultSet rs, final int rowNum) throws SQLException {
+		final String paymentStatus = rs.getString("payment_status");
+		final Timestamp orderDate = rs.getTimestamp("order_date");
+		final Payment payment = Payment.builder()
+				.paymentId(rs.getInt("payment_id"))
+				.orderId(rs.getObject("order_id", Integer.class))
+				.isPayed(rs.getObject("is_payed", Boolean.class))
+				.paymentStatus(paymentStatus == null ? null : PaymentStatus.valueOf(paymentStatus))
+				.orderDate(orderDate == null ? null : orderDate.toLocalDateTime())
+				.orderDesc(rs.getString("order_desc"))
+				.orderFee(rs.getObject("order_fee", Double.class))
+				.orderSnapshotAt(instant(rs.getTimestamp("order_snapshot_at")))
+				.build();
+		payment.setCreatedAt(instant(rs.getTimestamp("created_at")));
+		payment.setUpdatedAt(instant(rs.getTimestamp("updated_at")));
+		return payment;
+	}
+	
+	private static String placeholders(final int count) {
+		return String.join(", ", Collections.nCopies(count, "?"));
+	}
+	
+	private static String name(final PaymentStatus paymentStatus) {
+		return paymentStatus == null ? null : paymentStatus.name();
+	}
+	
+	private static Timestamp orderDate(final Payment payment) {
+		return payment.getOrderDate() == null ? null : Timestamp.valueOf(payment.getOrderDate());
+	}
+	
+	private static Timestamp timestamp(final Instant instant) {
+		return instant == null ? null : Timestamp.from(instant);
+	}
+	
+	private static Instant instant(final Timestamp timestamp) {
+		return timestamp == null ? null : timestamp.toInstant();
+	}
+	
+	private static final class Shard {
+		
+		private final int index;
+		private final JdbcTemplate jdbcTemplate;
+		private final TransactionTemplate transactionTemplate;
+		private final int idBlockSize;
+		private long nextSequence;
+		private long reservedEnd;
+		
+		private Shard(final int index, final DataSource dataSource, final int idBlockSize) {
+			this.index = index;
+			this.jdbcTemplate = new JdbcTemplate(dataSource);
+			this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+			this.idBlockSize = idBlockSize;
+		}
+		
+		/**
+		 * Reserves the next block of the shard's sequence when the current one is used up; the
+		 * row lock of the update serializes instances.
+		 */
+		private synchronized int nextId() {
+			if (this.nextSequence == this.reservedEnd) {
+				this.reservedEnd = this.transactionTemplate.execute(status -> {
+					this.jdbcTemplate.update(RESERVE_IDS, this.idBlockSize);
+					return this.jdbcTemplate.queryForObject(RESERVED_IDS_END, Long.class);
+				});
+				this.nextSequence = this.reservedEnd - this.idBlockSize;
+			}
+			if (this.nextSequence >= MAX_SEQUENCE)
+				throw new IllegalStateException(String.format("Shard %d has run out of payment ids", this.index));
+			return (int) (this.nextSequence++ << SHARD_BITS | this.index);
+		}
+		
+	}
+	
+}
+
@@ -0,0 +1,54 @@
+package com.selimhorri.app.repository.specification;
+
+import java.time.Instant;
+import java.util.Collection;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.selimhorri.app.domain.Payment;
+import com.selimhorri.app.domain.PaymentStatus;
+
+/**
+ * Building blocks for payment searches. A {@code null} argument yields a
+ * {@code null} specification, which {@link Specification#where} ignores.
+ */
+public interface PaymentSpecifications {
+	
+	public static Specification<Payment> hasStatus(final PaymentStatus paymentStatus) {
+		return paymentStatus == null ? null 
+				: (root, query, cb) -> cb.equal(root.get("paymentStatus"), paymentStatus);
+	}
+	
+	public static Specification<Payment> isPayed(final Boolean isPayed) {
+		return isPayed == null ? null 
+				: (root, query, cb) -> cb.equal(root.get("isPayed"), isPayed);
+	}
+	
+	public static Specification<Payment> hasOrderIdIn(final Collection<Integer> orderIds) {
+		return orderIds == null || orderIds.isEmpty() ? null 
+				: (root, query, cb) -> root.get("orderId").in(orderIds);
+	}
+	
+	public static Specification<Payment> createdFrom(final Instant createdFrom) {
+		return createdFrom == null ? null 
+				: (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("createdAt"), createdFrom);
+	}
+	
+	public static Specification<Payment> createdBefore(final Instant createdTo) {
+		return createdTo == null ? null 
+				: (root, query, cb) -> cb.lessThan(root.get("createdAt"), createdTo);
+	}
+	
+	/**
+	 * Keyset predicate for ascending {@code (createdAt, paymentId)} order: rows strictly after the cursor.
+	 */
+	public static Specification<Payment> after(final Instant createdAt, final Integer paymentId) {
+		return createdAt == null || paymentId == null ? null 
+				: (root, query, cb) -> cb.or(
+						cb.greaterThan(root.get("createdAt"), createdAt),
+						cb.and(
+								cb.equal(root.get("createdAt"), createdAt),
+								cb.greaterThan(root.get("paymentId"), paymentId)));
+	}
+	
+}
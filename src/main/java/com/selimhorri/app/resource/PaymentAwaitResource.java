@@ -0,0 +1,65 @@
+package com.selimhorri.app.resource;
+
+import java.time.Duration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.selimhorri.app.config.await.PaymentAwaitProperties;
+import com.selimhorri.app.domain.PaymentStatus;
+import com.selimhorri.app.dto.PaymentDto;
+import com.selimhorri.app.exception.wrapper.InvalidRequestException;
+import com.selimhorri.app.service.PaymentAwaitService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Long-poll alternative to polling {@code GET /api/payments/{paymentId}} until a status is reached.
+ */
+@RestController
+@RequestMapping("/api/payments")
+@ConditionalOnProperty(prefix = "app.payment-await", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+@RequiredArgsConstructor
+public class PaymentAwaitResource {
+	
+	private final PaymentAwaitService paymentAwaitService;
+	private final PaymentAwaitProperties properties;
+	
+	/**
+	 * Answers as soon as the payment has {@code status} (right away if it already has it), or with
+	 * its current state once {@code timeout} elapses, e.g. {@code ?status=COMPLETED&timeout=30s}.
+	 */
+	@GetMapping("/{paymentId}/await")
+	public DeferredResult<ResponseEntity<PaymentDto>> await(
+			@PathVariable("paymentId") final String paymentId, 
+			@RequestParam("status") final PaymentStatus paymentStatus, 
+			@RequestParam(name = "timeout", required = false) final String timeout) {
+		log.debug("*** PaymentDto, resource; await payment status *");
+		return this.paymentAwaitService.await(Integer.parseInt(paymentId), paymentStatus, 
+				this.parseTimeout(timeout));
+	}
+	
+	private Duration parseTimeout(final String timeout) {
+		if (timeout == null || timeout.isBlank())
+			return this.properties.getDefaultTimeout();
+		try {
+			return DurationStyle.detectAndParse(timeout.strip());
+		}
+		catch (IllegalArgumentException e) {
+			throw new InvalidRequestException(String.format("Invalid timeout: %s", timeout));
+		}
+	}
+	
+	
+	
+}
+
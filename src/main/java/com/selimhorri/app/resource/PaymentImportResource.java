@@ -0,0 +1,51 @@
+package com.selimhorri.app.resource;
+
+import java.io.InputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.selimhorri.app.dto.PaymentImportReport;
+import com.selimhorri.app.service.PaymentImportService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bulk alternative to one {@code POST /api/payments} per payment, for migrations and replays.
+ */
+@RestController
+@RequestMapping("/api/payments")
+@Slf4j
+@RequiredArgsConstructor
+public class PaymentImportResource {
+	
+	public static final String TEXT_CSV = "text/csv";
+	public static final String APPLICATION_NDJSON = "application/x-ndjson";
+	
+	private final PaymentImportService paymentImportService;
+	
+	/**
+	 * Imports the request body as it arrives, CSV or NDJSON according to {@code Content-Type}, and
+	 * answers once it has been read to the end with the rows imported and rejected.
+	 */
+	@PostMapping(path = "/import", consumes = { TEXT_CSV, APPLICATION_NDJSON })
+	public ResponseEntity<PaymentImportReport> importPayments(
+			@RequestHeader(HttpHeaders.CONTENT_TYPE) final String contentType, 
+			final InputStream body) {
+		log.debug("*** PaymentImportReport, resource; import payments *");
+		final PaymentImportService.Format format = MediaType.parseMediaType(contentType)
+				.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV)) 
+				? PaymentImportService.Format.CSV : PaymentImportService.Format.NDJSON;
+		return ResponseEntity.ok(this.paymentImportService.importPayments(body, format));
+	}
+	
+	
+	
+}
+
@@ -0,0 +1,39 @@
+package com.selimhorri.app.resource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.selimhorri.app.dto.PaymentDto;
+import com.selimhorri.app.service.PaymentIndexService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Payment of an order, served from the in-memory index without a database round trip.
+ */
+@RestController
+@RequestMapping("/api/payments")
+@ConditionalOnProperty(prefix = "app.payment-index", name = "enabled", havingValue = "true")
+@Slf4j
+@RequiredArgsConstructor
+public class PaymentIndexResource {
+	
+	private final PaymentIndexService paymentIndexService;
+	
+	/**
+	 * The order's latest payment (highest paymentId), with {@code order.orderId} only.
+	 */
+	@GetMapping("/by-order/{orderId}")
+	public ResponseEntity<PaymentDto> findByOrderId(@PathVariable("orderId") final String orderId) {
+		log.debug("*** PaymentDto, resource; fetch payment by order id *");
+		return ResponseEntity.ok(this.paymentIndexService.findByOrderId(Integer.parseInt(orderId)));
+	}
+	
+	
+	
+}
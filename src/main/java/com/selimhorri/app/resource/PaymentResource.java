@@ -1,9 +1,16 @@
 package com.selimhorri.app.resource;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
 import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,11 +19,19 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.selimhorri.app.config.async.AsyncRequestExecutor;
+import com.selimhorri.app.dto.OrderDto;
 import com.selimhorri.app.dto.PaymentDto;
+import com.selimhorri.app.dto.PaymentSearchCriteria;
+import com.selimhorri.app.dto.response.collection.DtoBatchCollectionResponse;
 import com.selimhorri.app.dto.response.collection.DtoCollectionResponse;
+import com.selimhorri.app.dto.response.collection.DtoCursorCollectionResponse;
+import com.selimhorri.app.exception.wrapper.InvalidRequestException;
 import com.selimhorri.app.service.PaymentService;
+import com.selimhorri.app.service.PaymentWriteBehindService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,20 +43,67 @@ import lombok.extern.slf4j.Slf4j;
 public class PaymentResource {
 	
 	private final PaymentService paymentService;
+	private final ObjectProvider<PaymentWriteBehindService> paymentWriteBehindService;
+	private final AsyncRequestExecutor asyncRequestExecutor;
+	
+	public static final String EXPAND_ORDER = "order";
+	public static final int MAX_IDS_PER_REQUEST = 500;
 	
+	/**
+	 * Read endpoints answer asynchronously from the {@link AsyncRequestExecutor}, so a slow query
+	 * or order-service call doesn't hold a container thread.
+	 */
 	@GetMapping
-	public ResponseEntity<DtoCollectionResponse<PaymentDto>> findAll() {
-		log.info("*** PaymentDto List, controller; fetch all payments *");
-		return ResponseEntity.ok(new DtoCollectionResponse<>(this.paymentService.findAll()));
+	public CompletableFuture<ResponseEntity<DtoCollectionResponse<PaymentDto>>> findAll(
+			@RequestParam(name = "expand", required = false) final Set<String> expand) {
+		log.debug("*** PaymentDto List, controller; fetch all payments *");
+		final boolean expandOrder = expandOrder(expand);
+		return this.asyncRequestExecutor.supply(() -> 
+				ResponseEntity.ok(new DtoCollectionResponse<>(this.withPendingUpdates(this.paymentService.findAll(expandOrder)))));
+	}
+	
+	@GetMapping(params = "ids")
+	public CompletableFuture<ResponseEntity<DtoBatchCollectionResponse<PaymentDto>>> findAllById(
+			@RequestParam("ids") final List<Integer> ids, 
+			@RequestParam(name = "expand", required = false) final Set<String> expand) {
+		log.debug("*** PaymentDto List, resource; fetch payments by ids *");
+		if (ids.isEmpty() || ids.size() > MAX_IDS_PER_REQUEST)
+			throw new InvalidRequestException(String.format("Between 1 and %d ids must be requested", MAX_IDS_PER_REQUEST));
+		final boolean expandOrder = expandOrder(expand);
+		return this.asyncRequestExecutor.supply(() -> {
+			final DtoBatchCollectionResponse<PaymentDto> payments = this.paymentService.findAllById(ids, expandOrder);
+			this.withPendingUpdates(payments.getCollection());
+			return ResponseEntity.ok(payments);
+		});
 	}
 	
 	@GetMapping("/{paymentId}")
-	public ResponseEntity<PaymentDto> findById(
+	public CompletableFuture<ResponseEntity<PaymentDto>> findById(
 			@PathVariable("paymentId") 
 			@NotBlank(message = "Input must not be blank") 
-			@Valid final String paymentId) {
-		log.info("*** PaymentDto, resource; fetch payment by id *");
-		return ResponseEntity.ok(this.paymentService.findById(Integer.parseInt(paymentId)));
+			@Valid final String paymentId, 
+			@RequestParam(name = "expand", required = false) final Set<String> expand) {
+		log.debug("*** PaymentDto, resource; fetch payment by id *");
+		final int id = Integer.parseInt(paymentId);
+		final boolean expandOrder = expandOrder(expand);
+		return this.asyncRequestExecutor.supply(() -> {
+			final PaymentDto payment = this.paymentService.findById(id, expandOrder);
+			this.withPendingUpdates(List.of(payment));
+			return ResponseEntity.ok(payment);
+		});
+	}
+	
+	@GetMapping("/search")
+	public CompletableFuture<ResponseEntity<DtoCursorCollectionResponse<PaymentDto>>> search(
+			@Valid final PaymentSearchCriteria criteria, 
+			@RequestParam(name = "expand", required = false) final Set<String> expand) {
+		log.debug("*** PaymentDto List, resource; search payments *");
+		final boolean expandOrder = expandOrder(expand);
+		return this.asyncRequestExecutor.supply(() -> {
+			final DtoCursorCollectionResponse<PaymentDto> page = this.paymentService.search(criteria, expandOrder);
+			this.withPendingUpdates(page.getCollection());
+			return ResponseEntity.ok(page);
+		});
 	}
 	
 	@PostMapping
@@ -49,26 +111,68 @@ public class PaymentResource {
 			@RequestBody 
 			@NotNull(message = "Input must not be NULL") 
 			@Valid final PaymentDto paymentDto) {
-		log.info("*** PaymentDto, resource; save payment *");
+		log.debug("*** PaymentDto, resource; save payment *");
 		return ResponseEntity.ok(this.paymentService.save(paymentDto));
 	}
 	
+	/**
+	 * With write-behind enabled the update is buffered: {@code 202} once accepted, or {@code 200}
+	 * once written when {@code flush-on-ack} is set.
+	 */
 	@PutMapping
 	public ResponseEntity<PaymentDto> update(
 			@RequestBody 
 			@NotNull(message = "Input must not be NULL") 
 			@Valid final PaymentDto paymentDto) {
-		log.info("*** PaymentDto, resource; update payment *");
-		return ResponseEntity.ok(this.paymentService.update(paymentDto));
+		log.debug("*** PaymentDto, resource; update payment *");
+		final PaymentWriteBehindService writeBehind = this.paymentWriteBehindService.getIfAvailable();
+		if (writeBehind == null)
+			return ResponseEntity.ok(this.paymentService.update(paymentDto));
+		final PaymentDto buffered = writeBehind.update(paymentDto);
+		return writeBehind.isFlushOnAck() ? ResponseEntity.ok(buffered) : ResponseEntity.accepted().body(buffered);
 	}
 	
 	@DeleteMapping("/{paymentId}")
 	public ResponseEntity<Boolean> deleteById(@PathVariable("paymentId") final String paymentId) {
-		log.info("*** Boolean, resource; delete payment by id *");
+		log.debug("*** Boolean, resource; delete payment by id *");
 		this.paymentService.deleteById(Integer.parseInt(paymentId));
 		return ResponseEntity.ok(true);
 	}
 	
+	/**
+	 * Read-your-writes while updates of these payments are still buffered. Payments are matched
+	 * (e.g. by a search) on their written state, so a pending update doesn't move them in or out.
+	 */
+	private <T extends Collection<PaymentDto>> T withPendingUpdates(final T payments) {
+		this.paymentWriteBehindService.ifAvailable(writeBehind -> payments.forEach(payment -> 
+				writeBehind.findPending(payment.getPaymentId())
+						.ifPresent(pending -> withPendingUpdate(payment, pending))));
+		return payments;
+	}
+	
+	private static void withPendingUpdate(final PaymentDto payment, final PaymentDto pending) {
+		payment.setIsPayed(pending.getIsPayed());
+		payment.setPaymentStatus(pending.getPaymentStatus());
+		if (payment.getOrderDto() == null 
+				|| !Objects.equals(payment.getOrderDto().getOrderId(), pending.getOrderDto().getOrderId()))
+			payment.setOrderDto(OrderDto.builder().orderId(pending.getOrderDto().getOrderId()).build());
+	}
+	
+	/**
+	 * Order details are only included on {@code ?expand=order}.
+	 */
+	private static boolean expandOrder(final Set<String> expand) {
+		if (expand == null || expand.isEmpty())
+			return false;
+		expand.stream()
+				.filter(e -> !EXPAND_ORDER.equals(e))
+				.findAny()
+				.ifPresent(e -> {
+					throw new InvalidRequestException(String.format("Unsupported expand value: %s", e));
+				});
+		return true;
+	}
+	
 	
 	
 }
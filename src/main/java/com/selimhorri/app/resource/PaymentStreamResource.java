@@ -0,0 +1,48 @@
+package com.selimhorri.app.resource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.selimhorri.app.event.PaymentChangedEvent;
+import com.selimhorri.app.service.PaymentService;
+import com.selimhorri.app.service.PaymentStreamService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Server-Sent Events alternative to polling {@code GET /api/payments/{paymentId}}.
+ */
+@RestController
+@RequestMapping("/api/payments")
+@ConditionalOnProperty(prefix = "app.payment-stream", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+@RequiredArgsConstructor
+public class PaymentStreamResource {
+	
+	private final PaymentService paymentService;
+	private final PaymentStreamService paymentStreamService;
+	
+	/**
+	 * Streams {@code payment} events for committed changes, optionally only those of one payment
+	 * and/or one order. With {@code paymentId} the first event is the payment's current state
+	 * ({@code changeType=CURRENT}), so clients don't need an initial GET.
+	 */
+	@GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter stream(
+			@RequestParam(name = "paymentId", required = false) final Integer paymentId, 
+			@RequestParam(name = "orderId", required = false) final Integer orderId) {
+		log.debug("*** SseEmitter, resource; stream payment changes *");
+		return this.paymentStreamService.subscribe(paymentId, orderId, () -> paymentId == null ? null 
+				: PaymentChangedEvent.of(PaymentChangedEvent.ChangeType.CURRENT, this.paymentService.findById(paymentId, false)));
+	}
+	
+	
+	
+}
+
@@ -0,0 +1,60 @@
+package com.selimhorri.app.resource.advice;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.selimhorri.app.config.mapper.MapperConfig;
+import com.selimhorri.app.resource.PaymentResource;
+
+/**
+ * Sparse fieldsets: {@code ?fields=paymentId,paymentStatus} limits the serialized
+ * PaymentDto properties (JSON names), also inside collection responses.
+ */
+@ControllerAdvice(assignableTypes = PaymentResource.class)
+public class PaymentFieldsResponseBodyAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+	
+	public static final String FIELDS_PARAM = "fields";
+	
+	@Override
+	protected void beforeBodyWriteInternal(final MappingJacksonValue bodyContainer, final MediaType contentType, 
+			final MethodParameter returnType, final ServerHttpRequest request, final ServerHttpResponse response) {
+		
+		if (!(request instanceof ServletServerHttpRequest))
+			return;
+		final String fields = ((ServletServerHttpRequest) request).getServletRequest().getParameter(FIELDS_PARAM);
+		if (fields == null || fields.isBlank())
+			return;
+		
+		final Set<String> properties = Arrays.stream(fields.split(","))
+				.map(String::trim)
+				.filter(field -> !field.isEmpty())
+				.collect(Collectors.toUnmodifiableSet());
+		bodyContainer.setFilters(new SimpleFilterProvider()
+				.addFilter(MapperConfig.PAYMENT_FIELDS_FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(properties)));
+	}
+	
+	
+	
+}
+
+
+
+
+
+
+
+
+
+
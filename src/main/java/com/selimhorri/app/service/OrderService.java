@@ -0,0 +1,9 @@
+package com.selimhorri.app.service;
+
+import com.selimhorri.app.dto.OrderDto;
+
+public interface OrderService {
+	
+	OrderDto findById(final Integer orderId);
+	
+}
@@ -0,0 +1,8 @@
+package com.selimhorri.app.service;
+
+public interface OrderSnapshotService {
+	
+	int backfillMissingSnapshots();
+	int refreshStaleSnapshots();
+	
+}
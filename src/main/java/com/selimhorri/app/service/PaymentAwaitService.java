@@ -0,0 +1,20 @@
+package com.selimhorri.app.service;
+
+import java.time.Duration;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.selimhorri.app.domain.PaymentStatus;
+import com.selimhorri.app.dto.PaymentDto;
+import com.selimhorri.app.event.PaymentChangedEvent;
+
+public interface PaymentAwaitService {
+	
+	DeferredResult<ResponseEntity<PaymentDto>> await(final Integer paymentId, final PaymentStatus paymentStatus, 
+			final Duration timeout);
+	void onPaymentChanged(final PaymentChangedEvent event);
+	int getWaiterCount();
+	
+}
+
@@ -0,0 +1,39 @@
+package com.selimhorri.app.service;
+
+import java.io.InputStream;
+import java.util.Locale;
+
+import com.selimhorri.app.dto.PaymentImportReport;
+
+public interface PaymentImportService {
+	
+	enum Format {
+		
+		/**
+		 * A header line naming the columns, then one payment per line.
+		 */
+		CSV, 
+		
+		/**
+		 * One JSON payment per line, as accepted by {@code POST /api/payments}.
+		 */
+		NDJSON;
+		
+		public static Format of(final String name) {
+			switch (name.strip().toLowerCase(Locale.ROOT)) {
+				case "csv":
+					return CSV;
+				case "ndjson":
+				case "jsonl":
+					return NDJSON;
+				default:
+					throw new IllegalArgumentException(String.format("Unsupported import format: %s", name));
+			}
+		}
+		
+	}
+	
+	PaymentImportReport importPayments(final InputStream input, final Format format);
+	
+}
+
@@ -0,0 +1,17 @@
+package com.selimhorri.app.service;
+
+import com.selimhorri.app.dto.PaymentDto;
+import com.selimhorri.app.dto.PaymentIndexStats;
+import com.selimhorri.app.event.PaymentChangedEvent;
+import com.selimhorri.app.event.PaymentsArchivedEvent;
+import com.selimhorri.app.event.PaymentsImportedEvent;
+
+public interface PaymentIndexService {
+	
+	PaymentDto findByOrderId(final Integer orderId);
+	void onPaymentChanged(final PaymentChangedEvent event);
+	void onPaymentsImported(final PaymentsImportedEvent event);
+	void onPaymentsArchived(final PaymentsArchivedEvent event);
+	PaymentIndexStats getStats();
+	
+}
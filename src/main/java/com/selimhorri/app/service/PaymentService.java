@@ -3,11 +3,18 @@ package com.selimhorri.app.service;
 import java.util.List;
 
 import com.selimhorri.app.dto.PaymentDto;
+import com.selimhorri.app.dto.PaymentSearchCriteria;
+import com.selimhorri.app.dto.response.collection.DtoBatchCollectionResponse;
+import com.selimhorri.app.dto.response.collection.DtoCursorCollectionResponse;
 
 public interface PaymentService {
 	
 	List<PaymentDto> findAll();
+	List<PaymentDto> findAll(final boolean expandOrder);
 	PaymentDto findById(final Integer paymentId);
+	PaymentDto findById(final Integer paymentId, final boolean expandOrder);
+	DtoBatchCollectionResponse<PaymentDto> findAllById(final List<Integer> paymentIds, final boolean expandOrder);
+	DtoCursorCollectionResponse<PaymentDto> search(final PaymentSearchCriteria criteria, final boolean expandOrder);
 	PaymentDto save(final PaymentDto paymentDto);
 	PaymentDto update(final PaymentDto paymentDto);
 	void deleteById(final Integer paymentId);
@@ -0,0 +1,16 @@
+package com.selimhorri.app.service;
+
+import java.util.function.Supplier;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.selimhorri.app.event.PaymentChangedEvent;
+
+public interface PaymentStreamService {
+	
+	SseEmitter subscribe(final Integer paymentId, final Integer orderId, final Supplier<PaymentChangedEvent> currentState);
+	void onPaymentChanged(final PaymentChangedEvent event);
+	int getSubscriberCount();
+	
+}
+
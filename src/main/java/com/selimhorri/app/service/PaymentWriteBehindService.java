@@ -0,0 +1,16 @@
+package com.selimhorri.app.service;
+
+import java.util.Optional;
+
+import com.selimhorri.app.dto.PaymentDto;
+
+public interface PaymentWriteBehindService {
+	
+	PaymentDto update(final PaymentDto paymentDto);
+	Optional<PaymentDto> findPending(final Integer paymentId);
+	void flush();
+	boolean isFlushOnAck();
+	int getPendingCount();
+	
+}
+
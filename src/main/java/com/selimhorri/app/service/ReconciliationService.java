@@ -0,0 +1,12 @@
+package com.selimhorri.app.service;
+
+import com.selimhorri.app.dto.ReconciliationProgress;
+
+public interface ReconciliationService {
+	
+	ReconciliationProgress reconcile();
+	boolean startReconciliation();
+	ReconciliationProgress getProgress();
+	
+}
+
@@ -0,0 +1,45 @@
+package com.selimhorri.app.service.impl;
+
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import com.selimhorri.app.config.client.HedgedRequestExecutor;
+import com.selimhorri.app.constant.AppConstant;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.service.OrderService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Single entry point for ORDER-SERVICE calls, shared by the read fallback, the
+ * snapshot capture on save and the snapshot backfill/refresh jobs.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class OrderServiceImpl implements OrderService {
+	
+	private final RestTemplate restTemplate;
+	private final HedgedRequestExecutor orderServiceHedgedRequestExecutor;
+	
+	@Override
+	public OrderDto findById(final Integer orderId) {
+		log.debug("*** OrderDto, service; fetch order by id *");
+		// a GET by id is idempotent, so it is safe to hedge
+		return this.orderServiceHedgedRequestExecutor.execute(() -> this.restTemplate.getForObject(
+				AppConstant.DiscoveredDomainsApi.ORDER_SERVICE_API_URL + "/" + orderId, OrderDto.class));
+	}
+	
+	
+	
+}
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,152 @@
+package com.selimhorri.app.service.impl;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestClientException;
+
+import com.selimhorri.app.config.snapshot.OrderSnapshotProperties;
+import com.selimhorri.app.domain.Payment;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.repository.PaymentRepository;
+import com.selimhorri.app.service.OrderService;
+import com.selimhorri.app.service.OrderSnapshotService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fills the order snapshot columns of payments created before the snapshot existed (or while
+ * ORDER-SERVICE was unavailable), and optionally re-fetches old snapshots. Payments are walked
+ * by id; each distinct order is fetched once per batch and written to all of its payments.
+ */
+@Service
+@ConditionalOnProperty(prefix = "app.order-snapshot", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class OrderSnapshotServiceImpl implements OrderSnapshotService {
+	
+	private final PaymentRepository paymentRepository;
+	private final OrderService orderService;
+	private final OrderSnapshotProperties properties;
+	private final TransactionTemplate transactionTemplate;
+	private final Counter backfilledCounter;
+	private final Counter refreshedCounter;
+	
+	public OrderSnapshotServiceImpl(final PaymentRepository paymentRepository, 
+			final OrderService orderService, 
+			final OrderSnapshotProperties properties, 
+			final PlatformTransactionManager transactionManager, 
+			final MeterRegistry meterRegistry) {
+		this.paymentRepository = paymentRepository;
+		this.orderService = orderService;
+		this.properties = properties;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.backfilledCounter = Counter.builder("payments.order.snapshots")
+				.description("Payments whose order snapshot was written by a background job")
+				.tag("job", "backfill")
+				.register(meterRegistry);
+		this.refreshedCounter = Counter.builder("payments.order.snapshots")
+				.description("Payments whose order snapshot was written by a background job")
+				.tag("job", "refresh")
+				.register(meterRegistry);
+	}
+	
+	@Scheduled(initialDelayString = "${app.order-snapshot.backfill-interval:PT5M}", 
+			fixedDelayString = "${app.order-snapshot.backfill-interval:PT5M}")
+	@Override
+	public int backfillMissingSnapshots() {
+		final int updated = this.snapshotBatches(afterId -> this.paymentRepository
+				.findWithoutOrderSnapshot(afterId, this.firstBatch()));
+		this.backfilledCounter.increment(updated);
+		if (updated > 0)
+			log.info("*** Backfilled order snapshot of {} payments *", updated);
+		return updated;
+	}
+	
+	@Scheduled(initialDelayString = "${app.order-snapshot.refresh.interval:PT6H}", 
+			fixedDelayString = "${app.order-snapshot.refresh.interval:PT6H}")
+	@Override
+	public int refreshStaleSnapshots() {
+		if (!this.properties.getRefresh().isEnabled())
+			return 0;
+		
+		final Instant snapshotBefore = Instant.now().minus(this.properties.getRefresh().getMaxAge());
+		final int updated = this.snapshotBatches(afterId -> this.paymentRepository
+				.findWithOrderSnapshotBefore(snapshotBefore, afterId, this.firstBatch()));
+		this.refreshedCounter.increment(updated);
+		if (updated > 0)
+			log.info("*** Refreshed order snapshot of {} payments taken before {} *", updated, snapshotBefore);
+		return updated;
+	}
+	
+	private int snapshotBatches(final Function<Integer, List<Payment>> nextBatchAfter) {
+		
+		int updated = 0;
+		int afterId = 0;
+		for (int batch = 0; batch < this.properties.getMaxBatchesPerRun(); batch++) {
+			final List<Payment> payments = nextBatchAfter.apply(afterId);
+			if (payments.isEmpty())
+				break;
+			
+			// remote calls happen outside the transaction, so no connection is held while waiting
+			final Map<Integer, OrderDto> orders = this.fetchOrders(payments);
+			final Instant snapshotAt = Instant.now();
+			updated += this.transactionTemplate.execute(status -> orders.entrySet().stream()
+					.mapToInt(order -> this.paymentRepository.updateOrderSnapshot(order.getKey(), 
+							order.getValue().getOrderDate(), order.getValue().getOrderDesc(), 
+							order.getValue().getOrderFee(), snapshotAt))
+					.sum());
+			
+			// failed orders keep a null snapshot; advancing by id still moves past them
+			afterId = payments.get(payments.size() - 1).getPaymentId();
+			if (payments.size() < this.properties.getBatchSize())
+				break;
+		}
+		return updated;
+	}
+	
+	private Map<Integer, OrderDto> fetchOrders(final List<Payment> payments) {
+		final Map<Integer, OrderDto> orders = new LinkedHashMap<>();
+		payments.stream()
+				.map(Payment::getOrderId)
+				.distinct()
+				.forEach(orderId -> {
+					try {
+						final OrderDto order = this.orderService.findById(orderId);
+						if (order != null)
+							orders.put(orderId, order);
+					}
+					catch (RestClientException e) {
+						log.warn("*** Could not fetch order {} for snapshot: {} *", orderId, e.getMessage());
+					}
+				});
+		return orders;
+	}
+	
+	private Pageable firstBatch() {
+		return PageRequest.of(0, this.properties.getBatchSize());
+	}
+	
+	
+	
+}
+
+
+
+
+
+
+
+
+
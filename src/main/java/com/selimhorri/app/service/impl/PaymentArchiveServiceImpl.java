@@ -0,0 +1,106 @@
+package com.selimhorri.app.service.impl;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.selimhorri.app.config.archive.PaymentArchiveProperties;
+import com.selimhorri.app.domain.PaymentStatus;
+import com.selimhorri.app.event.PaymentsArchivedEvent;
+import com.selimhorri.app.repository.PaymentArchiveRepository;
+import com.selimhorri.app.repository.PaymentRepository;
+import com.selimhorri.app.service.PaymentArchiveService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves old COMPLETED payments from {@code payments} to {@code payments_archive},
+ * one small transaction per batch, so the hot table stays bounded.
+ */
+@Service
+@ConditionalOnProperty(prefix = "app.archive", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class PaymentArchiveServiceImpl implements PaymentArchiveService {
+	
+	private final PaymentRepository paymentRepository;
+	private final PaymentArchiveRepository paymentArchiveRepository;
+	private final PaymentArchiveProperties properties;
+	private final ApplicationEventPublisher eventPublisher;
+	private final TransactionTemplate transactionTemplate;
+	private final Counter archivedCounter;
+	
+	public PaymentArchiveServiceImpl(final PaymentRepository paymentRepository, 
+			final PaymentArchiveRepository paymentArchiveRepository, 
+			final PaymentArchiveProperties properties, 
+			final ApplicationEventPublisher eventPublisher, 
+			final PlatformTransactionManager transactionManager, 
+			final MeterRegistry meterRegistry) {
+		this.paymentRepository = paymentRepository;
+		this.paymentArchiveRepository = paymentArchiveRepository;
+		this.properties = properties;
+		this.eventPublisher = eventPublisher;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.archivedCounter = Counter.builder("payments.archived")
+				.description("Payments moved to payments_archive")
+				.register(meterRegistry);
+	}
+	
+	@Scheduled(initialDelayString = "${app.archive.interval:PT15M}", fixedDelayString = "${app.archive.interval:PT15M}")
+	@Override
+	public int archiveCompletedPayments() {
+		
+		final Instant cutoff = Instant.now().minus(this.properties.getMinAge());
+		int archived = 0;
+		for (int batch = 0; batch < this.properties.getMaxBatchesPerRun(); batch++) {
+			final int moved = this.transactionTemplate.execute(status -> this.archiveBatch(cutoff));
+			archived += moved;
+			if (moved < this.properties.getBatchSize())
+				break;
+		}
+		
+		if (archived > 0)
+			log.info("*** Archived {} completed payments created before {} *", archived, cutoff);
+		return archived;
+	}
+	
+	private int archiveBatch(final Instant cutoff) {
+		
+		// locked until commit: an update between the copy and the delete would otherwise be lost
+		final List<Integer> paymentIds = this.paymentRepository.findIdsByStatusCreatedBefore(
+				PaymentStatus.COMPLETED, cutoff, PageRequest.of(0, this.properties.getBatchSize()));
+		if (paymentIds.isEmpty())
+			return 0;
+		
+		final int copied = this.paymentArchiveRepository.copyCompletedFromPayments(paymentIds, Instant.now());
+		final int deleted = this.paymentRepository.deleteByIdInAndStatus(paymentIds, PaymentStatus.COMPLETED);
+		if (copied != deleted)
+			// a payment changed status between both statements: roll back, the next run retries
+			throw new IllegalStateException(String.format("Archived %d payments but removed %d", copied, deleted));
+		
+		this.archivedCounter.increment(deleted);
+		// delivered once the batch commits; archived payments leave the orderId index
+		this.eventPublisher.publishEvent(new PaymentsArchivedEvent(paymentIds));
+		return paymentIds.size();
+	}
+	
+	
+	
+}
+
+
+
+
+
+
+
+
+
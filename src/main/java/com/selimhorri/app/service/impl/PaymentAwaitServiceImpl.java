@@ -0,0 +1,170 @@
+package com.selimhorri.app.service.impl;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.selimhorri.app.config.await.PaymentAwaitProperties;
+import com.selimhorri.app.domain.PaymentStatus;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.PaymentDto;
+import com.selimhorri.app.event.PaymentChangedEvent;
+import com.selimhorri.app.exception.wrapper.InvalidRequestException;
+import com.selimhorri.app.exception.wrapper.PaymentNotFoundException;
+import com.selimhorri.app.exception.wrapper.RequestRejectedException;
+import com.selimhorri.app.service.PaymentAwaitService;
+import com.selimhorri.app.service.PaymentService;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Parks "await status" requests as {@link DeferredResult}s, indexed by paymentId, so a committed
+ * change only wakes the waiters of that payment and no servlet thread is held while waiting.
+ */
+@Service
+@ConditionalOnProperty(prefix = "app.payment-await", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class PaymentAwaitServiceImpl implements PaymentAwaitService {
+	
+	private final PaymentService paymentService;
+	private final PaymentAwaitProperties properties;
+	private final Map<Integer, Set<Waiter>> waiters = new ConcurrentHashMap<>();
+	private final AtomicInteger waiterCount = new AtomicInteger();
+	
+	public PaymentAwaitServiceImpl(final PaymentService paymentService, 
+			final PaymentAwaitProperties properties, 
+			final MeterRegistry meterRegistry) {
+		this.paymentService = paymentService;
+		this.properties = properties;
+		Gauge.builder("payments.await.waiters", this.waiterCount, AtomicInteger::get)
+				.description("Requests parked waiting for a payment status")
+				.register(meterRegistry);
+	}
+	
+	/**
+	 * On timeout the result is the payment's current state, so the client can tell from
+	 * {@code paymentStatus} whether to ask again.
+	 */
+	@Override
+	public DeferredResult<ResponseEntity<PaymentDto>> await(final Integer paymentId, 
+			final PaymentStatus paymentStatus, final Duration timeout) {
+		
+		if (timeout.isNegative() || timeout.isZero() || timeout.compareTo(this.properties.getMaxTimeout()) > 0)
+			throw new InvalidRequestException(String.format("Timeout must be between 1ms and %s", 
+					this.properties.getMaxTimeout()));
+		if (this.waiterCount.incrementAndGet() > this.properties.getMaxWaiters()) {
+			this.waiterCount.decrementAndGet();
+			throw new RequestRejectedException("Too many requests awaiting a payment status", 
+					HttpStatus.SERVICE_UNAVAILABLE, Duration.ofSeconds(1));
+		}
+		
+		final Waiter waiter = new Waiter(paymentStatus, new DeferredResult<>(timeout.toMillis(), 
+				() -> ResponseEntity.ok(this.paymentService.findById(paymentId, false))));
+		waiter.result.onCompletion(() -> this.remove(paymentId, waiter));
+		this.waiters.compute(paymentId, (id, paymentWaiters) -> {
+			final Set<Waiter> set = paymentWaiters == null ? ConcurrentHashMap.newKeySet() : paymentWaiters;
+			set.add(waiter);
+			return set;
+		});
+		
+		// checked after registering, so an update committed in between still wakes this waiter
+		try {
+			final PaymentDto current = this.paymentService.findById(paymentId, false);
+			if (current.getPaymentStatus() == paymentStatus)
+				this.complete(paymentId, waiter, ResponseEntity.ok(current));
+		}
+		catch (RuntimeException e) {
+			this.remove(paymentId, waiter);
+			throw e;
+		}
+		return waiter.result;
+	}
+	
+	@TransactionalEventListener(fallbackExecution = true)
+	@Override
+	public void onPaymentChanged(final PaymentChangedEvent event) {
+		final Set<Waiter> paymentWaiters = this.waiters.get(event.getPaymentId());
+		if (paymentWaiters == null)
+			return;
+		
+		if (event.getChangeType() == PaymentChangedEvent.ChangeType.DELETED) {
+			paymentWaiters.forEach(waiter -> this.complete(event.getPaymentId(), waiter, new PaymentNotFoundException(
+					String.format("Payment with id: %d not found", event.getPaymentId()))));
+			return;
+		}
+		final PaymentDto payment = PaymentDto.builder()
+				.paymentId(event.getPaymentId())
+				.isPayed(event.getIsPayed())
+				.paymentStatus(event.getPaymentStatus())
+				.orderDto(OrderDto.builder().orderId(event.getOrderId()).build())
+				.build();
+		paymentWaiters.stream()
+				.filter(waiter -> waiter.paymentStatus == event.getPaymentStatus())
+				.forEach(waiter -> this.complete(event.getPaymentId(), waiter, ResponseEntity.ok(payment)));
+	}
+	
+	@Override
+	public int getWaiterCount() {
+		return this.waiterCount.get();
+	}
+	
+	/**
+	 * Removes the waiter right away rather than on request completion, so the index only holds
+	 * waiters that can still be woken.
+	 */
+	@SuppressWarnings("unchecked")
+	private void complete(final Integer paymentId, final Waiter waiter, final Object result) {
+		final boolean set = result instanceof Exception
+				? waiter.result.setErrorResult(result)
+				: waiter.result.setResult((ResponseEntity<PaymentDto>) result);
+		if (set)
+			this.remove(paymentId, waiter);
+	}
+	
+	private void remove(final Integer paymentId, final Waiter waiter) {
+		if (!waiter.removed.compareAndSet(false, true))
+			return;
+		this.waiterCount.decrementAndGet();
+		this.waiters.computeIfPresent(paymentId, (id, paymentWaiters) -> {
+			paymentWaiters.remove(waiter);
+			return paymentWaiters.isEmpty() ? null : paymentWaiters;
+		});
+	}
+	
+	private static final class Waiter {
+		
+		private final PaymentStatus paymentStatus;
+		private final DeferredResult<ResponseEntity<PaymentDto>> result;
+		private final AtomicBoolean removed = new AtomicBoolean();
+		
+		private Waiter(final PaymentStatus paymentStatus, final DeferredResult<ResponseEntity<PaymentDto>> result) {
+			this.paymentStatus = paymentStatus;
+			this.result = result;
+		}
+		
+	}
+	
+	
+	
+}
+
+
+
+
+
+
+
+
+
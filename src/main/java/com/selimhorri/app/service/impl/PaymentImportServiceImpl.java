@@ -0,0 +1,364 @@
+package com.selimhorri.app.service.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.selimhorri.app.config.bulkimport.PaymentImportProperties;
+import com.selimhorri.app.domain.PaymentStatus;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.PaymentDto;
+import com.selimhorri.app.dto.PaymentImportReport;
+import com.selimhorri.app.event.PaymentChangedEvent;
+import com.selimhorri.app.event.PaymentsImportedEvent;
+import com.selimhorri.app.exception.wrapper.InvalidRequestException;
+import com.selimhorri.app.repository.ShardedPaymentRepository;
+import com.selimhorri.app.service.PaymentImportService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Imports payments from a CSV or NDJSON stream read one line at a time: valid rows are inserted in
+ * JDBC batches of {@code batch-size} and committed every {@code commit-interval} rows, so memory
+ * use doesn't depend on the size of the input. Invalid rows are reported and skipped; if a
+ * transaction fails, its rows are retried one per transaction so a single bad row doesn't drop the
+ * others. Rows committed before a failure of the input (e.g. a client disconnecting) stay imported.
+ * <p>
+ * Imported payments get new ids and no order snapshot (the backfill job fills it in). Each committed
+ * chunk publishes one {@link PaymentsImportedEvent} rather than an event per payment, which would
+ * flood the SSE subscribers' buffers and broadcast a cache invalidation per row.
+ * <p>
+ * A chunk's transaction stays open while its {@code commit-interval} rows are inserted; the
+ * existence filters of other instances only see its ids if it commits within {@code rebuild-interval}
+ * of the ids being assigned.
+ */
+@Service
+@Slf4j
+public class PaymentImportServiceImpl implements PaymentImportService {
+	
+	private static final String INSERT = "INSERT INTO payments (order_id, is_payed, payment_status, created_at, updated_at) "
+			+ "VALUES (?, ?, ?, ?, ?)";
+	private static final String ORDER_ID = "orderid";
+	private static final String PAYMENT_STATUS = "paymentstatus";
+	private static final String IS_PAYED = "ispayed";
+	private static final String CREATED_AT = "createdat";
+	
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final ApplicationEventPublisher eventPublisher;
+	private final ObjectMapper objectMapper;
+	private final ShardedPaymentRepository shardedPaymentRepository;
+	private final PaymentImportProperties properties;
+	private final Counter importedCounter;
+	private final Counter rejectedCounter;
+	
+	public PaymentImportServiceImpl(final DataSource dataSource, 
+			final PlatformTransactionManager transactionManager, 
+			final ApplicationEventPublisher eventPublisher, 
+			final ObjectMapper objectMapper, 
+			final ShardedPaymentRepository shardedPaymentRepository, 
+			final PaymentImportProperties properties, 
+			final MeterRegistry meterRegistry) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.eventPublisher = eventPublisher;
+		this.objectMapper = objectMapper;
+		this.shardedPaymentRepository = shardedPaymentRepository;
+		this.properties = properties;
+		this.importedCounter = Counter.builder("payments.imported")
+				.description("Payments inserted by bulk imports")
+				.register(meterRegistry);
+		this.rejectedCounter = Counter.builder("payments.import.rejected")
+				.description("Bulk import rows rejected")
+				.register(meterRegistry);
+	}
+	
+	@Override
+	public PaymentImportReport importPayments(final InputStream input, final Format format) {
+		
+		if (this.shardedPaymentRepository.isEnabled())
+			throw new IllegalStateException("Bulk import is not supported with sharding");
+		
+		final Progress progress = new Progress(this.properties.getMaxReportedErrors());
+		final List<ImportRow> chunk = new ArrayList<>(this.properties.getCommitInterval());
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+			long lineNumber = 0;
+			Map<String, Integer> columns = null;
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				lineNumber++;
+				if (line.isBlank())
+					continue;
+				if (format == Format.CSV && columns == null) {
+					columns = csvColumns(line);
+					continue;
+				}
+				try {
+					chunk.add(format == Format.CSV ? csvRow(columns, line, lineNumber) : this.jsonRow(line, lineNumber));
+				}
+				catch (IllegalArgumentException e) {
+					progress.reject(lineNumber, e.getMessage());
+				}
+				if (chunk.size() >= this.properties.getCommitInterval()) {
+					this.write(chunk, progress);
+					chunk.clear();
+				}
+			}
+			if (!chunk.isEmpty())
+				this.write(chunk, progress);
+		}
+		catch (IOException e) {
+			log.warn("*** Payment import stopped reading after {} imported payments: {} *", 
+					progress.imported, e.getMessage());
+			throw new UncheckedIOException(e);
+		}
+		
+		this.importedCounter.increment(progress.imported);
+		this.rejectedCounter.increment(progress.rejected);
+		log.info("*** Imported {} payments, rejected {} rows *", progress.imported, progress.rejected);
+		return PaymentImportReport.builder()
+				.imported(progress.imported)
+				.rejected(progress.rejected)
+				.errors(progress.errors)
+				.build();
+	}
+	
+	private void write(final List<ImportRow> rows, final Progress progress) {
+		try {
+			this.transactionTemplate.executeWithoutResult(status -> this.insert(rows));
+			progress.imported += rows.size();
+		}
+		catch (DataAccessException e) {
+			if (rows.size() > 1) {
+				log.warn("*** Importing {} payments failed, retrying one by one: {} *", rows.size(), e.getMessage());
+				rows.forEach(row -> this.write(List.of(row), progress));
+				return;
+			}
+			progress.reject(rows.get(0).line, e.getMostSpecificCause().getMessage());
+		}
+	}
+	
+	private void insert(final List<ImportRow> rows) {
+		final Timestamp now = Timestamp.from(Instant.now());
+		final List<Integer> paymentIds = this.jdbcTemplate.execute((ConnectionCallback<List<Integer>>) connection -> {
+			final List<Integer> generatedIds = new ArrayList<>(rows.size());
+			try (PreparedStatement insert = connection.prepareStatement(INSERT, new String[] { "payment_id" })) {
+				for (int i = 0; i < rows.size(); i++) {
+					final ImportRow row = rows.get(i);
+					insert.setInt(1, row.orderId);
+					insert.setBoolean(2, row.isPayed);
+					insert.setString(3, row.paymentStatus.name());
+					insert.setTimestamp(4, row.createdAt == null ? now : Timestamp.from(row.createdAt));
+					insert.setTimestamp(5, now);
+					insert.addBatch();
+					if ((i + 1) % this.properties.getBatchSize() == 0 || i == rows.size() - 1) {
+						insert.executeBatch();
+						try (ResultSet keys = insert.getGeneratedKeys()) {
+							while (keys.next())
+								generatedIds.add(keys.getInt(1));
+						}
+					}
+				}
+			}
+			return generatedIds;
+		});
+		// one event per chunk, delivered to the existence filter and the payment index once it commits
+		final List<PaymentChangedEvent> created = new ArrayList<>(paymentIds.size());
+		for (int i = 0; i < paymentIds.size(); i++) {
+			final ImportRow row = rows.get(i);
+			created.add(PaymentChangedEvent.of(PaymentChangedEvent.ChangeType.CREATED, PaymentDto.builder()
+					.paymentId(paymentIds.get(i))
+					.isPayed(row.isPayed)
+					.paymentStatus(row.paymentStatus)
+					.orderDto(OrderDto.builder().orderId(row.orderId).build())
+					.build()));
+		}
+		this.eventPublisher.publishEvent(new PaymentsImportedEvent(created));
+	}
+	
+	private ImportRow jsonRow(final String line, final long lineNumber) {
+		final JsonNode node;
+		try {
+			node = this.objectMapper.readTree(line);
+		}
+		catch (JsonProcessingException e) {
+			throw new IllegalArgumentException(String.format("Malformed JSON: %s", e.getOriginalMessage()));
+		}
+		if (!node.isObject())
+			throw new IllegalArgumentException("Expected a JSON object");
+		final JsonNode orderId = node.path("order").path("orderId").isMissingNode()
+				? node.path("orderId") : node.path("order").path("orderId");
+		return row(lineNumber, text(orderId), text(node.path("paymentStatus")), text(node.path("isPayed")), 
+				text(node.path("createdAt")));
+	}
+	
+	/**
+	 * Column names are matched ignoring case and underscores, so both {@code orderId} and
+	 * {@code order_id} work; unknown columns are ignored.
+	 */
+	private static Map<String, Integer> csvColumns(final String header) {
+		final List<String> names = csvFields(header);
+		final Map<String, Integer> columns = new HashMap<>();
+		for (int i = 0; i < names.size(); i++)
+			columns.put(names.get(i).replace("_", "").toLowerCase(Locale.ROOT), i);
+		if (!columns.containsKey(ORDER_ID) || !columns.containsKey(PAYMENT_STATUS))
+			throw new InvalidRequestException("CSV header must name the orderId and paymentStatus columns");
+		return columns;
+	}
+	
+	private static ImportRow csvRow(final Map<String, Integer> columns, final String line, final long lineNumber) {
+		final List<String> fields = csvFields(line);
+		return row(lineNumber, field(fields, columns.get(ORDER_ID)), field(fields, columns.get(PAYMENT_STATUS)), 
+				field(fields, columns.get(IS_PAYED)), field(fields, columns.get(CREATED_AT)));
+	}
+	
+	/**
+	 * Splits one CSV line; fields may be quoted, with {@code ""} for a quote, but not span lines.
+	 */
+	static List<String> csvFields(final String line) {
+		final List<String> fields = new ArrayList<>();
+		final StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			final char c = line.charAt(i);
+			if (quoted && c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+				field.append(c);
+				i++;
+			}
+			else if (c == '"')
+				quoted = !quoted;
+			else if (c == ',' && !quoted) {
+				fields.add(field.toString().strip());
+				field.setLength(0);
+			}
+			else
+				field.append(c);
+		}
+		if (quoted)
+			throw new IllegalArgumentException("Unterminated quoted field");
+		fields.add(field.toString().strip());
+		return fields;
+	}
+	
+	private static String field(final List<String> fields, final Integer index) {
+		return index == null || index >= fields.size() ? null : fields.get(index);
+	}
+	
+	private static String text(final JsonNode node) {
+		return node.isMissingNode() || node.isNull() ? null : node.asText();
+	}
+	
+	private static ImportRow row(final long lineNumber, final String orderId, final String paymentStatus, 
+			final String isPayed, final String createdAt) {
+		
+		if (orderId == null || orderId.isEmpty())
+			throw new IllegalArgumentException("orderId is required");
+		final int parsedOrderId;
+		try {
+			parsedOrderId = Integer.parseInt(orderId);
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException(String.format("Invalid orderId: %s", orderId));
+		}
+		if (parsedOrderId <= 0)
+			throw new IllegalArgumentException(String.format("Invalid orderId: %s", orderId));
+		
+		if (paymentStatus == null || paymentStatus.isEmpty())
+			throw new IllegalArgumentException("paymentStatus is required");
+		final PaymentStatus parsedStatus;
+		try {
+			parsedStatus = PaymentStatus.valueOf(paymentStatus.toUpperCase(Locale.ROOT));
+		}
+		catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException(String.format("Invalid paymentStatus: %s", paymentStatus));
+		}
+		
+		// like the reconciliation rule: a payment is payed if and only if it is COMPLETED
+		final boolean parsedIsPayed;
+		if (isPayed == null || isPayed.isEmpty())
+			parsedIsPayed = parsedStatus == PaymentStatus.COMPLETED;
+		else if ("true".equalsIgnoreCase(isPayed) || "false".equalsIgnoreCase(isPayed))
+			parsedIsPayed = Boolean.parseBoolean(isPayed);
+		else
+			throw new IllegalArgumentException(String.format("Invalid isPayed: %s", isPayed));
+		
+		Instant parsedCreatedAt = null;
+		if (createdAt != null && !createdAt.isEmpty()) {
+			try {
+				parsedCreatedAt = Instant.parse(createdAt);
+			}
+			catch (DateTimeParseException e) {
+				throw new IllegalArgumentException(String.format("Invalid createdAt (ISO-8601 instant expected): %s", createdAt));
+			}
+		}
+		return new ImportRow(lineNumber, parsedOrderId, parsedIsPayed, parsedStatus, parsedCreatedAt);
+	}
+	
+	private static final class ImportRow {
+		
+		private final long line;
+		private final int orderId;
+		private final boolean isPayed;
+		private final PaymentStatus paymentStatus;
+		private final Instant createdAt;
+		
+		private ImportRow(final long line, final int orderId, final boolean isPayed, 
+				final PaymentStatus paymentStatus, final Instant createdAt) {
+			this.line = line;
+			this.orderId = orderId;
+			this.isPayed = isPayed;
+			this.paymentStatus = paymentStatus;
+			this.createdAt = createdAt;
+		}
+		
+	}
+	
+	private static final class Progress {
+		
+		private final int maxReportedErrors;
+		private final List<PaymentImportReport.RowError> errors = new ArrayList<>();
+		private long imported;
+		private long rejected;
+		
+		private Progress(final int maxReportedErrors) {
+			this.maxReportedErrors = maxReportedErrors;
+		}
+		
+		private void reject(final long line, final String message) {
+			this.rejected++;
+			if (this.errors.size() < this.maxReportedErrors)
+				this.errors.add(new PaymentImportReport.RowError(line, message));
+		}
+		
+	}
+	
+	
+	
+}
@@ -0,0 +1,268 @@
+package com.selimhorri.app.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.selimhorri.app.config.index.IntLongHashMap;
+import com.selimhorri.app.config.index.PaymentIndexProperties;
+import com.selimhorri.app.domain.PaymentStatus;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.PaymentDto;
+import com.selimhorri.app.dto.PaymentIndexStats;
+import com.selimhorri.app.event.PaymentChangedEvent;
+import com.selimhorri.app.event.PaymentsArchivedEvent;
+import com.selimhorri.app.event.PaymentsImportedEvent;
+import com.selimhorri.app.exception.wrapper.PaymentNotFoundException;
+import com.selimhorri.app.repository.PaymentRepository;
+import com.selimhorri.app.service.PaymentIndexService;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory index of the latest payment (highest paymentId) of each order in {@code payments}
+ * (archived payments leave it):
+ * orderId to (paymentId, paymentStatus, isPayed) packed in one {@code long}, held in primitive
+ * open-addressing maps. Loaded by streaming the table at startup and kept current from committed
+ * {@link PaymentChangedEvent}s and {@link PaymentsImportedEvent}s. Lookups run under an optimistic
+ * {@link StampedLock} read, so they neither block on nor allocate while no write is in progress;
+ * writes take the write lock.
+ */
+@Service
+@ConditionalOnProperty(prefix = "app.payment-index", name = "enabled", havingValue = "true")
+@Slf4j
+public class PaymentIndexServiceImpl implements PaymentIndexService {
+	
+	static final long MISSING = -1L;
+	private static final String LOAD_QUERY = "SELECT payment_id, order_id, is_payed, payment_status FROM payments";
+	private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+	private static final int PAYED = 1;
+	private static final int PAYED_KNOWN = 1 << 1;
+	private static final int STATUS_SHIFT = 2;
+	
+	private final JdbcTemplate jdbcTemplate;
+	private final PaymentRepository paymentRepository;
+	private final StampedLock lock = new StampedLock();
+	// orderId -> packed latest payment of the order
+	private final IntLongHashMap byOrder;
+	// paymentId -> orderId, to find the entry an update moving the payment (or a delete) displaces
+	private final IntLongHashMap orderOfPayment;
+	private volatile long loadMillis;
+	
+	public PaymentIndexServiceImpl(final DataSource dataSource, 
+			final PaymentRepository paymentRepository, 
+			final PaymentIndexProperties properties, 
+			final MeterRegistry meterRegistry) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.setFetchSize(properties.getLoadFetchSize());
+		this.paymentRepository = paymentRepository;
+		this.byOrder = new IntLongHashMap(properties.getExpectedSize());
+		this.orderOfPayment = new IntLongHashMap(properties.getExpectedSize());
+		Gauge.builder("payments.index.entries", this, index -> index.getStats().getOrders())
+				.description("Orders in the in-memory payment index")
+				.register(meterRegistry);
+		Gauge.builder("payments.index.memory", this, index -> index.getStats().getMemoryBytes())
+				.description("Heap held by the in-memory payment index")
+				.baseUnit("bytes")
+				.register(meterRegistry);
+	}
+	
+	/**
+	 * Runs before the scheduler and the web server start, so no write can interleave with the load.
+	 */
+	@PostConstruct
+	void load() {
+		final long startedAt = System.nanoTime();
+		final long stamp = this.lock.writeLock();
+		try {
+			this.jdbcTemplate.query(LOAD_QUERY, rs -> {
+				final int orderId = rs.getInt("order_id");
+				if (rs.wasNull())
+					return;
+				final boolean isPayed = rs.getBoolean("is_payed");
+				final Boolean payed = rs.wasNull() ? null : isPayed;
+				final String paymentStatus = rs.getString("payment_status");
+				this.index(rs.getInt("payment_id"), orderId, 
+						paymentStatus == null ? null : PaymentStatus.valueOf(paymentStatus), payed);
+			});
+		}
+		finally {
+			this.lock.unlockWrite(stamp);
+		}
+		this.loadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+		final PaymentIndexStats stats = this.getStats();
+		log.info("*** Payment index loaded: {} payments of {} orders in {} ms, {} bytes *", 
+				stats.getPayments(), stats.getOrders(), stats.getLoadMillis(), stats.getMemoryBytes());
+	}
+	
+	@Override
+	public PaymentDto findByOrderId(final Integer orderId) {
+		final long entry = this.find(orderId);
+		if (entry == MISSING)
+			throw new PaymentNotFoundException(String.format("Payment with orderId: %d not found", orderId));
+		final int flags = (int) entry;
+		return PaymentDto.builder()
+				.paymentId((int) (entry >>> 32))
+				.isPayed((flags & PAYED_KNOWN) == 0 ? null : (flags & PAYED) != 0)
+				.paymentStatus((flags >>> STATUS_SHIFT) == 0 ? null : STATUSES[(flags >>> STATUS_SHIFT) - 1])
+				.orderDto(OrderDto.builder().orderId(orderId).build())
+				.build();
+	}
+	
+	@TransactionalEventListener(fallbackExecution = true)
+	@Override
+	public void onPaymentChanged(final PaymentChangedEvent event) {
+		final Integer displaced;
+		final long stamp = this.lock.writeLock();
+		try {
+			displaced = event.getChangeType() == PaymentChangedEvent.ChangeType.DELETED || event.getOrderId() == null
+					? this.unindex(event.getPaymentId())
+					: this.index(event.getPaymentId(), event.getOrderId(), event.getPaymentStatus(), event.getIsPayed());
+		}
+		finally {
+			this.lock.unlockWrite(stamp);
+		}
+		if (displaced != null)
+			this.reloadLatest(displaced);
+	}
+	
+	/**
+	 * Imported payments are new, so none displaces an order's entry; one write lock covers the chunk.
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	@Override
+	public void onPaymentsImported(final PaymentsImportedEvent event) {
+		final long stamp = this.lock.writeLock();
+		try {
+			event.getPayments().forEach(payment -> this.index(payment.getPaymentId(), payment.getOrderId(), 
+					payment.getPaymentStatus(), payment.getIsPayed()));
+		}
+		finally {
+			this.lock.unlockWrite(stamp);
+		}
+	}
+	
+	/**
+	 * One write lock covers the batch; the displaced orders are reloaded after releasing it.
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	@Override
+	public void onPaymentsArchived(final PaymentsArchivedEvent event) {
+		final List<Integer> displaced = new ArrayList<>();
+		final long stamp = this.lock.writeLock();
+		try {
+			event.getPaymentIds().forEach(paymentId -> {
+				final Integer orderId = this.unindex(paymentId);
+				if (orderId != null)
+					displaced.add(orderId);
+			});
+		}
+		finally {
+			this.lock.unlockWrite(stamp);
+		}
+		displaced.forEach(this::reloadLatest);
+	}
+	
+	@Override
+	public PaymentIndexStats getStats() {
+		final long stamp = this.lock.readLock();
+		try {
+			final long memoryBytes = this.byOrder.memoryBytes() + this.orderOfPayment.memoryBytes();
+			final int payments = this.orderOfPayment.size();
+			return PaymentIndexStats.builder()
+					.orders(this.byOrder.size())
+					.payments(payments)
+					.capacity(this.byOrder.capacity())
+					.memoryBytes(memoryBytes)
+					.memoryBytesPerMillion(payments == 0 ? null : memoryBytes * 1_000_000L / payments)
+					.loadMillis(this.loadMillis)
+					.build();
+		}
+		finally {
+			this.lock.unlockRead(stamp);
+		}
+	}
+	
+	long find(final int orderId) {
+		long stamp = this.lock.tryOptimisticRead();
+		long entry = this.byOrder.get(orderId, MISSING);
+		if (!this.lock.validate(stamp)) {
+			stamp = this.lock.readLock();
+			try {
+				entry = this.byOrder.get(orderId, MISSING);
+			}
+			finally {
+				this.lock.unlockRead(stamp);
+			}
+		}
+		return entry;
+	}
+	
+	/**
+	 * Must hold the write lock. Returns the order whose entry this payment displaced by moving to
+	 * another order, if any.
+	 */
+	private Integer index(final int paymentId, final int orderId, final PaymentStatus paymentStatus, 
+			final Boolean isPayed) {
+		final long previousOrderId = this.orderOfPayment.get(paymentId, MISSING);
+		final Integer displaced = previousOrderId != MISSING && previousOrderId != orderId
+				&& this.removeEntry((int) previousOrderId, paymentId) ? (int) previousOrderId : null;
+		this.orderOfPayment.put(paymentId, orderId);
+		final long current = this.byOrder.get(orderId, MISSING);
+		if (current == MISSING || (int) (current >>> 32) <= paymentId)
+			this.byOrder.put(orderId, pack(paymentId, paymentStatus, isPayed));
+		return displaced;
+	}
+	
+	/**
+	 * Must hold the write lock. Returns the payment's order if it was that order's indexed payment.
+	 */
+	private Integer unindex(final int paymentId) {
+		final long orderId = this.orderOfPayment.get(paymentId, MISSING);
+		if (orderId == MISSING)
+			return null;
+		this.orderOfPayment.remove(paymentId);
+		return this.removeEntry((int) orderId, paymentId) ? (int) orderId : null;
+	}
+	
+	/**
+	 * The order's indexed payment is gone: its previous payment, if any, is the latest now.
+	 */
+	private void reloadLatest(final int orderId) {
+		this.paymentRepository.findFirstByOrderIdOrderByPaymentIdDesc(orderId).ifPresent(payment -> {
+			final long stamp = this.lock.writeLock();
+			try {
+				this.index(payment.getPaymentId(), orderId, payment.getPaymentStatus(), payment.getIsPayed());
+			}
+			finally {
+				this.lock.unlockWrite(stamp);
+			}
+		});
+	}
+	
+	private boolean removeEntry(final int orderId, final int paymentId) {
+		final long current = this.byOrder.get(orderId, MISSING);
+		return current != MISSING && (int) (current >>> 32) == paymentId && this.byOrder.remove(orderId);
+	}
+	
+	private static long pack(final int paymentId, final PaymentStatus paymentStatus, final Boolean isPayed) {
+		final int flags = (paymentStatus == null ? 0 : paymentStatus.ordinal() + 1) << STATUS_SHIFT
+				| (isPayed == null ? 0 : PAYED_KNOWN | (isPayed ? PAYED : 0));
+		return ((long) paymentId << 32) | (flags & 0xFFFFFFFFL);
+	}
+	
+	
+	
+}
+
@@ -1,19 +1,41 @@
 package com.selimhorri.app.service.impl;
 
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import javax.transaction.Transactional;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
-import com.selimhorri.app.constant.AppConstant;
+import com.selimhorri.app.config.cache.PaymentNearCache;
+import com.selimhorri.app.config.existence.PaymentExistenceFilter;
+import com.selimhorri.app.domain.Payment;
+import com.selimhorri.app.domain.PaymentArchive;
 import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.PaymentCursor;
 import com.selimhorri.app.dto.PaymentDto;
+import com.selimhorri.app.dto.PaymentSearchCriteria;
+import com.selimhorri.app.dto.response.collection.DtoBatchCollectionResponse;
+import com.selimhorri.app.dto.response.collection.DtoCursorCollectionResponse;
+import com.selimhorri.app.event.PaymentChangedEvent;
 import com.selimhorri.app.exception.wrapper.PaymentNotFoundException;
 import com.selimhorri.app.helper.PaymentMappingHelper;
+import com.selimhorri.app.repository.PaymentArchiveRepository;
 import com.selimhorri.app.repository.PaymentRepository;
+import com.selimhorri.app.repository.ShardedPaymentRepository;
+import com.selimhorri.app.repository.specification.PaymentSpecifications;
+import com.selimhorri.app.service.OrderService;
 import com.selimhorri.app.service.PaymentService;
 
 import lombok.RequiredArgsConstructor;
@@ -25,55 +47,257 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class PaymentServiceImpl implements PaymentService {
 	
+	/**
+	 * Ids per IN-query of a multi-get, so statement size and plan cache entries stay bounded.
+	 */
+	static final int IN_QUERY_CHUNK_SIZE = 100;
+	
 	private final PaymentRepository paymentRepository;
-	private final RestTemplate restTemplate;
+	private final PaymentArchiveRepository paymentArchiveRepository;
+	private final OrderService orderService;
+	private final ApplicationEventPublisher eventPublisher;
+	private final PaymentNearCache paymentNearCache;
+	private final PaymentExistenceFilter paymentExistenceFilter;
+	private final ShardedPaymentRepository shardedPaymentRepository;
 	
 	@Override
 	public List<PaymentDto> findAll() {
-		log.info("*** PaymentDto List, service; fetch all payments *");
-		return this.paymentRepository.findAll()
-				.stream()
-					.map(PaymentMappingHelper::map)
-					.map(p -> {
-						p.setOrderDto(this.restTemplate.getForObject(AppConstant.DiscoveredDomainsApi
-								.ORDER_SERVICE_API_URL + "/" + p.getOrderDto().getOrderId(), OrderDto.class));
-						return p;
-					})
+		return this.findAll(true);
+	}
+	
+	@Override
+	public List<PaymentDto> findAll(final boolean expandOrder) {
+		log.debug("*** PaymentDto List, service; fetch all payments *");
+		final List<Payment> payments = this.shardedPaymentRepository.isEnabled() 
+				? this.shardedPaymentRepository.findAll() : this.paymentRepository.findAll();
+		return payments.stream()
+					.map(p -> this.withOrder(PaymentMappingHelper.map(p), p.getOrderSnapshotAt() != null, expandOrder))
 					.distinct()
 					.collect(Collectors.toUnmodifiableList());
 	}
 	
 	@Override
 	public PaymentDto findById(final Integer paymentId) {
-		log.info("*** PaymentDto, service; fetch payment by id *");
-		return this.paymentRepository.findById(paymentId)
-				.map(PaymentMappingHelper::map)
-				.map(p -> {
-					p.setOrderDto(this.restTemplate.getForObject(AppConstant.DiscoveredDomainsApi
-							.ORDER_SERVICE_API_URL + "/" + p.getOrderDto().getOrderId(), OrderDto.class));
-					return p;
-				})
-				.orElseThrow(() -> new PaymentNotFoundException(String.format("Payment with id: %d not found", paymentId)));
+		return this.findById(paymentId, true);
+	}
+	
+	@Override
+	public PaymentDto findById(final Integer paymentId, final boolean expandOrder) {
+		log.debug("*** PaymentDto, service; fetch payment by id *");
+		if (this.paymentExistenceFilter.isDefinitelyAbsent(paymentId))
+			throw notFound(paymentId);
+		return this.paymentNearCache.get(paymentId, expandOrder, () -> this.findPayment(paymentId)
+				.map(p -> this.withOrder(PaymentMappingHelper.map(p), p.getOrderSnapshotAt() != null, expandOrder))
+				.or(() -> this.shardedPaymentRepository.isEnabled() ? Optional.empty() 
+						: this.paymentArchiveRepository.findById(paymentId)
+								.map(a -> this.withOrder(PaymentMappingHelper.map(a), a.getOrderSnapshotAt() != null, expandOrder)))
+				.orElseThrow(() -> notFound(paymentId)));
+	}
+	
+	@Override
+	public DtoBatchCollectionResponse<PaymentDto> findAllById(final List<Integer> paymentIds, final boolean expandOrder) {
+		log.debug("*** PaymentDto List, service; fetch payments by ids *");
+		
+		final List<Integer> distinctIds = paymentIds.stream()
+				.distinct()
+				.collect(Collectors.toUnmodifiableList());
+		final List<Integer> candidateIds = distinctIds.stream()
+				.filter(id -> !this.paymentExistenceFilter.isDefinitelyAbsent(id))
+				.collect(Collectors.toUnmodifiableList());
+		final Map<Integer, PaymentDto> found = new HashMap<>();
+		final Set<Integer> withoutOrderSnapshot = new HashSet<>();
+		
+		final Consumer<Payment> collect = p -> {
+			found.put(p.getPaymentId(), PaymentMappingHelper.map(p));
+			if (p.getOrderSnapshotAt() == null)
+				withoutOrderSnapshot.add(p.getPaymentId());
+		};
+		if (this.shardedPaymentRepository.isEnabled()) {
+			// sharded payments are never archived
+			this.shardedPaymentRepository.findAllById(candidateIds).forEach(collect);
+		}
+		else {
+			inChunks(candidateIds, chunk -> this.paymentRepository.findAllById(chunk).forEach(collect));
+			inChunks(missingIds(candidateIds, found), chunk -> this.paymentArchiveRepository.findAllById(chunk).forEach(a -> {
+				found.put(a.getPaymentId(), PaymentMappingHelper.map(a));
+				if (a.getOrderSnapshotAt() == null)
+					withoutOrderSnapshot.add(a.getPaymentId());
+			}));
+		}
+		
+		// one ORDER-SERVICE call per distinct order among rows without a snapshot
+		final Map<Integer, OrderDto> orders = new HashMap<>();
+		if (expandOrder)
+			withoutOrderSnapshot.stream()
+					.map(paymentId -> found.get(paymentId).getOrderDto().getOrderId())
+					.distinct()
+					.forEach(orderId -> orders.put(orderId, this.orderService.findById(orderId)));
+		found.forEach((paymentId, p) -> {
+			if (expandOrder && withoutOrderSnapshot.contains(paymentId))
+				p.setOrderDto(orders.get(p.getOrderDto().getOrderId()));
+			else
+				this.withOrder(p, true, expandOrder);
+		});
+		
+		return DtoBatchCollectionResponse.<PaymentDto>builder()
+				.collection(distinctIds.stream()
+						.filter(found::containsKey)
+						.map(found::get)
+						.collect(Collectors.toUnmodifiableList()))
+				.missingIds(missingIds(distinctIds, found))
+				.build();
+	}
+	
+	@Override
+	public DtoCursorCollectionResponse<PaymentDto> search(final PaymentSearchCriteria criteria, final boolean expandOrder) {
+		log.debug("*** PaymentDto List, service; search payments *");
+		
+		final int limit = criteria.getLimit();
+		final PaymentCursor cursor = criteria.getCursor() == null ? null : PaymentCursor.decode(criteria.getCursor());
+		// one extra row tells whether a next page exists, without a count query
+		final List<Payment> payments = this.shardedPaymentRepository.isEnabled() 
+				? this.shardedPaymentRepository.search(criteria, cursor, limit + 1) 
+				: this.paymentRepository.findAll(specification(criteria, cursor), Sort.by("createdAt", "paymentId"), limit + 1);
+		final boolean hasNext = payments.size() > limit;
+		final List<Payment> page = hasNext ? payments.subList(0, limit) : payments;
+		
+		return DtoCursorCollectionResponse.<PaymentDto>builder()
+				.collection(page.stream()
+						.map(p -> this.withOrder(PaymentMappingHelper.map(p), p.getOrderSnapshotAt() != null, expandOrder))
+						.collect(Collectors.toUnmodifiableList()))
+				.nextCursor(hasNext ? PaymentCursor.of(page.get(page.size() - 1)).encode() : null)
+				.build();
 	}
 	
+	/**
+	 * Captures the order snapshot before inserting. Runs without a surrounding transaction
+	 * so the ORDER-SERVICE call doesn't hold a pooled connection; the insert gets its own.
+	 */
 	@Override
+	@Transactional(Transactional.TxType.NOT_SUPPORTED)
 	public PaymentDto save(final PaymentDto paymentDto) {
-		log.info("*** PaymentDto, service; save payment *");
-		return PaymentMappingHelper.map(this.paymentRepository
-				.save(PaymentMappingHelper.map(paymentDto)));
+		log.debug("*** PaymentDto, service; save payment *");
+		final Payment payment = PaymentMappingHelper.map(paymentDto);
+		this.snapshotOrder(payment);
+		final PaymentDto saved = PaymentMappingHelper.map(this.savePayment(payment));
+		this.eventPublisher.publishEvent(PaymentChangedEvent.of(PaymentChangedEvent.ChangeType.CREATED, saved));
+		return saved;
 	}
 	
 	@Override
 	public PaymentDto update(final PaymentDto paymentDto) {
-		log.info("*** PaymentDto, service; update payment *");
-		return PaymentMappingHelper.map(this.paymentRepository
-				.save(PaymentMappingHelper.map(paymentDto)));
+		log.debug("*** PaymentDto, service; update payment *");
+		final Payment payment = PaymentMappingHelper.map(paymentDto);
+		if (payment.getPaymentId() != null) {
+			final Optional<Payment> existing = this.findPayment(payment.getPaymentId());
+			existing.ifPresent(stored -> keepOrderSnapshot(payment, stored));
+			// the archive is read-only, and merging the payment would insert it again under a new id
+			if (existing.isEmpty() && !this.shardedPaymentRepository.isEnabled() 
+					&& this.paymentArchiveRepository.existsById(payment.getPaymentId()))
+				throw new IllegalStateException(String.format("Payment with id: %d is archived and can no longer be updated", 
+						payment.getPaymentId()));
+		}
+		final PaymentDto updated = PaymentMappingHelper.map(this.savePayment(payment));
+		// delivered to listeners such as the SSE stream once the transaction commits
+		this.eventPublisher.publishEvent(PaymentChangedEvent.of(PaymentChangedEvent.ChangeType.UPDATED, updated));
+		return updated;
 	}
 	
 	@Override
 	public void deleteById(final Integer paymentId) {
-		log.info("*** Void, service; delete payment by id *");
-		this.paymentRepository.deleteById(paymentId);
+		log.debug("*** Void, service; delete payment by id *");
+		// read before deleting: /stream?orderId= subscribers only receive events carrying their orderId
+		final Optional<PaymentArchive> archived = this.shardedPaymentRepository.isEnabled() 
+				? Optional.empty() : this.paymentArchiveRepository.findById(paymentId);
+		final Integer orderId = archived.map(PaymentArchive::getOrderId)
+				.orElseGet(() -> this.findPayment(paymentId).map(Payment::getOrderId).orElse(null));
+		if (this.shardedPaymentRepository.isEnabled())
+			this.shardedPaymentRepository.deleteById(paymentId);
+		else if (archived.isPresent())
+			this.paymentArchiveRepository.deleteById(paymentId);
+		else
+			this.paymentRepository.deleteById(paymentId);
+		this.eventPublisher.publishEvent(PaymentChangedEvent.deleted(paymentId, orderId));
+	}
+	
+	private Optional<Payment> findPayment(final Integer paymentId) {
+		return this.shardedPaymentRepository.isEnabled() 
+				? this.shardedPaymentRepository.findById(paymentId) : this.paymentRepository.findById(paymentId);
+	}
+	
+	private Payment savePayment(final Payment payment) {
+		return this.shardedPaymentRepository.isEnabled() 
+				? this.shardedPaymentRepository.save(payment) : this.paymentRepository.save(payment);
+	}
+	
+	/**
+	 * Orders are immutable once paid for, so the snapshot serves expand=order; only rows
+	 * without one (not yet backfilled) still go to ORDER-SERVICE.
+	 */
+	private PaymentDto withOrder(final PaymentDto paymentDto, final boolean hasOrderSnapshot, 
+			final boolean expandOrder) {
+		final Integer orderId = paymentDto.getOrderDto().getOrderId();
+		if (!expandOrder)
+			paymentDto.setOrderDto(OrderDto.builder().orderId(orderId).build());
+		else if (!hasOrderSnapshot)
+			paymentDto.setOrderDto(this.orderService.findById(orderId));
+		return paymentDto;
+	}
+	
+	/**
+	 * Update payloads carry no order details: keeps the stored snapshot unless the order changed.
+	 */
+	static void keepOrderSnapshot(final Payment payment, final Payment existing) {
+		if (!Objects.equals(existing.getOrderId(), payment.getOrderId()))
+			return;
+		payment.setOrderDate(existing.getOrderDate());
+		payment.setOrderDesc(existing.getOrderDesc());
+		payment.setOrderFee(existing.getOrderFee());
+		payment.setOrderSnapshotAt(existing.getOrderSnapshotAt());
+	}
+	
+	private static Specification<Payment> specification(final PaymentSearchCriteria criteria, final PaymentCursor cursor) {
+		return Specification
+				.where(PaymentSpecifications.hasStatus(criteria.getPaymentStatus()))
+				.and(PaymentSpecifications.isPayed(criteria.getIsPayed()))
+				.and(PaymentSpecifications.hasOrderIdIn(criteria.getOrderIds()))
+				.and(PaymentSpecifications.createdFrom(criteria.getCreatedFrom()))
+				.and(PaymentSpecifications.createdBefore(criteria.getCreatedTo()))
+				.and(cursor == null ? null : PaymentSpecifications.after(cursor.getCreatedAt(), cursor.getPaymentId()));
+	}
+	
+	private static PaymentNotFoundException notFound(final Integer paymentId) {
+		return new PaymentNotFoundException(String.format("Payment with id: %d not found", paymentId));
+	}
+	
+	private static void inChunks(final List<Integer> ids, final Consumer<List<Integer>> query) {
+		for (int from = 0; from < ids.size(); from += IN_QUERY_CHUNK_SIZE)
+			query.accept(ids.subList(from, Math.min(from + IN_QUERY_CHUNK_SIZE, ids.size())));
+	}
+	
+	private static List<Integer> missingIds(final List<Integer> ids, final Map<Integer, PaymentDto> found) {
+		return ids.stream()
+				.filter(id -> !found.containsKey(id))
+				.collect(Collectors.toUnmodifiableList());
+	}
+	
+	private void snapshotOrder(final Payment payment) {
+		if (payment.getOrderId() == null)
+			return;
+		try {
+			final OrderDto order = this.orderService.findById(payment.getOrderId());
+			if (order == null)
+				return;
+			payment.setOrderDate(order.getOrderDate());
+			payment.setOrderDesc(order.getOrderDesc());
+			payment.setOrderFee(order.getOrderFee());
+			payment.setOrderSnapshotAt(Instant.now());
+		}
+		catch (RuntimeException e) {
+			// saved without a snapshot, the backfill job fills it later; not only RestClientException:
+			// with no ORDER-SERVICE instance registered the load balancer throws IllegalStateException
+			log.warn("*** Could not snapshot order {} for new payment: {} *", payment.getOrderId(), e.getMessage());
+		}
 	}
 	
 	
@@ -0,0 +1,235 @@
+package com.selimhorri.app.service.impl;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.selimhorri.app.config.stream.PaymentStreamProperties;
+import com.selimhorri.app.event.PaymentChangedEvent;
+import com.selimhorri.app.exception.wrapper.RequestRejectedException;
+import com.selimhorri.app.service.PaymentStreamService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pushes committed payment changes to SSE subscribers. Events are only enqueued on the committing
+ * thread; writes happen on {@code paymentStreamExecutor}, one task at a time per subscriber. Each
+ * subscriber has a bounded buffer: when it is full (the client reads slower than changes arrive, or
+ * has stalled) the subscriber is evicted instead of buffering without limit.
+ * <p>
+ * A write to a client that stopped reading blocks its sender until the server's socket write timeout
+ * ({@code server.tomcat.connection-timeout}); neither completing the emitter nor the async context
+ * releases it earlier, so that timeout is what bounds how long stalled subscribers hold the senders.
+ */
+@Service
+@ConditionalOnProperty(prefix = "app.payment-stream", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class PaymentStreamServiceImpl implements PaymentStreamService {
+	
+	static final String EVENT_NAME = "payment";
+	private static final Object HEARTBEAT = new Object();
+	
+	private final PaymentStreamProperties properties;
+	private final Executor paymentStreamExecutor;
+	private final ObjectWriter eventWriter;
+	private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+	private final Counter sentCounter;
+	private final Counter evictedCounter;
+	
+	public PaymentStreamServiceImpl(final PaymentStreamProperties properties, 
+			final Executor paymentStreamExecutor, 
+			final ObjectMapper objectMapper, 
+			final MeterRegistry meterRegistry) {
+		this.properties = properties;
+		this.paymentStreamExecutor = paymentStreamExecutor;
+		// an SSE data field ends at the first line break, so events are written on a single line
+		this.eventWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+		this.sentCounter = Counter.builder("payments.stream.events")
+				.description("Payment change events written to SSE subscribers")
+				.register(meterRegistry);
+		this.evictedCounter = Counter.builder("payments.stream.evictions")
+				.description("SSE subscribers disconnected because their buffer was full")
+				.register(meterRegistry);
+		Gauge.builder("payments.stream.subscribers", this.subscribers, Set::size)
+				.description("Open payment SSE streams")
+				.register(meterRegistry);
+	}
+	
+	@Override
+	public SseEmitter subscribe(final Integer paymentId, final Integer orderId, 
+			final Supplier<PaymentChangedEvent> currentState) {
+		
+		if (this.subscribers.size() >= this.properties.getMaxSubscribers())
+			throw new RequestRejectedException("Too many open payment streams", 
+					HttpStatus.SERVICE_UNAVAILABLE, this.properties.getHeartbeatInterval());
+		
+		final Subscriber subscriber = new Subscriber(this.createEmitter(this.properties.getTimeout().toMillis()), 
+				paymentId, orderId, this.properties.getBufferSize());
+		subscriber.emitter.onCompletion(() -> this.remove(subscriber));
+		subscriber.emitter.onTimeout(() -> this.remove(subscriber));
+		subscriber.emitter.onError(e -> this.remove(subscriber));
+		this.subscribers.add(subscriber);
+		
+		// read after registering, so a change committed in between is not lost (at worst it is seen twice)
+		try {
+			final PaymentChangedEvent current = currentState.get();
+			if (current != null)
+				this.enqueue(subscriber, current);
+		}
+		catch (RuntimeException e) {
+			this.remove(subscriber);
+			throw e;
+		}
+		return subscriber.emitter;
+	}
+	
+	@TransactionalEventListener(fallbackExecution = true)
+	@Override
+	public void onPaymentChanged(final PaymentChangedEvent event) {
+		this.subscribers.stream()
+				.filter(subscriber -> subscriber.matches(event))
+				.forEach(subscriber -> this.enqueue(subscriber, event));
+	}
+	
+	@Scheduled(initialDelayString = "${app.payment-stream.heartbeat-interval:PT15S}", 
+			fixedDelayString = "${app.payment-stream.heartbeat-interval:PT15S}")
+	public void sendHeartbeats() {
+		this.subscribers.forEach(subscriber -> this.enqueue(subscriber, HEARTBEAT));
+	}
+	
+	@Override
+	public int getSubscriberCount() {
+		return this.subscribers.size();
+	}
+	
+	SseEmitter createEmitter(final long timeoutMillis) {
+		return new SseEmitter(timeoutMillis);
+	}
+	
+	private void enqueue(final Subscriber subscriber, final Object event) {
+		if (!subscriber.buffer.offer(event)) {
+			this.evict(subscriber);
+			return;
+		}
+		this.scheduleSend(subscriber);
+	}
+	
+	private void evict(final Subscriber subscriber) {
+		if (!subscriber.evicted.compareAndSet(false, true))
+			return;
+		this.subscribers.remove(subscriber);
+		subscriber.buffer.clear();
+		this.evictedCounter.increment();
+		log.debug("*** Evicted slow payment stream subscriber (paymentId={}, orderId={}) *", 
+				subscriber.paymentId, subscriber.orderId);
+		// completed by the sender, never here: a write blocked on the stalled client holds the emitter's lock
+		// until the socket write times out, and then fails
+		this.scheduleSend(subscriber);
+	}
+	
+	private void scheduleSend(final Subscriber subscriber) {
+		if (!subscriber.sending.compareAndSet(false, true))
+			return;
+		try {
+			this.paymentStreamExecutor.execute(() -> this.send(subscriber));
+		}
+		catch (RejectedExecutionException e) {
+			subscriber.sending.set(false);
+			this.remove(subscriber);
+		}
+	}
+	
+	private void send(final Subscriber subscriber) {
+		try {
+			Object event;
+			while (!subscriber.closed && !subscriber.evicted.get() && (event = subscriber.buffer.poll()) != null) {
+				subscriber.emitter.send(event == HEARTBEAT
+						? SseEmitter.event().comment("heartbeat")
+						: SseEmitter.event().name(EVENT_NAME).data(this.eventWriter.writeValueAsString(event)));
+				if (event != HEARTBEAT)
+					this.sentCounter.increment();
+			}
+			if (subscriber.evicted.get() && !subscriber.closed) {
+				subscriber.closed = true;
+				subscriber.emitter.complete();
+			}
+		}
+		catch (JsonProcessingException e) {
+			log.error("*** Could not serialize payment change event: {} *", e.getMessage());
+			this.remove(subscriber);
+			subscriber.emitter.completeWithError(e);
+		}
+		catch (IOException | IllegalStateException e) {
+			// client went away (or the stream already ended)
+			this.remove(subscriber);
+		}
+		finally {
+			subscriber.sending.set(false);
+		}
+		if (!subscriber.closed && (!subscriber.buffer.isEmpty() || subscriber.evicted.get()))
+			this.scheduleSend(subscriber);
+	}
+	
+	private void remove(final Subscriber subscriber) {
+		subscriber.closed = true;
+		this.subscribers.remove(subscriber);
+		subscriber.buffer.clear();
+	}
+	
+	private static final class Subscriber {
+		
+		private final SseEmitter emitter;
+		private final Integer paymentId;
+		private final Integer orderId;
+		private final Queue<Object> buffer;
+		private final AtomicBoolean sending = new AtomicBoolean();
+		private final AtomicBoolean evicted = new AtomicBoolean();
+		private volatile boolean closed;
+		
+		private Subscriber(final SseEmitter emitter, final Integer paymentId, final Integer orderId, final int bufferSize) {
+			this.emitter = emitter;
+			this.paymentId = paymentId;
+			this.orderId = orderId;
+			this.buffer = new ArrayBlockingQueue<>(bufferSize);
+		}
+		
+		private boolean matches(final PaymentChangedEvent event) {
+			return (this.paymentId == null || Objects.equals(this.paymentId, event.getPaymentId()))
+					&& (this.orderId == null || Objects.equals(this.orderId, event.getOrderId()));
+		}
+		
+	}
+	
+	
+	
+}
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,341 @@
+package com.selimhorri.app.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.selimhorri.app.config.writebehind.PaymentWriteBehindProperties;
+import com.selimhorri.app.domain.Payment;
+import com.selimhorri.app.dto.PaymentDto;
+import com.selimhorri.app.event.PaymentChangedEvent;
+import com.selimhorri.app.exception.wrapper.InvalidRequestException;
+import com.selimhorri.app.exception.wrapper.PaymentNotFoundException;
+import com.selimhorri.app.exception.wrapper.RequestRejectedException;
+import com.selimhorri.app.helper.PaymentMappingHelper;
+import com.selimhorri.app.repository.PaymentArchiveRepository;
+import com.selimhorri.app.repository.PaymentRepository;
+import com.selimhorri.app.service.PaymentWriteBehindService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Buffers payment updates per paymentId and writes them in batched transactions, every
+ * {@code flush-interval} or as soon as {@code max-batch-size} payments are pending. An update of a
+ * payment that is still buffered supersedes the previous one, so a burst of gateway callbacks for
+ * the same payment costs a single write. Flushes are serialized, so updates of one payment are
+ * written in the order they were accepted.
+ * <p>
+ * Without {@code flush-on-ack} an update is acknowledged once buffered and is lost if the instance
+ * dies before the next flush; with it the caller waits until its update is committed.
+ */
+@Service
+@ConditionalOnProperty(prefix = "app.payment-write-behind", name = "enabled", havingValue = "true")
+@Slf4j
+public class PaymentWriteBehindServiceImpl implements PaymentWriteBehindService {
+	
+	private final PaymentRepository paymentRepository;
+	private final PaymentArchiveRepository paymentArchiveRepository;
+	private final ApplicationEventPublisher eventPublisher;
+	private final PaymentWriteBehindProperties properties;
+	private final Executor paymentWriteBehindExecutor;
+	private final TransactionTemplate transactionTemplate;
+	// not a TaskScheduler bean, which would replace the shared scheduler of every @Scheduled task
+	private final ScheduledExecutorService flushScheduler = Executors.newSingleThreadScheduledExecutor(
+			new CustomizableThreadFactory("payment-write-behind-flush-"));
+	private final Map<Integer, PendingUpdate> pending = new ConcurrentHashMap<>();
+	// taken out of the buffer but not committed yet, still visible to findPending
+	private final Map<Integer, PendingUpdate> writing = new ConcurrentHashMap<>();
+	private final ReentrantLock flushLock = new ReentrantLock();
+	private final AtomicBoolean flushQueued = new AtomicBoolean();
+	private final Counter bufferedCounter;
+	private final Counter coalescedCounter;
+	private final Counter failedCounter;
+	private final Timer flushTimer;
+	
+	public PaymentWriteBehindServiceImpl(final PaymentRepository paymentRepository, 
+			final PaymentArchiveRepository paymentArchiveRepository, 
+			final ApplicationEventPublisher eventPublisher, 
+			final PaymentWriteBehindProperties properties, 
+			final Executor paymentWriteBehindExecutor, 
+			final PlatformTransactionManager transactionManager, 
+			final MeterRegistry meterRegistry) {
+		this.paymentRepository = paymentRepository;
+		this.paymentArchiveRepository = paymentArchiveRepository;
+		this.eventPublisher = eventPublisher;
+		this.properties = properties;
+		this.paymentWriteBehindExecutor = paymentWriteBehindExecutor;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.bufferedCounter = Counter.builder("payments.buffered.updates")
+				.description("Payment updates accepted into the write-behind buffer")
+				.register(meterRegistry);
+		this.coalescedCounter = Counter.builder("payments.buffered.coalesced")
+				.description("Buffered payment updates superseded before being written")
+				.register(meterRegistry);
+		this.failedCounter = Counter.builder("payments.buffered.failed")
+				.description("Buffered payment updates that could not be written")
+				.register(meterRegistry);
+		this.flushTimer = Timer.builder("payments.buffered.flushes")
+				.description("Time to write one batch of buffered payment updates")
+				.register(meterRegistry);
+		Gauge.builder("payments.buffered.pending", this.pending, Map::size)
+				.description("Payments with a buffered update")
+				.register(meterRegistry);
+	}
+	
+	/**
+	 * Flushes every {@code flush-interval} on a thread of its own, so a slow batch write doesn't hold
+	 * one of the threads shared by the {@code @Scheduled} tasks.
+	 */
+	@PostConstruct
+	public void scheduleFlush() {
+		final long flushInterval = this.properties.getFlushInterval().toMillis();
+		this.flushScheduler.scheduleWithFixedDelay(this::flushQuietly, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+	}
+	
+	@PreDestroy
+	public void close() {
+		this.flushScheduler.shutdown();
+		this.flush();
+	}
+	
+	@Override
+	public PaymentDto update(final PaymentDto paymentDto) {
+		
+		final Integer paymentId = paymentDto.getPaymentId();
+		if (paymentId == null || paymentDto.getOrderDto() == null)
+			throw new InvalidRequestException("paymentId and order are required to update a payment");
+		this.checkExists(paymentId);
+		// a soft bound: concurrent updates of different payments may overshoot it slightly
+		if (this.pending.size() >= this.properties.getMaxPending() && !this.pending.containsKey(paymentId))
+			throw new RequestRejectedException("Too many buffered payment updates", 
+					HttpStatus.SERVICE_UNAVAILABLE, this.properties.getFlushInterval());
+		
+		final CompletableFuture<PaymentDto> ack = this.properties.isFlushOnAck() ? new CompletableFuture<>() : null;
+		this.pending.compute(paymentId, (id, previous) -> {
+			if (previous == null)
+				return new PendingUpdate(paymentDto, ack == null ? List.of() : List.of(ack));
+			this.coalescedCounter.increment();
+			return previous.supersededBy(paymentDto, ack);
+		});
+		this.bufferedCounter.increment();
+		if (this.pending.size() >= this.properties.getMaxBatchSize())
+			this.queueFlush();
+		return ack == null ? paymentDto : this.awaitFlush(ack);
+	}
+	
+	@Override
+	public Optional<PaymentDto> findPending(final Integer paymentId) {
+		return Optional.ofNullable(this.pending.get(paymentId))
+				.or(() -> Optional.ofNullable(this.writing.get(paymentId)))
+				.map(update -> update.paymentDto);
+	}
+	
+	@Override
+	public void flush() {
+		this.flushLock.lock();
+		try {
+			final List<Integer> paymentIds = new ArrayList<>(this.pending.keySet());
+			for (int from = 0; from < paymentIds.size(); from += this.properties.getMaxBatchSize()) {
+				// removed as a whole: an update accepted from here on starts a new entry for the next flush
+				final List<PendingUpdate> batch = paymentIds
+						.subList(from, Math.min(from + this.properties.getMaxBatchSize(), paymentIds.size()))
+						.stream()
+						.map(this.pending::remove)
+						.filter(Objects::nonNull)
+						.collect(Collectors.toUnmodifiableList());
+				if (batch.isEmpty())
+					continue;
+				batch.forEach(update -> this.writing.put(update.paymentDto.getPaymentId(), update));
+				try {
+					this.flushTimer.record(() -> this.write(batch));
+				}
+				finally {
+					this.writing.clear();
+				}
+			}
+		}
+		finally {
+			this.flushLock.unlock();
+		}
+	}
+	
+	@Override
+	public boolean isFlushOnAck() {
+		return this.properties.isFlushOnAck();
+	}
+	
+	@Override
+	public int getPendingCount() {
+		return this.pending.size();
+	}
+	
+	/**
+	 * Rejects an update the flush would drop, while the caller still gets the error: one primary
+	 * key lookup per update, skipped for a payment whose previous update is still buffered.
+	 */
+	private void checkExists(final Integer paymentId) {
+		if (this.pending.containsKey(paymentId) || this.writing.containsKey(paymentId) 
+				|| this.paymentRepository.existsById(paymentId))
+			return;
+		if (this.paymentArchiveRepository.existsById(paymentId))
+			throw new IllegalStateException(String.format("Payment with id: %d is archived and can no longer be updated", 
+					paymentId));
+		throw new PaymentNotFoundException(String.format("Payment with id: %d not found", paymentId));
+	}
+	
+	private void flushQuietly() {
+		try {
+			this.flush();
+		}
+		catch (RuntimeException e) {
+			// an exception would cancel the periodic flush
+			log.error("*** Flushing buffered payment updates failed: {} *", e.getMessage(), e);
+		}
+	}
+	
+	private void queueFlush() {
+		if (!this.flushQueued.compareAndSet(false, true))
+			return;
+		try {
+			this.paymentWriteBehindExecutor.execute(() -> {
+				this.flushQueued.set(false);
+				this.flush();
+			});
+		}
+		catch (RejectedExecutionException e) {
+			// the interval flush picks the batch up
+			this.flushQueued.set(false);
+		}
+	}
+	
+	/**
+	 * One transaction per batch; if it fails, its updates are retried one per transaction so a
+	 * single bad update (e.g. of a payment deleted meanwhile) doesn't drop the others.
+	 */
+	private void write(final List<PendingUpdate> batch) {
+		try {
+			final List<PaymentDto> saved = this.transactionTemplate.execute(status -> this.saveAll(batch));
+			for (int i = 0; i < batch.size(); i++) {
+				final PaymentDto payment = saved.get(i);
+				batch.get(i).acks.forEach(ack -> ack.complete(payment));
+			}
+		}
+		catch (RuntimeException e) {
+			if (batch.size() > 1) {
+				log.warn("*** Writing {} buffered payment updates failed, retrying one by one: {} *", 
+						batch.size(), e.getMessage());
+				batch.forEach(update -> this.write(List.of(update)));
+				return;
+			}
+			this.failedCounter.increment();
+			log.error("*** Dropped buffered update of payment {}: {} *", 
+					batch.get(0).paymentDto.getPaymentId(), e.getMessage());
+			batch.get(0).acks.forEach(ack -> ack.completeExceptionally(e));
+		}
+	}
+	
+	private List<PaymentDto> saveAll(final List<PendingUpdate> batch) {
+		final Map<Integer, Payment> stored = this.paymentRepository.findAllById(batch.stream()
+						.map(update -> update.paymentDto.getPaymentId())
+						.collect(Collectors.toUnmodifiableList()))
+				.stream()
+				.collect(Collectors.toMap(Payment::getPaymentId, Function.identity()));
+		final List<Payment> payments = batch.stream()
+				.map(update -> {
+					final Payment payment = PaymentMappingHelper.map(update.paymentDto);
+					final Payment existing = stored.get(payment.getPaymentId());
+					if (existing == null)
+						throw new PaymentNotFoundException(
+								String.format("Payment with id: %d not found", payment.getPaymentId()));
+					PaymentServiceImpl.keepOrderSnapshot(payment, existing);
+					return payment;
+				})
+				.collect(Collectors.toUnmodifiableList());
+		final List<PaymentDto> saved = this.paymentRepository.saveAll(payments)
+				.stream()
+				.map(PaymentMappingHelper::map)
+				.collect(Collectors.toUnmodifiableList());
+		// delivered to listeners such as the SSE stream once the batch commits
+		saved.forEach(payment -> this.eventPublisher.publishEvent(
+				PaymentChangedEvent.of(PaymentChangedEvent.ChangeType.UPDATED, payment)));
+		return saved;
+	}
+	
+	private PaymentDto awaitFlush(final CompletableFuture<PaymentDto> ack) {
+		try {
+			return ack.get(this.properties.getAckTimeout().toMillis(), TimeUnit.MILLISECONDS);
+		}
+		catch (TimeoutException e) {
+			// still buffered and written later; resending the same update is harmless
+			throw new RequestRejectedException("Payment update not written in time", 
+					HttpStatus.SERVICE_UNAVAILABLE, this.properties.getFlushInterval());
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the payment update to be written", e);
+		}
+	}
+	
+	private static final class PendingUpdate {
+		
+		private final PaymentDto paymentDto;
+		private final List<CompletableFuture<PaymentDto>> acks;
+		
+		private PendingUpdate(final PaymentDto paymentDto, final List<CompletableFuture<PaymentDto>> acks) {
+			this.paymentDto = paymentDto;
+			this.acks = acks;
+		}
+		
+		/**
+		 * Superseded updates are never written, so their callers are acknowledged by the write of
+		 * the update that replaced them.
+		 */
+		private PendingUpdate supersededBy(final PaymentDto paymentDto, final CompletableFuture<PaymentDto> ack) {
+			if (ack == null)
+				return new PendingUpdate(paymentDto, this.acks);
+			final List<CompletableFuture<PaymentDto>> merged = new ArrayList<>(this.acks);
+			merged.add(ack);
+			return new PendingUpdate(paymentDto, merged);
+		}
+		
+	}
+	
+	
+	
+}
+
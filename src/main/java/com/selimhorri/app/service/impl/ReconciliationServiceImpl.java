@@ -0,0 +1,490 @@
+package com.selimhorri.app.service.impl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+
+import com.selimhorri.app.config.reconciliation.ReconciliationProperties;
+import com.selimhorri.app.domain.DiscrepancyType;
+import com.selimhorri.app.domain.Payment;
+import com.selimhorri.app.domain.PaymentStatus;
+import com.selimhorri.app.domain.ReconciliationChunk;
+import com.selimhorri.app.domain.ReconciliationDiscrepancy;
+import com.selimhorri.app.domain.ReconciliationRun;
+import com.selimhorri.app.domain.ReconciliationRunStatus;
+import com.selimhorri.app.dto.ReconciliationProgress;
+import com.selimhorri.app.repository.PaymentRepository;
+import com.selimhorri.app.repository.ReconciliationChunkRepository;
+import com.selimhorri.app.repository.ReconciliationDiscrepancyRepository;
+import com.selimhorri.app.repository.ReconciliationLeaseRepository;
+import com.selimhorri.app.repository.ReconciliationRunRepository;
+import com.selimhorri.app.service.OrderService;
+import com.selimhorri.app.service.ReconciliationService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Checks that every payment's order still exists in ORDER-SERVICE and that {@code isPayed} agrees
+ * with {@code paymentStatus} (COMPLETED if and only if payed). The id range of {@code payments} is
+ * split into fixed chunks processed in parallel on {@code reconciliationExecutor}, with at most
+ * {@code parallelism} in flight. Each chunk writes its discrepancies and its checkpoint in one
+ * transaction, so a run interrupted by a restart or by failed chunks is resumed by the next trigger
+ * without checking (or reporting) the same range twice. With several instances, only the one
+ * holding the {@code reconciliation_lease} row processes chunks; the others ignore the trigger.
+ */
+@Service
+@ConditionalOnProperty(prefix = "app.reconciliation", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class ReconciliationServiceImpl implements ReconciliationService {
+	
+	private static final String LEASE_NAME = "reconciliation";
+	
+	private final PaymentRepository paymentRepository;
+	private final ReconciliationRunRepository runRepository;
+	private final ReconciliationChunkRepository chunkRepository;
+	private final ReconciliationDiscrepancyRepository discrepancyRepository;
+	private final ReconciliationLeaseRepository leaseRepository;
+	private final OrderService orderService;
+	private final ReconciliationProperties properties;
+	private final TaskExecutor reconciliationExecutor;
+	private final TaskExecutor reconciliationRunExecutor;
+	private final TransactionTemplate transactionTemplate;
+	private final MeterRegistry meterRegistry;
+	private final Counter checkedCounter;
+	private final Timer chunkTimer;
+	private final String owner;
+	private final AtomicBoolean running = new AtomicBoolean();
+	private volatile Execution lastExecution;
+	
+	public ReconciliationServiceImpl(final PaymentRepository paymentRepository, 
+			final ReconciliationRunRepository runRepository, 
+			final ReconciliationChunkRepository chunkRepository, 
+			final ReconciliationDiscrepancyRepository discrepancyRepository, 
+			final ReconciliationLeaseRepository leaseRepository, 
+			final OrderService orderService, 
+			final ReconciliationProperties properties, 
+			final TaskExecutor reconciliationExecutor, 
+			final TaskExecutor reconciliationRunExecutor, 
+			final PlatformTransactionManager transactionManager, 
+			final MeterRegistry meterRegistry) {
+		this.paymentRepository = paymentRepository;
+		this.runRepository = runRepository;
+		this.chunkRepository = chunkRepository;
+		this.discrepancyRepository = discrepancyRepository;
+		this.leaseRepository = leaseRepository;
+		this.orderService = orderService;
+		this.properties = properties;
+		this.reconciliationExecutor = reconciliationExecutor;
+		this.reconciliationRunExecutor = reconciliationRunExecutor;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.meterRegistry = meterRegistry;
+		this.checkedCounter = Counter.builder("reconciliation.payments.checked")
+				.description("Payments checked by the reconciliation job")
+				.register(meterRegistry);
+		this.chunkTimer = Timer.builder("reconciliation.chunks")
+				.description("Time to reconcile and checkpoint one chunk of payment ids")
+				.register(meterRegistry);
+		// a restarted instance is a new owner: it waits for the lease of its previous life to expire
+		final String hostname = System.getenv("HOSTNAME");
+		this.owner = (hostname == null ? "" : hostname + "-") + UUID.randomUUID();
+	}
+	
+	@Override
+	public ReconciliationProgress reconcile() {
+		
+		if (!this.running.compareAndSet(false, true)) {
+			log.info("*** Reconciliation already running; trigger ignored *");
+			return this.getProgress();
+		}
+		
+		try {
+			final Instant claimedAt = Instant.now();
+			if (!this.claimLease(claimedAt)) {
+				log.info("*** Reconciliation running on another instance; trigger ignored *");
+				return this.getProgress();
+			}
+			try {
+				return this.reconcileRun();
+			}
+			finally {
+				// a lease taken over by another instance is left alone: extend only matches its owner
+				final Instant releasedAt = Instant.now();
+				final Instant minLeaseUntil = claimedAt.plus(this.properties.getMinRunInterval());
+				this.extendLease(minLeaseUntil.isAfter(releasedAt) ? minLeaseUntil : releasedAt);
+			}
+		}
+		finally {
+			this.running.set(false);
+		}
+	}
+	
+	private ReconciliationProgress reconcileRun() {
+		
+		final ReconciliationRun run = this.startOrResumeRun();
+		final Set<Integer> checkpointed = new HashSet<>(this.chunkRepository.findChunkStartsByRunId(run.getRunId()));
+		final Execution execution = new Execution(run, checkpointed.size(), 
+				this.chunkRepository.sumPaymentsCheckedByRunId(run.getRunId()), 
+				this.chunkRepository.sumDiscrepanciesFoundByRunId(run.getRunId()));
+		this.lastExecution = execution;
+		log.info("*** Reconciliation run {} over payment ids [0, {}], {} of {} chunks already checkpointed *", 
+				run.getRunId(), run.getMaxPaymentId(), checkpointed.size(), execution.totalChunks);
+		
+		final boolean allScheduled = this.processChunks(execution, checkpointed);
+		
+		if (execution.leaseLost) {
+			// its checkpoints are kept; the run's status and totals are left to the new lease owner
+			execution.finish(ReconciliationRunStatus.FAILED);
+			log.warn("*** Reconciliation run {} stopped: lease taken over by another instance *", run.getRunId());
+			return execution.toProgress();
+		}
+		execution.finish(allScheduled && execution.failedChunks.get() == 0
+				? ReconciliationRunStatus.COMPLETED : ReconciliationRunStatus.FAILED);
+		this.finishRun(run, execution);
+		log.info("*** Reconciliation run {} {}: {} payments checked, {} discrepancies, {} failed chunks *", 
+				run.getRunId(), execution.runStatus, run.getPaymentsChecked(), run.getDiscrepanciesFound(), 
+				execution.failedChunks.get());
+		return execution.toProgress();
+	}
+	
+	/**
+	 * Hands the run to {@code reconciliationRunExecutor}, so neither the cron trigger nor the
+	 * endpoint holds a scheduler or request thread while it runs.
+	 */
+	@Scheduled(cron = "${app.reconciliation.cron:0 0 3 * * *}")
+	@Override
+	public boolean startReconciliation() {
+		if (this.running.get())
+			return false;
+		try {
+			this.reconciliationRunExecutor.execute(this::reconcile);
+			return true;
+		}
+		catch (TaskRejectedException e) {
+			log.info("*** Reconciliation already running; trigger ignored *");
+			return false;
+		}
+	}
+	
+	@Override
+	public ReconciliationProgress getProgress() {
+		final Execution execution = this.lastExecution;
+		if (execution != null)
+			return execution.toProgress();
+		return this.runRepository.findFirstByOrderByRunIdDesc()
+				.map(run -> ReconciliationProgress.builder()
+						.runId(run.getRunId())
+						.runStatus(run.getRunStatus())
+						.startedAt(run.getStartedAt())
+						.finishedAt(run.getFinishedAt())
+						.maxPaymentId(run.getMaxPaymentId())
+						.totalChunks(totalChunks(run))
+						.completedChunks(this.chunkRepository.findChunkStartsByRunId(run.getRunId()).size())
+						.paymentsChecked(run.getPaymentsChecked())
+						.discrepanciesFound(run.getDiscrepanciesFound())
+						.build())
+				.orElseGet(ReconciliationProgress::new);
+	}
+	
+	private boolean claimLease(final Instant now) {
+		return this.transactionTemplate.execute(status -> this.leaseRepository.claim(LEASE_NAME, this.owner, now, 
+				now.plus(this.properties.getLeaseDuration()))) == 1;
+	}
+	
+	private boolean extendLease(final Instant leaseUntil) {
+		return this.transactionTemplate.execute(status -> 
+				this.leaseRepository.extend(LEASE_NAME, this.owner, leaseUntil)) == 1;
+	}
+	
+	/**
+	 * Renews the lease once a third of it has elapsed since the last renewal; a lease found taken
+	 * over stops the scheduling of new chunks.
+	 */
+	private void renewLease(final Execution execution) {
+		final long now = System.nanoTime();
+		final long renewAfterNanos = this.properties.getLeaseDuration().toNanos() / 3;
+		if (execution.leaseLost || now - execution.leaseRenewedNanos < renewAfterNanos)
+			return;
+		execution.leaseRenewedNanos = now;
+		if (!this.extendLease(Instant.now().plus(this.properties.getLeaseDuration())))
+			execution.leaseLost = true;
+	}
+	
+	/**
+	 * Waits for free slots in slices of a third of the lease, renewing it in between, so the lease
+	 * outlives chunks slower than itself.
+	 */
+	private void acquire(final Semaphore slots, final int permits, final Execution execution) 
+			throws InterruptedException {
+		final long sliceMillis = Math.max(this.properties.getLeaseDuration().toMillis() / 3, 1);
+		while (!slots.tryAcquire(permits, sliceMillis, TimeUnit.MILLISECONDS))
+			this.renewLease(execution);
+		this.renewLease(execution);
+	}
+	
+	private ReconciliationRun startOrResumeRun() {
+		return this.transactionTemplate.execute(status -> {
+			final ReconciliationRun unfinished = this.runRepository.findFirstByOrderByRunIdDesc()
+					.filter(run -> run.getRunStatus() != ReconciliationRunStatus.COMPLETED)
+					.orElse(null);
+			if (unfinished != null) {
+				unfinished.setRunStatus(ReconciliationRunStatus.RUNNING);
+				unfinished.setFinishedAt(null);
+				return this.runRepository.save(unfinished);
+			}
+			
+			// ids above this bound belong to payments created after the run started, checked by the next run
+			final Integer maxPaymentId = this.paymentRepository.findMaxPaymentId();
+			return this.runRepository.save(ReconciliationRun.builder()
+					.runStatus(ReconciliationRunStatus.RUNNING)
+					.maxPaymentId(maxPaymentId == null ? 0 : maxPaymentId)
+					.chunkSize(this.properties.getChunkSize())
+					.paymentsChecked(0L)
+					.discrepanciesFound(0L)
+					.startedAt(Instant.now())
+					.build());
+		});
+	}
+	
+	/**
+	 * @return false if the run stopped early (too many failed chunks, lease lost or interrupted)
+	 */
+	private boolean processChunks(final Execution execution, final Set<Integer> checkpointed) {
+		
+		final ReconciliationRun run = execution.run;
+		final int parallelism = this.properties.getParallelism();
+		final Semaphore slots = new Semaphore(parallelism);
+		boolean allScheduled = true;
+		try {
+			for (int chunkStart = 0; chunkStart <= run.getMaxPaymentId(); chunkStart += run.getChunkSize()) {
+				if (checkpointed.contains(chunkStart))
+					continue;
+				if (execution.failedChunks.get() >= this.properties.getMaxFailedChunks()) {
+					log.warn("*** Reconciliation run {} stopped after {} failed chunks *", 
+							run.getRunId(), execution.failedChunks.get());
+					allScheduled = false;
+					break;
+				}
+				
+				this.acquire(slots, 1, execution);
+				if (execution.leaseLost) {
+					slots.release();
+					allScheduled = false;
+					break;
+				}
+				final int start = chunkStart;
+				try {
+					this.reconciliationExecutor.execute(() -> {
+						try {
+							this.chunkTimer.record(() -> this.reconcileChunk(execution, start));
+							execution.completedChunks.incrementAndGet();
+						}
+						catch (RuntimeException e) {
+							execution.failedChunks.incrementAndGet();
+							log.warn("*** Reconciliation chunk [{}, {}) of run {} failed: {} *", 
+									start, start + run.getChunkSize(), run.getRunId(), e.getMessage());
+						}
+						finally {
+							slots.release();
+						}
+					});
+				}
+				catch (TaskRejectedException e) {
+					slots.release();
+					throw e;
+				}
+			}
+			// wait for the chunks still in flight
+			this.acquire(slots, parallelism, execution);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			log.warn("*** Reconciliation run {} interrupted; it resumes on the next trigger *", run.getRunId());
+			allScheduled = false;
+		}
+		return allScheduled;
+	}
+	
+	private void reconcileChunk(final Execution execution, final int chunkStart) {
+		
+		final ReconciliationRun run = execution.run;
+		final List<Payment> payments = this.paymentRepository.findByIdRange(chunkStart, chunkStart + run.getChunkSize());
+		final List<ReconciliationDiscrepancy> discrepancies = new ArrayList<>();
+		payments.forEach(payment -> this.checkPayedStatus(run, payment, discrepancies));
+		
+		// remote calls happen outside the transaction, so no connection is held while waiting
+		final Set<Integer> missingOrderIds = this.findMissingOrders(payments);
+		payments.stream()
+				.filter(payment -> payment.getOrderId() == null || missingOrderIds.contains(payment.getOrderId()))
+				.forEach(payment -> discrepancies.add(discrepancy(run, payment, DiscrepancyType.ORDER_NOT_FOUND, 
+						payment.getOrderId() == null ? "Payment has no orderId"
+								: "Order " + payment.getOrderId() + " not found in ORDER-SERVICE")));
+		
+		this.transactionTemplate.executeWithoutResult(status -> {
+			this.discrepancyRepository.saveAll(discrepancies);
+			this.chunkRepository.save(ReconciliationChunk.builder()
+					.runId(run.getRunId())
+					.chunkStart(chunkStart)
+					.paymentsChecked(payments.size())
+					.discrepanciesFound(discrepancies.size())
+					.completedAt(Instant.now())
+					.build());
+		});
+		
+		execution.paymentsChecked.addAndGet(payments.size());
+		execution.discrepanciesFound.addAndGet(discrepancies.size());
+		this.checkedCounter.increment(payments.size());
+		discrepancies.forEach(discrepancy -> this.meterRegistry.counter("reconciliation.discrepancies", 
+				"type", discrepancy.getDiscrepancyType().name()).increment());
+	}
+	
+	private void checkPayedStatus(final ReconciliationRun run, final Payment payment, 
+			final List<ReconciliationDiscrepancy> discrepancies) {
+		final boolean payed = Boolean.TRUE.equals(payment.getIsPayed());
+		final boolean completed = payment.getPaymentStatus() == PaymentStatus.COMPLETED;
+		if (payed && !completed)
+			discrepancies.add(discrepancy(run, payment, DiscrepancyType.PAYED_NOT_COMPLETED, 
+					"isPayed=true with paymentStatus=" + payment.getPaymentStatus()));
+		else if (completed && !payed)
+			discrepancies.add(discrepancy(run, payment, DiscrepancyType.COMPLETED_NOT_PAYED, 
+					"paymentStatus=COMPLETED with isPayed=" + payment.getIsPayed()));
+	}
+	
+	/**
+	 * One lookup per distinct order. Only a 404 counts as missing; any other error fails the
+	 * chunk so it is retried instead of being reported as a discrepancy.
+	 */
+	private Set<Integer> findMissingOrders(final List<Payment> payments) {
+		final Set<Integer> missing = new HashSet<>();
+		payments.stream()
+				.map(Payment::getOrderId)
+				.filter(Objects::nonNull)
+				.distinct()
+				.forEach(orderId -> {
+					try {
+						if (this.orderService.findById(orderId) == null)
+							missing.add(orderId);
+					}
+					catch (HttpClientErrorException.NotFound e) {
+						missing.add(orderId);
+					}
+				});
+		return missing;
+	}
+	
+	private void finishRun(final ReconciliationRun run, final Execution execution) {
+		this.transactionTemplate.executeWithoutResult(status -> {
+			// totals come from the checkpoints, so they include the chunks of earlier (interrupted) executions
+			run.setPaymentsChecked(this.chunkRepository.sumPaymentsCheckedByRunId(run.getRunId()));
+			run.setDiscrepanciesFound(this.chunkRepository.sumDiscrepanciesFoundByRunId(run.getRunId()));
+			run.setRunStatus(execution.runStatus);
+			run.setFinishedAt(execution.finishedAt);
+			this.runRepository.save(run);
+		});
+	}
+	
+	private static ReconciliationDiscrepancy discrepancy(final ReconciliationRun run, final Payment payment, 
+			final DiscrepancyType type, final String detail) {
+		return ReconciliationDiscrepancy.builder()
+				.runId(run.getRunId())
+				.paymentId(payment.getPaymentId())
+				.orderId(payment.getOrderId())
+				.discrepancyType(type)
+				.detail(detail)
+				.detectedAt(Instant.now())
+				.build();
+	}
+	
+	private static int totalChunks(final ReconciliationRun run) {
+		return run.getMaxPaymentId() / run.getChunkSize() + 1;
+	}
+	
+	/**
+	 * In-memory progress of one execution of a run in this instance. Counters start from the run's
+	 * checkpoints; the throughput only covers the chunks processed by this execution.
+	 */
+	private static final class Execution {
+		
+		private final ReconciliationRun run;
+		private final int totalChunks;
+		private final long startNanos = System.nanoTime();
+		private final long checkpointedPayments;
+		private final AtomicInteger completedChunks;
+		private final AtomicInteger failedChunks = new AtomicInteger();
+		private final AtomicLong paymentsChecked;
+		private final AtomicLong discrepanciesFound;
+		private long leaseRenewedNanos = this.startNanos;
+		private boolean leaseLost;
+		private volatile ReconciliationRunStatus runStatus = ReconciliationRunStatus.RUNNING;
+		private volatile Instant finishedAt;
+		private volatile long finishedNanos;
+		
+		private Execution(final ReconciliationRun run, final int checkpointedChunks, 
+				final long checkpointedPayments, final long checkpointedDiscrepancies) {
+			this.run = run;
+			this.totalChunks = totalChunks(run);
+			this.checkpointedPayments = checkpointedPayments;
+			this.completedChunks = new AtomicInteger(checkpointedChunks);
+			this.paymentsChecked = new AtomicLong(checkpointedPayments);
+			this.discrepanciesFound = new AtomicLong(checkpointedDiscrepancies);
+		}
+		
+		private void finish(final ReconciliationRunStatus runStatus) {
+			this.finishedNanos = System.nanoTime();
+			this.finishedAt = Instant.now();
+			this.runStatus = runStatus;
+		}
+		
+		private ReconciliationProgress toProgress() {
+			final long endNanos = this.finishedAt != null ? this.finishedNanos : System.nanoTime();
+			final double elapsedSeconds = Math.max(Duration.ofNanos(endNanos - this.startNanos).toMillis(), 1) / 1000.0;
+			return ReconciliationProgress.builder()
+					.runId(this.run.getRunId())
+					.runStatus(this.runStatus)
+					.startedAt(this.run.getStartedAt())
+					.finishedAt(this.finishedAt)
+					.maxPaymentId(this.run.getMaxPaymentId())
+					.totalChunks(this.totalChunks)
+					.completedChunks(this.completedChunks.get())
+					.failedChunks(this.failedChunks.get())
+					.paymentsChecked(this.paymentsChecked.get())
+					.discrepanciesFound(this.discrepanciesFound.get())
+					.paymentsPerSecond((this.paymentsChecked.get() - this.checkpointedPayments) / elapsedSeconds)
+					.build();
+		}
+		
+	}
+	
+	
+	
+}
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,13 @@
+
+CREATE TABLE payments_archive (
+	payment_id INT(11) NOT NULL PRIMARY KEY,
+	order_id INT(11),
+	is_payed BOOLEAN,
+	payment_status VARCHAR(255),
+	created_at TIMESTAMP,
+	updated_at TIMESTAMP,
+	archived_at TIMESTAMP DEFAULT LOCALTIMESTAMP NOT NULL NULL_TO_DEFAULT
+);
+
+CREATE INDEX idx_payments_status_created_at ON payments (payment_status, created_at);
+
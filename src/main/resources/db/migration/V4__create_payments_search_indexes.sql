@@ -0,0 +1,5 @@
+
+CREATE INDEX idx_payments_created_at_id ON payments (created_at, payment_id);
+CREATE INDEX idx_payments_order_id_created_at ON payments (order_id, created_at, payment_id);
+CREATE INDEX idx_payments_is_payed_created_at ON payments (is_payed, created_at, payment_id);
+
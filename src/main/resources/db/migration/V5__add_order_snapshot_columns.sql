@@ -0,0 +1,13 @@
+
+ALTER TABLE payments ADD COLUMN order_date TIMESTAMP;
+ALTER TABLE payments ADD COLUMN order_desc VARCHAR(255);
+ALTER TABLE payments ADD COLUMN order_fee DOUBLE;
+ALTER TABLE payments ADD COLUMN order_snapshot_at TIMESTAMP;
+
+ALTER TABLE payments_archive ADD COLUMN order_date TIMESTAMP;
+ALTER TABLE payments_archive ADD COLUMN order_desc VARCHAR(255);
+ALTER TABLE payments_archive ADD COLUMN order_fee DOUBLE;
+ALTER TABLE payments_archive ADD COLUMN order_snapshot_at TIMESTAMP;
+
+CREATE INDEX idx_payments_order_snapshot_at ON payments (order_snapshot_at, payment_id);
+
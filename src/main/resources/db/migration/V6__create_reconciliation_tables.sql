@@ -0,0 +1,33 @@
+CREATE TABLE reconciliation_runs (
+	run_id INT(11) NOT NULL PRIMARY KEY AUTO_INCREMENT,
+	run_status VARCHAR(32) NOT NULL,
+	max_payment_id INT(11) NOT NULL,
+	chunk_size INT(11) NOT NULL,
+	payments_checked BIGINT,
+	discrepancies_found BIGINT,
+	started_at TIMESTAMP NOT NULL,
+	finished_at TIMESTAMP
+);
+
+CREATE TABLE reconciliation_chunks (
+	chunk_id INT(11) NOT NULL PRIMARY KEY AUTO_INCREMENT,
+	run_id INT(11) NOT NULL,
+	chunk_start INT(11) NOT NULL,
+	payments_checked INT(11) NOT NULL,
+	discrepancies_found INT(11) NOT NULL,
+	completed_at TIMESTAMP NOT NULL,
+	CONSTRAINT uk_reconciliation_chunks_run_start UNIQUE (run_id, chunk_start)
+);
+
+CREATE TABLE reconciliation_discrepancies (
+	discrepancy_id INT(11) NOT NULL PRIMARY KEY AUTO_INCREMENT,
+	run_id INT(11) NOT NULL,
+	payment_id INT(11) NOT NULL,
+	order_id INT(11),
+	discrepancy_type VARCHAR(64) NOT NULL,
+	detail VARCHAR(255),
+	detected_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_reconciliation_discrepancies_run ON reconciliation_discrepancies (run_id, payment_id);
+
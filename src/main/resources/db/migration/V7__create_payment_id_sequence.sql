@@ -0,0 +1,6 @@
+CREATE TABLE payment_id_sequence (
+	next_val BIGINT NOT NULL
+);
+
+INSERT INTO payment_id_sequence (next_val) VALUES (1);
+
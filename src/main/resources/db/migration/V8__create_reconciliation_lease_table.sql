@@ -0,0 +1,7 @@
+CREATE TABLE reconciliation_lease (
+	lease_name VARCHAR(64) NOT NULL PRIMARY KEY,
+	owner VARCHAR(255),
+	lease_until TIMESTAMP NOT NULL
+);
+
+INSERT INTO reconciliation_lease (lease_name, lease_until) VALUES ('reconciliation', TIMESTAMP '1970-01-01 00:00:00');
@@ -0,0 +1,110 @@
+package com.selimhorri.app.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+
+/**
+ * Per-request logging cost as seen by a request thread: the previous setup (two
+ * synchronous INFO lines per call written straight to a file) against the
+ * async, bounded appender used by logback-spring.xml, with and without the
+ * per-layer lines demoted to DEBUG.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class LoggingBenchmark {
+	
+	@Param({ "sync", "async" })
+	private String appender;
+	
+	private LoggerContext loggerContext;
+	private Logger log;
+	private Path logFile;
+	
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		
+		this.logFile = Files.createTempFile("logging-benchmark", ".log");
+		this.loggerContext = new LoggerContext();
+		
+		final var encoder = new PatternLayoutEncoder();
+		encoder.setContext(this.loggerContext);
+		encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss.SSS} %5p [%thread] %logger{39} : %m%n");
+		encoder.start();
+		
+		final var fileAppender = new FileAppender<ILoggingEvent>();
+		fileAppender.setContext(this.loggerContext);
+		fileAppender.setFile(this.logFile.toString());
+		fileAppender.setEncoder(encoder);
+		fileAppender.start();
+		
+		Appender<ILoggingEvent> rootAppender = fileAppender;
+		if ("async".equals(this.appender)) {
+			final var asyncAppender = new AsyncAppender();
+			asyncAppender.setContext(this.loggerContext);
+			asyncAppender.setQueueSize(8192);
+			asyncAppender.setDiscardingThreshold(1638);
+			asyncAppender.setNeverBlock(true);
+			asyncAppender.setIncludeCallerData(false);
+			asyncAppender.addAppender(fileAppender);
+			asyncAppender.start();
+			rootAppender = asyncAppender;
+		}
+		
+		final var root = this.loggerContext.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+		root.setLevel(ch.qos.logback.classic.Level.INFO);
+		root.addAppender(rootAppender);
+		this.log = this.loggerContext.getLogger("com.selimhorri.app.resource.PaymentResource");
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		this.loggerContext.stop();
+		Files.deleteIfExists(this.logFile);
+	}
+	
+	@Benchmark
+	public void perLayerInfoLines() {
+		this.log.info("*** PaymentDto, resource; fetch payment by id *");
+		this.log.info("*** PaymentDto, service; fetch payment by id *");
+	}
+	
+	@Benchmark
+	public void perLayerDebugLines() {
+		this.log.debug("*** PaymentDto, resource; fetch payment by id *");
+		this.log.debug("*** PaymentDto, service; fetch payment by id *");
+	}
+	
+	
+	
+}
+
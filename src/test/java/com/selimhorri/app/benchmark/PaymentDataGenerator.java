@@ -0,0 +1,92 @@
+package com.selimhorri.app.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import javax.sql.DataSource;
+
+import com.selimhorri.app.domain.PaymentStatus;
+
+/**
+ * Fills {@code payments} with synthetic rows through batched JDBC inserts, committed every
+ * {@value #BATCH_SIZE} rows. Rows get consecutive orderIds, a status drawn from the given
+ * distribution ({@code isPayed} for COMPLETED), a creation time within the last 90 days and an order
+ * snapshot, so {@code expand=order} reads don't call ORDER-SERVICE. Seeded, so runs are repeatable.
+ */
+final class PaymentDataGenerator {
+	
+	private static final int BATCH_SIZE = 10000;
+	private static final long CREATED_WITHIN_SECONDS = Duration.ofDays(90).toSeconds();
+	private static final String INSERT = "INSERT INTO payments (order_id, is_payed, payment_status, created_at, "
+			+ "order_date, order_desc, order_fee, order_snapshot_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+	
+	private final PaymentStatus[] statuses;
+	private final int[] cumulativeWeights;
+	
+	/**
+	 * @param distribution weights per status, e.g. {@code NOT_STARTED:20,IN_PROGRESS:30,COMPLETED:50}
+	 */
+	PaymentDataGenerator(final String distribution) {
+		final List<PaymentStatus> statuses = new ArrayList<>();
+		final List<Integer> cumulativeWeights = new ArrayList<>();
+		int total = 0;
+		for (final String entry : distribution.split(",")) {
+			final String[] statusAndWeight = entry.trim().split(":");
+			total += Integer.parseInt(statusAndWeight[1].trim());
+			statuses.add(PaymentStatus.valueOf(statusAndWeight[0].trim()));
+			cumulativeWeights.add(total);
+		}
+		if (total <= 0)
+			throw new IllegalArgumentException("Status distribution without weight: " + distribution);
+		this.statuses = statuses.toArray(PaymentStatus[]::new);
+		this.cumulativeWeights = cumulativeWeights.stream().mapToInt(Integer::intValue).toArray();
+	}
+	
+	/**
+	 * Returns the rows inserted.
+	 */
+	long generate(final DataSource dataSource, final long rows, final long seed) throws SQLException {
+		final SplittableRandom random = new SplittableRandom(seed);
+		final int totalWeight = this.cumulativeWeights[this.cumulativeWeights.length - 1];
+		final long now = Instant.now().getEpochSecond();
+		try (Connection connection = dataSource.getConnection();
+				PreparedStatement insert = connection.prepareStatement(INSERT)) {
+			connection.setAutoCommit(false);
+			for (long row = 1; row <= rows; row++) {
+				final PaymentStatus status = this.status(random.nextInt(totalWeight));
+				final Timestamp createdAt = Timestamp.from(Instant.ofEpochSecond(now - random.nextLong(CREATED_WITHIN_SECONDS)));
+				insert.setInt(1, (int) row);
+				insert.setBoolean(2, status == PaymentStatus.COMPLETED);
+				insert.setString(3, status.name());
+				insert.setTimestamp(4, createdAt);
+				insert.setTimestamp(5, createdAt);
+				insert.setString(6, "order " + row);
+				insert.setDouble(7, 1 + random.nextInt(100000) / 100.0);
+				insert.setTimestamp(8, createdAt);
+				insert.addBatch();
+				if (row % BATCH_SIZE == 0 || row == rows) {
+					insert.executeBatch();
+					connection.commit();
+				}
+			}
+			connection.setAutoCommit(true);
+		}
+		return rows;
+	}
+	
+	private PaymentStatus status(final int draw) {
+		for (int i = 0; i < this.cumulativeWeights.length; i++)
+			if (draw < this.cumulativeWeights[i])
+				return this.statuses[i];
+		return this.statuses[this.statuses.length - 1];
+	}
+	
+}
+
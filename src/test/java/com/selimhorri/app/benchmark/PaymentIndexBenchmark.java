@@ -0,0 +1,77 @@
+package com.selimhorri.app.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.selimhorri.app.config.index.IntLongHashMap;
+
+/**
+ * orderId lookups in the primitive index map against a boxed {@code HashMap<Integer, Long>} of
+ * the same entries. Run with {@code -Djmh.include=PaymentIndexBenchmark} and add {@code -prof gc}
+ * to the JMH arguments to compare allocation per lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentIndexBenchmark {
+	
+	private static final int LOOKUPS = 1 << 16;
+	
+	@Param({ "1000000" })
+	private int entries;
+	
+	private IntLongHashMap primitive;
+	private Map<Integer, Long> boxed;
+	private int[] orderIds;
+	private int next;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.primitive = new IntLongHashMap(this.entries);
+		this.boxed = new HashMap<>();
+		for (int orderId = 1; orderId <= this.entries; orderId++) {
+			final long packed = ((long) orderId << 32) | 0b1101;
+			this.primitive.put(orderId, packed);
+			this.boxed.put(orderId, packed);
+		}
+		final Random random = new Random(42);
+		this.orderIds = new int[LOOKUPS];
+		for (int i = 0; i < LOOKUPS; i++)
+			this.orderIds[i] = 1 + random.nextInt(this.entries);
+	}
+	
+	@Benchmark
+	public long primitiveLookup() {
+		return this.primitive.get(this.nextOrderId(), -1L);
+	}
+	
+	@Benchmark
+	public long boxedLookup() {
+		return this.boxed.getOrDefault(this.nextOrderId(), -1L);
+	}
+	
+	private int nextOrderId() {
+		return this.orderIds[this.next++ & (LOOKUPS - 1)];
+	}
+	
+	
+	
+}
@@ -0,0 +1,182 @@
+package com.selimhorri.app.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.selimhorri.app.PaymentServiceApplication;
+import com.selimhorri.app.domain.Payment;
+import com.selimhorri.app.domain.PaymentStatus;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.PaymentDto;
+import com.selimhorri.app.repository.PaymentRepository;
+import com.selimhorri.app.service.OrderService;
+import com.selimhorri.app.service.PaymentService;
+
+/**
+ * {@code PaymentRepository} and {@code PaymentServiceImpl} operations against H2, in memory and
+ * on file, with {@code rows} synthetic payments (see {@link PaymentDataGenerator}). Starts the
+ * application without a web server and with an ORDER-SERVICE stub; the scheduled jobs are off.
+ * Both modes are measured: throughput, and sampled latency with percentiles.
+ * <p>
+ * {@code mvn -Pbenchmark -DskipTests verify -Djmh.include=PaymentPersistenceBenchmark
+ * -Djmh.args="-p rows=100000 -p storage=file"}; results go to {@code jmh.result}
+ * (target/jmh-result.json by default).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class PaymentPersistenceBenchmark {
+	
+	@Param({ "memory", "file" })
+	private String storage;
+	
+	@Param({ "1000000" })
+	private int rows;
+	
+	@Param({ "NOT_STARTED:20,IN_PROGRESS:30,COMPLETED:50" })
+	private String statusDistribution;
+	
+	private Path databaseDirectory;
+	private ConfigurableApplicationContext context;
+	private PaymentRepository paymentRepository;
+	private PaymentService paymentService;
+	private int minPaymentId;
+	private int maxPaymentId;
+	// generated payments have consecutive orderIds, from 1
+	private int orderIdOffset;
+	
+	@Setup(Level.Trial)
+	public void setUp() throws IOException, SQLException {
+		this.databaseDirectory = Files.createTempDirectory("payment-persistence-benchmark");
+		final String url = "memory".equals(this.storage)
+				? "jdbc:h2:mem:payments_benchmark;DB_CLOSE_DELAY=-1"
+				: "jdbc:h2:file:" + this.databaseDirectory.resolve("payments") + ";DB_CLOSE_ON_EXIT=FALSE";
+		final OrderService orderService = orderId -> OrderDto.builder()
+				.orderId(orderId)
+				.orderDesc("order " + orderId)
+				.orderFee(10.0)
+				.build();
+		this.context = new SpringApplicationBuilder(PaymentServiceApplication.class)
+				.web(WebApplicationType.NONE)
+				.initializers(context -> ((GenericApplicationContext) context).registerBean("benchmarkOrderService", 
+						OrderService.class, () -> orderService, definition -> definition.setPrimary(true)))
+				.run("--spring.datasource.url=" + url, 
+						"--spring.datasource.username=sa", 
+						"--spring.datasource.password=", 
+						"--eureka.client.enabled=false", 
+						"--spring.zipkin.enabled=false", 
+						"--app.archive.enabled=false", 
+						"--app.order-snapshot.enabled=false", 
+						"--app.reconciliation.enabled=false", 
+						"--app.payment-existence.enabled=false", 
+						"--logging.level.root=WARN", 
+						"--logging.level.org.hibernate.SQL=WARN", 
+						"--logging.level.org.springframework=WARN");
+		
+		new PaymentDataGenerator(this.statusDistribution)
+				.generate(this.context.getBean(DataSource.class), this.rows, 42);
+		final JdbcTemplate jdbcTemplate = new JdbcTemplate(this.context.getBean(DataSource.class));
+		this.maxPaymentId = jdbcTemplate.queryForObject("SELECT MAX(payment_id) FROM payments", Integer.class);
+		this.orderIdOffset = this.maxPaymentId - this.rows;
+		this.minPaymentId = this.orderIdOffset + 1;
+		this.paymentRepository = this.context.getBean(PaymentRepository.class);
+		this.paymentService = this.context.getBean(PaymentService.class);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		this.context.close();
+		try (Stream<Path> files = Files.walk(this.databaseDirectory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+	
+	@Benchmark
+	public Payment repositoryFindById() {
+		return this.paymentRepository.findById(this.randomPaymentId()).orElseThrow();
+	}
+	
+	@Benchmark
+	public List<Payment> repositoryFindAll() {
+		return this.paymentRepository.findAll();
+	}
+	
+	@Benchmark
+	public Payment repositorySave() {
+		return this.paymentRepository.save(Payment.builder()
+				.orderId(this.randomPaymentId() - this.orderIdOffset)
+				.isPayed(false)
+				.paymentStatus(PaymentStatus.NOT_STARTED)
+				.build());
+	}
+	
+	@Benchmark
+	public PaymentDto serviceFindById() {
+		return this.paymentService.findById(this.randomPaymentId(), true);
+	}
+	
+	@Benchmark
+	public List<PaymentDto> serviceFindAll() {
+		return this.paymentService.findAll(true);
+	}
+	
+	@Benchmark
+	public PaymentDto serviceSave() {
+		return this.paymentService.save(PaymentDto.builder()
+				.isPayed(false)
+				.paymentStatus(PaymentStatus.NOT_STARTED)
+				.orderDto(OrderDto.builder().orderId(this.randomPaymentId() - this.orderIdOffset).build())
+				.build());
+	}
+	
+	@Benchmark
+	public PaymentDto serviceUpdate() {
+		final int paymentId = this.randomPaymentId();
+		return this.paymentService.update(PaymentDto.builder()
+				.paymentId(paymentId)
+				.isPayed(true)
+				.paymentStatus(PaymentStatus.COMPLETED)
+				.orderDto(OrderDto.builder().orderId(paymentId - this.orderIdOffset).build())
+				.build());
+	}
+	
+	/**
+	 * One of the generated payments; saves only add payments after them.
+	 */
+	private int randomPaymentId() {
+		return ThreadLocalRandom.current().nextInt(this.minPaymentId, this.maxPaymentId + 1);
+	}
+	
+}
+
@@ -0,0 +1,136 @@
+package com.selimhorri.app.config.async;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.selimhorri.app.exception.wrapper.PaymentNotFoundException;
+import com.selimhorri.app.exception.wrapper.RequestRejectedException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("AsyncRequestExecutor Unit Tests")
+class AsyncRequestExecutorTest {
+	
+	private AsyncRequestProperties properties;
+	private ThreadPoolTaskExecutor taskExecutor;
+	private SimpleMeterRegistry meterRegistry;
+	private CountDownLatch release;
+	
+	@BeforeEach
+	void setUp() {
+		properties = new AsyncRequestProperties();
+		properties.setTimeout(Duration.ofMillis(200));
+		taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(1);
+		taskExecutor.setMaxPoolSize(1);
+		taskExecutor.setQueueCapacity(1);
+		taskExecutor.initialize();
+		meterRegistry = new SimpleMeterRegistry();
+		release = new CountDownLatch(1);
+	}
+	
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		taskExecutor.shutdown();
+	}
+	
+	@Test
+	@DisplayName("Should complete with the call's result or exception, off the calling thread")
+	void testSupply_Completes() throws Exception {
+		// Given
+		AsyncRequestExecutor asyncRequestExecutor = asyncRequestExecutor();
+		Thread caller = Thread.currentThread();
+		
+		// When
+		CompletableFuture<Boolean> offCaller = asyncRequestExecutor.supply(() -> Thread.currentThread() != caller);
+		CompletableFuture<Boolean> failed = asyncRequestExecutor.supply(() -> {
+			throw new PaymentNotFoundException("Payment with id: 1 not found");
+		});
+		
+		// Then
+		assertTrue(offCaller.get(1, TimeUnit.SECONDS));
+		ExecutionException exception = assertThrows(ExecutionException.class, () -> failed.get(1, TimeUnit.SECONDS));
+		assertTrue(exception.getCause() instanceof PaymentNotFoundException);
+	}
+	
+	@Test
+	@DisplayName("Should answer 503 at once when the queue is full, and after the timeout without running queued calls")
+	void testSupply_RejectsAndTimesOut() throws Exception {
+		// Given
+		AsyncRequestExecutor asyncRequestExecutor = asyncRequestExecutor();
+		AtomicBoolean queuedRan = new AtomicBoolean();
+		CompletableFuture<Boolean> running = asyncRequestExecutor.supply(this::awaitRelease);
+		CompletableFuture<Boolean> queued = asyncRequestExecutor.supply(() -> {
+			queuedRan.set(true);
+			return true;
+		});
+		
+		// When
+		RequestRejectedException rejected = assertThrows(RequestRejectedException.class, 
+				() -> asyncRequestExecutor.supply(() -> true));
+		ExecutionException timedOut = assertThrows(ExecutionException.class, () -> queued.get(1, TimeUnit.SECONDS));
+		release.countDown();
+		
+		// Then
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getHttpStatus());
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ((RequestRejectedException) timedOut.getCause()).getHttpStatus());
+		assertThrows(ExecutionException.class, () -> running.get(1, TimeUnit.SECONDS));
+		taskExecutor.getThreadPoolExecutor().shutdown();
+		assertTrue(taskExecutor.getThreadPoolExecutor().awaitTermination(1, TimeUnit.SECONDS));
+		assertFalse(queuedRan.get());
+		assertEquals(1.0, meterRegistry.get("payments.requests.rejected").counter().count());
+		assertEquals(2.0, meterRegistry.get("payments.requests.timeouts").counter().count());
+	}
+	
+	@Test
+	@DisplayName("Should run the call on the calling thread when disabled")
+	void testSupply_Disabled() {
+		// Given
+		properties.setEnabled(false);
+		AsyncRequestExecutor asyncRequestExecutor = asyncRequestExecutor();
+		Thread caller = Thread.currentThread();
+		
+		// When
+		CompletableFuture<Boolean> onCaller = asyncRequestExecutor.supply(() -> Thread.currentThread() == caller);
+		
+		// Then
+		assertTrue(onCaller.isDone());
+		assertTrue(onCaller.join());
+		assertThrows(PaymentNotFoundException.class, () -> asyncRequestExecutor.supply(() -> {
+			throw new PaymentNotFoundException("Payment with id: 1 not found");
+		}));
+	}
+	
+	private AsyncRequestExecutor asyncRequestExecutor() {
+		return new AsyncRequestExecutor(taskExecutor, properties, meterRegistry);
+	}
+	
+	private boolean awaitRelease() {
+		try {
+			return release.await(5, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+	
+}
+
@@ -0,0 +1,112 @@
+package com.selimhorri.app.config.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.selimhorri.app.domain.PaymentStatus;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.PaymentDto;
+import com.selimhorri.app.event.PaymentChangedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("PaymentNearCache Unit Tests")
+class PaymentNearCacheTest {
+	
+	private PaymentCacheProperties properties;
+	private InJvmPaymentCacheInvalidationBroadcaster broadcaster;
+	private AtomicInteger loads;
+	
+	@BeforeEach
+	void setUp() {
+		properties = new PaymentCacheProperties();
+		properties.setEnabled(true);
+		broadcaster = new InJvmPaymentCacheInvalidationBroadcaster();
+		loads = new AtomicInteger();
+	}
+	
+	@Test
+	@DisplayName("Should serve a copy of the cached response per expand variant without loading again")
+	void testGet_HitSkipsLoader() {
+		// Given
+		PaymentNearCache nearCache = nearCache();
+		
+		// When
+		PaymentDto first = nearCache.get(1, true, loader(PaymentStatus.NOT_STARTED));
+		first.getOrderDto().setOrderDesc("modified");
+		PaymentDto second = nearCache.get(1, true, loader(PaymentStatus.COMPLETED));
+		nearCache.get(1, false, loader(PaymentStatus.NOT_STARTED));
+		
+		// Then
+		assertEquals(2, loads.get());
+		assertNotSame(first, second);
+		assertEquals(PaymentStatus.NOT_STARTED, second.getPaymentStatus());
+		assertEquals("order", second.getOrderDto().getOrderDesc());
+		assertEquals(2, nearCache.size());
+	}
+	
+	@Test
+	@DisplayName("Should drop both expand variants of a changed payment here and on the other instances")
+	void testOnPaymentChanged_InvalidatesEverywhere() {
+		// Given
+		PaymentNearCache nearCache = nearCache();
+		PaymentNearCache otherNearCache = nearCache();
+		nearCache.get(1, false, loader(PaymentStatus.NOT_STARTED));
+		nearCache.get(1, true, loader(PaymentStatus.NOT_STARTED));
+		nearCache.get(2, false, loader(PaymentStatus.NOT_STARTED));
+		otherNearCache.get(1, false, loader(PaymentStatus.NOT_STARTED));
+		
+		// When
+		nearCache.onPaymentChanged(new PaymentChangedEvent(PaymentChangedEvent.ChangeType.UPDATED, 1, 7, 
+				PaymentStatus.COMPLETED, true, Instant.now()));
+		
+		// Then
+		assertEquals(1, nearCache.size());
+		assertEquals(0, otherNearCache.size());
+		assertEquals(PaymentStatus.COMPLETED, nearCache.get(1, false, loader(PaymentStatus.COMPLETED)).getPaymentStatus());
+		assertEquals(PaymentStatus.COMPLETED, otherNearCache.get(1, false, loader(PaymentStatus.COMPLETED)).getPaymentStatus());
+	}
+	
+	@Test
+	@DisplayName("Should always load when disabled")
+	void testGet_Disabled() {
+		// Given
+		properties.setEnabled(false);
+		PaymentNearCache nearCache = nearCache();
+		
+		// When
+		nearCache.get(1, false, loader(PaymentStatus.NOT_STARTED));
+		nearCache.get(1, false, loader(PaymentStatus.NOT_STARTED));
+		nearCache.onPaymentChanged(PaymentChangedEvent.deleted(1, null));
+		
+		// Then
+		assertEquals(2, loads.get());
+		assertEquals(0, nearCache.size());
+	}
+	
+	private PaymentNearCache nearCache() {
+		return new PaymentNearCache(properties, broadcaster, new SimpleMeterRegistry());
+	}
+	
+	private Supplier<PaymentDto> loader(final PaymentStatus paymentStatus) {
+		return () -> {
+			loads.incrementAndGet();
+			return PaymentDto.builder()
+					.paymentId(1)
+					.isPayed(paymentStatus == PaymentStatus.COMPLETED)
+					.paymentStatus(paymentStatus)
+					.orderDto(OrderDto.builder().orderId(7).orderDesc("order").build())
+					.build();
+		};
+	}
+	
+}
+
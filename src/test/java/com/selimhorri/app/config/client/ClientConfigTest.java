@@ -0,0 +1,61 @@
+package com.selimhorri.app.config.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.OkHttp3ClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+@DisplayName("ClientConfig Unit Tests")
+class ClientConfigTest {
+	
+	private final ClientConfig clientConfig = new ClientConfig();
+	
+	@Test
+	@DisplayName("Should keep HttpURLConnection when the pooled client is disabled")
+	void testOrderServiceRequestFactory_Disabled() {
+		// When
+		ClientHttpRequestFactory requestFactory = clientConfig.orderServiceRequestFactory(new OrderServiceClientProperties());
+		
+		// Then
+		assertTrue(requestFactory instanceof SimpleClientHttpRequestFactory);
+	}
+	
+	@Test
+	@DisplayName("Should speak HTTP/1.1 or h2c with prior knowledge, as configured")
+	void testOrderServiceRequestFactory_Protocols() {
+		// Given
+		OrderServiceClientProperties properties = new OrderServiceClientProperties();
+		properties.setEnabled(true);
+		properties.setReadTimeout(Duration.ofSeconds(3));
+		
+		// When
+		OkHttpClient http1 = client(clientConfig.orderServiceRequestFactory(properties));
+		properties.setH2c(true);
+		OkHttpClient h2c = client(clientConfig.orderServiceRequestFactory(properties));
+		
+		// Then
+		assertEquals(List.of(Protocol.HTTP_1_1), http1.protocols());
+		assertEquals(List.of(Protocol.H2_PRIOR_KNOWLEDGE), h2c.protocols());
+		assertEquals(3000, h2c.readTimeoutMillis());
+		assertFalse(h2c.retryOnConnectionFailure());
+	}
+	
+	private static OkHttpClient client(final ClientHttpRequestFactory requestFactory) {
+		assertTrue(requestFactory instanceof OkHttp3ClientHttpRequestFactory);
+		return (OkHttpClient) ReflectionTestUtils.getField(requestFactory, "client");
+	}
+	
+}
+
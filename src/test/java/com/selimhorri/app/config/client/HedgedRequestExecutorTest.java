@@ -0,0 +1,179 @@
+package com.selimhorri.app.config.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.client.ResourceAccessException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("HedgedRequestExecutor Unit Tests")
+class HedgedRequestExecutorTest {
+	
+	private ThreadPoolTaskExecutor executor;
+	private SimpleMeterRegistry meterRegistry;
+	private HedgingProperties properties;
+	private CountDownLatch release;
+	
+	@BeforeEach
+	void setUp() {
+		executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(4);
+		executor.initialize();
+		meterRegistry = new SimpleMeterRegistry();
+		properties = new HedgingProperties();
+		properties.setEnabled(true);
+		properties.setInitialDelay(Duration.ofMillis(20));
+		properties.setBudgetRatio(1.0);
+		release = new CountDownLatch(1);
+	}
+	
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		executor.shutdown();
+	}
+	
+	@Test
+	@DisplayName("Should answer with the hedge when the primary is slower than the hedge delay")
+	void testExecute_HedgeWins() {
+		// Given
+		HedgedRequestExecutor hedged = new HedgedRequestExecutor("test", executor, properties, meterRegistry);
+		
+		// When
+		String result = hedged.execute(firstCallBlocked("primary", "hedge"));
+		
+		// Then
+		assertEquals("hedge", result);
+		assertEquals(1.0, meterRegistry.counter("test.hedge.requests").count());
+		assertEquals(1.0, meterRegistry.counter("test.hedge.wins").count());
+	}
+	
+	@Test
+	@DisplayName("Should not hedge a call that answers within the hedge delay")
+	void testExecute_FastPrimary() {
+		// Given
+		properties.setInitialDelay(Duration.ofSeconds(5));
+		HedgedRequestExecutor hedged = new HedgedRequestExecutor("test", executor, properties, meterRegistry);
+		AtomicInteger calls = new AtomicInteger();
+		
+		// When
+		String result = hedged.execute(() -> "primary-" + calls.incrementAndGet());
+		
+		// Then
+		assertEquals("primary-1", result);
+		assertEquals(0.0, meterRegistry.counter("test.hedge.requests").count());
+		assertEquals(1L, meterRegistry.timer("test.requests").count());
+	}
+	
+	@Test
+	@DisplayName("Should wait for the primary when the hedge budget is exhausted")
+	void testExecute_BudgetExhausted() throws Exception {
+		// Given
+		properties.setBudgetRatio(0.0);
+		HedgedRequestExecutor hedged = new HedgedRequestExecutor("test", executor, properties, meterRegistry);
+		AtomicInteger calls = new AtomicInteger();
+		
+		// When
+		String result = hedged.execute(() -> {
+			calls.incrementAndGet();
+			sleep(100);
+			return "primary";
+		});
+		
+		// Then
+		assertEquals("primary", result);
+		assertEquals(1, calls.get());
+		assertEquals(1.0, meterRegistry.counter("test.hedge.throttled").count());
+	}
+	
+	@Test
+	@DisplayName("Should answer with the hedge when the slow primary fails")
+	void testExecute_PrimaryFails() {
+		// Given
+		HedgedRequestExecutor hedged = new HedgedRequestExecutor("test", executor, properties, meterRegistry);
+		AtomicInteger calls = new AtomicInteger();
+		
+		// When
+		String result = hedged.execute(() -> {
+			if (calls.incrementAndGet() == 1) {
+				sleep(100);
+				throw new ResourceAccessException("Read timed out");
+			}
+			sleep(200);
+			return "hedge";
+		});
+		
+		// Then
+		assertEquals("hedge", result);
+	}
+	
+	@Test
+	@DisplayName("Should propagate the remote exception when every attempt fails")
+	void testExecute_AllAttemptsFail() {
+		// Given
+		HedgedRequestExecutor hedged = new HedgedRequestExecutor("test", executor, properties, meterRegistry);
+		
+		// When & Then
+		assertThrows(ResourceAccessException.class, () -> hedged.execute(() -> {
+			sleep(50);
+			throw new ResourceAccessException("Connection refused");
+		}));
+	}
+	
+	@Test
+	@DisplayName("Should call directly on the caller thread when hedging is disabled")
+	void testExecute_Disabled() {
+		// Given
+		properties.setEnabled(false);
+		HedgedRequestExecutor hedged = new HedgedRequestExecutor("test", executor, properties, meterRegistry);
+		Thread caller = Thread.currentThread();
+		
+		// When
+		Thread result = hedged.execute(Thread::currentThread);
+		
+		// Then
+		assertEquals(caller, result);
+		assertTrue(meterRegistry.timer("test.requests").count() == 1L);
+	}
+	
+	/**
+	 * First attempt blocks until the test ends, later ones answer at once.
+	 */
+	private Supplier<String> firstCallBlocked(final String first, final String others) {
+		AtomicInteger calls = new AtomicInteger();
+		return () -> {
+			if (calls.incrementAndGet() > 1)
+				return others;
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return first;
+		};
+	}
+	
+	private static void sleep(final long millis) {
+		try {
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+}
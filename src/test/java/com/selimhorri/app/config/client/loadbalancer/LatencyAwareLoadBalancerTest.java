@@ -0,0 +1,126 @@
+package com.selimhorri.app.config.client.loadbalancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Response;
+
+@DisplayName("LatencyAwareLoadBalancer Unit Tests")
+class LatencyAwareLoadBalancerTest {
+	
+	private final ServiceInstance fast1 = instance(8301);
+	private final ServiceInstance fast2 = instance(8302);
+	private final ServiceInstance slow = instance(8303);
+	private final List<ServiceInstance> instances = List.of(fast1, fast2, slow);
+	
+	private AtomicLong clock;
+	private LoadBalancingProperties properties;
+	private LatencyAwareLoadBalancer loadBalancer;
+	
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		clock = new AtomicLong(System.nanoTime());
+		properties = new LoadBalancingProperties();
+		properties.setConsecutiveFailures(3);
+		properties.setEjectionTime(Duration.ofSeconds(30));
+		loadBalancer = new LatencyAwareLoadBalancer(mock(ObjectProvider.class), "ORDER-SERVICE", properties, clock::get);
+	}
+	
+	@Test
+	@DisplayName("Should send most requests to the fast instances once latencies are known")
+	void testChoose_AvoidsSlowInstance() {
+		// Given
+		Map<ServiceInstance, Long> latencies = Map.of(fast1, 10L, fast2, 12L, slow, 200L);
+		Map<ServiceInstance, Integer> picks = new HashMap<>();
+		
+		// When
+		for (int i = 0; i < 1000; i++) {
+			ServiceInstance chosen = loadBalancer.choose(instances).getServer();
+			picks.merge(chosen, 1, Integer::sum);
+			complete(chosen, latencies.get(chosen), CompletionContext.Status.SUCCESS);
+		}
+		
+		// Then
+		assertTrue(picks.getOrDefault(slow, 0) < 50, "slow instance picks: " + picks.get(slow));
+	}
+	
+	@Test
+	@DisplayName("Should prefer the instance with fewer requests in flight at equal latency")
+	void testChoose_PenalizesInFlight() {
+		// Given
+		List<ServiceInstance> pair = List.of(fast1, fast2);
+		for (int i = 0; i < 5; i++)
+			loadBalancer.onStartRequest(new DefaultRequest<>(), response(fast1));
+		
+		// When & Then
+		for (int i = 0; i < 20; i++)
+			assertEquals(fast2, loadBalancer.choose(pair).getServer());
+	}
+	
+	@Test
+	@DisplayName("Should eject an instance after consecutive failures and restore it after the ejection time")
+	void testChoose_EjectsFailingInstance() {
+		// Given
+		for (int i = 0; i < properties.getConsecutiveFailures(); i++)
+			complete(slow, 5L, CompletionContext.Status.FAILED);
+		
+		// When & Then
+		assertTrue(loadBalancer.stats(slow).isEjected(clock.get()));
+		for (int i = 0; i < 100; i++)
+			assertFalse(slow.equals(loadBalancer.choose(instances).getServer()));
+		clock.addAndGet(properties.getEjectionTime().toNanos());
+		assertFalse(loadBalancer.stats(slow).isEjected(clock.get()));
+	}
+	
+	@Test
+	@DisplayName("Should not eject more instances than the max ejection percent allows")
+	void testChoose_MaxEjectionPercent() {
+		// Given
+		List<ServiceInstance> pair = List.of(fast1, slow);
+		for (ServiceInstance instance : pair)
+			for (int i = 0; i < properties.getConsecutiveFailures(); i++)
+				complete(instance, 5L, CompletionContext.Status.FAILED);
+		
+		// When
+		Map<ServiceInstance, Integer> picks = new HashMap<>();
+		for (int i = 0; i < 100; i++)
+			picks.merge(loadBalancer.choose(pair).getServer(), 1, Integer::sum);
+		
+		// Then: both ejected would leave nothing, so both stay in rotation
+		assertEquals(2, picks.size());
+	}
+	
+	private void complete(final ServiceInstance instance, final long latencyMillis, final CompletionContext.Status status) {
+		loadBalancer.onStartRequest(new DefaultRequest<>(), response(instance));
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+		loadBalancer.onComplete(new CompletionContext<>(status, new DefaultRequest<>(), response(instance)));
+	}
+	
+	private static Response<ServiceInstance> response(final ServiceInstance instance) {
+		return new DefaultResponse(instance);
+	}
+	
+	private static ServiceInstance instance(final int port) {
+		return new DefaultServiceInstance("order-" + port, "ORDER-SERVICE", "localhost", port, false);
+	}
+	
+}
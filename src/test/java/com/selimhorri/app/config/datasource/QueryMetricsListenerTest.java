@@ -0,0 +1,103 @@
+package com.selimhorri.app.config.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+
+@DisplayName("QueryMetricsListener Unit Tests")
+class QueryMetricsListenerTest {
+	
+	private SimpleMeterRegistry meterRegistry;
+	private QueryMetricsListener listener;
+	
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		DataSourceProxyProperties properties = new DataSourceProxyProperties();
+		properties.setSlowQueryThreshold(Duration.ofMillis(1));
+		listener = new QueryMetricsListener(meterRegistry, properties);
+	}
+	
+	@Test
+	@DisplayName("Should record a timer tagged with the statement type")
+	void testAfterQuery_RecordsTimerByType() {
+		// Given
+		ExecutionInfo execInfo = executionInfo(true);
+		List<QueryInfo> queries = List.of(new QueryInfo("select * from payments where payment_id=?"));
+		
+		// When
+		listener.beforeQuery(execInfo, queries);
+		listener.afterQuery(execInfo, queries);
+		
+		// Then
+		Timer timer = meterRegistry.find(QueryMetricsListener.METRIC_NAME)
+				.tag("type", "select")
+				.tag("outcome", "success")
+				.tag("datasource", "dataSource")
+				.timer();
+		assertNotNull(timer);
+		assertEquals(1, timer.count());
+	}
+	
+	@Test
+	@DisplayName("Should tag failed statements with an error outcome")
+	void testAfterQuery_ErrorOutcome() {
+		// Given
+		ExecutionInfo execInfo = executionInfo(false);
+		List<QueryInfo> queries = List.of(new QueryInfo("update payments set is_payed=? where payment_id=?"));
+		
+		// When
+		listener.beforeQuery(execInfo, queries);
+		listener.afterQuery(execInfo, queries);
+		
+		// Then
+		assertNotNull(meterRegistry.find(QueryMetricsListener.METRIC_NAME)
+				.tag("type", "update")
+				.tag("outcome", "error")
+				.timer());
+		assertNull(meterRegistry.find(QueryMetricsListener.METRIC_NAME)
+				.tag("outcome", "success")
+				.timer());
+	}
+	
+	@Test
+	@DisplayName("Should fall back to the proxy elapsed time when no start time was captured")
+	void testAfterQuery_WithoutBeforeQuery() {
+		// Given
+		ExecutionInfo execInfo = executionInfo(true);
+		execInfo.setElapsedTime(5);
+		List<QueryInfo> queries = List.of(new QueryInfo("insert into payments (order_id) values (?)"));
+		
+		// When
+		listener.afterQuery(execInfo, queries);
+		
+		// Then
+		Timer timer = meterRegistry.find(QueryMetricsListener.METRIC_NAME)
+				.tag("type", "insert")
+				.timer();
+		assertNotNull(timer);
+		assertEquals(5, timer.totalTime(TimeUnit.MILLISECONDS), 0.001);
+	}
+	
+	private static ExecutionInfo executionInfo(final boolean success) {
+		ExecutionInfo execInfo = new ExecutionInfo();
+		execInfo.setDataSourceName("dataSource");
+		execInfo.setSuccess(success);
+		return execInfo;
+	}
+	
+}
+
@@ -0,0 +1,88 @@
+package com.selimhorri.app.config.existence;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.selimhorri.app.dto.PaymentDto;
+import com.selimhorri.app.event.PaymentChangedEvent;
+import com.selimhorri.app.event.PaymentsImportedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("PaymentExistenceFilter Unit Tests")
+class PaymentExistenceFilterTest {
+	
+	private JdbcTemplate jdbcTemplate;
+	private PaymentExistenceFilter paymentExistenceFilter;
+	
+	@BeforeEach
+	void setUp() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:payment_existence;DB_CLOSE_DELAY=-1");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE payments (payment_id INT PRIMARY KEY)");
+		jdbcTemplate.execute("CREATE TABLE payments_archive (payment_id INT PRIMARY KEY)");
+		jdbcTemplate.update("INSERT INTO payments VALUES (1), (3)");
+		jdbcTemplate.update("INSERT INTO payments_archive VALUES (5)");
+		PaymentExistenceProperties properties = new PaymentExistenceProperties();
+		properties.setExpectedInsertions(1000);
+		paymentExistenceFilter = new PaymentExistenceFilter(properties, dataSource, new SimpleMeterRegistry());
+	}
+	
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.execute("DROP TABLE payments");
+		jdbcTemplate.execute("DROP TABLE payments_archive");
+	}
+	
+	@Test
+	@DisplayName("Should rule out only ids up to the watermark of the rebuild before the last")
+	void testRebuild_WatermarkLagsOneRebuild() {
+		// Given
+		paymentExistenceFilter.load();
+		
+		// When
+		boolean absentAfterFirstRebuild = paymentExistenceFilter.isDefinitelyAbsent(2);
+		// 4 got its id before the first rebuild but commits after its scan, on another instance
+		jdbcTemplate.update("INSERT INTO payments VALUES (4), (9)");
+		paymentExistenceFilter.rebuild();
+		
+		// Then
+		assertFalse(absentAfterFirstRebuild);
+		assertTrue(paymentExistenceFilter.isDefinitelyAbsent(2));
+		assertFalse(paymentExistenceFilter.isDefinitelyAbsent(4));
+		assertFalse(paymentExistenceFilter.isDefinitelyAbsent(5));
+		assertFalse(paymentExistenceFilter.isDefinitelyAbsent(7));
+	}
+	
+	@Test
+	@DisplayName("Should add payments created or imported meanwhile, but keep deleted ones until the next rebuild")
+	void testOnPaymentChanged() {
+		// Given
+		jdbcTemplate.update("INSERT INTO payments VALUES (8)");
+		paymentExistenceFilter.load();
+		paymentExistenceFilter.rebuild();
+		
+		// When
+		paymentExistenceFilter.onPaymentChanged(PaymentChangedEvent.of(PaymentChangedEvent.ChangeType.CREATED, 
+				PaymentDto.builder().paymentId(2).build()));
+		paymentExistenceFilter.onPaymentChanged(PaymentChangedEvent.deleted(3, null));
+		paymentExistenceFilter.onPaymentsImported(new PaymentsImportedEvent(List.of(
+				PaymentChangedEvent.of(PaymentChangedEvent.ChangeType.CREATED, PaymentDto.builder().paymentId(4).build()))));
+		
+		// Then
+		assertFalse(paymentExistenceFilter.isDefinitelyAbsent(2));
+		assertFalse(paymentExistenceFilter.isDefinitelyAbsent(3));
+		assertFalse(paymentExistenceFilter.isDefinitelyAbsent(4));
+		assertTrue(paymentExistenceFilter.isDefinitelyAbsent(6));
+	}
+	
+}
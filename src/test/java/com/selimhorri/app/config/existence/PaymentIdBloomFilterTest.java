@@ -0,0 +1,50 @@
+package com.selimhorri.app.config.existence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("PaymentIdBloomFilter Unit Tests")
+class PaymentIdBloomFilterTest {
+	
+	@Test
+	@DisplayName("Should report every added id, and rule out ids of an empty filter")
+	void testAdd_NoFalseNegatives() {
+		// Given
+		PaymentIdBloomFilter filter = new PaymentIdBloomFilter(10000, 0.01);
+		
+		// When
+		for (int id = 1; id <= 10000; id++)
+			filter.add(id);
+		
+		// Then
+		for (int id = 1; id <= 10000; id++)
+			assertTrue(filter.mightContain(id));
+		assertFalse(new PaymentIdBloomFilter(10000, 0.01).mightContain(1));
+		assertEquals(7, filter.hashCount());
+	}
+	
+	@Test
+	@DisplayName("Should keep the false-positive rate near the configured one when filled as sized")
+	void testMightContain_FalsePositiveRate() {
+		// Given
+		PaymentIdBloomFilter filter = new PaymentIdBloomFilter(100000, 0.01);
+		for (int id = 1; id <= 100000; id++)
+			filter.add(id);
+		
+		// When
+		int falsePositives = 0;
+		for (int id = 100001; id <= 200000; id++)
+			if (filter.mightContain(id))
+				falsePositives++;
+		
+		// Then
+		assertTrue(falsePositives < 1500, "false positives: " + falsePositives);
+		assertTrue(filter.memoryBytes() < 130 * 1024, "bytes: " + filter.memoryBytes());
+	}
+	
+}
+
@@ -0,0 +1,70 @@
+package com.selimhorri.app.config.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("IntLongHashMap Unit Tests")
+class IntLongHashMapTest {
+	
+	@Test
+	@DisplayName("Should put, overwrite, get and remove keys, including 0 and negative keys")
+	void testPutGetRemove() {
+		// Given
+		IntLongHashMap map = new IntLongHashMap(4);
+		
+		// When
+		map.put(0, 10L);
+		map.put(-7, 20L);
+		map.put(42, 30L);
+		map.put(42, 31L);
+		
+		// Then
+		assertEquals(3, map.size());
+		assertEquals(10L, map.get(0, -1L));
+		assertEquals(20L, map.get(-7, -1L));
+		assertEquals(31L, map.get(42, -1L));
+		assertEquals(-1L, map.get(43, -1L));
+		assertTrue(map.remove(0));
+		assertFalse(map.remove(0));
+		assertEquals(-1L, map.get(0, -1L));
+		assertEquals(2, map.size());
+	}
+	
+	@Test
+	@DisplayName("Should agree with HashMap over random puts and removes across resizes")
+	void testRandomOperations_MatchHashMap() {
+		// Given
+		IntLongHashMap map = new IntLongHashMap(16);
+		Map<Integer, Long> expected = new HashMap<>();
+		Random random = new Random(7);
+		
+		// When
+		for (int i = 0; i < 200_000; i++) {
+			// a narrow key range keeps probe runs long, so removals shift entries back
+			final int key = random.nextInt(5_000);
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(key) != null, map.remove(key));
+			}
+			else {
+				map.put(key, i);
+				expected.put(key, (long) i);
+			}
+		}
+		
+		// Then
+		assertEquals(expected.size(), map.size());
+		for (int key = 0; key < 5_000; key++)
+			assertEquals(expected.getOrDefault(key, -1L), map.get(key, -1L));
+		assertTrue(map.capacity() >= map.size() / 0.75);
+		assertEquals(16L + 16L * map.capacity(), map.memoryBytes());
+	}
+	
+}
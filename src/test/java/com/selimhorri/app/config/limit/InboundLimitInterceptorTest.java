@@ -0,0 +1,165 @@
+package com.selimhorri.app.config.limit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Map;
+
+import javax.servlet.DispatcherType;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import com.selimhorri.app.exception.wrapper.RequestRejectedException;
+
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+
+@DisplayName("InboundLimitInterceptor Unit Tests")
+class InboundLimitInterceptorTest {
+	
+	private BulkheadRegistry bulkheadRegistry;
+	private RateLimiterRegistry rateLimiterRegistry;
+	private InboundLimitInterceptor interceptor;
+	private MockHttpServletResponse response;
+	
+	@BeforeEach
+	void setUp() {
+		bulkheadRegistry = BulkheadRegistry.ofDefaults();
+		bulkheadRegistry.bulkhead("Endpoints.findAll", BulkheadConfig.custom()
+				.maxConcurrentCalls(1)
+				.maxWaitDuration(Duration.ZERO)
+				.build());
+		rateLimiterRegistry = RateLimiterRegistry.of(Map.of("Endpoints.search", RateLimiterConfig.custom()
+				.limitForPeriod(1)
+				.limitRefreshPeriod(Duration.ofMinutes(1))
+				.timeoutDuration(Duration.ZERO)
+				.build()));
+		interceptor = new InboundLimitInterceptor(bulkheadRegistry, rateLimiterRegistry, new InboundLimitProperties());
+		response = new MockHttpServletResponse();
+	}
+	
+	@Test
+	@DisplayName("Should reject a client over its rate limit with 429 without affecting other clients")
+	void testPreHandle_RateLimitPerClient() throws Exception {
+		// Given
+		HandlerMethod handler = handler("search");
+		assertTrue(interceptor.preHandle(request("10.0.0.1"), response, handler));
+		
+		// When
+		RequestRejectedException exception = assertThrows(RequestRejectedException.class, 
+				() -> interceptor.preHandle(request("10.0.0.1"), response, handler));
+		
+		// Then
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getHttpStatus());
+		assertEquals(Duration.ofMinutes(1), exception.getRetryAfter());
+		assertTrue(interceptor.preHandle(request("10.0.0.2"), response, handler));
+	}
+	
+	@Test
+	@DisplayName("Should reject with 503 when the endpoint bulkhead is full and admit again once released")
+	void testPreHandle_BulkheadFull() throws Exception {
+		// Given
+		HandlerMethod handler = handler("findAll");
+		MockHttpServletRequest first = request("10.0.0.1");
+		assertTrue(interceptor.preHandle(first, response, handler));
+		
+		// When
+		RequestRejectedException exception = assertThrows(RequestRejectedException.class, 
+				() -> interceptor.preHandle(request("10.0.0.2"), response, handler));
+		interceptor.afterCompletion(first, response, handler, null);
+		
+		// Then
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getHttpStatus());
+		assertTrue(interceptor.preHandle(request("10.0.0.2"), response, handler));
+	}
+	
+	@Test
+	@DisplayName("Should keep the bulkhead permit across the async dispatch of the same request")
+	void testPreHandle_AsyncDispatch() throws Exception {
+		// Given
+		HandlerMethod handler = handler("findAll");
+		MockHttpServletRequest request = request("10.0.0.1");
+		assertTrue(interceptor.preHandle(request, response, handler));
+		interceptor.afterConcurrentHandlingStarted(request, response, handler);
+		
+		// When
+		request.setDispatcherType(DispatcherType.ASYNC);
+		assertTrue(interceptor.preHandle(request, response, handler));
+		
+		// Then
+		assertThrows(RequestRejectedException.class, 
+				() -> interceptor.preHandle(request("10.0.0.2"), response, handler));
+		interceptor.afterCompletion(request, response, handler, null);
+		assertTrue(interceptor.preHandle(request("10.0.0.2"), response, handler));
+	}
+	
+	@Test
+	@DisplayName("Should not limit endpoints without settings, including same-named methods of other controllers")
+	void testPreHandle_Unconfigured() throws Exception {
+		// Given
+		HandlerMethod handler = handler("findById");
+		HandlerMethod otherSearch = new HandlerMethod(new OtherEndpoints(), OtherEndpoints.class.getMethod("search"));
+		
+		// When & Then
+		for (int i = 0; i < 10; i++) {
+			assertTrue(interceptor.preHandle(request("10.0.0.1"), response, handler));
+			assertTrue(interceptor.preHandle(request("10.0.0.1"), response, otherSearch));
+		}
+	}
+	
+	@Test
+	@DisplayName("Should only key the rate limit on the client id header when a trusted proxy sets it")
+	void testPreHandle_ClientIdFromTrustedProxy() throws Exception {
+		// Given
+		InboundLimitProperties properties = new InboundLimitProperties();
+		properties.setTrustedProxies("10\\.1\\.0\\.\\d+");
+		interceptor = new InboundLimitInterceptor(bulkheadRegistry, rateLimiterRegistry, properties);
+		HandlerMethod handler = handler("search");
+		assertTrue(interceptor.preHandle(request("10.0.0.1", "client-a"), response, handler));
+		assertTrue(interceptor.preHandle(request("10.1.0.7", "client-a"), response, handler));
+		
+		// When & Then
+		assertThrows(RequestRejectedException.class, 
+				() -> interceptor.preHandle(request("10.0.0.1", "client-b"), response, handler));
+		assertThrows(RequestRejectedException.class, 
+				() -> interceptor.preHandle(request("10.1.0.8", "client-a"), response, handler));
+		assertTrue(interceptor.preHandle(request("10.1.0.8", "client-b"), response, handler));
+	}
+	
+	private static MockHttpServletRequest request(final String remoteAddr) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/payments");
+		request.setRemoteAddr(remoteAddr);
+		return request;
+	}
+	
+	private static MockHttpServletRequest request(final String remoteAddr, final String clientId) {
+		MockHttpServletRequest request = request(remoteAddr);
+		request.addHeader("X-Client-Id", clientId);
+		return request;
+	}
+	
+	private static HandlerMethod handler(final String methodName) throws NoSuchMethodException {
+		return new HandlerMethod(new Endpoints(), Endpoints.class.getMethod(methodName));
+	}
+	
+	static class Endpoints {
+		public void findAll() {}
+		public void findById() {}
+		public void search() {}
+	}
+	
+	static class OtherEndpoints {
+		public void search() {}
+	}
+	
+}
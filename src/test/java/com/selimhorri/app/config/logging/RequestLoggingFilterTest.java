@@ -0,0 +1,105 @@
+package com.selimhorri.app.config.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+@DisplayName("RequestLoggingFilter Unit Tests")
+class RequestLoggingFilterTest {
+	
+	private RequestLoggingProperties properties;
+	private RequestLoggingFilter filter;
+	private ListAppender<ILoggingEvent> appender;
+	private Logger logger;
+	
+	@BeforeEach
+	void setUp() {
+		properties = new RequestLoggingProperties();
+		properties.setSampleRate(0.0);
+		properties.setSlowThreshold(Duration.ofMinutes(1));
+		filter = new RequestLoggingFilter(properties);
+		
+		appender = new ListAppender<>();
+		appender.start();
+		logger = (Logger) LoggerFactory.getLogger(RequestLoggingFilter.class);
+		logger.addAppender(appender);
+	}
+	
+	@AfterEach
+	void tearDown() {
+		logger.detachAppender(appender);
+	}
+	
+	@Test
+	@DisplayName("Should skip ordinary requests that are not sampled")
+	void testDoFilter_NotSampled() throws Exception {
+		// When
+		filter.doFilter(new MockHttpServletRequest("GET", "/api/payments/1"), new MockHttpServletResponse(), new MockFilterChain());
+		
+		// Then
+		assertTrue(appender.list.isEmpty());
+	}
+	
+	@Test
+	@DisplayName("Should log sampled requests with a structured event")
+	void testDoFilter_Sampled() throws Exception {
+		// Given
+		properties.setSampleRate(1.0);
+		
+		// When
+		filter.doFilter(new MockHttpServletRequest("GET", "/api/payments/1"), new MockHttpServletResponse(), new MockFilterChain());
+		
+		// Then
+		assertEquals(1, appender.list.size());
+		String message = appender.list.get(0).getFormattedMessage();
+		assertTrue(message.contains("method=GET"));
+		assertTrue(message.contains("uri=/api/payments/1"));
+		assertTrue(message.contains("status=200"));
+		assertTrue(message.contains("reason=sampled"));
+	}
+	
+	@Test
+	@DisplayName("Should always log server errors")
+	void testDoFilter_ServerError() throws Exception {
+		// Given
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		response.setStatus(503);
+		
+		// When
+		filter.doFilter(new MockHttpServletRequest("GET", "/api/payments"), response, new MockFilterChain());
+		
+		// Then
+		assertEquals(1, appender.list.size());
+		assertTrue(appender.list.get(0).getFormattedMessage().contains("reason=error"));
+	}
+	
+	@Test
+	@DisplayName("Should always log slow requests")
+	void testDoFilter_Slow() throws Exception {
+		// Given
+		properties.setSlowThreshold(Duration.ZERO);
+		
+		// When
+		filter.doFilter(new MockHttpServletRequest("GET", "/api/payments"), new MockHttpServletResponse(), new MockFilterChain());
+		
+		// Then
+		assertEquals(1, appender.list.size());
+		assertTrue(appender.list.get(0).getFormattedMessage().contains("reason=slow"));
+	}
+	
+}
+
@@ -0,0 +1,69 @@
+package com.selimhorri.app.config.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.selimhorri.app.repository.ShardedPaymentRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("ShardingConfig Unit Tests")
+class ShardingConfigTest {
+	
+	private ShardingProperties properties;
+	private MockEnvironment environment;
+	
+	@BeforeEach
+	void setUp() {
+		ShardingProperties.Shard shard = new ShardingProperties.Shard();
+		shard.setUrl("jdbc:h2:mem:shard-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+		shard.setUsername("sa");
+		properties = new ShardingProperties();
+		properties.setEnabled(true);
+		properties.setShards(List.of(shard));
+		environment = new MockEnvironment()
+				.withProperty("app.payment-index.enabled", "true")
+				.withProperty("app.reconciliation.enabled", "false");
+	}
+	
+	@Test
+	@DisplayName("Should refuse to shard while features working on the primary datasource are enabled, by default or not")
+	void testShardedPaymentRepository_PrimaryDatasourceFeatures() {
+		// When
+		IllegalStateException exception = assertThrows(IllegalStateException.class, 
+				() -> new ShardingConfig().shardedPaymentRepository(properties, environment, new SimpleMeterRegistry()));
+		
+		// Then
+		assertEquals("app.sharding.enabled requires features working on the primary datasource to be disabled: "
+				+ "app.archive.enabled=false, app.order-snapshot.enabled=false, "
+				+ "app.payment-existence.enabled=false, app.payment-index.enabled=false", exception.getMessage());
+	}
+	
+	@Test
+	@DisplayName("Should shard once every feature working on the primary datasource is disabled")
+	void testShardedPaymentRepository() {
+		// Given
+		environment.withProperty("app.archive.enabled", "false")
+				.withProperty("app.order-snapshot.enabled", "false")
+				.withProperty("app.payment-existence.enabled", "false")
+				.withProperty("app.payment-index.enabled", "false");
+		
+		// When
+		ShardedPaymentRepository repository = new ShardingConfig().shardedPaymentRepository(properties, environment, 
+				new SimpleMeterRegistry());
+		
+		// Then
+		assertTrue(repository.isEnabled());
+		repository.close();
+	}
+	
+}
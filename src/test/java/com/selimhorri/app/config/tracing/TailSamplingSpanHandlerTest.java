@@ -0,0 +1,121 @@
+package com.selimhorri.app.config.tracing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import brave.Span;
+import brave.Tracer;
+import brave.Tracing;
+import brave.sampler.Sampler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("TailSamplingSpanHandler Unit Tests")
+class TailSamplingSpanHandlerTest {
+	
+	private final List<zipkin2.Span> reported = new CopyOnWriteArrayList<>();
+	private TraceSamplingProperties properties;
+	private AdaptiveTraceSampler sampler;
+	private Tracing tracing;
+	
+	@BeforeEach
+	void setUp() {
+		properties = new TraceSamplingProperties();
+		properties.setLatencyThreshold(Duration.ofMillis(500));
+		properties.setMaxSpansPerSecond(100);
+		properties.setBaselineRate(0.5);
+		properties.setMinRate(0.01);
+		sampler = new AdaptiveTraceSampler(properties);
+	}
+	
+	@AfterEach
+	void tearDown() {
+		if (tracing != null)
+			tracing.close();
+	}
+	
+	@Test
+	@DisplayName("Should report unsampled traces only when their local root is slow or a span failed with a server error")
+	void testEnd_TailSampling() {
+		// Given
+		Tracer tracer = tracer(Sampler.NEVER_SAMPLE);
+		
+		// When
+		trace(tracer, "fast", 100, null);
+		trace(tracer, "slow", 600, null);
+		trace(tracer, "not-found", 100, "404");
+		trace(tracer, "failed", 100, "500");
+		
+		// Then
+		assertEquals(List.of("slow-child", "slow", "failed-child", "failed"), reported.stream()
+				.map(zipkin2.Span::name)
+				.collect(Collectors.toList()));
+	}
+	
+	@Test
+	@DisplayName("Should leave sampled traces to Sleuth's handler and cap the spans buffered per trace")
+	void testEnd_SampledAndCapped() {
+		// Given
+		properties.setMaxSpansPerTrace(2);
+		
+		// When
+		trace(tracer(Sampler.ALWAYS_SAMPLE), "sampled", 600, null);
+		tracing.close();
+		Tracer tracer = tracer(Sampler.NEVER_SAMPLE);
+		Span root = tracer.newTrace().name("capped").start(1_000);
+		for (int i = 0; i < 3; i++)
+			tracer.newChild(root.context()).name("child").start(2_000).finish(3_000);
+		root.finish(1_000 + 600_000);
+		
+		// Then
+		assertEquals(List.of("child", "child"), reported.stream()
+				.map(zipkin2.Span::name)
+				.collect(Collectors.toList()));
+	}
+	
+	@Test
+	@DisplayName("Should lower the rate when over the span budget, by at most half, and raise it back when under")
+	void testAdjust() {
+		// When / Then
+		assertEquals(0.25, sampler.adjust(1000, 0));
+		assertEquals(0.2, sampler.adjust(100, 20), 1e-9);
+		assertEquals(0.1, sampler.adjust(100, 100), 1e-9);
+		assertEquals(0.2, sampler.adjust(0, 0), 1e-9);
+		assertEquals(0.5, new AdaptiveTraceSampler(properties).adjust(10, 0));
+		SplittableRandom random = new SplittableRandom(42);
+		long sampled = random.longs(100_000).filter(sampler::isSampled).count();
+		assertTrue(sampled > 19_000 && sampled < 21_000, "sampled " + sampled);
+	}
+	
+	private Tracer tracer(final Sampler headSampler) {
+		tracing = Tracing.newBuilder()
+				.sampler(headSampler)
+				.alwaysSampleLocal()
+				.addSpanHandler(new TailSamplingSpanHandler(properties, sampler, reported::add, new SimpleMeterRegistry()))
+				.build();
+		return tracing.tracer();
+	}
+	
+	/**
+	 * A local root lasting {@code durationMillis} with one child, tagged with {@code error} if given.
+	 */
+	private static void trace(final Tracer tracer, final String name, final long durationMillis, final String error) {
+		Span root = tracer.newTrace().name(name).start(1_000);
+		Span child = tracer.newChild(root.context()).name(name + "-child").start(2_000);
+		if (error != null)
+			child.tag("error", error);
+		child.finish(3_000);
+		root.finish(1_000 + durationMillis * 1_000);
+	}
+	
+}
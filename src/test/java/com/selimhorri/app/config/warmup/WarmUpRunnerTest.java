@@ -0,0 +1,168 @@
+package com.selimhorri.app.config.warmup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.selimhorri.app.domain.PaymentStatus;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.PaymentDto;
+import com.selimhorri.app.dto.response.collection.DtoBatchCollectionResponse;
+import com.selimhorri.app.dto.response.collection.DtoCursorCollectionResponse;
+import com.selimhorri.app.resource.PaymentResource;
+import com.selimhorri.app.service.OrderService;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("WarmUpRunner Unit Tests")
+class WarmUpRunnerTest {
+	
+	@Mock
+	private PaymentResource paymentResource;
+	
+	@Mock
+	private OrderService orderService;
+	
+	@Mock
+	private ApplicationInfoManager applicationInfoManager;
+	
+	private JdbcDataSource dataSource;
+	private WarmUpProperties properties;
+	
+	@BeforeEach
+	void setUp() {
+		dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:warm-up-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+		// V2 seeds four payments, of four orders
+		Flyway.configure().dataSource(dataSource).load().migrate();
+		properties = new WarmUpProperties();
+		properties.setRequests(20);
+		properties.setOrderServiceCalls(3);
+	}
+	
+	@AfterEach
+	void tearDown() {
+		new JdbcTemplate(dataSource).execute("DROP ALL OBJECTS");
+	}
+	
+	@Test
+	@DisplayName("Should read the hot payments through the resource and open order-service connections")
+	void testWarmUp() {
+		// Given
+		when(paymentResource.findById(anyString(), any())).thenAnswer(invocation -> CompletableFuture.completedFuture(
+				ResponseEntity.ok(payment(Integer.valueOf(invocation.getArgument(0))))));
+		when(paymentResource.findAllById(anyList(), any())).thenReturn(CompletableFuture.completedFuture(
+				ResponseEntity.ok(new DtoBatchCollectionResponse<>(List.of(payment(1)), List.of()))));
+		when(paymentResource.search(any(), any())).thenReturn(CompletableFuture.completedFuture(
+				ResponseEntity.ok(new DtoCursorCollectionResponse<>(List.of(payment(1)), null))));
+		when(orderService.findById(anyInt())).thenThrow(new IllegalStateException("No instances available"));
+		
+		// only payments with an order snapshot are read with expand=order
+		new JdbcTemplate(dataSource).update("UPDATE payments SET order_snapshot_at = CURRENT_TIMESTAMP WHERE payment_id <= 2");
+		
+		// When
+		int requests = runner(mock(ApplicationContext.class)).warmUp(new AtomicBoolean());
+		
+		// Then
+		assertEquals(20, requests);
+		verify(paymentResource, times(16)).findById(anyString(), isNull());
+		verify(paymentResource, times(4)).findById(anyString(), eq(Set.of(PaymentResource.EXPAND_ORDER)));
+		verify(paymentResource, never()).findById(eq("3"), eq(Set.of(PaymentResource.EXPAND_ORDER)));
+		verify(paymentResource, times(2)).findAllById(anyList(), any());
+		verify(paymentResource, times(1)).search(any(), any());
+		verify(orderService, times(3)).findById(anyInt());
+	}
+	
+	@Test
+	@DisplayName("Should put the instance UP once the budget runs out, without waiting for warm-up")
+	void testRun_BudgetExhausted() {
+		// Given
+		properties.setBudget(Duration.ofMillis(200));
+		when(orderService.findById(anyInt())).thenAnswer(invocation -> {
+			Thread.sleep(5000);
+			return null;
+		});
+		when(applicationInfoManager.getInfo()).thenReturn(instance(InstanceStatus.STARTING));
+		
+		// When
+		long startedAt = System.nanoTime();
+		runner(mock(WebServerApplicationContext.class)).run(null);
+		
+		// Then
+		assertTrue(Duration.ofNanos(System.nanoTime() - startedAt).compareTo(Duration.ofSeconds(2)) < 0);
+		verify(applicationInfoManager).setInstanceStatus(InstanceStatus.UP);
+	}
+	
+	@Test
+	@DisplayName("Should skip warm-up outside a web server and leave an out-of-service instance alone")
+	void testRun_NotWarmedUp() {
+		// Given
+		when(applicationInfoManager.getInfo()).thenReturn(instance(InstanceStatus.OUT_OF_SERVICE));
+		
+		// When
+		runner(mock(ApplicationContext.class)).run(null);
+		
+		// Then
+		verify(paymentResource, never()).findById(anyString(), any());
+		verify(applicationInfoManager, never()).setInstanceStatus(any());
+	}
+	
+	private WarmUpRunner runner(final ApplicationContext context) {
+		return new WarmUpRunner(properties, context, paymentResource, orderService, new ObjectMapper(), dataSource, 
+				new StaticListableBeanFactory(Map.of("applicationInfoManager", applicationInfoManager))
+						.getBeanProvider(ApplicationInfoManager.class));
+	}
+	
+	private static PaymentDto payment(final int paymentId) {
+		return PaymentDto.builder()
+				.paymentId(paymentId)
+				.isPayed(false)
+				.paymentStatus(PaymentStatus.NOT_STARTED)
+				.orderDto(OrderDto.builder().orderId(paymentId).build())
+				.build();
+	}
+	
+	private static InstanceInfo instance(final InstanceStatus status) {
+		return InstanceInfo.Builder.newBuilder()
+				.setAppName("PAYMENT-SERVICE")
+				.setStatus(status)
+				.build();
+	}
+	
+}
@@ -2,6 +2,7 @@ package com.selimhorri.app.exception;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.DisplayName;
@@ -13,6 +14,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import com.selimhorri.app.exception.payload.ExceptionMsg;
+import com.selimhorri.app.exception.wrapper.InvalidRequestException;
 import com.selimhorri.app.exception.wrapper.PaymentNotFoundException;
 
 @ExtendWith(MockitoExtension.class)
@@ -23,29 +25,30 @@ class ApiExceptionHandlerTest {
 	private ApiExceptionHandler apiExceptionHandler;
 	
 	@Test
-	@DisplayName("Should handle PaymentNotFoundException correctly")
+	@DisplayName("Should handle PaymentNotFoundException as NOT_FOUND, without a timestamp")
 	void testHandlePaymentNotFoundException() {
 		// Given
 		PaymentNotFoundException exception = new PaymentNotFoundException("Payment with id: 1 not found");
 		
 		// When
-		ResponseEntity<ExceptionMsg> response = apiExceptionHandler.handleApiRequestException(exception);
+		ResponseEntity<ExceptionMsg> response = apiExceptionHandler.handlePaymentNotFoundException(exception);
 		
 		// Then
 		assertNotNull(response);
-		assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+		assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
 		assertNotNull(response.getBody());
+		assertEquals(HttpStatus.NOT_FOUND, response.getBody().getHttpStatus());
 		assertTrue(response.getBody().getMsg().contains("Payment with id: 1 not found"));
 		assertTrue(response.getBody().getMsg().startsWith("####"));
 		assertTrue(response.getBody().getMsg().endsWith("####"));
-		assertNotNull(response.getBody().getTimestamp());
+		assertNull(response.getBody().getTimestamp());
 	}
 	
 	@Test
-	@DisplayName("Should handle PaymentNotFoundException with custom message")
-	void testHandlePaymentNotFoundException_CustomMessage() {
+	@DisplayName("Should handle InvalidRequestException with custom message")
+	void testHandleApiRequestException_CustomMessage() {
 		// Given
-		PaymentNotFoundException exception = new PaymentNotFoundException("Invalid payment");
+		InvalidRequestException exception = new InvalidRequestException("Invalid payment");
 		
 		// When
 		ResponseEntity<ExceptionMsg> response = apiExceptionHandler.handleApiRequestException(exception);
@@ -61,7 +64,7 @@ class ApiExceptionHandlerTest {
 	@DisplayName("Should set correct HTTP status as BAD_REQUEST")
 	void testHandleApiRequestException_HttpStatus() {
 		// Given
-		PaymentNotFoundException exception = new PaymentNotFoundException("Test error");
+		InvalidRequestException exception = new InvalidRequestException("Test error");
 		
 		// When
 		ResponseEntity<ExceptionMsg> response = apiExceptionHandler.handleApiRequestException(exception);
@@ -75,7 +78,7 @@ class ApiExceptionHandlerTest {
 	@DisplayName("Should include timestamp in exception message")
 	void testHandleApiRequestException_Timestamp() {
 		// Given
-		PaymentNotFoundException exception = new PaymentNotFoundException("Timestamp test");
+		InvalidRequestException exception = new InvalidRequestException("Timestamp test");
 		
 		// When
 		ResponseEntity<ExceptionMsg> response = apiExceptionHandler.handleApiRequestException(exception);
@@ -88,7 +91,7 @@ class ApiExceptionHandlerTest {
 	@DisplayName("Should format exception message with markers")
 	void testHandleApiRequestException_MessageFormat() {
 		// Given
-		PaymentNotFoundException exception = new PaymentNotFoundException("Error message");
+		InvalidRequestException exception = new InvalidRequestException("Error message");
 		
 		// When
 		ResponseEntity<ExceptionMsg> response = apiExceptionHandler.handleApiRequestException(exception);
@@ -8,6 +8,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import com.selimhorri.app.domain.Payment;
+import com.selimhorri.app.domain.PaymentArchive;
 import com.selimhorri.app.domain.PaymentStatus;
 import com.selimhorri.app.dto.OrderDto;
 import com.selimhorri.app.dto.PaymentDto;
@@ -122,5 +123,42 @@ class PaymentMappingHelperTest {
 		assertEquals(PaymentStatus.IN_PROGRESS, result.getPaymentStatus());
 	}
 	
+	@Test
+	@DisplayName("Should map archived Payment to PaymentDto successfully")
+	void testMapArchiveToDto_Success() {
+		// Given
+		PaymentArchive archivedPayment = PaymentArchive.builder()
+				.paymentId(4)
+				.orderId(7)
+				.isPayed(true)
+				.paymentStatus(PaymentStatus.COMPLETED)
+				.build();
+		
+		// When
+		PaymentDto result = PaymentMappingHelper.map(archivedPayment);
+		
+		// Then
+		assertNotNull(result);
+		assertEquals(4, result.getPaymentId());
+		assertEquals(7, result.getOrderDto().getOrderId());
+		assertEquals(true, result.getIsPayed());
+		assertEquals(PaymentStatus.COMPLETED, result.getPaymentStatus());
+	}
+	
+	@Test
+	@DisplayName("Should build the OrderDto from the stored order snapshot")
+	void testMapPaymentToDto_OrderSnapshot() {
+		// Given
+		testPayment.setOrderDesc("Test Order");
+		testPayment.setOrderFee(99.99);
+		
+		// When
+		PaymentDto result = PaymentMappingHelper.map(testPayment);
+		
+		// Then
+		assertEquals(1, result.getOrderDto().getOrderId());
+		assertEquals("Test Order", result.getOrderDto().getOrderDesc());
+		assertEquals(99.99, result.getOrderDto().getOrderFee());
+	}
+	
 }
-
@@ -0,0 +1,115 @@
+package com.selimhorri.app.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.service.OrderService;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Calls ORDER-SERVICE through the real load-balanced RestTemplate against three local
+ * stand-in servers declared as static discovery instances, one of them slow.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+@DisplayName("Latency-aware load balancing Integration Tests")
+class LatencyAwareLoadBalancerIntegrationTest {
+	
+	private static final StandIn FAST_1 = new StandIn(0);
+	private static final StandIn FAST_2 = new StandIn(0);
+	private static final StandIn SLOW = new StandIn(150);
+	
+	@Autowired
+	private OrderService orderService;
+	
+	@DynamicPropertySource
+	static void orderServiceInstances(final DynamicPropertyRegistry registry) {
+		final List<StandIn> standIns = List.of(FAST_1, FAST_2, SLOW);
+		for (int i = 0; i < standIns.size(); i++) {
+			final int port = standIns.get(i).port();
+			registry.add("spring.cloud.discovery.client.simple.instances.[ORDER-SERVICE][" + i + "].uri", 
+					() -> "http://localhost:" + port);
+		}
+	}
+	
+	@AfterAll
+	static void stopStandIns() {
+		List.of(FAST_1, FAST_2, SLOW).forEach(StandIn::stop);
+	}
+	
+	@Test
+	@DisplayName("Should route most ORDER-SERVICE calls away from the slow instance")
+	void testOrderLookups_AvoidSlowInstance() {
+		// When
+		for (int i = 0; i < 60; i++) {
+			OrderDto order = orderService.findById(1);
+			assertEquals(1, order.getOrderId());
+		}
+		
+		// Then
+		assertEquals(60, FAST_1.hits() + FAST_2.hits() + SLOW.hits());
+		assertTrue(SLOW.hits() < 12, "slow instance hits: " + SLOW.hits());
+	}
+	
+	private static final class StandIn {
+		
+		private final HttpServer server;
+		private final AtomicInteger hits = new AtomicInteger();
+		
+		StandIn(final long delayMillis) {
+			try {
+				this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+			}
+			catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			this.server.createContext("/order-service/api/orders", exchange -> {
+				this.hits.incrementAndGet();
+				try {
+					Thread.sleep(delayMillis);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				final byte[] body = "{\"orderId\":1}".getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().add("Content-Type", "application/json");
+				exchange.sendResponseHeaders(200, body.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+			});
+			this.server.start();
+		}
+		
+		int port() {
+			return this.server.getAddress().getPort();
+		}
+		
+		int hits() {
+			return this.hits.get();
+		}
+		
+		void stop() {
+			this.server.stop(0);
+		}
+		
+	}
+	
+}
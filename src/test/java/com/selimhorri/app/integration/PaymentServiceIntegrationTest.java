@@ -3,13 +3,18 @@ package com.selimhorri.app.integration;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -20,19 +25,28 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.selimhorri.app.constant.AppConstant;
 import com.selimhorri.app.domain.Payment;
+import com.selimhorri.app.domain.PaymentArchive;
 import com.selimhorri.app.domain.PaymentStatus;
 import com.selimhorri.app.dto.OrderDto;
 import com.selimhorri.app.dto.PaymentDto;
+import com.selimhorri.app.repository.PaymentArchiveRepository;
 import com.selimhorri.app.repository.PaymentRepository;
+import com.selimhorri.app.resource.PaymentResource;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -53,6 +67,9 @@ class PaymentServiceIntegrationTest {
 	@Autowired
 	private PaymentRepository paymentRepository;
 
+	@Autowired
+	private PaymentArchiveRepository paymentArchiveRepository;
+
 	@Autowired
 	private ObjectMapper objectMapper;
 
@@ -107,7 +124,7 @@ class PaymentServiceIntegrationTest {
 		Payment savedPayment = createPaymentInDatabase();
 
 		// When & Then
-		mockMvc.perform(get("/api/payments/{paymentId}", savedPayment.getPaymentId()))
+		performAsync(get("/api/payments/{paymentId}", savedPayment.getPaymentId()))
 				.andExpect(status().isOk())
 				.andExpect(jsonPath("$.paymentId").value(savedPayment.getPaymentId()))
 				.andExpect(jsonPath("$.order.orderId").value(savedPayment.getOrderId()))
@@ -134,7 +151,7 @@ class PaymentServiceIntegrationTest {
 		paymentRepository.save(payment2);
 
 		// When & Then
-		mockMvc.perform(get("/api/payments"))
+		performAsync(get("/api/payments"))
 				.andExpect(status().isOk())
 				.andExpect(jsonPath("$.collection").isArray())
 				.andExpect(jsonPath("$.collection.length()").value(2));
@@ -179,11 +196,11 @@ class PaymentServiceIntegrationTest {
 	}
 
 	@Test
-	@DisplayName("Should return 400 error when payment not found")
+	@DisplayName("Should return 404 error when payment not found")
 	void testGetPaymentById_NotFound() throws Exception {
 		// When & Then
 		mockMvc.perform(get("/api/payments/{paymentId}", 999))
-				.andExpect(status().isBadRequest());
+				.andExpect(status().isNotFound());
 	}
 
 	@Test
@@ -222,7 +239,7 @@ class PaymentServiceIntegrationTest {
 		createPaymentInDatabase();
 
 		// When & Then
-		mockMvc.perform(get("/api/payments"))
+		performAsync(get("/api/payments"))
 				.andExpect(status().isOk())
 				.andExpect(jsonPath("$.collection[0].order").exists())
 				.andExpect(jsonPath("$.collection[0].order.orderId").exists());
@@ -248,13 +265,294 @@ class PaymentServiceIntegrationTest {
 		paymentRepository.save(payment2);
 
 		// When & Then
-		mockMvc.perform(get("/api/payments"))
+		performAsync(get("/api/payments"))
 				.andExpect(status().isOk())
 				.andExpect(jsonPath("$.collection.length()").value(2))
 				.andExpect(jsonPath("$.collection[0].order.orderId").value(1))
 				.andExpect(jsonPath("$.collection[1].order.orderId").value(1));
 	}
 
+	@Test
+	@DisplayName("Should retrieve archived payment by id via REST API")
+	void testGetArchivedPaymentById_Success() throws Exception {
+		// Given
+		PaymentArchive archivedPayment = paymentArchiveRepository.save(PaymentArchive.builder()
+				.paymentId(100000)
+				.orderId(1)
+				.isPayed(true)
+				.paymentStatus(PaymentStatus.COMPLETED)
+				.build());
+
+		// When & Then
+		performAsync(get("/api/payments/{paymentId}", archivedPayment.getPaymentId()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.paymentId").value(100000))
+				.andExpect(jsonPath("$.paymentStatus").value("COMPLETED"))
+				.andExpect(jsonPath("$.order.orderId").value(1));
+	}
+
+	@Test
+	@DisplayName("Should search payments by status and page through them with the cursor")
+	void testSearchPayments_CursorPagination() throws Exception {
+		// Given
+		for (int orderId = 1; orderId <= 3; orderId++)
+			paymentRepository.save(Payment.builder()
+					.orderId(orderId)
+					.isPayed(false)
+					.paymentStatus(PaymentStatus.IN_PROGRESS)
+					.build());
+		createPaymentInDatabase();
+
+		// When & Then
+		String firstPage = performAsync(get("/api/payments/search")
+				.param("paymentStatus", "IN_PROGRESS")
+				.param("limit", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.collection.length()").value(2))
+				.andExpect(jsonPath("$.nextCursor").exists())
+				.andReturn()
+				.getResponse()
+				.getContentAsString();
+
+		performAsync(get("/api/payments/search")
+				.param("paymentStatus", "IN_PROGRESS")
+				.param("limit", "2")
+				.param("cursor", objectMapper.readTree(firstPage).get("nextCursor").asText()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.collection.length()").value(1))
+				.andExpect(jsonPath("$.collection[0].paymentStatus").value("IN_PROGRESS"))
+				.andExpect(jsonPath("$.nextCursor").doesNotExist());
+	}
+
+	@Test
+	@DisplayName("Should search payments by order ids and createdAt range")
+	void testSearchPayments_OrderIdsAndRange() throws Exception {
+		// Given
+		createPaymentInDatabase();
+		paymentRepository.save(Payment.builder()
+				.orderId(2)
+				.isPayed(false)
+				.paymentStatus(PaymentStatus.NOT_STARTED)
+				.build());
+
+		// When & Then
+		performAsync(get("/api/payments/search")
+				.param("orderIds", "2,3")
+				.param("isPayed", "false")
+				.param("createdFrom", "2000-01-01T00:00:00Z"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.collection.length()").value(1))
+				.andExpect(jsonPath("$.collection[0].order.orderId").exists());
+		performAsync(get("/api/payments/search")
+				.param("createdTo", "2000-01-01T00:00:00Z"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.collection.length()").value(0));
+	}
+
+	@Test
+	@DisplayName("Should return 400 error for an invalid search limit")
+	void testSearchPayments_InvalidLimit() throws Exception {
+		// When & Then
+		mockMvc.perform(get("/api/payments/search")
+				.param("limit", "0"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	@DisplayName("Should only call ORDER-SERVICE when expand=order is requested")
+	void testGetPaymentById_ExpandOrder() throws Exception {
+		// Given
+		Payment savedPayment = createPaymentInDatabase();
+
+		// When & Then
+		performAsync(get("/api/payments/{paymentId}", savedPayment.getPaymentId()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.order.orderId").value(savedPayment.getOrderId()))
+				.andExpect(jsonPath("$.order.orderDesc").doesNotExist());
+		verify(restTemplate, never()).getForObject(any(String.class), eq(OrderDto.class));
+
+		performAsync(get("/api/payments/{paymentId}", savedPayment.getPaymentId())
+				.param("expand", "order"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.order.orderDesc").value("Test Order"));
+	}
+
+	@Test
+	@DisplayName("Should return 400 error for an unsupported expand value")
+	void testGetPaymentById_UnsupportedExpand() throws Exception {
+		// Given
+		Payment savedPayment = createPaymentInDatabase();
+
+		// When & Then
+		mockMvc.perform(get("/api/payments/{paymentId}", savedPayment.getPaymentId())
+				.param("expand", "user"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	@DisplayName("Should only serialize the requested fields")
+	void testGetPayments_SparseFieldset() throws Exception {
+		// Given
+		Payment savedPayment = createPaymentInDatabase();
+
+		// When & Then
+		performAsync(get("/api/payments/{paymentId}", savedPayment.getPaymentId())
+				.param("fields", "paymentId,paymentStatus"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.paymentId").value(savedPayment.getPaymentId()))
+				.andExpect(jsonPath("$.paymentStatus").value("COMPLETED"))
+				.andExpect(jsonPath("$.isPayed").doesNotExist())
+				.andExpect(jsonPath("$.order").doesNotExist());
+		performAsync(get("/api/payments")
+				.param("fields", "paymentId,isPayed"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.collection[0].paymentId").exists())
+				.andExpect(jsonPath("$.collection[0].isPayed").exists())
+				.andExpect(jsonPath("$.collection[0].paymentStatus").doesNotExist());
+	}
+
+	@Test
+	@DisplayName("Should serve expand=order from the snapshot taken on create, also after an update")
+	void testOrderSnapshot_CapturedOnCreate() throws Exception {
+		// Given
+		PaymentDto paymentDto = PaymentDto.builder()
+				.isPayed(false)
+				.paymentStatus(PaymentStatus.NOT_STARTED)
+				.orderDto(OrderDto.builder().orderId(1).build())
+				.build();
+		String response = mockMvc.perform(post("/api/payments")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(paymentDto)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		Integer paymentId = objectMapper.readTree(response).get("paymentId").asInt();
+
+		paymentDto.setPaymentId(paymentId);
+		paymentDto.setPaymentStatus(PaymentStatus.IN_PROGRESS);
+		mockMvc.perform(put("/api/payments")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(paymentDto)))
+				.andExpect(status().isOk());
+
+		// When & Then
+		performAsync(get("/api/payments/{paymentId}", paymentId)
+				.param("expand", "order"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.paymentStatus").value("IN_PROGRESS"))
+				.andExpect(jsonPath("$.order.orderId").value(1))
+				.andExpect(jsonPath("$.order.orderDesc").value("Test Order"))
+				.andExpect(jsonPath("$.order.orderFee").value(99.99));
+		verify(restTemplate, times(1)).getForObject(any(String.class), eq(OrderDto.class));
+	}
+
+	@Test
+	@DisplayName("Should fetch many payments by id in one request")
+	void testGetPaymentsByIds_Success() throws Exception {
+		// Given
+		Payment payment1 = createPaymentInDatabase();
+		Payment payment2 = createPaymentInDatabase();
+		Integer missingId = payment2.getPaymentId() + 1000;
+
+		// When & Then
+		performAsync(get("/api/payments")
+				.param("ids", payment2.getPaymentId() + "," + missingId + "," + payment1.getPaymentId())
+				.param("expand", "order"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.collection.length()").value(2))
+				.andExpect(jsonPath("$.collection[0].paymentId").value(payment2.getPaymentId()))
+				.andExpect(jsonPath("$.collection[1].paymentId").value(payment1.getPaymentId()))
+				.andExpect(jsonPath("$.collection[0].order.orderDesc").value("Test Order"))
+				.andExpect(jsonPath("$.missingIds[0]").value(missingId));
+		// both payments belong to the same order and have no snapshot: a single remote call
+		verify(restTemplate, times(1)).getForObject(any(String.class), eq(OrderDto.class));
+	}
+
+	@Test
+	@DisplayName("Should return 400 error when too many ids are requested")
+	void testGetPaymentsByIds_TooManyIds() throws Exception {
+		// Given
+		String ids = IntStream.rangeClosed(1, PaymentResource.MAX_IDS_PER_REQUEST + 1)
+				.mapToObj(String::valueOf)
+				.collect(Collectors.joining(","));
+
+		// When & Then
+		mockMvc.perform(get("/api/payments")
+				.param("ids", ids))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	@DisplayName("Should open an SSE stream that starts with the payment's current state")
+	void testStreamPayment_SendsCurrentState() throws Exception {
+		// Given
+		Payment savedPayment = createPaymentInDatabase();
+
+		// When
+		MvcResult result = mockMvc.perform(get("/api/payments/stream")
+				.param("paymentId", savedPayment.getPaymentId().toString())
+				.accept(MediaType.TEXT_EVENT_STREAM))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		// Then - events are written by the stream's sender threads
+		String expected = "\"paymentId\":" + savedPayment.getPaymentId();
+		for (int i = 0; i < 50 && !result.getResponse().getContentAsString().contains(expected); i++)
+			Thread.sleep(20);
+		String body = result.getResponse().getContentAsString();
+		assertTrue(MediaType.TEXT_EVENT_STREAM.isCompatibleWith(MediaType.parseMediaType(result.getResponse().getContentType())));
+		assertTrue(body.startsWith("event:payment\ndata:{"));
+		assertTrue(body.contains("\"changeType\":\"CURRENT\""));
+		assertTrue(body.contains(expected));
+	}
+
+	@Test
+	@DisplayName("Should answer an await request right away when the payment already has the status")
+	void testAwaitPayment_StatusAlreadyReached() throws Exception {
+		// Given
+		Payment savedPayment = createPaymentInDatabase();
+
+		// When
+		MvcResult result = mockMvc.perform(get("/api/payments/{paymentId}/await", savedPayment.getPaymentId())
+				.param("status", "COMPLETED")
+				.param("timeout", "5s"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		// Then
+		mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.paymentId").value(savedPayment.getPaymentId()))
+				.andExpect(jsonPath("$.paymentStatus").value("COMPLETED"));
+	}
+
+	@Test
+	@DisplayName("Should reject an await request with an invalid or too long timeout")
+	void testAwaitPayment_InvalidTimeout() throws Exception {
+		// Given
+		Payment savedPayment = createPaymentInDatabase();
+
+		// When & Then
+		mockMvc.perform(get("/api/payments/{paymentId}/await", savedPayment.getPaymentId())
+				.param("status", "COMPLETED")
+				.param("timeout", "soon"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/payments/{paymentId}/await", savedPayment.getPaymentId())
+				.param("status", "COMPLETED")
+				.param("timeout", "10m"))
+				.andExpect(status().isBadRequest());
+	}
+
+	/**
+	 * Read endpoints answer asynchronously: performs the request, then the async dispatch
+	 * that writes the response.
+	 */
+	private ResultActions performAsync(final MockHttpServletRequestBuilder requestBuilder) throws Exception {
+		MvcResult result = mockMvc.perform(requestBuilder)
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		return mockMvc.perform(asyncDispatch(result));
+	}
+
 	/**
 	 * Helper method to create a payment in the database
 	 */
@@ -0,0 +1,154 @@
+package com.selimhorri.app.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.selimhorri.app.domain.Payment;
+import com.selimhorri.app.domain.PaymentStatus;
+import com.selimhorri.app.dto.PaymentCursor;
+import com.selimhorri.app.dto.PaymentSearchCriteria;
+
+@DisplayName("ShardedPaymentRepository Unit Tests")
+class ShardedPaymentRepositoryTest {
+	
+	private static final int SHARDS = 3;
+	
+	private List<DataSource> dataSources;
+	private ThreadPoolTaskExecutor executor;
+	private ShardedPaymentRepository repository;
+	
+	@BeforeEach
+	void setUp() {
+		dataSources = new ArrayList<>();
+		for (int i = 0; i < SHARDS; i++) {
+			JdbcDataSource dataSource = new JdbcDataSource();
+			dataSource.setURL("jdbc:h2:mem:shard-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+			Flyway.configure().dataSource(dataSource).load().migrate();
+			// the seed rows of V2 don't follow the sharded id scheme
+			new JdbcTemplate(dataSource).update("DELETE FROM payments");
+			dataSources.add(dataSource);
+		}
+		executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(SHARDS);
+		executor.initialize();
+		repository = new ShardedPaymentRepository(dataSources, executor, 2);
+	}
+	
+	@AfterEach
+	void tearDown() {
+		repository.close();
+		dataSources.forEach(dataSource -> new JdbcTemplate(dataSource).execute("DROP ALL OBJECTS"));
+	}
+	
+	@Test
+	@DisplayName("Should store each payment on the shard of its order, under an id unique across shards")
+	void testSave_RoutedByOrderId() {
+		// When
+		List<Payment> saved = new ArrayList<>();
+		for (int orderId = 1; orderId <= 30; orderId++)
+			saved.add(repository.save(payment(orderId)));
+		
+		// Then
+		Set<Integer> ids = saved.stream().map(Payment::getPaymentId).collect(Collectors.toSet());
+		assertEquals(30, ids.size());
+		Set<Integer> usedShards = new HashSet<>();
+		for (Payment payment : saved) {
+			int shard = ShardedPaymentRepository.shardIndexOfOrder(payment.getOrderId(), SHARDS);
+			usedShards.add(shard);
+			assertEquals(shard, payment.getPaymentId() & (ShardedPaymentRepository.MAX_SHARDS - 1));
+			assertEquals(1, new JdbcTemplate(dataSources.get(shard)).queryForObject(
+					"SELECT COUNT(*) FROM payments WHERE payment_id = ?", Integer.class, payment.getPaymentId()));
+		}
+		assertEquals(SHARDS, usedShards.size());
+	}
+	
+	@Test
+	@DisplayName("Should find payments by id, gather them from all shards, update and delete them")
+	void testReadUpdateDelete() {
+		// Given
+		List<Payment> saved = new ArrayList<>();
+		for (int orderId = 1; orderId <= 10; orderId++)
+			saved.add(repository.save(payment(orderId)));
+		Payment first = saved.get(0);
+		
+		// When
+		first.setPaymentStatus(PaymentStatus.COMPLETED);
+		first.setIsPayed(true);
+		Payment updated = repository.save(first);
+		repository.deleteById(saved.get(1).getPaymentId());
+		
+		// Then
+		assertEquals(first.getPaymentId(), updated.getPaymentId());
+		assertEquals(PaymentStatus.COMPLETED, repository.findById(first.getPaymentId()).orElseThrow().getPaymentStatus());
+		assertEquals(first.getCreatedAt(), updated.getCreatedAt());
+		assertFalse(repository.findById(saved.get(1).getPaymentId()).isPresent());
+		assertFalse(repository.findById(15).isPresent());
+		assertEquals(9, repository.findAll().size());
+		assertEquals(Set.of(first.getPaymentId(), saved.get(2).getPaymentId()), 
+				repository.findAllById(List.of(first.getPaymentId(), saved.get(1).getPaymentId(), 
+						saved.get(2).getPaymentId(), -1)).stream()
+						.map(Payment::getPaymentId)
+						.collect(Collectors.toSet()));
+	}
+	
+	@Test
+	@DisplayName("Should page a search across shards in (createdAt, paymentId) order")
+	void testSearch_MergedAcrossShards() {
+		// Given
+		List<Payment> saved = new ArrayList<>();
+		for (int orderId = 1; orderId <= 20; orderId++)
+			saved.add(repository.save(payment(orderId)));
+		PaymentSearchCriteria criteria = PaymentSearchCriteria.builder()
+				.paymentStatus(PaymentStatus.NOT_STARTED)
+				.build();
+		
+		// When
+		List<Payment> pages = new ArrayList<>();
+		PaymentCursor cursor = null;
+		for (List<Payment> page = repository.search(criteria, null, 7); !page.isEmpty();
+				page = repository.search(criteria, cursor, 7)) {
+			pages.addAll(page);
+			cursor = PaymentCursor.of(page.get(page.size() - 1));
+		}
+		
+		// Then
+		assertEquals(saved.stream()
+						.sorted(Comparator.comparing(Payment::getCreatedAt).thenComparing(Payment::getPaymentId))
+						.map(Payment::getPaymentId)
+						.collect(Collectors.toList()), 
+				pages.stream().map(Payment::getPaymentId).collect(Collectors.toList()));
+		assertTrue(repository.search(PaymentSearchCriteria.builder().orderIds(List.of(3, 4)).build(), null, 10)
+				.stream()
+				.allMatch(p -> p.getOrderId() == 3 || p.getOrderId() == 4));
+	}
+	
+	private static Payment payment(final int orderId) {
+		return Payment.builder()
+				.orderId(orderId)
+				.isPayed(false)
+				.paymentStatus(PaymentStatus.NOT_STARTED)
+				.build();
+	}
+	
+}
+
@@ -0,0 +1,138 @@
+package com.selimhorri.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.selimhorri.app.config.snapshot.OrderSnapshotProperties;
+import com.selimhorri.app.domain.Payment;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.repository.PaymentRepository;
+import com.selimhorri.app.service.OrderService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OrderSnapshotServiceImpl Unit Tests")
+class OrderSnapshotServiceImplTest {
+	
+	@Mock
+	private PaymentRepository paymentRepository;
+	
+	@Mock
+	private OrderService orderService;
+	
+	@Mock
+	private PlatformTransactionManager transactionManager;
+	
+	private OrderSnapshotProperties properties;
+	private OrderSnapshotServiceImpl orderSnapshotService;
+	
+	@BeforeEach
+	void setUp() {
+		properties = new OrderSnapshotProperties();
+		properties.setBatchSize(2);
+		properties.setMaxBatchesPerRun(10);
+		orderSnapshotService = new OrderSnapshotServiceImpl(paymentRepository, orderService, 
+				properties, transactionManager, new SimpleMeterRegistry());
+	}
+	
+	@Test
+	@DisplayName("Should fetch each order once per batch and walk payments by id")
+	void testBackfillMissingSnapshots_Batches() {
+		// Given
+		LocalDateTime orderDate = LocalDateTime.of(2026, 1, 1, 10, 0);
+		when(paymentRepository.findWithoutOrderSnapshot(eq(0), any(Pageable.class)))
+				.thenReturn(List.of(payment(1, 7), payment(2, 7)));
+		when(paymentRepository.findWithoutOrderSnapshot(eq(2), any(Pageable.class)))
+				.thenReturn(List.of(payment(3, 8)));
+		when(orderService.findById(7)).thenReturn(OrderDto.builder().orderId(7).orderDate(orderDate).orderDesc("A").orderFee(1.0).build());
+		when(orderService.findById(8)).thenReturn(OrderDto.builder().orderId(8).orderDesc("B").build());
+		when(paymentRepository.updateOrderSnapshot(eq(7), eq(orderDate), eq("A"), eq(1.0), any(Instant.class))).thenReturn(2);
+		when(paymentRepository.updateOrderSnapshot(eq(8), any(), eq("B"), any(), any(Instant.class))).thenReturn(1);
+		
+		// When
+		int updated = orderSnapshotService.backfillMissingSnapshots();
+		
+		// Then
+		assertEquals(3, updated);
+		verify(orderService, times(1)).findById(7);
+		verify(orderService, times(1)).findById(8);
+	}
+	
+	@Test
+	@DisplayName("Should skip orders that cannot be fetched and keep going")
+	void testBackfillMissingSnapshots_OrderServiceUnavailable() {
+		// Given
+		when(paymentRepository.findWithoutOrderSnapshot(eq(0), any(Pageable.class)))
+				.thenReturn(List.of(payment(1, 7), payment(2, 8)));
+		when(paymentRepository.findWithoutOrderSnapshot(eq(2), any(Pageable.class)))
+				.thenReturn(Collections.emptyList());
+		when(orderService.findById(7)).thenThrow(new ResourceAccessException("Connection refused"));
+		when(orderService.findById(8)).thenReturn(OrderDto.builder().orderId(8).orderDesc("B").build());
+		when(paymentRepository.updateOrderSnapshot(eq(8), any(), eq("B"), any(), any(Instant.class))).thenReturn(1);
+		
+		// When
+		int updated = orderSnapshotService.backfillMissingSnapshots();
+		
+		// Then
+		assertEquals(1, updated);
+		verify(paymentRepository, never()).updateOrderSnapshot(eq(7), any(), any(), any(), any());
+	}
+	
+	@Test
+	@DisplayName("Should not refresh snapshots unless enabled")
+	void testRefreshStaleSnapshots_Disabled() {
+		// When
+		int updated = orderSnapshotService.refreshStaleSnapshots();
+		
+		// Then
+		assertEquals(0, updated);
+		verify(paymentRepository, never()).findWithOrderSnapshotBefore(any(), anyInt(), any());
+	}
+	
+	@Test
+	@DisplayName("Should refresh snapshots older than the max age when enabled")
+	void testRefreshStaleSnapshots_Enabled() {
+		// Given
+		properties.getRefresh().setEnabled(true);
+		when(paymentRepository.findWithOrderSnapshotBefore(any(Instant.class), eq(0), any(Pageable.class)))
+				.thenReturn(List.of(payment(5, 9)));
+		when(orderService.findById(9)).thenReturn(OrderDto.builder().orderId(9).orderDesc("C").build());
+		when(paymentRepository.updateOrderSnapshot(eq(9), any(), eq("C"), any(), any(Instant.class))).thenReturn(1);
+		
+		// When
+		int updated = orderSnapshotService.refreshStaleSnapshots();
+		
+		// Then
+		assertEquals(1, updated);
+	}
+	
+	private static Payment payment(final int paymentId, final int orderId) {
+		return Payment.builder()
+				.paymentId(paymentId)
+				.orderId(orderId)
+				.build();
+	}
+	
+}
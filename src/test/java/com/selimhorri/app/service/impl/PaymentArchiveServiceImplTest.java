@@ -0,0 +1,118 @@
+package com.selimhorri.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.selimhorri.app.config.archive.PaymentArchiveProperties;
+import com.selimhorri.app.domain.PaymentStatus;
+import com.selimhorri.app.event.PaymentsArchivedEvent;
+import com.selimhorri.app.repository.PaymentArchiveRepository;
+import com.selimhorri.app.repository.PaymentRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PaymentArchiveServiceImpl Unit Tests")
+class PaymentArchiveServiceImplTest {
+	
+	@Mock
+	private PaymentRepository paymentRepository;
+	
+	@Mock
+	private PaymentArchiveRepository paymentArchiveRepository;
+	
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+	
+	@Mock
+	private PlatformTransactionManager transactionManager;
+	
+	private SimpleMeterRegistry meterRegistry;
+	private PaymentArchiveServiceImpl paymentArchiveService;
+	
+	@BeforeEach
+	void setUp() {
+		PaymentArchiveProperties properties = new PaymentArchiveProperties();
+		properties.setBatchSize(2);
+		properties.setMaxBatchesPerRun(10);
+		meterRegistry = new SimpleMeterRegistry();
+		paymentArchiveService = new PaymentArchiveServiceImpl(paymentRepository, paymentArchiveRepository, 
+				properties, eventPublisher, transactionManager, meterRegistry);
+	}
+	
+	@Test
+	@DisplayName("Should move completed payments in batches until a partial batch")
+	void testArchiveCompletedPayments_Batches() {
+		// Given
+		when(paymentRepository.findIdsByStatusCreatedBefore(eq(PaymentStatus.COMPLETED), any(Instant.class), any(Pageable.class)))
+				.thenReturn(List.of(1, 2)).thenReturn(List.of(3));
+		when(paymentArchiveRepository.copyCompletedFromPayments(anyList(), any(Instant.class)))
+				.thenReturn(2, 1);
+		when(paymentRepository.deleteByIdInAndStatus(anyList(), eq(PaymentStatus.COMPLETED)))
+				.thenReturn(2, 1);
+		
+		// When
+		int archived = paymentArchiveService.archiveCompletedPayments();
+		
+		// Then
+		assertEquals(3, archived);
+		assertEquals(3.0, meterRegistry.counter("payments.archived").count());
+		verify(paymentArchiveRepository, times(1)).copyCompletedFromPayments(eq(List.of(1, 2)), any(Instant.class));
+		verify(paymentArchiveRepository, times(1)).copyCompletedFromPayments(eq(List.of(3)), any(Instant.class));
+		verify(eventPublisher, times(1)).publishEvent(new PaymentsArchivedEvent(List.of(1, 2)));
+		verify(eventPublisher, times(1)).publishEvent(new PaymentsArchivedEvent(List.of(3)));
+	}
+	
+	@Test
+	@DisplayName("Should do nothing when there is no completed payment to archive")
+	void testArchiveCompletedPayments_Nothing() {
+		// Given
+		when(paymentRepository.findIdsByStatusCreatedBefore(eq(PaymentStatus.COMPLETED), any(Instant.class), any(Pageable.class)))
+				.thenReturn(Collections.emptyList());
+		
+		// When
+		int archived = paymentArchiveService.archiveCompletedPayments();
+		
+		// Then
+		assertEquals(0, archived);
+		verify(paymentArchiveRepository, never()).copyCompletedFromPayments(anyList(), any(Instant.class));
+	}
+	
+	@Test
+	@DisplayName("Should fail the batch when a payment changed status while being archived")
+	void testArchiveCompletedPayments_ConcurrentChange() {
+		// Given
+		when(paymentRepository.findIdsByStatusCreatedBefore(eq(PaymentStatus.COMPLETED), any(Instant.class), any(Pageable.class)))
+				.thenReturn(List.of(1, 2));
+		when(paymentArchiveRepository.copyCompletedFromPayments(anyList(), any(Instant.class)))
+				.thenReturn(2);
+		when(paymentRepository.deleteByIdInAndStatus(anyList(), eq(PaymentStatus.COMPLETED)))
+				.thenReturn(1);
+		
+		// When & Then
+		assertThrows(IllegalStateException.class, () -> paymentArchiveService.archiveCompletedPayments());
+	}
+	
+}
+
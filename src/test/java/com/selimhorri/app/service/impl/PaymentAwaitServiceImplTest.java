@@ -0,0 +1,144 @@
+package com.selimhorri.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.selimhorri.app.config.await.PaymentAwaitProperties;
+import com.selimhorri.app.domain.PaymentStatus;
+import com.selimhorri.app.dto.PaymentDto;
+import com.selimhorri.app.event.PaymentChangedEvent;
+import com.selimhorri.app.exception.wrapper.InvalidRequestException;
+import com.selimhorri.app.exception.wrapper.PaymentNotFoundException;
+import com.selimhorri.app.exception.wrapper.RequestRejectedException;
+import com.selimhorri.app.service.PaymentService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PaymentAwaitServiceImpl Unit Tests")
+class PaymentAwaitServiceImplTest {
+	
+	@Mock
+	private PaymentService paymentService;
+	
+	private PaymentAwaitProperties properties;
+	private PaymentAwaitServiceImpl paymentAwaitService;
+	
+	@BeforeEach
+	void setUp() {
+		properties = new PaymentAwaitProperties();
+		properties.setMaxWaiters(2);
+		paymentAwaitService = new PaymentAwaitServiceImpl(paymentService, properties, new SimpleMeterRegistry());
+	}
+	
+	@Test
+	@DisplayName("Should answer right away when the payment already has the status")
+	void testAwait_StatusAlreadyReached() {
+		// Given
+		when(paymentService.findById(1, false)).thenReturn(payment(1, PaymentStatus.COMPLETED));
+		
+		// When
+		DeferredResult<ResponseEntity<PaymentDto>> result =
+				paymentAwaitService.await(1, PaymentStatus.COMPLETED, Duration.ofSeconds(5));
+		
+		// Then
+		assertTrue(result.hasResult());
+		assertEquals(PaymentStatus.COMPLETED, paymentDto(result).getPaymentStatus());
+		assertEquals(0, paymentAwaitService.getWaiterCount());
+	}
+	
+	@Test
+	@DisplayName("Should wake only the waiters of the changed payment whose status was reached")
+	void testOnPaymentChanged_WakesMatchingWaiters() {
+		// Given
+		when(paymentService.findById(1, false)).thenReturn(payment(1, PaymentStatus.NOT_STARTED));
+		when(paymentService.findById(2, false)).thenReturn(payment(2, PaymentStatus.NOT_STARTED));
+		DeferredResult<ResponseEntity<PaymentDto>> completed =
+				paymentAwaitService.await(1, PaymentStatus.COMPLETED, Duration.ofSeconds(5));
+		DeferredResult<ResponseEntity<PaymentDto>> otherPayment =
+				paymentAwaitService.await(2, PaymentStatus.IN_PROGRESS, Duration.ofSeconds(5));
+		
+		// When
+		paymentAwaitService.onPaymentChanged(event(PaymentChangedEvent.ChangeType.UPDATED, 1, PaymentStatus.IN_PROGRESS));
+		paymentAwaitService.onPaymentChanged(event(PaymentChangedEvent.ChangeType.UPDATED, 1, PaymentStatus.COMPLETED));
+		
+		// Then
+		assertTrue(completed.hasResult());
+		assertEquals(PaymentStatus.COMPLETED, paymentDto(completed).getPaymentStatus());
+		assertEquals(5, paymentDto(completed).getOrderDto().getOrderId());
+		assertFalse(otherPayment.hasResult());
+		assertEquals(1, paymentAwaitService.getWaiterCount());
+	}
+	
+	@Test
+	@DisplayName("Should fail waiters with PaymentNotFoundException when the payment is deleted")
+	void testOnPaymentChanged_Deleted() {
+		// Given
+		when(paymentService.findById(1, false)).thenReturn(payment(1, PaymentStatus.NOT_STARTED));
+		DeferredResult<ResponseEntity<PaymentDto>> result =
+				paymentAwaitService.await(1, PaymentStatus.COMPLETED, Duration.ofSeconds(5));
+		
+		// When
+		paymentAwaitService.onPaymentChanged(PaymentChangedEvent.deleted(1, null));
+		
+		// Then
+		assertTrue(result.getResult() instanceof PaymentNotFoundException);
+		assertEquals(0, paymentAwaitService.getWaiterCount());
+	}
+	
+	@Test
+	@DisplayName("Should reject waits beyond max-waiters with 503 and timeouts beyond max-timeout")
+	void testAwait_Rejected() {
+		// Given
+		when(paymentService.findById(1, false)).thenReturn(payment(1, PaymentStatus.NOT_STARTED));
+		paymentAwaitService.await(1, PaymentStatus.COMPLETED, Duration.ofSeconds(5));
+		paymentAwaitService.await(1, PaymentStatus.COMPLETED, Duration.ofSeconds(5));
+		
+		// When
+		RequestRejectedException exception = assertThrows(RequestRejectedException.class, 
+				() -> paymentAwaitService.await(1, PaymentStatus.COMPLETED, Duration.ofSeconds(5)));
+		
+		// Then
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getHttpStatus());
+		assertThrows(InvalidRequestException.class, 
+				() -> paymentAwaitService.await(1, PaymentStatus.COMPLETED, Duration.ofMinutes(5)));
+		assertEquals(2, paymentAwaitService.getWaiterCount());
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static PaymentDto paymentDto(final DeferredResult<ResponseEntity<PaymentDto>> result) {
+		return ((ResponseEntity<PaymentDto>) result.getResult()).getBody();
+	}
+	
+	private static PaymentDto payment(final int paymentId, final PaymentStatus paymentStatus) {
+		return PaymentDto.builder()
+				.paymentId(paymentId)
+				.isPayed(false)
+				.paymentStatus(paymentStatus)
+				.build();
+	}
+	
+	private static PaymentChangedEvent event(final PaymentChangedEvent.ChangeType changeType, 
+			final int paymentId, final PaymentStatus paymentStatus) {
+		return new PaymentChangedEvent(changeType, paymentId, 5, paymentStatus, 
+				paymentStatus == PaymentStatus.COMPLETED, Instant.now());
+	}
+	
+}
+
@@ -0,0 +1,149 @@
+package com.selimhorri.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.selimhorri.app.config.bulkimport.PaymentImportProperties;
+import com.selimhorri.app.dto.PaymentImportReport;
+import com.selimhorri.app.event.PaymentChangedEvent;
+import com.selimhorri.app.event.PaymentsImportedEvent;
+import com.selimhorri.app.exception.wrapper.InvalidRequestException;
+import com.selimhorri.app.repository.ShardedPaymentRepository;
+import com.selimhorri.app.service.PaymentImportService.Format;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PaymentImportServiceImpl Unit Tests")
+class PaymentImportServiceImplTest {
+	
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+	
+	@Mock
+	private ShardedPaymentRepository shardedPaymentRepository;
+	
+	private JdbcTemplate jdbcTemplate;
+	private PaymentImportServiceImpl paymentImportService;
+	
+	@BeforeEach
+	void setUp() {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:import-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+		Flyway.configure().dataSource(dataSource).load().migrate();
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.update("DELETE FROM payments");
+		PaymentImportProperties properties = new PaymentImportProperties();
+		properties.setBatchSize(2);
+		properties.setCommitInterval(3);
+		properties.setMaxReportedErrors(2);
+		paymentImportService = new PaymentImportServiceImpl(dataSource, new DataSourceTransactionManager(dataSource), 
+				eventPublisher, new ObjectMapper(), shardedPaymentRepository, properties, new SimpleMeterRegistry());
+	}
+	
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.execute("DROP ALL OBJECTS");
+	}
+	
+	@Test
+	@DisplayName("Should import valid CSV rows in several commits and report the invalid ones by line")
+	void testImportPayments_Csv() {
+		// Given
+		String csv = "order_id,paymentStatus,isPayed,createdAt\n"
+				+ "1,COMPLETED,,2024-01-15T10:00:00Z\n"
+				+ "2,not_started,false,\n"
+				+ "x,IN_PROGRESS,false,\n"
+				+ "\n"
+				+ "3,\"IN_PROGRESS\",false,\n"
+				+ "4,PAYED,true,\n"
+				+ "5,COMPLETED,yes,\n"
+				+ "6,IN_PROGRESS\n";
+		
+		// When
+		PaymentImportReport report = paymentImportService.importPayments(stream(csv), Format.CSV);
+		
+		// Then
+		assertEquals(4L, report.getImported());
+		assertEquals(3L, report.getRejected());
+		assertEquals(List.of(4L, 7L), report.getErrors().stream()
+				.map(PaymentImportReport.RowError::getLine)
+				.collect(Collectors.toList()));
+		assertEquals("Invalid orderId: x", report.getErrors().get(0).getMessage());
+		assertEquals(List.of("1:COMPLETED:TRUE", "2:NOT_STARTED:FALSE", "3:IN_PROGRESS:FALSE", "6:IN_PROGRESS:FALSE"), 
+				jdbcTemplate.queryForList("SELECT CONCAT(order_id, ':', payment_status, ':', is_payed) FROM payments "
+						+ "ORDER BY payment_id", String.class));
+		assertEquals(2024, jdbcTemplate.queryForObject("SELECT YEAR(created_at) FROM payments WHERE order_id = 1", 
+				Integer.class));
+	}
+	
+	@Test
+	@DisplayName("Should import NDJSON payments shaped like POST bodies and publish one event for the chunk")
+	void testImportPayments_Ndjson() {
+		// Given
+		String ndjson = "{\"isPayed\":false,\"paymentStatus\":\"NOT_STARTED\",\"order\":{\"orderId\":7}}\n"
+				+ "{\"paymentStatus\":\"COMPLETED\",\"orderId\":8}\n"
+				+ "{\"paymentStatus\":\"COMPLETED\",\n"
+				+ "[1,2]\n";
+		
+		// When
+		PaymentImportReport report = paymentImportService.importPayments(stream(ndjson), Format.NDJSON);
+		
+		// Then
+		assertEquals(2L, report.getImported());
+		assertEquals(2L, report.getRejected());
+		assertEquals("Expected a JSON object", report.getErrors().get(1).getMessage());
+		ArgumentCaptor<PaymentsImportedEvent> event = ArgumentCaptor.forClass(PaymentsImportedEvent.class);
+		verify(eventPublisher, times(1)).publishEvent(event.capture());
+		List<PaymentChangedEvent> created = event.getValue().getPayments();
+		assertEquals(jdbcTemplate.queryForList("SELECT payment_id FROM payments ORDER BY payment_id", Integer.class), 
+				created.stream().map(PaymentChangedEvent::getPaymentId).collect(Collectors.toList()));
+		assertEquals(List.of(7, 8), created.stream()
+				.map(PaymentChangedEvent::getOrderId)
+				.collect(Collectors.toList()));
+		assertEquals(PaymentChangedEvent.ChangeType.CREATED, created.get(0).getChangeType());
+		assertEquals(true, created.get(1).getIsPayed());
+	}
+	
+	@Test
+	@DisplayName("Should refuse a CSV whose header lacks a required column, and imports while sharded")
+	void testImportPayments_Refused() {
+		// When / Then
+		assertThrows(InvalidRequestException.class, 
+				() -> paymentImportService.importPayments(stream("orderId,isPayed\n1,true\n"), Format.CSV));
+		when(shardedPaymentRepository.isEnabled()).thenReturn(true);
+		assertThrows(IllegalStateException.class, 
+				() -> paymentImportService.importPayments(stream("{}\n"), Format.NDJSON));
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM payments", Integer.class));
+	}
+	
+	private static InputStream stream(final String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+	
+}
@@ -0,0 +1,162 @@
+package com.selimhorri.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.selimhorri.app.config.index.PaymentIndexProperties;
+import com.selimhorri.app.domain.Payment;
+import com.selimhorri.app.domain.PaymentStatus;
+import com.selimhorri.app.dto.PaymentDto;
+import com.selimhorri.app.dto.PaymentIndexStats;
+import com.selimhorri.app.event.PaymentChangedEvent;
+import com.selimhorri.app.event.PaymentsArchivedEvent;
+import com.selimhorri.app.event.PaymentsImportedEvent;
+import com.selimhorri.app.exception.wrapper.PaymentNotFoundException;
+import com.selimhorri.app.repository.PaymentRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PaymentIndexServiceImpl Unit Tests")
+class PaymentIndexServiceImplTest {
+	
+	@Mock
+	private PaymentRepository paymentRepository;
+	
+	private JdbcTemplate jdbcTemplate;
+	private PaymentIndexServiceImpl paymentIndexService;
+	
+	@BeforeEach
+	void setUp() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:payment_index;DB_CLOSE_DELAY=-1");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE payments (payment_id INT PRIMARY KEY, order_id INT, "
+				+ "is_payed BOOLEAN, payment_status VARCHAR(255))");
+		jdbcTemplate.update("INSERT INTO payments VALUES (1, 7, FALSE, 'NOT_STARTED'), (2, 7, TRUE, 'COMPLETED'), "
+				+ "(3, 8, NULL, 'IN_PROGRESS'), (4, NULL, FALSE, 'NOT_STARTED')");
+		PaymentIndexProperties properties = new PaymentIndexProperties();
+		properties.setExpectedSize(4);
+		paymentIndexService = new PaymentIndexServiceImpl(dataSource, paymentRepository, properties, 
+				new SimpleMeterRegistry());
+		paymentIndexService.load();
+	}
+	
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.execute("DROP TABLE payments");
+	}
+	
+	@Test
+	@DisplayName("Should load the latest payment of each order, skipping payments without an order")
+	void testLoad_IndexesLatestPaymentPerOrder() {
+		// When
+		PaymentDto latest = paymentIndexService.findByOrderId(7);
+		PaymentDto unknownIsPayed = paymentIndexService.findByOrderId(8);
+		PaymentIndexStats stats = paymentIndexService.getStats();
+		
+		// Then
+		assertEquals(2, latest.getPaymentId());
+		assertEquals(PaymentStatus.COMPLETED, latest.getPaymentStatus());
+		assertEquals(true, latest.getIsPayed());
+		assertEquals(7, latest.getOrderDto().getOrderId());
+		assertNull(unknownIsPayed.getIsPayed());
+		assertEquals(2, stats.getOrders());
+		assertEquals(3, stats.getPayments());
+		assertThrows(PaymentNotFoundException.class, () -> paymentIndexService.findByOrderId(9));
+	}
+	
+	@Test
+	@DisplayName("Should apply committed changes, ignoring updates of an order's older payments")
+	void testOnPaymentChanged_UpdatesEntries() {
+		// When
+		paymentIndexService.onPaymentChanged(event(PaymentChangedEvent.ChangeType.UPDATED, 1, 7, PaymentStatus.IN_PROGRESS));
+		paymentIndexService.onPaymentChanged(event(PaymentChangedEvent.ChangeType.CREATED, 5, 9, PaymentStatus.NOT_STARTED));
+		paymentIndexService.onPaymentChanged(event(PaymentChangedEvent.ChangeType.UPDATED, 3, 8, PaymentStatus.COMPLETED));
+		
+		// Then
+		assertEquals(2, paymentIndexService.findByOrderId(7).getPaymentId());
+		assertEquals(5, paymentIndexService.findByOrderId(9).getPaymentId());
+		assertEquals(PaymentStatus.COMPLETED, paymentIndexService.findByOrderId(8).getPaymentStatus());
+		verify(paymentRepository, never()).findFirstByOrderIdOrderByPaymentIdDesc(7);
+	}
+	
+	@Test
+	@DisplayName("Should fall back to the order's previous payment when its latest one is deleted or moved")
+	void testOnPaymentChanged_ReloadsDisplacedOrder() {
+		// Given
+		when(paymentRepository.findFirstByOrderIdOrderByPaymentIdDesc(7)).thenReturn(Optional.of(Payment.builder()
+				.paymentId(1)
+				.orderId(7)
+				.isPayed(false)
+				.paymentStatus(PaymentStatus.NOT_STARTED)
+				.build()));
+		when(paymentRepository.findFirstByOrderIdOrderByPaymentIdDesc(8)).thenReturn(Optional.empty());
+		
+		// When
+		paymentIndexService.onPaymentChanged(PaymentChangedEvent.deleted(2, 7));
+		paymentIndexService.onPaymentChanged(event(PaymentChangedEvent.ChangeType.UPDATED, 3, 9, PaymentStatus.IN_PROGRESS));
+		
+		// Then
+		assertEquals(1, paymentIndexService.findByOrderId(7).getPaymentId());
+		assertEquals(3, paymentIndexService.findByOrderId(9).getPaymentId());
+		assertThrows(PaymentNotFoundException.class, () -> paymentIndexService.findByOrderId(8));
+	}
+	
+	@Test
+	@DisplayName("Should index the payments of an imported chunk as the latest of their orders")
+	void testOnPaymentsImported() {
+		// When
+		paymentIndexService.onPaymentsImported(new PaymentsImportedEvent(List.of(
+				event(PaymentChangedEvent.ChangeType.CREATED, 5, 7, PaymentStatus.COMPLETED), 
+				event(PaymentChangedEvent.ChangeType.CREATED, 6, 9, PaymentStatus.NOT_STARTED))));
+		
+		// Then
+		assertEquals(5, paymentIndexService.findByOrderId(7).getPaymentId());
+		assertEquals(true, paymentIndexService.findByOrderId(7).getIsPayed());
+		assertEquals(6, paymentIndexService.findByOrderId(9).getPaymentId());
+		assertEquals(5, paymentIndexService.getStats().getPayments());
+	}
+	
+	@Test
+	@DisplayName("Should drop archived payments, falling back to the order's latest payment left in payments")
+	void testOnPaymentsArchived() {
+		// Given
+		when(paymentRepository.findFirstByOrderIdOrderByPaymentIdDesc(7)).thenReturn(Optional.empty());
+		
+		// When
+		paymentIndexService.onPaymentsArchived(new PaymentsArchivedEvent(List.of(1, 2)));
+		
+		// Then
+		assertThrows(PaymentNotFoundException.class, () -> paymentIndexService.findByOrderId(7));
+		assertEquals(3, paymentIndexService.findByOrderId(8).getPaymentId());
+		assertEquals(1, paymentIndexService.getStats().getPayments());
+		verify(paymentRepository, times(1)).findFirstByOrderIdOrderByPaymentIdDesc(7);
+	}
+	
+	private static PaymentChangedEvent event(final PaymentChangedEvent.ChangeType changeType, final int paymentId, 
+			final int orderId, final PaymentStatus paymentStatus) {
+		return new PaymentChangedEvent(changeType, paymentId, orderId, paymentStatus, 
+				paymentStatus == PaymentStatus.COMPLETED, Instant.now());
+	}
+	
+}
+
@@ -2,6 +2,7 @@ package com.selimhorri.app.service.impl;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -11,27 +12,51 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.web.client.ResourceAccessException;
 
-import com.selimhorri.app.constant.AppConstant;
+import com.selimhorri.app.config.cache.InJvmPaymentCacheInvalidationBroadcaster;
+import com.selimhorri.app.config.cache.PaymentCacheProperties;
+import com.selimhorri.app.config.cache.PaymentNearCache;
+import com.selimhorri.app.config.existence.PaymentExistenceFilter;
 import com.selimhorri.app.domain.Payment;
+import com.selimhorri.app.domain.PaymentArchive;
 import com.selimhorri.app.domain.PaymentStatus;
 import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.PaymentCursor;
 import com.selimhorri.app.dto.PaymentDto;
+import com.selimhorri.app.dto.PaymentSearchCriteria;
+import com.selimhorri.app.dto.response.collection.DtoBatchCollectionResponse;
+import com.selimhorri.app.dto.response.collection.DtoCursorCollectionResponse;
+import com.selimhorri.app.event.PaymentChangedEvent;
+import com.selimhorri.app.exception.wrapper.InvalidRequestException;
 import com.selimhorri.app.exception.wrapper.PaymentNotFoundException;
+import com.selimhorri.app.repository.PaymentArchiveRepository;
 import com.selimhorri.app.repository.PaymentRepository;
+import com.selimhorri.app.repository.ShardedPaymentRepository;
+import com.selimhorri.app.service.OrderService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("PaymentServiceImpl Unit Tests")
@@ -41,7 +66,23 @@ class PaymentServiceImplTest {
 	private PaymentRepository paymentRepository;
 	
 	@Mock
-	private RestTemplate restTemplate;
+	private PaymentArchiveRepository paymentArchiveRepository;
+	
+	@Mock
+	private OrderService orderService;
+	
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+	
+	@Spy
+	private PaymentNearCache paymentNearCache = new PaymentNearCache(new PaymentCacheProperties(), 
+			new InJvmPaymentCacheInvalidationBroadcaster(), new SimpleMeterRegistry());
+	
+	@Mock
+	private PaymentExistenceFilter paymentExistenceFilter;
+	
+	@Mock
+	private ShardedPaymentRepository shardedPaymentRepository;
 	
 	@InjectMocks
 	private PaymentServiceImpl paymentService;
@@ -79,9 +120,7 @@ class PaymentServiceImplTest {
 		// Given
 		List<Payment> payments = Arrays.asList(testPayment);
 		when(paymentRepository.findAll()).thenReturn(payments);
-		when(restTemplate.getForObject(
-				eq(AppConstant.DiscoveredDomainsApi.ORDER_SERVICE_API_URL + "/1"),
-				eq(OrderDto.class)))
+		when(orderService.findById(1))
 				.thenReturn(testOrderDto);
 		
 		// When
@@ -94,9 +133,7 @@ class PaymentServiceImplTest {
 		assertNotNull(result.get(0).getOrderDto());
 		assertEquals(1, result.get(0).getOrderDto().getOrderId());
 		verify(paymentRepository, times(1)).findAll();
-		verify(restTemplate, times(1)).getForObject(
-				eq(AppConstant.DiscoveredDomainsApi.ORDER_SERVICE_API_URL + "/1"),
-				eq(OrderDto.class));
+		verify(orderService, times(1)).findById(1);
 	}
 	
 	@Test
@@ -112,7 +149,7 @@ class PaymentServiceImplTest {
 		assertNotNull(result);
 		assertTrue(result.isEmpty());
 		verify(paymentRepository, times(1)).findAll();
-		verify(restTemplate, never()).getForObject(any(String.class), any(Class.class));
+		verify(orderService, never()).findById(any());
 	}
 	
 	@Test
@@ -120,9 +157,7 @@ class PaymentServiceImplTest {
 	void testFindById_Success() {
 		// Given
 		when(paymentRepository.findById(1)).thenReturn(Optional.of(testPayment));
-		when(restTemplate.getForObject(
-				eq(AppConstant.DiscoveredDomainsApi.ORDER_SERVICE_API_URL + "/1"),
-				eq(OrderDto.class)))
+		when(orderService.findById(1))
 				.thenReturn(testOrderDto);
 		
 		// When
@@ -135,9 +170,38 @@ class PaymentServiceImplTest {
 		assertEquals(PaymentStatus.COMPLETED, result.getPaymentStatus());
 		assertTrue(result.getIsPayed());
 		verify(paymentRepository, times(1)).findById(1);
-		verify(restTemplate, times(1)).getForObject(
-				eq(AppConstant.DiscoveredDomainsApi.ORDER_SERVICE_API_URL + "/1"),
-				eq(OrderDto.class));
+		verify(orderService, times(1)).findById(1);
+	}
+	
+	@Test
+	@DisplayName("Should not call ORDER-SERVICE when order expansion is not requested")
+	void testFindById_WithoutOrderExpansion() {
+		// Given
+		when(paymentRepository.findById(1)).thenReturn(Optional.of(testPayment));
+		
+		// When
+		PaymentDto result = paymentService.findById(1, false);
+		
+		// Then
+		assertEquals(1, result.getPaymentId());
+		assertEquals(1, result.getOrderDto().getOrderId());
+		assertNull(result.getOrderDto().getOrderDesc());
+		verify(orderService, never()).findById(any());
+	}
+	
+	@Test
+	@DisplayName("Should list payments without calling ORDER-SERVICE when order expansion is not requested")
+	void testFindAll_WithoutOrderExpansion() {
+		// Given
+		when(paymentRepository.findAll()).thenReturn(List.of(testPayment));
+		
+		// When
+		List<PaymentDto> result = paymentService.findAll(false);
+		
+		// Then
+		assertEquals(1, result.size());
+		assertEquals(1, result.get(0).getOrderDto().getOrderId());
+		verify(orderService, never()).findById(any());
 	}
 	
 	@Test
@@ -148,13 +212,107 @@ class PaymentServiceImplTest {
 		
 		// When & Then
 		PaymentNotFoundException exception = assertThrows(
-				PaymentNotFoundException.class,
+				PaymentNotFoundException.class, 
 				() -> paymentService.findById(999)
 		);
 		
 		assertTrue(exception.getMessage().contains("Payment with id: 999 not found"));
 		verify(paymentRepository, times(1)).findById(999);
-		verify(restTemplate, never()).getForObject(any(String.class), any(Class.class));
+		verify(orderService, never()).findById(any());
+	}
+	
+	@Test
+	@DisplayName("Should answer ids ruled out by the existence filter without a query or a stack trace")
+	void testFindById_RuledOutByExistenceFilter() {
+		// Given
+		when(paymentExistenceFilter.isDefinitelyAbsent(999)).thenReturn(true);
+		
+		// When & Then
+		PaymentNotFoundException exception = assertThrows(
+				PaymentNotFoundException.class, 
+				() -> paymentService.findById(999)
+		);
+		
+		assertTrue(exception.getMessage().contains("Payment with id: 999 not found"));
+		assertEquals(0, exception.getStackTrace().length);
+		verify(paymentRepository, never()).findById(any());
+		verify(paymentArchiveRepository, never()).findById(any());
+	}
+	
+	@Test
+	@DisplayName("Should fall back to the archive when payment is not in the hot table")
+	void testFindById_FromArchive() {
+		// Given
+		PaymentArchive archivedPayment = PaymentArchive.builder()
+				.paymentId(1)
+				.orderId(1)
+				.isPayed(true)
+				.paymentStatus(PaymentStatus.COMPLETED)
+				.build();
+		when(paymentRepository.findById(1)).thenReturn(Optional.empty());
+		when(paymentArchiveRepository.findById(1)).thenReturn(Optional.of(archivedPayment));
+		when(orderService.findById(1))
+				.thenReturn(testOrderDto);
+		
+		// When
+		PaymentDto result = paymentService.findById(1);
+		
+		// Then
+		assertNotNull(result);
+		assertEquals(1, result.getPaymentId());
+		assertEquals(PaymentStatus.COMPLETED, result.getPaymentStatus());
+		assertEquals("Test Order", result.getOrderDto().getOrderDesc());
+		verify(paymentArchiveRepository, times(1)).findById(1);
+	}
+	
+	@Test
+	@DisplayName("Should return a search page with a next cursor when more rows exist")
+	void testSearch_HasNextPage() {
+		// Given
+		Instant createdAt = Instant.parse("2026-01-01T10:00:00Z");
+		Payment payment1 = Payment.builder().paymentId(1).orderId(1).paymentStatus(PaymentStatus.IN_PROGRESS).build();
+		payment1.setCreatedAt(createdAt);
+		Payment payment2 = Payment.builder().paymentId(2).orderId(1).paymentStatus(PaymentStatus.IN_PROGRESS).build();
+		payment2.setCreatedAt(createdAt);
+		when(paymentRepository.findAll(any(Specification.class), any(Sort.class), eq(2)))
+				.thenReturn(List.of(payment1, payment2));
+		when(orderService.findById(any())).thenReturn(testOrderDto);
+		
+		// When
+		DtoCursorCollectionResponse<PaymentDto> result = paymentService.search(PaymentSearchCriteria.builder()
+				.paymentStatus(PaymentStatus.IN_PROGRESS)
+				.limit(1)
+				.build(), true);
+		
+		// Then
+		assertEquals(1, result.getCollection().size());
+		assertEquals(new PaymentCursor(createdAt, 1), PaymentCursor.decode(result.getNextCursor()));
+	}
+	
+	@Test
+	@DisplayName("Should return the last search page without a next cursor")
+	void testSearch_LastPage() {
+		// Given
+		when(paymentRepository.findAll(any(Specification.class), any(Sort.class), eq(51)))
+				.thenReturn(List.of(testPayment));
+		when(orderService.findById(any())).thenReturn(testOrderDto);
+		
+		// When
+		DtoCursorCollectionResponse<PaymentDto> result = paymentService.search(PaymentSearchCriteria.builder()
+				.cursor(new PaymentCursor(Instant.parse("2026-01-01T10:00:00Z"), 10).encode())
+				.build(), true);
+		
+		// Then
+		assertEquals(1, result.getCollection().size());
+		assertNull(result.getNextCursor());
+	}
+	
+	@Test
+	@DisplayName("Should reject a malformed search cursor")
+	void testSearch_InvalidCursor() {
+		// When & Then
+		assertThrows(InvalidRequestException.class, 
+				() -> paymentService.search(PaymentSearchCriteria.builder().cursor("not-a-cursor").build(), false));
 	}
 	
 	@Test
@@ -217,6 +375,54 @@ class PaymentServiceImplTest {
 		verify(paymentRepository, times(1)).save(any(Payment.class));
 	}
 	
+	@Test
+	@DisplayName("Should refuse to update an archived payment rather than insert it again")
+	void testUpdate_Archived() {
+		// Given
+		when(paymentRepository.findById(1)).thenReturn(Optional.empty());
+		when(paymentArchiveRepository.existsById(1)).thenReturn(true);
+		
+		// When / Then
+		assertThrows(IllegalStateException.class, () -> paymentService.update(testPaymentDto));
+		verify(paymentRepository, never()).save(any(Payment.class));
+		verify(eventPublisher, never()).publishEvent(any());
+	}
+	
+	@Test
+	@DisplayName("Should publish a change event for each write")
+	void testWrites_PublishPaymentChangedEvents() {
+		// Given
+		Payment updatedPayment = Payment.builder()
+				.paymentId(1)
+				.orderId(3)
+				.isPayed(true)
+				.paymentStatus(PaymentStatus.COMPLETED)
+				.build();
+		when(paymentRepository.save(any(Payment.class))).thenReturn(updatedPayment);
+		when(paymentRepository.findById(1)).thenReturn(Optional.of(updatedPayment));
+		ArgumentCaptor<PaymentChangedEvent> eventCaptor = ArgumentCaptor.forClass(PaymentChangedEvent.class);
+		
+		// When
+		paymentService.update(PaymentDto.builder()
+				.paymentId(1)
+				.isPayed(true)
+				.paymentStatus(PaymentStatus.COMPLETED)
+				.orderDto(OrderDto.builder().orderId(3).build())
+				.build());
+		paymentService.deleteById(1);
+		
+		// Then
+		verify(eventPublisher, times(2)).publishEvent(eventCaptor.capture());
+		PaymentChangedEvent updated = eventCaptor.getAllValues().get(0);
+		assertEquals(PaymentChangedEvent.ChangeType.UPDATED, updated.getChangeType());
+		assertEquals(1, updated.getPaymentId());
+		assertEquals(3, updated.getOrderId());
+		assertEquals(PaymentStatus.COMPLETED, updated.getPaymentStatus());
+		PaymentChangedEvent deleted = eventCaptor.getAllValues().get(1);
+		assertEquals(PaymentChangedEvent.ChangeType.DELETED, deleted.getChangeType());
+		assertEquals(3, deleted.getOrderId());
+	}
+	
 	@Test
 	@DisplayName("Should delete payment by id successfully")
 	void testDeleteById_Success() {
@@ -230,6 +436,26 @@ class PaymentServiceImplTest {
 		verify(paymentRepository, times(1)).deleteById(1);
 	}
 	
+	@Test
+	@DisplayName("Should delete archived payment from the archive")
+	void testDeleteById_Archived() {
+		// Given
+		when(paymentArchiveRepository.findById(1)).thenReturn(Optional.of(PaymentArchive.builder()
+				.paymentId(1)
+				.orderId(5)
+				.build()));
+		ArgumentCaptor<PaymentChangedEvent> eventCaptor = ArgumentCaptor.forClass(PaymentChangedEvent.class);
+		
+		// When
+		paymentService.deleteById(1);
+		
+		// Then
+		verify(paymentArchiveRepository, times(1)).deleteById(1);
+		verify(paymentRepository, never()).deleteById(any());
+		verify(eventPublisher).publishEvent(eventCaptor.capture());
+		assertEquals(5, eventCaptor.getValue().getOrderId());
+	}
+	
 	@Test
 	@DisplayName("Should handle multiple payments and return distinct list")
 	void testFindAll_MultiplePayments() {
@@ -249,13 +475,9 @@ class PaymentServiceImplTest {
 				.orderDesc("Another Order")
 				.build();
 		
-		when(restTemplate.getForObject(
-				eq(AppConstant.DiscoveredDomainsApi.ORDER_SERVICE_API_URL + "/1"),
-				eq(OrderDto.class)))
+		when(orderService.findById(1))
 				.thenReturn(testOrderDto);
-		when(restTemplate.getForObject(
-				eq(AppConstant.DiscoveredDomainsApi.ORDER_SERVICE_API_URL + "/2"),
-				eq(OrderDto.class)))
+		when(orderService.findById(2))
 				.thenReturn(orderDto2);
 		
 		// When
@@ -270,6 +492,211 @@ class PaymentServiceImplTest {
 		assertEquals(2, result.get(1).getOrderDto().getOrderId());
 		verify(paymentRepository, times(1)).findAll();
 	}
-
+	
+	@Test
+	@DisplayName("Should capture the order snapshot when saving a payment")
+	void testSave_CapturesOrderSnapshot() {
+		// Given
+		LocalDateTime orderDate = LocalDateTime.of(2026, 1, 1, 10, 0);
+		PaymentDto newPaymentDto = PaymentDto.builder()
+				.isPayed(false)
+				.paymentStatus(PaymentStatus.NOT_STARTED)
+				.orderDto(OrderDto.builder().orderId(1).build())
+				.build();
+		when(orderService.findById(1)).thenReturn(OrderDto.builder()
+				.orderId(1)
+				.orderDate(orderDate)
+				.orderDesc("Test Order")
+				.orderFee(99.99)
+				.build());
+		when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		
+		// When
+		PaymentDto result = paymentService.save(newPaymentDto);
+		
+		// Then
+		ArgumentCaptor<Payment> captor = ArgumentCaptor.forClass(Payment.class);
+		verify(paymentRepository).save(captor.capture());
+		assertEquals(orderDate, captor.getValue().getOrderDate());
+		assertEquals("Test Order", captor.getValue().getOrderDesc());
+		assertEquals(99.99, captor.getValue().getOrderFee());
+		assertNotNull(captor.getValue().getOrderSnapshotAt());
+		assertEquals("Test Order", result.getOrderDto().getOrderDesc());
+	}
+	
+	@Test
+	@DisplayName("Should save a payment without snapshot when ORDER-SERVICE is unavailable")
+	void testSave_OrderServiceUnavailable() {
+		// Given
+		PaymentDto newPaymentDto = PaymentDto.builder()
+				.isPayed(false)
+				.paymentStatus(PaymentStatus.NOT_STARTED)
+				.orderDto(OrderDto.builder().orderId(1).build())
+				.build();
+		when(orderService.findById(1)).thenThrow(new ResourceAccessException("Connection refused"));
+		when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		
+		// When
+		PaymentDto result = paymentService.save(newPaymentDto);
+		
+		// Then
+		assertEquals(1, result.getOrderDto().getOrderId());
+		ArgumentCaptor<Payment> captor = ArgumentCaptor.forClass(Payment.class);
+		verify(paymentRepository).save(captor.capture());
+		assertNull(captor.getValue().getOrderSnapshotAt());
+	}
+	
+	@Test
+	@DisplayName("Should save a payment without snapshot when no ORDER-SERVICE instance is registered")
+	void testSave_NoOrderServiceInstances() {
+		// Given
+		PaymentDto newPaymentDto = PaymentDto.builder()
+				.isPayed(false)
+				.paymentStatus(PaymentStatus.NOT_STARTED)
+				.orderDto(OrderDto.builder().orderId(1).build())
+				.build();
+		when(orderService.findById(1)).thenThrow(new IllegalStateException("No instances available for ORDER-SERVICE"));
+		when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		
+		// When
+		PaymentDto result = paymentService.save(newPaymentDto);
+		
+		// Then
+		assertEquals(1, result.getOrderDto().getOrderId());
+		ArgumentCaptor<Payment> captor = ArgumentCaptor.forClass(Payment.class);
+		verify(paymentRepository).save(captor.capture());
+		assertNull(captor.getValue().getOrderSnapshotAt());
+	}
+	
+	@Test
+	@DisplayName("Should keep the stored order snapshot when updating a payment")
+	void testUpdate_KeepsOrderSnapshot() {
+		// Given
+		Instant snapshotAt = Instant.parse("2026-01-01T10:00:00Z");
+		testPayment.setOrderDesc("Test Order");
+		testPayment.setOrderSnapshotAt(snapshotAt);
+		when(paymentRepository.findById(1)).thenReturn(Optional.of(testPayment));
+		when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		
+		// When
+		paymentService.update(PaymentDto.builder()
+				.paymentId(1)
+				.isPayed(false)
+				.paymentStatus(PaymentStatus.IN_PROGRESS)
+				.orderDto(OrderDto.builder().orderId(1).build())
+				.build());
+		
+		// Then
+		ArgumentCaptor<Payment> captor = ArgumentCaptor.forClass(Payment.class);
+		verify(paymentRepository).save(captor.capture());
+		assertEquals(PaymentStatus.IN_PROGRESS, captor.getValue().getPaymentStatus());
+		assertEquals("Test Order", captor.getValue().getOrderDesc());
+		assertEquals(snapshotAt, captor.getValue().getOrderSnapshotAt());
+	}
+	
+	@Test
+	@DisplayName("Should update a stored payment without an order, giving it one")
+	void testUpdate_StoredWithoutOrder() {
+		// Given
+		testPayment.setOrderId(null);
+		when(paymentRepository.findById(1)).thenReturn(Optional.of(testPayment));
+		when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		
+		// When
+		PaymentDto result = paymentService.update(testPaymentDto);
+		
+		// Then
+		assertEquals(1, result.getOrderDto().getOrderId());
+		assertNull(result.getOrderDto().getOrderDesc());
+	}
+	
+	@Test
+	@DisplayName("Should expand the order from the snapshot without calling ORDER-SERVICE")
+	void testFindById_ExpandFromSnapshot() {
+		// Given
+		testPayment.setOrderDesc("Test Order");
+		testPayment.setOrderFee(99.99);
+		testPayment.setOrderSnapshotAt(Instant.parse("2026-01-01T10:00:00Z"));
+		when(paymentRepository.findById(1)).thenReturn(Optional.of(testPayment));
+		
+		// When
+		PaymentDto result = paymentService.findById(1, true);
+		
+		// Then
+		assertEquals(1, result.getOrderDto().getOrderId());
+		assertEquals("Test Order", result.getOrderDto().getOrderDesc());
+		assertEquals(99.99, result.getOrderDto().getOrderFee());
+		verify(orderService, never()).findById(any());
+	}
+	
+	@Test
+	@DisplayName("Should only return the order id from a snapshot when expansion is not requested")
+	void testFindById_SnapshotWithoutOrderExpansion() {
+		// Given
+		testPayment.setOrderDesc("Test Order");
+		testPayment.setOrderSnapshotAt(Instant.parse("2026-01-01T10:00:00Z"));
+		when(paymentRepository.findById(1)).thenReturn(Optional.of(testPayment));
+		
+		// When
+		PaymentDto result = paymentService.findById(1, false);
+		
+		// Then
+		assertEquals(1, result.getOrderDto().getOrderId());
+		assertNull(result.getOrderDto().getOrderDesc());
+	}
+	
+	@Test
+	@DisplayName("Should return payments by ids in requested order and report missing ids")
+	void testFindAllById_RequestedOrderAndMissing() {
+		// Given
+		Payment payment3 = Payment.builder()
+				.paymentId(3)
+				.orderId(1)
+				.isPayed(false)
+				.paymentStatus(PaymentStatus.IN_PROGRESS)
+				.build();
+		PaymentArchive archivedPayment = PaymentArchive.builder()
+				.paymentId(4)
+				.orderId(1)
+				.paymentStatus(PaymentStatus.COMPLETED)
+				.build();
+		when(paymentRepository.findAllById(List.of(3, 1, 4, 2))).thenReturn(List.of(testPayment, payment3));
+		when(paymentArchiveRepository.findAllById(List.of(4, 2))).thenReturn(List.of(archivedPayment));
+		when(orderService.findById(1)).thenReturn(testOrderDto);
+		
+		// When
+		DtoBatchCollectionResponse<PaymentDto> result = paymentService.findAllById(List.of(3, 1, 4, 3, 2), true);
+		
+		// Then
+		assertEquals(List.of(3, 1, 4), result.getCollection().stream()
+				.map(PaymentDto::getPaymentId)
+				.collect(Collectors.toList()));
+		assertEquals(List.of(2), result.getMissingIds());
+		assertTrue(result.getCollection().stream()
+				.allMatch(p -> "Test Order".equals(p.getOrderDto().getOrderDesc())));
+		verify(orderService, times(1)).findById(1);
+	}
+	
+	@Test
+	@DisplayName("Should query payments by ids in bounded IN-query chunks")
+	void testFindAllById_Chunks() {
+		// Given
+		List<Integer> ids = IntStream.rangeClosed(1, PaymentServiceImpl.IN_QUERY_CHUNK_SIZE + 50)
+				.boxed()
+				.collect(Collectors.toList());
+		when(paymentRepository.findAllById(any())).thenReturn(Collections.emptyList());
+		when(paymentArchiveRepository.findAllById(any())).thenReturn(Collections.emptyList());
+		
+		// When
+		DtoBatchCollectionResponse<PaymentDto> result = paymentService.findAllById(ids, false);
+		
+		// Then
+		assertTrue(result.getCollection().isEmpty());
+		assertEquals(ids, result.getMissingIds());
+		verify(paymentRepository, times(1)).findAllById(ids.subList(0, PaymentServiceImpl.IN_QUERY_CHUNK_SIZE));
+		verify(paymentRepository, times(1)).findAllById(ids.subList(PaymentServiceImpl.IN_QUERY_CHUNK_SIZE, ids.size()));
+		verify(paymentArchiveRepository, times(2)).findAllById(any());
+		verify(orderService, never()).findById(any());
+	}
+	
 }
-
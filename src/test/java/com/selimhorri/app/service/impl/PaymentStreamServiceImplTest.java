@@ -0,0 +1,158 @@
+package com.selimhorri.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.selimhorri.app.config.stream.PaymentStreamProperties;
+import com.selimhorri.app.domain.PaymentStatus;
+import com.selimhorri.app.event.PaymentChangedEvent;
+import com.selimhorri.app.exception.wrapper.RequestRejectedException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("PaymentStreamServiceImpl Unit Tests")
+class PaymentStreamServiceImplTest {
+	
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private PaymentStreamProperties properties;
+	private SimpleMeterRegistry meterRegistry;
+	private List<Runnable> pendingSends;
+	
+	@BeforeEach
+	void setUp() {
+		properties = new PaymentStreamProperties();
+		properties.setBufferSize(2);
+		properties.setMaxSubscribers(2);
+		meterRegistry = new SimpleMeterRegistry();
+		pendingSends = new ArrayList<>();
+	}
+	
+	@Test
+	@DisplayName("Should push an event only to subscribers whose filter matches")
+	void testOnPaymentChanged_Filters() throws JsonProcessingException {
+		// Given
+		PaymentStreamServiceImpl streamService = streamService(Runnable::run);
+		RecordingEmitter byPayment = (RecordingEmitter) streamService.subscribe(1, null, () -> null);
+		RecordingEmitter byOtherOrder = (RecordingEmitter) streamService.subscribe(null, 9, () -> null);
+		PaymentChangedEvent event = event(PaymentChangedEvent.ChangeType.UPDATED, 1, 5);
+		
+		// When
+		streamService.onPaymentChanged(event);
+		
+		// Then
+		assertEquals(List.of(objectMapper.writeValueAsString(event)), byPayment.sent);
+		assertTrue(byOtherOrder.sent.isEmpty());
+	}
+	
+	@Test
+	@DisplayName("Should send the current state before any change")
+	void testSubscribe_SendsCurrentState() throws JsonProcessingException {
+		// Given
+		PaymentStreamServiceImpl streamService = streamService(Runnable::run);
+		PaymentChangedEvent current = event(PaymentChangedEvent.ChangeType.CURRENT, 1, 5);
+		PaymentChangedEvent completed = event(PaymentChangedEvent.ChangeType.UPDATED, 1, 5);
+		
+		// When
+		RecordingEmitter emitter = (RecordingEmitter) streamService.subscribe(1, null, () -> current);
+		streamService.onPaymentChanged(completed);
+		
+		// Then
+		assertEquals(List.of(objectMapper.writeValueAsString(current), objectMapper.writeValueAsString(completed)), 
+				emitter.sent);
+	}
+	
+	@Test
+	@DisplayName("Should evict a subscriber whose buffer is full and complete its stream from the sender")
+	void testOnPaymentChanged_EvictsSlowSubscriber() {
+		// Given
+		PaymentStreamServiceImpl streamService = streamService(pendingSends::add);
+		RecordingEmitter emitter = (RecordingEmitter) streamService.subscribe(1, null, () -> null);
+		
+		// When
+		for (int i = 0; i < 3; i++)
+			streamService.onPaymentChanged(event(PaymentChangedEvent.ChangeType.UPDATED, 1, 5));
+		
+		// Then
+		assertEquals(0, streamService.getSubscriberCount());
+		assertEquals(1.0, meterRegistry.get("payments.stream.evictions").counter().count());
+		assertEquals(1, pendingSends.size());
+		pendingSends.get(0).run();
+		assertTrue(emitter.sent.isEmpty());
+		assertTrue(emitter.completed);
+	}
+	
+	@Test
+	@DisplayName("Should reject subscriptions beyond max-subscribers with 503")
+	void testSubscribe_TooManySubscribers() {
+		// Given
+		PaymentStreamServiceImpl streamService = streamService(Runnable::run);
+		streamService.subscribe(null, null, () -> null);
+		streamService.subscribe(null, null, () -> null);
+		
+		// When
+		RequestRejectedException exception = assertThrows(RequestRejectedException.class, 
+				() -> streamService.subscribe(null, null, () -> null));
+		
+		// Then
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getHttpStatus());
+	}
+	
+	private PaymentStreamServiceImpl streamService(final Executor executor) {
+		return new PaymentStreamServiceImpl(properties, executor, objectMapper, meterRegistry) {
+			@Override
+			SseEmitter createEmitter(final long timeoutMillis) {
+				return new RecordingEmitter();
+			}
+		};
+	}
+	
+	private static PaymentChangedEvent event(final PaymentChangedEvent.ChangeType changeType, 
+			final int paymentId, final int orderId) {
+		return new PaymentChangedEvent(changeType, paymentId, orderId, PaymentStatus.COMPLETED, true, Instant.now());
+	}
+	
+	private static final class RecordingEmitter extends SseEmitter {
+		
+		private final List<String> sent = new ArrayList<>();
+		private boolean completed;
+		
+		@Override
+		public void send(final SseEventBuilder builder) throws IOException {
+			builder.build().stream()
+					.map(data -> data.getData().toString())
+					.filter(data -> data.startsWith("{"))
+					.forEach(this.sent::add);
+		}
+		
+		@Override
+		public synchronized void complete() {
+			this.completed = true;
+		}
+		
+	}
+	
+}
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,207 @@
+package com.selimhorri.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.selimhorri.app.config.writebehind.PaymentWriteBehindProperties;
+import com.selimhorri.app.domain.Payment;
+import com.selimhorri.app.domain.PaymentStatus;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.PaymentDto;
+import com.selimhorri.app.event.PaymentChangedEvent;
+import com.selimhorri.app.exception.wrapper.PaymentNotFoundException;
+import com.selimhorri.app.exception.wrapper.RequestRejectedException;
+import com.selimhorri.app.repository.PaymentArchiveRepository;
+import com.selimhorri.app.repository.PaymentRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PaymentWriteBehindServiceImpl Unit Tests")
+class PaymentWriteBehindServiceImplTest {
+	
+	@Mock
+	private PaymentRepository paymentRepository;
+	
+	@Mock
+	private PaymentArchiveRepository paymentArchiveRepository;
+	
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+	
+	@Mock
+	private PlatformTransactionManager transactionManager;
+	
+	private PaymentWriteBehindProperties properties;
+	private SimpleMeterRegistry meterRegistry;
+	
+	@BeforeEach
+	void setUp() {
+		properties = new PaymentWriteBehindProperties();
+		properties.setEnabled(true);
+		properties.setMaxBatchSize(10);
+		properties.setMaxPending(2);
+		meterRegistry = new SimpleMeterRegistry();
+	}
+	
+	@Test
+	@DisplayName("Should write only the last of several buffered updates of a payment, in one transaction")
+	@SuppressWarnings("unchecked")
+	void testFlush_CoalescesUpdates() {
+		// Given
+		PaymentWriteBehindServiceImpl writeBehindService = writeBehindService(Runnable::run);
+		when(paymentRepository.existsById(anyInt())).thenReturn(true);
+		when(paymentRepository.findAllById(anyList())).thenReturn(List.of(stored(1), stored(2)));
+		when(paymentRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+		writeBehindService.update(update(1, PaymentStatus.IN_PROGRESS));
+		writeBehindService.update(update(2, PaymentStatus.IN_PROGRESS));
+		writeBehindService.update(update(1, PaymentStatus.COMPLETED));
+		
+		// When
+		assertEquals(PaymentStatus.COMPLETED, writeBehindService.findPending(1).orElseThrow().getPaymentStatus());
+		writeBehindService.flush();
+		
+		// Then
+		ArgumentCaptor<List<Payment>> captor = ArgumentCaptor.forClass(List.class);
+		verify(paymentRepository).saveAll(captor.capture());
+		assertEquals(List.of(PaymentStatus.COMPLETED, PaymentStatus.IN_PROGRESS), captor.getValue().stream()
+				.map(Payment::getPaymentStatus)
+				.collect(Collectors.toList()));
+		verify(transactionManager, times(1)).commit(any());
+		verify(eventPublisher, times(2)).publishEvent(any(PaymentChangedEvent.class));
+		assertEquals(1.0, meterRegistry.get("payments.buffered.coalesced").counter().count());
+		assertEquals(0, writeBehindService.getPendingCount());
+		assertTrue(writeBehindService.findPending(1).isEmpty());
+	}
+	
+	@Test
+	@DisplayName("Should retry a failed batch one update per transaction, dropping only the bad update")
+	void testFlush_IsolatesFailedUpdate() {
+		// Given
+		PaymentWriteBehindServiceImpl writeBehindService = writeBehindService(Runnable::run);
+		// payment 2 is deleted after its update was accepted
+		when(paymentRepository.existsById(anyInt())).thenReturn(true);
+		when(paymentRepository.findAllById(List.of(1, 2))).thenReturn(List.of(stored(1)));
+		when(paymentRepository.findAllById(List.of(1))).thenReturn(List.of(stored(1)));
+		when(paymentRepository.findAllById(List.of(2))).thenReturn(List.of());
+		when(paymentRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+		writeBehindService.update(update(1, PaymentStatus.COMPLETED));
+		writeBehindService.update(update(2, PaymentStatus.COMPLETED));
+		
+		// When
+		writeBehindService.flush();
+		
+		// Then
+		verify(paymentRepository, times(1)).saveAll(anyList());
+		verify(eventPublisher, times(1)).publishEvent(any(PaymentChangedEvent.class));
+		assertEquals(1.0, meterRegistry.get("payments.buffered.failed").counter().count());
+		assertEquals(0, writeBehindService.getPendingCount());
+	}
+	
+	@Test
+	@DisplayName("Should answer with the committed payment when flush-on-ack is set")
+	void testUpdate_FlushOnAck() {
+		// Given
+		properties.setFlushOnAck(true);
+		properties.setMaxBatchSize(1);
+		PaymentWriteBehindServiceImpl writeBehindService = writeBehindService(Runnable::run);
+		when(paymentRepository.existsById(1)).thenReturn(true, false);
+		when(paymentRepository.findAllById(List.of(1))).thenReturn(List.of(stored(1)));
+		when(paymentRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+		
+		// When
+		PaymentDto updated = writeBehindService.update(update(1, PaymentStatus.COMPLETED));
+		
+		// Then
+		assertEquals(PaymentStatus.COMPLETED, updated.getPaymentStatus());
+		assertEquals(0, writeBehindService.getPendingCount());
+		assertThrows(PaymentNotFoundException.class, () -> writeBehindService.update(update(1, PaymentStatus.IN_PROGRESS)));
+	}
+	
+	@Test
+	@DisplayName("Should reject updates of further payments with 503 when max-pending payments are buffered")
+	void testUpdate_BufferFull() {
+		// Given
+		PaymentWriteBehindServiceImpl writeBehindService = writeBehindService(Runnable::run);
+		when(paymentRepository.existsById(anyInt())).thenReturn(true);
+		writeBehindService.update(update(1, PaymentStatus.IN_PROGRESS));
+		writeBehindService.update(update(2, PaymentStatus.IN_PROGRESS));
+		
+		// When
+		RequestRejectedException exception = assertThrows(RequestRejectedException.class, 
+				() -> writeBehindService.update(update(3, PaymentStatus.IN_PROGRESS)));
+		
+		// Then
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getHttpStatus());
+		writeBehindService.update(update(1, PaymentStatus.COMPLETED));
+		assertEquals(2, writeBehindService.getPendingCount());
+	}
+	
+	@Test
+	@DisplayName("Should reject updates of unknown (404) and archived (400) payments before buffering them")
+	void testUpdate_UnknownOrArchived() {
+		// Given
+		PaymentWriteBehindServiceImpl writeBehindService = writeBehindService(Runnable::run);
+		when(paymentArchiveRepository.existsById(1)).thenReturn(false);
+		when(paymentArchiveRepository.existsById(2)).thenReturn(true);
+		
+		// When
+		PaymentNotFoundException notFound = assertThrows(PaymentNotFoundException.class, 
+				() -> writeBehindService.update(update(1, PaymentStatus.COMPLETED)));
+		IllegalStateException archived = assertThrows(IllegalStateException.class, 
+				() -> writeBehindService.update(update(2, PaymentStatus.COMPLETED)));
+		
+		// Then
+		assertEquals("Payment with id: 1 not found", notFound.getMessage());
+		assertEquals("Payment with id: 2 is archived and can no longer be updated", archived.getMessage());
+		assertEquals(0, writeBehindService.getPendingCount());
+		assertEquals(0.0, meterRegistry.get("payments.buffered.updates").counter().count());
+	}
+	
+	private PaymentWriteBehindServiceImpl writeBehindService(final Executor executor) {
+		return new PaymentWriteBehindServiceImpl(paymentRepository, paymentArchiveRepository, eventPublisher, properties, executor, 
+				transactionManager, meterRegistry);
+	}
+	
+	private static PaymentDto update(final int paymentId, final PaymentStatus paymentStatus) {
+		return PaymentDto.builder()
+				.paymentId(paymentId)
+				.isPayed(paymentStatus == PaymentStatus.COMPLETED)
+				.paymentStatus(paymentStatus)
+				.orderDto(OrderDto.builder().orderId(7).build())
+				.build();
+	}
+	
+	private static Payment stored(final int paymentId) {
+		return Payment.builder()
+				.paymentId(paymentId)
+				.orderId(7)
+				.isPayed(false)
+				.paymentStatus(PaymentStatus.NOT_STARTED)
+				.build();
+	}
+	
+}
+
@@ -0,0 +1,301 @@
+package com.selimhorri.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.selimhorri.app.config.reconciliation.ReconciliationProperties;
+import com.selimhorri.app.domain.DiscrepancyType;
+import com.selimhorri.app.domain.Payment;
+import com.selimhorri.app.domain.PaymentStatus;
+import com.selimhorri.app.domain.ReconciliationChunk;
+import com.selimhorri.app.domain.ReconciliationDiscrepancy;
+import com.selimhorri.app.domain.ReconciliationRun;
+import com.selimhorri.app.domain.ReconciliationRunStatus;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.ReconciliationProgress;
+import com.selimhorri.app.repository.PaymentRepository;
+import com.selimhorri.app.repository.ReconciliationChunkRepository;
+import com.selimhorri.app.repository.ReconciliationDiscrepancyRepository;
+import com.selimhorri.app.repository.ReconciliationLeaseRepository;
+import com.selimhorri.app.repository.ReconciliationRunRepository;
+import com.selimhorri.app.service.OrderService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ReconciliationServiceImpl Unit Tests")
+class ReconciliationServiceImplTest {
+	
+	@Mock
+	private PaymentRepository paymentRepository;
+	
+	@Mock
+	private ReconciliationRunRepository runRepository;
+	
+	@Mock
+	private ReconciliationChunkRepository chunkRepository;
+	
+	@Mock
+	private ReconciliationDiscrepancyRepository discrepancyRepository;
+	
+	@Mock
+	private ReconciliationLeaseRepository leaseRepository;
+	
+	@Mock
+	private OrderService orderService;
+	
+	@Mock
+	private TaskExecutor reconciliationRunExecutor;
+	
+	@Mock
+	private PlatformTransactionManager transactionManager;
+	
+	private ReconciliationProperties properties;
+	private ReconciliationServiceImpl reconciliationService;
+	
+	@BeforeEach
+	void setUp() {
+		properties = new ReconciliationProperties();
+		properties.setChunkSize(3);
+		properties.setParallelism(2);
+		properties.setMaxFailedChunks(10);
+		reconciliationService = new ReconciliationServiceImpl(paymentRepository, runRepository, chunkRepository, 
+				discrepancyRepository, leaseRepository, orderService, properties, new SyncTaskExecutor(), reconciliationRunExecutor, 
+				transactionManager, new SimpleMeterRegistry());
+		when(runRepository.save(any(ReconciliationRun.class))).thenAnswer(invocation -> {
+			ReconciliationRun run = invocation.getArgument(0);
+			if (run.getRunId() == null)
+				run.setRunId(1);
+			return run;
+		});
+		// lenient: a test can stub the lease as held by another instance
+		lenient().when(leaseRepository.claim(eq("reconciliation"), any(), any(), any())).thenReturn(1);
+	}
+	
+	@Test
+	@DisplayName("Should report missing orders and isPayed/status mismatches, checkpointing every chunk")
+	void testReconcile_NewRun() {
+		// Given
+		when(runRepository.findFirstByOrderByRunIdDesc()).thenReturn(Optional.empty());
+		when(paymentRepository.findMaxPaymentId()).thenReturn(4);
+		when(paymentRepository.findByIdRange(0, 3))
+				.thenReturn(List.of(payment(1, 7, true, PaymentStatus.IN_PROGRESS), payment(2, 8, false, PaymentStatus.COMPLETED)));
+		when(paymentRepository.findByIdRange(3, 6))
+				.thenReturn(List.of(payment(3, 7, true, PaymentStatus.COMPLETED), payment(4, 9, false, PaymentStatus.NOT_STARTED)));
+		when(orderService.findById(7)).thenReturn(OrderDto.builder().orderId(7).build());
+		when(orderService.findById(8)).thenReturn(OrderDto.builder().orderId(8).build());
+		when(orderService.findById(9))
+				.thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+		when(chunkRepository.sumPaymentsCheckedByRunId(1)).thenReturn(0L, 4L);
+		when(chunkRepository.sumDiscrepanciesFoundByRunId(1)).thenReturn(0L, 3L);
+		
+		// When
+		ReconciliationProgress progress = reconciliationService.reconcile();
+		
+		// Then
+		assertEquals(ReconciliationRunStatus.COMPLETED, progress.getRunStatus());
+		assertEquals(2, progress.getTotalChunks());
+		assertEquals(2, progress.getCompletedChunks());
+		assertEquals(4L, progress.getPaymentsChecked());
+		assertEquals(3L, progress.getDiscrepanciesFound());
+		assertEquals(List.of(DiscrepancyType.PAYED_NOT_COMPLETED, DiscrepancyType.COMPLETED_NOT_PAYED, 
+				DiscrepancyType.ORDER_NOT_FOUND), savedDiscrepancyTypes());
+		verify(orderService, times(2)).findById(7);
+		verify(chunkRepository, times(2)).save(any(ReconciliationChunk.class));
+		verify(leaseRepository).extend(eq("reconciliation"), any(), any());
+	}
+	
+	@Test
+	@DisplayName("Should resume an unfinished run, skipping checkpointed chunks")
+	void testReconcile_ResumesUnfinishedRun() {
+		// Given
+		ReconciliationRun failed = run(ReconciliationRunStatus.FAILED, 4);
+		when(runRepository.findFirstByOrderByRunIdDesc()).thenReturn(Optional.of(failed));
+		when(chunkRepository.findChunkStartsByRunId(1)).thenReturn(List.of(0));
+		when(paymentRepository.findByIdRange(3, 6)).thenReturn(List.of(payment(4, 7, false, PaymentStatus.NOT_STARTED)));
+		when(orderService.findById(7)).thenReturn(OrderDto.builder().orderId(7).build());
+		when(chunkRepository.sumPaymentsCheckedByRunId(1)).thenReturn(2L, 3L);
+		when(chunkRepository.sumDiscrepanciesFoundByRunId(1)).thenReturn(1L, 1L);
+		
+		// When
+		ReconciliationProgress progress = reconciliationService.reconcile();
+		
+		// Then
+		assertEquals(ReconciliationRunStatus.COMPLETED, progress.getRunStatus());
+		assertEquals(2, progress.getCompletedChunks());
+		assertEquals(3L, progress.getPaymentsChecked());
+		verify(paymentRepository, never()).findByIdRange(0, 3);
+		verify(paymentRepository, never()).findMaxPaymentId();
+		assertEquals(3L, failed.getPaymentsChecked());
+	}
+	
+	@Test
+	@DisplayName("Should not checkpoint a chunk whose order lookups fail, and mark the run FAILED")
+	void testReconcile_OrderServiceUnavailable() {
+		// Given
+		when(runRepository.findFirstByOrderByRunIdDesc()).thenReturn(Optional.empty());
+		when(paymentRepository.findMaxPaymentId()).thenReturn(2);
+		when(paymentRepository.findByIdRange(0, 3)).thenReturn(List.of(payment(1, 7, false, PaymentStatus.NOT_STARTED)));
+		when(orderService.findById(7)).thenThrow(new ResourceAccessException("Connection refused"));
+		
+		// When
+		ReconciliationProgress progress = reconciliationService.reconcile();
+		
+		// Then
+		assertEquals(ReconciliationRunStatus.FAILED, progress.getRunStatus());
+		assertEquals(1, progress.getFailedChunks());
+		assertEquals(0, progress.getCompletedChunks());
+		verify(chunkRepository, never()).save(any(ReconciliationChunk.class));
+		verify(discrepancyRepository, never()).saveAll(any());
+	}
+	
+	@Test
+	@DisplayName("Should stop scheduling chunks after max-failed-chunks failures")
+	void testReconcile_StopsAfterMaxFailedChunks() {
+		// Given
+		properties.setMaxFailedChunks(2);
+		when(runRepository.findFirstByOrderByRunIdDesc()).thenReturn(Optional.empty());
+		when(paymentRepository.findMaxPaymentId()).thenReturn(30);
+		when(paymentRepository.findByIdRange(anyInt(), anyInt())).thenThrow(new IllegalStateException("DB down"));
+		
+		// When
+		ReconciliationProgress progress = reconciliationService.reconcile();
+		
+		// Then
+		assertEquals(ReconciliationRunStatus.FAILED, progress.getRunStatus());
+		assertEquals(11, progress.getTotalChunks());
+		verify(paymentRepository, times(2)).findByIdRange(anyInt(), anyInt());
+	}
+	
+	@Test
+	@DisplayName("Should hand a triggered run to its own executor and report a run it rejects as not started")
+	void testStartReconciliation() {
+		// Given
+		ArgumentCaptor<Runnable> run = ArgumentCaptor.forClass(Runnable.class);
+		
+		// When
+		boolean started = reconciliationService.startReconciliation();
+		verify(reconciliationRunExecutor).execute(run.capture());
+		verify(runRepository, never()).findFirstByOrderByRunIdDesc();
+		run.getValue().run();
+		doThrow(new TaskRejectedException("busy")).when(reconciliationRunExecutor).execute(any(Runnable.class));
+		boolean startedTwice = reconciliationService.startReconciliation();
+		
+		// Then
+		assertTrue(started);
+		assertFalse(startedTwice);
+		assertEquals(ReconciliationRunStatus.COMPLETED, reconciliationService.getProgress().getRunStatus());
+	}
+	
+	@Test
+	@DisplayName("Should ignore a trigger while another instance holds the lease, and resume its run once it expired")
+	void testReconcile_LeaseHeldByAnotherInstance() {
+		// Given
+		ReconciliationRun running = run(ReconciliationRunStatus.RUNNING, 2);
+		when(leaseRepository.claim(eq("reconciliation"), any(), any(), any())).thenReturn(0, 1);
+		when(runRepository.findFirstByOrderByRunIdDesc()).thenReturn(Optional.of(running));
+		when(paymentRepository.findByIdRange(0, 3)).thenReturn(List.of());
+		
+		// When
+		ReconciliationProgress ignored = reconciliationService.reconcile();
+		verify(paymentRepository, never()).findByIdRange(anyInt(), anyInt());
+		ReconciliationProgress resumed = reconciliationService.reconcile();
+		
+		// Then
+		assertEquals(ReconciliationRunStatus.RUNNING, ignored.getRunStatus());
+		assertEquals(ReconciliationRunStatus.COMPLETED, resumed.getRunStatus());
+		verify(chunkRepository).save(any(ReconciliationChunk.class));
+	}
+	
+	@Test
+	@DisplayName("Should stop scheduling chunks and leave the run unfinished once its lease was taken over")
+	void testReconcile_LeaseLost() {
+		// Given
+		properties.setLeaseDuration(Duration.ZERO);
+		when(runRepository.findFirstByOrderByRunIdDesc()).thenReturn(Optional.empty());
+		when(paymentRepository.findMaxPaymentId()).thenReturn(4);
+		when(leaseRepository.extend(eq("reconciliation"), any(), any())).thenReturn(0);
+		
+		// When
+		ReconciliationProgress progress = reconciliationService.reconcile();
+		
+		// Then
+		assertEquals(ReconciliationRunStatus.FAILED, progress.getRunStatus());
+		assertEquals(0, progress.getCompletedChunks());
+		verify(paymentRepository, never()).findByIdRange(anyInt(), anyInt());
+		verify(runRepository, times(1)).save(any(ReconciliationRun.class));
+	}
+	
+	@SuppressWarnings("unchecked")
+	private List<DiscrepancyType> savedDiscrepancyTypes() {
+		ArgumentCaptor<Iterable<ReconciliationDiscrepancy>> captor = ArgumentCaptor.forClass(Iterable.class);
+		verify(discrepancyRepository, times(2)).saveAll(captor.capture());
+		List<ReconciliationDiscrepancy> saved = new ArrayList<>();
+		captor.getAllValues().forEach(batch -> batch.forEach(saved::add));
+		return saved.stream().map(ReconciliationDiscrepancy::getDiscrepancyType).collect(Collectors.toList());
+	}
+	
+	private static Payment payment(final int paymentId, final int orderId, final boolean isPayed, 
+			final PaymentStatus paymentStatus) {
+		return Payment.builder()
+				.paymentId(paymentId)
+				.orderId(orderId)
+				.isPayed(isPayed)
+				.paymentStatus(paymentStatus)
+				.build();
+	}
+	
+	private static ReconciliationRun run(final ReconciliationRunStatus runStatus, final int maxPaymentId) {
+		return ReconciliationRun.builder()
+				.runId(1)
+				.runStatus(runStatus)
+				.maxPaymentId(maxPaymentId)
+				.chunkSize(3)
+				.startedAt(Instant.now())
+				.paymentsChecked(0L)
+				.discrepanciesFound(0L)
+				.build();
+	}
+	
+}
+
+
+
+
+
+
+
+
+